@@ -9,6 +9,7 @@
  */
 package org.openmrs;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -17,6 +18,8 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.envers.Audited;
 import org.hibernate.type.SqlTypes;
@@ -39,6 +42,8 @@ import org.hibernate.type.SqlTypes;
 @Audited
 @Entity
 @Table(name = "care_setting")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 public class CareSetting extends BaseChangeableOpenmrsMetadata {
 	
 	public enum CareSettingType {
@@ -76,6 +76,7 @@ import org.springframework.util.ObjectUtils;
  * @see ConceptMap
  * @see ConceptService
  */
+@Indexed
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Audited
@@ -121,7 +122,10 @@ public class Concept extends BaseOpenmrsObject implements Auditable, Retireable,
 	
 	private Date dateChanged;
 	
+	// names are nested documents so that a name, its locale and its voided flag are matched together
 	@AllowDirectAccess
+	@IndexedEmbedded(structure = ObjectStructure.NESTED, includePaths = { "name", "locale", "voided", "localePreferred",
+	        "conceptNameType" })
 	@AssociationInverseSide(inversePath = @ObjectPath({@PropertyValue(propertyName = "concept")}))
 	private Collection<ConceptName> names;
 	
@@ -10,8 +10,11 @@
 package org.openmrs;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -27,6 +30,8 @@ import jakarta.persistence.Table;
  */
 @Entity
 @Table(name = "concept_map_type")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 @Audited
 public class ConceptMapType extends BaseChangeableOpenmrsMetadata {
 
@@ -41,7 +41,8 @@ public class ConceptName extends BaseOpenmrsObject implements Auditable, Voidabl
 	@DocumentId
 	private Integer conceptNameId;
 	
-	@IndexedEmbedded(includeEmbeddedObjectId = true)
+	@IndexedEmbedded(includeEmbeddedObjectId = true, includePaths = { "conceptId", "retired", "datatype", "conceptClass",
+	        "conceptMappings.conceptReferenceTerm.code" })
 	private Concept concept;
 	
 	@FullTextField(analyzer = SearchAnalysis.NAME_ANALYZER)
@@ -11,12 +11,15 @@ package org.openmrs;
 
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.AttributeOverrides;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 import java.util.Date;
@@ -27,6 +30,8 @@ import java.util.Date;
  */
 @Entity
 @Table(name = "concept_reference_source")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 @AttributeOverrides({
 	@AttributeOverride(name = "name", column = @Column(name = "name", nullable = false, length = 50)),
 	@AttributeOverride(name = "description", column = @Column(name= "description", nullable = false, length = 1024))
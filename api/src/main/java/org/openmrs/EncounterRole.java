@@ -9,6 +9,7 @@
  */
 package org.openmrs;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -16,6 +17,8 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 /**
@@ -26,6 +29,8 @@ import org.hibernate.envers.Audited;
  */
 @Entity
 @Table(name = "encounter_role")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 @BatchSize(size = 25)
 @Audited
 public class EncounterRole extends BaseChangeableOpenmrsMetadata {
@@ -11,6 +11,7 @@ package org.openmrs;
 
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.AttributeOverrides;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -19,6 +20,8 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 /**
@@ -28,6 +31,8 @@ import org.hibernate.envers.Audited;
  */
 @Entity
 @Table(name = "encounter_type")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 @AttributeOverrides({
 	@AttributeOverride(name = "name", column = @Column(name = "name", nullable = false, unique = true, length = 50)),
 	@AttributeOverride(name = "description", column = @Column(name = "description", length = 1024))
@@ -0,0 +1,320 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The structure of a {@link Form} as an immutable tree of its {@link FormField}s, with the form
+ * fields of every concept and the answers of every field, without the entities behind them. A
+ * schema only holds ids and the properties the form fields are sorted by, so it can be cached and
+ * shared between threads and sessions; the entities are looked up by id where they are needed.
+ * <p>
+ * The children of every node are sorted like {@link FormField.DefaultComparator} sorts form fields
+ * and the form fields of a concept are ordered by id.
+ *
+ * @see org.openmrs.api.FormService#getFormSchema(Form)
+ * @since 3.0.0
+ */
+public final class FormSchema implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Comparator<Node> NODE_ORDER = Comparator
+	        .comparing(Node::getSortWeight, Comparator.nullsFirst(Comparator.naturalOrder()))
+	        .thenComparing(Node::getPageNumber, Comparator.nullsFirst(Comparator.naturalOrder()))
+	        .thenComparing(Node::getFieldNumber, Comparator.nullsFirst(Comparator.naturalOrder()))
+	        .thenComparing(Node::getFieldPart, Comparator.nullsFirst(Comparator.naturalOrder()))
+	        .thenComparing(Node::getFieldName, Comparator.nullsFirst(Comparator.naturalOrder()))
+	        .thenComparing(Node::getFormFieldId);
+
+	private final int formId;
+
+	private final long version;
+
+	private final Map<Integer, Node> nodes;
+
+	private final List<Node> roots;
+
+	private final Map<Integer, List<Node>> children;
+
+	private final Map<Integer, List<Node>> nodesByConcept;
+
+	private final Map<Integer, List<Integer>> answersByField;
+
+	private FormSchema(int formId, long version, Map<Integer, Node> nodes, List<Node> roots,
+	    Map<Integer, List<Node>> children, Map<Integer, List<Node>> nodesByConcept,
+	    Map<Integer, List<Integer>> answersByField) {
+		this.formId = formId;
+		this.version = version;
+		this.nodes = nodes;
+		this.roots = roots;
+		this.children = children;
+		this.nodesByConcept = nodesByConcept;
+		this.answersByField = answersByField;
+	}
+
+	public int getFormId() {
+		return formId;
+	}
+
+	/**
+	 * The version changes whenever the form or one of its form fields is saved, it can be used to
+	 * tell whether something derived from an earlier schema of the same form is still up to date
+	 *
+	 * @return the time in milliseconds the form or one of its form fields was last created or
+	 *         changed
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return all form fields of the form ordered by id
+	 */
+	public List<Node> getNodes() {
+		return Collections.unmodifiableList(new ArrayList<>(nodes.values()));
+	}
+
+	/**
+	 * @param formFieldId the id of a form field
+	 * @return the node of the form field, or null if it is not a form field of the form
+	 */
+	public Node getNode(Integer formFieldId) {
+		return nodes.get(formFieldId);
+	}
+
+	/**
+	 * @return the form fields without parent, sorted
+	 */
+	public List<Node> getRoots() {
+		return roots;
+	}
+
+	/**
+	 * @param formFieldId the id of the parent form field
+	 * @return the sorted children of the form field, empty if there are none
+	 */
+	public List<Node> getChildren(Integer formFieldId) {
+		return children.getOrDefault(formFieldId, Collections.emptyList());
+	}
+
+	/**
+	 * @param conceptId the id of the concept
+	 * @return the form fields whose field is of the concept ordered by id, empty if there are none
+	 */
+	public List<Node> getNodesByConcept(Integer conceptId) {
+		return nodesByConcept.getOrDefault(conceptId, Collections.emptyList());
+	}
+
+	/**
+	 * @param fieldId the id of the field
+	 * @return the ids of the answer concepts of the field, empty if there are none
+	 */
+	public List<Integer> getAnswerConceptIds(Integer fieldId) {
+		return answersByField.getOrDefault(fieldId, Collections.emptyList());
+	}
+
+	/**
+	 * A form field of the form, like a {@link FormField}
+	 */
+	public static final class Node implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int formFieldId;
+
+		private final String uuid;
+
+		private final Integer parentId;
+
+		private final int fieldId;
+
+		private final String fieldName;
+
+		private final Integer conceptId;
+
+		private final Integer fieldNumber;
+
+		private final String fieldPart;
+
+		private final Integer pageNumber;
+
+		private final Integer minOccurs;
+
+		private final Integer maxOccurs;
+
+		private final boolean required;
+
+		private final Float sortWeight;
+
+		private Node(int formFieldId, String uuid, Integer parentId, int fieldId, String fieldName, Integer conceptId,
+		    Integer fieldNumber, String fieldPart, Integer pageNumber, Integer minOccurs, Integer maxOccurs,
+		    boolean required, Float sortWeight) {
+			this.formFieldId = formFieldId;
+			this.uuid = uuid;
+			this.parentId = parentId;
+			this.fieldId = fieldId;
+			this.fieldName = fieldName;
+			this.conceptId = conceptId;
+			this.fieldNumber = fieldNumber;
+			this.fieldPart = fieldPart;
+			this.pageNumber = pageNumber;
+			this.minOccurs = minOccurs;
+			this.maxOccurs = maxOccurs;
+			this.required = required;
+			this.sortWeight = sortWeight;
+		}
+
+		public Integer getFormFieldId() {
+			return formFieldId;
+		}
+
+		public String getUuid() {
+			return uuid;
+		}
+
+		/**
+		 * @return the id of the parent form field, null for a root
+		 */
+		public Integer getParentId() {
+			return parentId;
+		}
+
+		public Integer getFieldId() {
+			return fieldId;
+		}
+
+		public String getFieldName() {
+			return fieldName;
+		}
+
+		/**
+		 * @return the id of the concept of the field, null if the field has no concept
+		 */
+		public Integer getConceptId() {
+			return conceptId;
+		}
+
+		public Integer getFieldNumber() {
+			return fieldNumber;
+		}
+
+		public String getFieldPart() {
+			return fieldPart;
+		}
+
+		public Integer getPageNumber() {
+			return pageNumber;
+		}
+
+		public Integer getMinOccurs() {
+			return minOccurs;
+		}
+
+		public Integer getMaxOccurs() {
+			return maxOccurs;
+		}
+
+		public boolean isRequired() {
+			return required;
+		}
+
+		public Float getSortWeight() {
+			return sortWeight;
+		}
+	}
+
+	/**
+	 * Collects the rows of the form field and field answer queries
+	 */
+	public static class Builder {
+
+		private final int formId;
+
+		private long version;
+
+		private final Map<Integer, Node> nodes = new LinkedHashMap<>();
+
+		private final Map<Integer, List<Integer>> answersByField = new HashMap<>();
+
+		/**
+		 * @param formId the id of the form
+		 * @param dateCreated the date the form was created
+		 * @param dateChanged the date the form was last changed, may be null
+		 */
+		public Builder(Integer formId, Date dateCreated, Date dateChanged) {
+			this.formId = formId;
+			updateVersion(dateCreated, dateChanged);
+		}
+
+		/**
+		 * @return this builder
+		 */
+		public Builder addFormField(Integer formFieldId, String uuid, Integer parentId, Integer fieldId, String fieldName,
+		        Integer conceptId, Integer fieldNumber, String fieldPart, Integer pageNumber, Integer minOccurs,
+		        Integer maxOccurs, Boolean required, Float sortWeight, Date dateCreated, Date dateChanged) {
+			nodes.put(formFieldId, new Node(formFieldId, uuid, parentId, fieldId, fieldName, conceptId, fieldNumber,
+			        fieldPart, pageNumber, minOccurs, maxOccurs, Boolean.TRUE.equals(required), sortWeight));
+			updateVersion(dateCreated, dateChanged);
+			return this;
+		}
+
+		/**
+		 * @return this builder
+		 */
+		public Builder addFieldAnswer(Integer fieldId, Integer conceptId) {
+			answersByField.computeIfAbsent(fieldId, id -> new ArrayList<>()).add(conceptId);
+			return this;
+		}
+
+		private void updateVersion(Date dateCreated, Date dateChanged) {
+			if (dateCreated != null) {
+				version = Math.max(version, dateCreated.getTime());
+			}
+			if (dateChanged != null) {
+				version = Math.max(version, dateChanged.getTime());
+			}
+		}
+
+		public FormSchema build() {
+			List<Node> roots = new ArrayList<>();
+			Map<Integer, List<Node>> children = new HashMap<>();
+			Map<Integer, List<Node>> nodesByConcept = new HashMap<>();
+			for (Node node : nodes.values()) {
+				if (node.parentId == null) {
+					roots.add(node);
+				} else {
+					children.computeIfAbsent(node.parentId, id -> new ArrayList<>()).add(node);
+				}
+				if (node.conceptId != null) {
+					nodesByConcept.computeIfAbsent(node.conceptId, id -> new ArrayList<>()).add(node);
+				}
+			}
+			roots.sort(NODE_ORDER);
+			children.values().forEach(list -> list.sort(NODE_ORDER));
+			nodesByConcept.values().forEach(list -> list.sort(Comparator.comparing(Node::getFormFieldId)));
+
+			children.replaceAll((id, list) -> Collections.unmodifiableList(list));
+			nodesByConcept.replaceAll((id, list) -> Collections.unmodifiableList(list));
+			answersByField.replaceAll((id, list) -> Collections.unmodifiableList(list));
+			return new FormSchema(formId, version, Collections.unmodifiableMap(new LinkedHashMap<>(nodes)),
+			        Collections.unmodifiableList(roots), children, nodesByConcept, answersByField);
+		}
+	}
+}
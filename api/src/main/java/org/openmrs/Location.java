@@ -145,6 +145,7 @@ public class Location extends BaseCustomizableMetadata<LocationAttribute> implem
 		name = "location_tag_map",
 		joinColumns = @JoinColumn(name = "location_id"),
 		inverseJoinColumns = @JoinColumn(name = "location_tag_id"))
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 	@Independent
 	private Set<LocationTag> tags;
 	
@@ -10,9 +10,12 @@
 package org.openmrs;
 
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 
 import jakarta.persistence.AttributeOverride;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -29,6 +32,8 @@ import jakarta.persistence.Table;
 @Audited
 @Entity
 @Table(name = "location_tag")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 @AttributeOverride( name = "name", column = @Column(name = "name", nullable = false, length = 50))
 public class LocationTag extends BaseChangeableOpenmrsMetadata {
 	
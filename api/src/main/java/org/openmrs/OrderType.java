@@ -10,6 +10,8 @@
 package org.openmrs;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.envers.Audited;
 import org.openmrs.annotation.Independent;
 import org.openmrs.api.APIException;
@@ -17,6 +19,7 @@ import org.openmrs.api.context.Context;
 
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.AttributeOverrides;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -39,6 +42,8 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "order_type")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 @Audited
 public class OrderType extends BaseChangeableOpenmrsMetadata {
 	
@@ -64,6 +69,7 @@ public class OrderType extends BaseChangeableOpenmrsMetadata {
 	
 	@Independent
 	@ManyToMany
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 	@JoinTable(
 		name = "order_type_class_map", 
 		joinColumns = @JoinColumn(name = "order_type_id"), 
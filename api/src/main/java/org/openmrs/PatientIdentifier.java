@@ -81,7 +81,7 @@ public class PatientIdentifier extends BaseChangeableOpenmrsData implements java
 	@FullTextField(name = "identifierPhrase", analyzer = SearchAnalysis.PHRASE_ANALYZER)
 	@FullTextField(name = "identifierExact", analyzer = SearchAnalysis.EXACT_ANALYZER)
 	@FullTextField(name = "identifierStart", analyzer = SearchAnalysis.START_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
-	@FullTextField(name = "identifierAnywhere", analyzer = SearchAnalysis.ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
+	@FullTextField(name = "identifierAnywhere", analyzer = SearchAnalysis.IDENTIFIER_ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.IDENTIFIER_ANYWHERE_SEARCH_ANALYZER)
 	@KeywordField(name = "identifierExact_sort", sortable = Sortable.YES)
 	@Column(name = "identifier", length = 50, nullable = false)
 	private String identifier;
@@ -11,6 +11,7 @@ package org.openmrs;
 
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.AttributeOverrides;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -21,6 +22,8 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.envers.Audited;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.DocumentId;
@@ -32,6 +35,8 @@ import org.hibernate.type.SqlTypes;
  */
 @Entity
 @Table(name = "patient_identifier_type")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "metadata")
 @Audited
 @AttributeOverrides({
 	@AttributeOverride(name = "name", column = @Column(name = "name", nullable = false, length = 50)),
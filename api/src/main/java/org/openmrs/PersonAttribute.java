@@ -92,7 +92,7 @@ public class PersonAttribute extends BaseChangeableOpenmrsData implements java.i
 	@FullTextField(name="valuePhrase", analyzer = SearchAnalysis.PHRASE_ANALYZER)
 	@FullTextField(name = "valueExact", analyzer = SearchAnalysis.EXACT_ANALYZER)
 	@FullTextField(name = "valueStart", analyzer = SearchAnalysis.START_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
-	@FullTextField(name = "valueAnywhere", analyzer = SearchAnalysis.ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
+	@FullTextField(name = "valueAnywhere", analyzer = SearchAnalysis.ATTRIBUTE_ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.ATTRIBUTE_ANYWHERE_SEARCH_ANALYZER)
 	private String value;
 	
 	/** default constructor */
@@ -67,14 +67,14 @@ public class PersonName extends BaseChangeableOpenmrsData implements java.io.Ser
 	
 	@FullTextField(name = "givenNameExact", analyzer = SearchAnalysis.EXACT_ANALYZER)
 	@FullTextField(name = "givenNameStart", analyzer = SearchAnalysis.START_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
-	@FullTextField(name = "givenNameAnywhere", analyzer = SearchAnalysis.ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
+	@FullTextField(name = "givenNameAnywhere", analyzer = SearchAnalysis.NAME_ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.NAME_ANYWHERE_SEARCH_ANALYZER)
 	@FullTextField(name = "givenNameSoundex", analyzer = SearchAnalysis.SOUNDEX_ANALYZER) 
 	private String givenName;
 	private String prefix;
 	
 	@FullTextField(name = "middleNameExact", analyzer = SearchAnalysis.EXACT_ANALYZER)
 	@FullTextField(name = "middleNameStart", analyzer = SearchAnalysis.START_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
-	@FullTextField(name = "middleNameAnywhere", analyzer = SearchAnalysis.ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
+	@FullTextField(name = "middleNameAnywhere", analyzer = SearchAnalysis.NAME_ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.NAME_ANYWHERE_SEARCH_ANALYZER)
 	@FullTextField(name = "middleNameSoundex", analyzer = SearchAnalysis.SOUNDEX_ANALYZER)
 	private String middleName;
 	
@@ -82,13 +82,13 @@ public class PersonName extends BaseChangeableOpenmrsData implements java.io.Ser
 	
 	@FullTextField(name = "familyNameExact", analyzer = SearchAnalysis.EXACT_ANALYZER)
 	@FullTextField(name = "familyNameStart", analyzer = SearchAnalysis.START_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
-	@FullTextField(name = "familyNameAnywhere", analyzer = SearchAnalysis.ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
+	@FullTextField(name = "familyNameAnywhere", analyzer = SearchAnalysis.NAME_ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.NAME_ANYWHERE_SEARCH_ANALYZER)
 	@FullTextField(name = "familyNameSoundex", analyzer = SearchAnalysis.SOUNDEX_ANALYZER)
 	private String familyName;
 	
 	@FullTextField(name = "familyName2Exact", analyzer = SearchAnalysis.EXACT_ANALYZER)
 	@FullTextField(name = "familyName2Start", analyzer = SearchAnalysis.START_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
-	@FullTextField(name = "familyName2Anywhere", analyzer = SearchAnalysis.ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.EXACT_ANALYZER)
+	@FullTextField(name = "familyName2Anywhere", analyzer = SearchAnalysis.NAME_ANYWHERE_ANALYZER, searchAnalyzer = SearchAnalysis.NAME_ANYWHERE_SEARCH_ANALYZER)
 	@FullTextField(name = "familyName2Soundex", analyzer = SearchAnalysis.SOUNDEX_ANALYZER)
 	private String familyName2;
 	
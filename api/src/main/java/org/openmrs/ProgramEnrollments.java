@@ -0,0 +1,269 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The program enrollments and program states of a set of patients as immutable date intervals keyed
+ * by patient id, without the {@link PatientProgram} and {@link PatientState} entities behind them.
+ * Voided enrollments and states are left out.
+ *
+ * @see org.openmrs.api.ProgramWorkflowService#getProgramEnrollments(Cohort, java.util.Collection)
+ * @since 3.0.0
+ */
+public final class ProgramEnrollments {
+
+	private final Map<Integer, List<Enrollment>> enrollmentsByPatient;
+
+	private ProgramEnrollments(Map<Integer, List<Enrollment>> enrollmentsByPatient) {
+		this.enrollmentsByPatient = enrollmentsByPatient;
+	}
+
+	/**
+	 * @param patientId the patient id
+	 * @return the enrollments of the patient ordered by enrollment date, empty if there are none
+	 */
+	public List<Enrollment> getEnrollments(Integer patientId) {
+		return enrollmentsByPatient.getOrDefault(patientId, Collections.emptyList());
+	}
+
+	/**
+	 * @param patientId the patient id
+	 * @param programUuid the uuid of the program
+	 * @param onDate the date to test, null for now
+	 * @return true if the patient was enrolled in the program on the date
+	 */
+	public boolean isEnrolledInProgram(Integer patientId, String programUuid, Date onDate) {
+		long time = (onDate == null ? new Date() : onDate).getTime();
+		for (Enrollment enrollment : getEnrollments(patientId)) {
+			if (enrollment.programUuid.equals(programUuid) && enrollment.isActive(time)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param patientId the patient id
+	 * @param stateUuid the uuid of the program workflow state
+	 * @param onDate the date to test, null for now
+	 * @return true if the patient was in the state of a program the patient was enrolled in on the
+	 *         date
+	 */
+	public boolean isInProgramState(Integer patientId, String stateUuid, Date onDate) {
+		long time = (onDate == null ? new Date() : onDate).getTime();
+		for (Enrollment enrollment : getEnrollments(patientId)) {
+			if (enrollment.isActive(time)) {
+				for (StateInterval state : enrollment.states) {
+					if (state.stateUuid.equals(stateUuid) && state.isActive(time)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private static long toTime(Date date, long ifNull) {
+		return date == null ? ifNull : date.getTime();
+	}
+
+	private static Date toDate(long time) {
+		return time == Long.MIN_VALUE || time == Long.MAX_VALUE ? null : new Date(time);
+	}
+
+	/**
+	 * The enrollment of a patient in a program, like a {@link PatientProgram}
+	 */
+	public static final class Enrollment {
+
+		private final int patientProgramId;
+
+		private final int patientId;
+
+		private final int programId;
+
+		private final String programUuid;
+
+		private final long dateEnrolled;
+
+		private final long dateCompleted;
+
+		private final List<StateInterval> states;
+
+		private Enrollment(int patientProgramId, int patientId, int programId, String programUuid, long dateEnrolled,
+		    long dateCompleted) {
+			this.patientProgramId = patientProgramId;
+			this.patientId = patientId;
+			this.programId = programId;
+			this.programUuid = programUuid;
+			this.dateEnrolled = dateEnrolled;
+			this.dateCompleted = dateCompleted;
+			this.states = new ArrayList<>();
+		}
+
+		public int getPatientProgramId() {
+			return patientProgramId;
+		}
+
+		public int getPatientId() {
+			return patientId;
+		}
+
+		public int getProgramId() {
+			return programId;
+		}
+
+		public String getProgramUuid() {
+			return programUuid;
+		}
+
+		public Date getDateEnrolled() {
+			return toDate(dateEnrolled);
+		}
+
+		public Date getDateCompleted() {
+			return toDate(dateCompleted);
+		}
+
+		/**
+		 * @return the states of the enrollment ordered by start date
+		 */
+		public List<StateInterval> getStates() {
+			return Collections.unmodifiableList(states);
+		}
+
+		/**
+		 * Same as
+		 * {@link org.openmrs.api.ProgramWorkflowService#getPatientPrograms(Patient, Program, Date, Date, Date, Date, boolean)}
+		 * with the date as maximum enrollment and minimum completion date, so an enrollment without
+		 * enrollment date is never active.
+		 *
+		 * @param onDate the date to test
+		 * @return true if the patient was enrolled on or before the date and completed the program
+		 *         not before the date
+		 */
+		public boolean isActive(Date onDate) {
+			return isActive(onDate.getTime());
+		}
+
+		private boolean isActive(long time) {
+			return dateEnrolled != Long.MAX_VALUE && dateEnrolled <= time && dateCompleted >= time;
+		}
+	}
+
+	/**
+	 * A program workflow state a patient was in, like a {@link PatientState}
+	 */
+	public static final class StateInterval {
+
+		private final int stateId;
+
+		private final String stateUuid;
+
+		private final long startDate;
+
+		private final long endDate;
+
+		private StateInterval(int stateId, String stateUuid, long startDate, long endDate) {
+			this.stateId = stateId;
+			this.stateUuid = stateUuid;
+			this.startDate = startDate;
+			this.endDate = endDate;
+		}
+
+		/**
+		 * @return the id of the {@link ProgramWorkflowState}
+		 */
+		public int getStateId() {
+			return stateId;
+		}
+
+		public String getStateUuid() {
+			return stateUuid;
+		}
+
+		public Date getStartDate() {
+			return toDate(startDate);
+		}
+
+		public Date getEndDate() {
+			return toDate(endDate);
+		}
+
+		/**
+		 * @param onDate the date to test
+		 * @return true if the state was active on the date, like {@link PatientState#getActive(Date)}
+		 */
+		public boolean isActive(Date onDate) {
+			return isActive(onDate.getTime());
+		}
+
+		private boolean isActive(long time) {
+			return startDate <= time && endDate > time;
+		}
+	}
+
+	/**
+	 * Collects the rows of the enrollment and state queries. The enrollments have to be added before
+	 * their states, states of unknown enrollments are ignored.
+	 */
+	public static class Builder {
+
+		private final Map<Integer, Enrollment> enrollments = new LinkedHashMap<>();
+
+		private final Map<String, String> uuids = new HashMap<>();
+
+		/**
+		 * @return this builder
+		 */
+		public Builder addEnrollment(Integer patientProgramId, Integer patientId, Integer programId, String programUuid,
+		        Date dateEnrolled, Date dateCompleted) {
+			enrollments.put(patientProgramId, new Enrollment(patientProgramId, patientId, programId, uuid(programUuid),
+			        toTime(dateEnrolled, Long.MAX_VALUE), toTime(dateCompleted, Long.MAX_VALUE)));
+			return this;
+		}
+
+		/**
+		 * @return this builder
+		 */
+		public Builder addState(Integer patientProgramId, Integer stateId, String stateUuid, Date startDate, Date endDate) {
+			Enrollment enrollment = enrollments.get(patientProgramId);
+			if (enrollment != null) {
+				enrollment.states.add(new StateInterval(stateId, uuid(stateUuid), toTime(startDate, Long.MIN_VALUE),
+				        toTime(endDate, Long.MAX_VALUE)));
+			}
+			return this;
+		}
+
+		/**
+		 * Every row repeats the uuid of the program or state, only one copy is kept
+		 */
+		private String uuid(String uuid) {
+			return uuids.computeIfAbsent(uuid, u -> u);
+		}
+
+		public ProgramEnrollments build() {
+			Map<Integer, List<Enrollment>> enrollmentsByPatient = new HashMap<>();
+			for (Enrollment enrollment : enrollments.values()) {
+				enrollmentsByPatient.computeIfAbsent(enrollment.patientId, id -> new ArrayList<>()).add(enrollment);
+			}
+			enrollmentsByPatient.replaceAll((patientId, list) -> Collections.unmodifiableList(list));
+			return new ProgramEnrollments(enrollmentsByPatient);
+		}
+	}
+}
@@ -21,6 +21,7 @@ import org.openmrs.module.Module;
 import org.openmrs.OpenmrsObject;
 import org.openmrs.User;
 import org.openmrs.annotation.Authorized;
+import org.openmrs.api.cache.CacheStatistics;
 import org.openmrs.api.db.AdministrationDAO;
 import org.openmrs.util.DatabaseUpdateException;
 import org.openmrs.util.HttpClient;
@@ -423,6 +424,18 @@ public interface AdministrationService extends OpenmrsService {
 	 */
 	List<String> getSerializerWhitelistTypes();
 
+	/**
+	 * Reports the statistics of the API caches on this node, such as the caches defined in
+	 * cache-api.yaml files. Hits, misses and evictions are only counted for caches with statistics
+	 * enabled, see {@link org.openmrs.api.cache.CacheConfig}.
+	 *
+	 * @since 3.0.0
+	 * @return the statistics of each cache ordered by cache name
+	 * <strong>Should</strong> return the statistics of all api caches
+	 */
+	@Authorized(PrivilegeConstants.VIEW_ADMIN_FUNCTIONS)
+	List<CacheStatistics> getCacheStatistics();
+
 	/**
 	 * Checks whether a core setup needs to be run due to a version change.
 	 *
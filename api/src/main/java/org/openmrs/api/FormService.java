@@ -20,6 +20,7 @@ import org.openmrs.FieldType;
 import org.openmrs.Form;
 import org.openmrs.FormField;
 import org.openmrs.FormResource;
+import org.openmrs.FormSchema;
 import org.openmrs.annotation.Authorized;
 import org.openmrs.util.PrivilegeConstants;
 
@@ -510,6 +511,24 @@ public interface FormService extends OpenmrsService {
 	public FormField getFormField(Form form, Concept concept, Collection<FormField> ignoreFormFields, boolean force)
 	        throws APIException;
 	
+	/**
+	 * Gets the structure of the form as a tree of form field ids, with the form fields of every
+	 * concept and the answers of every field. The schema is built once per form and cached until the
+	 * form, one of its form fields or a field is saved or purged, so that rendering a form or
+	 * matching observations to form fields does not have to walk the {@link FormField} entities.
+	 *
+	 * @param form the form, only its id is used
+	 * @return the schema of the form, or null if the form is null or not saved
+	 * @throws APIException
+	 * @since 3.0.0
+	 * <strong>Should</strong> build the field tree of the form
+	 * <strong>Should</strong> index the form fields by concept
+	 * <strong>Should</strong> return null for an unsaved form
+	 * <strong>Should</strong> return a new schema after a form field was saved
+	 */
+	@Authorized(PrivilegeConstants.GET_FORMS)
+	public FormSchema getFormSchema(Form form) throws APIException;
+	
 	/**
 	 * Creates or updates the given FormField
 	 * 
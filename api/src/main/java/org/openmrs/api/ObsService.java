@@ -9,6 +9,7 @@
  */
 package org.openmrs.api;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -128,6 +129,27 @@ public interface ObsService extends OpenmrsService {
 	 */
 	@Authorized( { PrivilegeConstants.ADD_OBS, PrivilegeConstants.EDIT_OBS })
 	public Obs saveObs(Obs obs, String changeMessage) throws APIException;
+
+	/**
+	 * Saves the given observations the same way as {@link #saveObs(Obs, String)}, but as one batch.
+	 * The edited observations are found up front, the new rows for all of them are written before
+	 * the originals are voided, and the originals are voided together instead of being fetched
+	 * again one by one, so that the updates can be sent to the database in JDBC batches.
+	 *
+	 * @param observations the observations to save
+	 * @param changeMessage String explaining why the existing observations are being changed,
+	 *            required if any of them has been saved before
+	 * @return the saved observations in the order of the given ones, for an edited observation this
+	 *         is the newly created obs
+	 * @throws APIException
+	 * @since 3.0.0
+	 * <strong>Should</strong> save new and edited obs
+	 * <strong>Should</strong> void the edited obs with changeMessage as the void reason
+	 * <strong>Should</strong> not void obs with no changes
+	 * <strong>Should</strong> require a change message when editing obs
+	 */
+	@Authorized( { PrivilegeConstants.ADD_OBS, PrivilegeConstants.EDIT_OBS })
+	public List<Obs> saveAllObs(Collection<Obs> observations, String changeMessage) throws APIException;
 	
 	/**
 	 * Equivalent to deleting an observation
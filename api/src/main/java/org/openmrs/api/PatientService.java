@@ -555,13 +555,15 @@ public interface PatientService extends OpenmrsService {
 	public void mergePatients(Patient preferred, Patient notPreferred) throws APIException, SerializationException;
 	
 	/**
-	 * Convenience method to join multiple patients' information into one record.
+	 * Convenience method to join multiple patients' information into one record. All patients are
+	 * merged in the same transaction, nothing is merged if any of them can't be merged.
 	 * 
 	 * @param preferred
 	 * @param notPreferred
 	 * @throws APIException
 	 * @throws SerializationException
 	 * <strong>Should</strong> merge all non Preferred patients in the the notPreferred list to preferred patient
+	 * <strong>Should</strong> create a person merge log for each non preferred patient
 	 */
 	public void mergePatients(Patient preferred, List<Patient> notPreferred) throws APIException, SerializationException;
 		
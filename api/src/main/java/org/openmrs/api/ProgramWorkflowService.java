@@ -23,6 +23,7 @@ import org.openmrs.PatientProgram;
 import org.openmrs.PatientProgramAttribute;
 import org.openmrs.PatientState;
 import org.openmrs.Program;
+import org.openmrs.ProgramEnrollments;
 import org.openmrs.ProgramWorkflow;
 import org.openmrs.ProgramWorkflowState;
 import org.openmrs.annotation.Authorized;
@@ -494,6 +495,23 @@ public interface ProgramWorkflowService extends OpenmrsService {
 	 */
 	@Authorized( { PrivilegeConstants.GET_PATIENT_PROGRAMS })
 	public List<PatientProgram> getPatientPrograms(Cohort cohort, Collection<Program> programs);
+	
+	/**
+	 * Gets the enrollments and program states of the patients in the cohort as date intervals,
+	 * without loading the {@link PatientProgram} and {@link org.openmrs.PatientState} entities. Use
+	 * this instead of {@link #getPatientPrograms(Cohort, Collection)} to test many patients for
+	 * enrollments or states, it needs two queries per thousand patients.
+	 * 
+	 * @param cohort the patients to get the enrollments of
+	 * @param programs only enrollments in these programs, null for all programs
+	 * @return the enrollments and states by patient id
+	 * @since 3.0.0
+	 * <strong>Should</strong> return the enrollments and states of the patients in the cohort
+	 * <strong>Should</strong> only return enrollments in the given programs
+	 * <strong>Should</strong> not return voided enrollments
+	 */
+	@Authorized( { PrivilegeConstants.GET_PATIENT_PROGRAMS })
+	public ProgramEnrollments getProgramEnrollments(Cohort cohort, Collection<Program> programs);
 		
 	/**
 	 * Returns a list of Programs that are using a particular concept.
@@ -0,0 +1,32 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import java.util.Map;
+
+/**
+ * Adds a section to {@link AdministrationService#getSystemInformation()}. Providers are found among
+ * the registered components, so layers above the API and modules can report on themselves by
+ * declaring a bean implementing this interface.
+ *
+ * @since 3.0.0
+ */
+public interface SystemInformationProvider {
+
+	/**
+	 * @return the message code of the title of the section
+	 */
+	String getTitle();
+
+	/**
+	 * @return the values of the section by message code or name, the section is left out if empty
+	 */
+	Map<String, String> getSystemInformation();
+}
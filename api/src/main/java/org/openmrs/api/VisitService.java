@@ -393,4 +393,27 @@ public interface VisitService extends OpenmrsService {
 	 */
 	@Authorized(PrivilegeConstants.EDIT_VISITS)
 	public void stopVisits(Date maximumStartDate);
+	
+	/**
+	 * Stops up to batchSize active visits started before or on the specified date which match any of
+	 * the visit types specified by the {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE} global
+	 * property. The ids of the visits are selected with one query, the visits are then loaded and
+	 * saved in chunks, and the session is flushed and cleared after each chunk. Callers stop all
+	 * matching visits by calling this method until it returns 0, each call being its own transaction.
+	 * <p>
+	 * The visits go through the save handlers and the hibernate session, so the interceptors, entity
+	 * event listeners and envers see them, the visit validator is skipped as in
+	 * {@link #stopVisits(Date)}. A {@link VisitsStoppedEvent} is published for each batch.
+	 * 
+	 * @param maximumStartDate Visits started on or before this date time value will get stopped, if
+	 *            null the current date time is used
+	 * @param batchSize the maximum number of visits to stop
+	 * @return the number of visits that were stopped
+	 * @since 3.0.0
+	 * <strong>Should</strong> stop at most batchSize unvoided active visits matching the specified visit types
+	 * <strong>Should</strong> set the changed by and date changed of the stopped visits
+	 * <strong>Should</strong> return zero when there are no visits left to stop
+	 */
+	@Authorized(PrivilegeConstants.EDIT_VISITS)
+	public int stopVisits(Date maximumStartDate, int batchSize);
 }
@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.openmrs.Visit;
+import org.openmrs.api.context.Context;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Raised by {@link VisitService#stopVisits(Date, int)} for every batch of visits it stops, so that
+ * listeners can react to a whole batch at once instead of to every saved visit. Use
+ * {@link #forEachVisit(Consumer)} to handle the visits of the batch one by one. Events are
+ * fired via the spring application event mechanism within the transaction which stopped the visits,
+ * listeners have to implement {@link org.springframework.context.ApplicationListener} with
+ * {@link VisitsStoppedEvent} as the Type parameter value or be annotated with
+ * {@link org.springframework.context.event.EventListener}, and be registered as spring beans.
+ *
+ * @since 3.0.0
+ */
+public class VisitsStoppedEvent extends ApplicationEvent {
+	
+	private final Date stopDate;
+	
+	/**
+	 * @param visitIds the ids of the stopped visits
+	 * @param stopDate the stop date time that was set on the visits
+	 */
+	public VisitsStoppedEvent(List<Integer> visitIds, Date stopDate) {
+		super(Collections.unmodifiableList(visitIds));
+		this.stopDate = stopDate;
+	}
+	
+	/**
+	 * @return the ids of the stopped visits
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Integer> getVisitIds() {
+		return (List<Integer>) getSource();
+	}
+	
+	public Date getStopDate() {
+		return stopDate;
+	}
+	
+	/**
+	 * Loads the stopped visits in the current session and passes them to the given action one at a
+	 * time, in the order of their ids. Visits which no longer exist are skipped.
+	 * 
+	 * @param action the action to perform on each stopped visit
+	 */
+	public void forEachVisit(Consumer<Visit> action) {
+		VisitService visitService = Context.getVisitService();
+		for (Integer visitId : getVisitIds()) {
+			Visit visit = visitService.getVisit(visitId);
+			if (visit != null) {
+				action.accept(visit);
+			}
+		}
+	}
+}
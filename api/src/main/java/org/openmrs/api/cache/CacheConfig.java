@@ -15,15 +15,20 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.CaseUtils;
 import org.infinispan.commons.configuration.io.ConfigurationResourceResolver;
 import org.infinispan.commons.dataconversion.MediaType;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.configuration.parsing.ConfigurationBuilderHolder;
 import org.infinispan.configuration.parsing.ParserRegistry;
 import org.infinispan.manager.DefaultCacheManager;
@@ -36,9 +41,20 @@ import org.jgroups.protocols.TUNNEL;
 import org.jgroups.protocols.UDP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.PropertySource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
@@ -55,6 +71,20 @@ import org.yaml.snakeyaml.Yaml;
  * The file shall contain only the <b>caches</b> element as defined in Infinispan docs at 
  * <a href="https://infinispan.org/docs/13.0.x/titles/configuring/configuring.html#multiple_caches">multiple caches</a> 
  * <p>
+ * The size, expiry and statistics of a cache defined in a cache-api.yaml file can be overridden with the
+ * runtime properties <code>cache.&lt;name&gt;.max_count</code>, <code>cache.&lt;name&gt;.max_size</code>,
+ * <code>cache.&lt;name&gt;.when_full</code>, <code>cache.&lt;name&gt;.lifespan</code>,
+ * <code>cache.&lt;name&gt;.max_idle</code> and <code>cache.&lt;name&gt;.statistics</code>, and statistics can be
+ * switched on for all caches with <code>cache.statistics=true</code>. The statistics are reported by
+ * {@link org.openmrs.api.AdministrationService#getCacheStatistics()}.
+ * <p>
+ * In a cluster <code>cache.near_cache=true</code> adds a near cache to the caches based on the
+ * "entity" template. If the template is a distributed cache, each node keeps the entries it read from
+ * other nodes in a local L1 cache for <code>cache.near_cache_lifespan</code> milliseconds, which the
+ * owners of the entries invalidate when they change. Replicated and invalidation caches are always
+ * read locally and are left as they are. Evictions made by cache annotations within a transaction are
+ * sent to the other nodes once the transaction completed, see {@link CoalescingCache}.
+ * <p>
  * Please note the underlying implementation changed from ehcache to Infinispan since 2.8.x 
  * to support replicated/distributed caches.
  */
@@ -74,6 +104,18 @@ public class CacheConfig {
 	@Value("${cache.api.bind.port:}")
 	private String apiCacheBindPort;
 	
+	@Value("${cache.statistics:false}")
+	private String cacheStatistics;
+	
+	@Value("${cache.near_cache:false}")
+	private String nearCache;
+	
+	@Value("${cache.near_cache_lifespan:60000}")
+	private String nearCacheLifespan;
+	
+	@Autowired(required = false)
+	private PropertySourcesPlaceholderConfigurer placeholderConfigurer;
+	
 	private String jChannelConfig;
 
 	@Bean(name = "apiCacheManager", destroyMethod = "stop")
@@ -106,8 +148,19 @@ public class CacheConfig {
 			JGroupsTransport transport = new JGroupsTransport(jchannel);
 			baseConfigBuilder.getGlobalConfigurationBuilder().transport().clusterName("infinispan-api-cluster").transport(transport);
 		}
+		ConfigurationBuilder entityBuilder = baseConfigBuilder.getNamedConfigurationBuilders().get("entity");
+		if (isNearCache()) {
+			if (entityBuilder.clustering().cacheMode().isDistributed()) {
+				// caches using the template are parsed below and inherit the L1 configuration
+				entityBuilder.clustering().l1().enable().lifespan(Long.parseLong(nearCacheLifespan.trim()));
+				log.info("Enabled a near cache with a lifespan of {} ms for the API caches", nearCacheLifespan.trim());
+			} else {
+				log.info("The API caches are read locally in {} mode and need no near cache",
+				    entityBuilder.clustering().cacheMode());
+			}
+		}
 		// Determine cache type based on loaded template for "entity"
-		String cacheType = baseConfigBuilder.getNamedConfigurationBuilders().get("entity").build().elementName();
+		String cacheType = entityBuilder.build().elementName();
 		cacheType = StringUtils.removeEnd(cacheType, "-configuration");
 		cacheType = CaseUtils.toCamelCase(cacheType, false, '-');
 
@@ -121,16 +174,43 @@ public class CacheConfig {
 			// and add the 'infinispan.cacheContainer.caches' parent.
 			// Skip already defined caches.
 			InputStream fullConfig = buildFullConfig(yaml, configFile,
-				baseConfigBuilder.getNamedConfigurationBuilders().keySet(), cacheType);
+				baseConfigBuilder.getNamedConfigurationBuilders().keySet(), cacheType, this::getProperty);
 			parser.parse(fullConfig, baseConfigBuilder, ConfigurationResourceResolver.DEFAULT,
 				MediaType.APPLICATION_YAML);
 		}
 
+		if (Boolean.parseBoolean(cacheStatistics.trim())) {
+			baseConfigBuilder.getGlobalConfigurationBuilder().cacheContainer().statistics(true);
+		}
+
 		DefaultCacheManager cacheManager = new DefaultCacheManager(baseConfigBuilder, true);
 		return new SpringEmbeddedCacheManager(cacheManager);
 	}
 
-	private static InputStream buildFullConfig(Yaml yaml, URL configFile, Set<String> skipCaches, String cacheType) throws IOException {
+	/**
+	 * Makes the cache annotations coalesce the evictions made within a transaction if the near cache is
+	 * enabled in a cluster, see {@link CoalescingCache}.
+	 * 
+	 * @param apiCacheManager the cache manager of the API caches
+	 * @return the caching configurer
+	 */
+	@Bean
+	public CachingConfigurer apiCachingConfigurer(@Lazy @Qualifier("apiCacheManager") CacheManager apiCacheManager) {
+		return new CachingConfigurer() {
+			
+			@Override
+			public CacheResolver cacheResolver() {
+				return isNearCache() ? new CoalescingCacheResolver(apiCacheManager) : null;
+			}
+		};
+	}
+
+	private boolean isNearCache() {
+		return "cluster".equals(cacheType.trim()) && Boolean.parseBoolean(nearCache.trim());
+	}
+
+	private static InputStream buildFullConfig(Yaml yaml, URL configFile, Set<String> skipCaches, String cacheType,
+			Function<String, String> properties) throws IOException {
 		Map<String, Object> loadedConfig = yaml.load(configFile.openStream());
 
 		Map<String, Object> config = new LinkedHashMap<>();
@@ -145,6 +225,7 @@ public class CacheConfig {
 		for (Map.Entry<String, Object> entry : loadedCaches.entrySet()) {
 			@SuppressWarnings("unchecked")
 			Map<String, Object> value = (Map<String, Object>) entry.getValue();
+			applyOverrides(entry.getKey(), value, properties);
 			if ("entity".equals(value.get("configuration"))) {
 				Map<Object, Object> cache = new LinkedHashMap<>();
 				cache.put(cacheType, value);
@@ -165,6 +246,96 @@ public class CacheConfig {
 		return new ByteArrayInputStream(configDump.getBytes(StandardCharsets.UTF_8));
 	}
 
+	/**
+	 * Applies the runtime properties overriding the configuration of a cache.
+	 * 
+	 * @param cacheName the name of the cache
+	 * @param cache the configuration of the cache as loaded from cache-api.yaml, either based on the
+	 *            "entity" template or a single element naming the cache type
+	 * @param properties looks up runtime properties
+	 */
+	static void applyOverrides(String cacheName, Map<String, Object> cache, Function<String, String> properties) {
+		Map<String, Object> attributes = cache;
+		if (!cache.containsKey("configuration") && cache.size() == 1) {
+			Object typed = cache.values().iterator().next();
+			if (typed instanceof Map) {
+				@SuppressWarnings("unchecked")
+				Map<String, Object> typedAttributes = (Map<String, Object>) typed;
+				attributes = typedAttributes;
+			}
+		}
+
+		String prefix = "cache." + cacheName + ".";
+		setOverride(attributes, "memory", "maxCount", properties.apply(prefix + "max_count"));
+		setOverride(attributes, "memory", "maxSize", properties.apply(prefix + "max_size"));
+		setOverride(attributes, "memory", "whenFull", properties.apply(prefix + "when_full"));
+		setOverride(attributes, "expiration", "lifespan", properties.apply(prefix + "lifespan"));
+		setOverride(attributes, "expiration", "maxIdle", properties.apply(prefix + "max_idle"));
+
+		String statistics = properties.apply(prefix + "statistics");
+		if (StringUtils.isBlank(statistics) && Boolean.parseBoolean(StringUtils.trim(properties.apply("cache.statistics")))) {
+			statistics = "true";
+		}
+		if (StringUtils.isNotBlank(statistics)) {
+			attributes.put("statistics", Boolean.parseBoolean(statistics.trim()));
+		}
+	}
+
+	private static void setOverride(Map<String, Object> attributes, String element, String attribute, String value) {
+		if (StringUtils.isBlank(value)) {
+			return;
+		}
+		Object existing = attributes.get(element);
+		Map<String, Object> elementAttributes;
+		if (existing instanceof Map) {
+			@SuppressWarnings("unchecked")
+			Map<String, Object> existingAttributes = (Map<String, Object>) existing;
+			elementAttributes = existingAttributes;
+		} else {
+			elementAttributes = new LinkedHashMap<>();
+			attributes.put(element, elementAttributes);
+		}
+		String trimmed = value.trim();
+		elementAttributes.put(attribute, StringUtils.isNumeric(trimmed) ? (Object) Long.valueOf(trimmed) : trimmed);
+	}
+
+	/**
+	 * Resolves the caches named by cache annotations as {@link CoalescingCache}s
+	 */
+	private static class CoalescingCacheResolver extends SimpleCacheResolver {
+		
+		private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+		
+		CoalescingCacheResolver(CacheManager cacheManager) {
+			super(cacheManager);
+		}
+		
+		@Override
+		public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+			return super.resolveCaches(context).stream()
+			        .map(cache -> caches.computeIfAbsent(cache.getName(), name -> new CoalescingCache(cache)))
+			        .collect(Collectors.toList());
+		}
+	}
+
+	private String getProperty(String name) {
+		if (placeholderConfigurer == null) {
+			return null;
+		}
+		try {
+			for (PropertySource<?> source : placeholderConfigurer.getAppliedPropertySources()) {
+				Object value = source.getProperty(name);
+				if (value != null) {
+					return value.toString();
+				}
+			}
+		}
+		catch (IllegalStateException e) {
+			log.debug("The property sources are not available yet to look up {}", name);
+		}
+		return null;
+	}
+
 	public List<URL> getCacheConfigurations() {
 		Resource[] configResources;
 		try {
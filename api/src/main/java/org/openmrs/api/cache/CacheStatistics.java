@@ -0,0 +1,121 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.io.Serializable;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.context.Flag;
+import org.infinispan.stats.Stats;
+import org.springframework.cache.Cache;
+
+/**
+ * The statistics of one of the API caches on the local node, see
+ * {@link org.openmrs.api.AdministrationService#getCacheStatistics()}. Hits, misses and evictions are
+ * only counted if statistics are enabled for the cache, see {@link CacheConfig}, and are -1
+ * otherwise.
+ *
+ * @since 3.0.0
+ */
+public class CacheStatistics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String name;
+
+	private final boolean statisticsEnabled;
+
+	private final long hits;
+
+	private final long misses;
+
+	private final long evictions;
+
+	private final long size;
+
+	public CacheStatistics(String name, boolean statisticsEnabled, long hits, long misses, long evictions, long size) {
+		this.name = name;
+		this.statisticsEnabled = statisticsEnabled;
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.size = size;
+	}
+
+	/**
+	 * Reads the statistics of a cache
+	 *
+	 * @param cache a cache of the API cache manager
+	 * @return the statistics of the cache
+	 */
+	public static CacheStatistics of(Cache cache) {
+		Object nativeCache = cache.getNativeCache();
+		if (!(nativeCache instanceof org.infinispan.Cache)) {
+			return new CacheStatistics(cache.getName(), false, -1, -1, -1, -1);
+		}
+		AdvancedCache<?, ?> advancedCache = ((org.infinispan.Cache<?, ?>) nativeCache).getAdvancedCache();
+		long size = advancedCache.withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_LOAD).size();
+		if (!advancedCache.getCacheConfiguration().statistics().enabled()) {
+			return new CacheStatistics(cache.getName(), false, -1, -1, -1, size);
+		}
+		Stats stats = advancedCache.getStats();
+		return new CacheStatistics(cache.getName(), true, stats.getHits(), stats.getMisses(), stats.getEvictions(), size);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isStatisticsEnabled() {
+		return statisticsEnabled;
+	}
+
+	/**
+	 * @return the number of reads answered from the cache
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of reads that found nothing cached
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return hits divided by all reads, or 0 if nothing has been read or counted
+	 */
+	public double getHitRatio() {
+		long reads = hits + misses;
+		return !statisticsEnabled || reads == 0 ? 0.0 : (double) hits / reads;
+	}
+
+	/**
+	 * @return the number of entries removed because the cache reached its maximum size
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the number of entries held on the local node
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStatistics[name=" + name + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+		        + ", size=" + size + "]";
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.openmrs.api.context.Context;
+import org.openmrs.api.context.Daemon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms up the caches once OpenMRS started by running all registered {@link CacheWarmUpProvider}s,
+ * each in its own daemon thread. Startup does not wait for the warm-up, requests are served while
+ * the caches are being filled. The time each provider and the whole warm-up took is logged and can
+ * be read from {@link #getDurations()} and {@link #getDuration()}.
+ * <p>
+ * The warm-up can be switched off with the runtime property {@value #ENABLED_PROPERTY}=false.
+ *
+ * @since 3.0.0
+ */
+@Component("cacheWarmUp")
+public class CacheWarmUp {
+
+	private static final Logger log = LoggerFactory.getLogger(CacheWarmUp.class);
+
+	public static final String ENABLED_PROPERTY = "cache.warm_up";
+
+	private final Map<String, Long> durations = Collections.synchronizedMap(new LinkedHashMap<>());
+
+	private volatile CompletableFuture<Void> warmUp = CompletableFuture.completedFuture(null);
+
+	private volatile long duration = -1;
+
+	/**
+	 * Starts the warm-up unless it is switched off or already running
+	 *
+	 * @return completes once all providers are done
+	 */
+	public synchronized CompletableFuture<Void> start() {
+		if (!warmUp.isDone()) {
+			return warmUp;
+		}
+		if (!Boolean.parseBoolean(Context.getRuntimeProperties().getProperty(ENABLED_PROPERTY, "true"))) {
+			log.debug("The cache warm-up is switched off");
+			return warmUp;
+		}
+
+		List<CacheWarmUpProvider> providers = new ArrayList<>(Context.getRegisteredComponents(CacheWarmUpProvider.class));
+		AnnotationAwareOrderComparator.sort(providers);
+		durations.clear();
+		duration = -1;
+		long start = System.nanoTime();
+
+		List<CompletableFuture<Void>> futures = new ArrayList<>(providers.size());
+		for (CacheWarmUpProvider provider : providers) {
+			CompletableFuture<Void> future = new CompletableFuture<>();
+			futures.add(future);
+			try {
+				Daemon.runCacheWarmUp(() -> {
+					try {
+						warmUp(provider);
+					}
+					finally {
+						future.complete(null);
+					}
+				});
+			}
+			catch (RuntimeException e) {
+				log.warn("Failed to start the warm-up of the caches with {}", provider.getName(), e);
+				future.complete(null);
+			}
+		}
+
+		warmUp = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((result, e) -> {
+			duration = (System.nanoTime() - start) / 1000000;
+			log.info("Warmed up the caches with {} providers in {} ms", providers.size(), duration);
+		});
+		return warmUp;
+	}
+
+	private void warmUp(CacheWarmUpProvider provider) {
+		long start = System.nanoTime();
+		try {
+			provider.warmUp();
+			long millis = (System.nanoTime() - start) / 1000000;
+			durations.put(provider.getName(), millis);
+			log.debug("Warmed up the caches with {} in {} ms", provider.getName(), millis);
+		}
+		catch (Exception e) {
+			log.warn("Failed to warm up the caches with {}", provider.getName(), e);
+		}
+	}
+
+	/**
+	 * @return true if no warm-up is running
+	 */
+	public boolean isDone() {
+		return warmUp.isDone();
+	}
+
+	/**
+	 * @return the milliseconds the last warm-up took, or -1 if none completed
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return the milliseconds each provider of the last warm-up took by provider name, failed
+	 *         providers are left out
+	 */
+	public Map<String, Long> getDurations() {
+		synchronized (durations) {
+			return new LinkedHashMap<>(durations);
+		}
+	}
+}
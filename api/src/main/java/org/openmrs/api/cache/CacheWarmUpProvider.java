@@ -0,0 +1,35 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+/**
+ * Loads data into the caches after startup, so that the first requests do not find them empty.
+ * Providers are found among the registered components, so modules can add their own by declaring a
+ * bean implementing this interface. See {@link CacheWarmUp} for how they are run.
+ *
+ * @since 3.0.0
+ */
+public interface CacheWarmUpProvider {
+
+	/**
+	 * @return the name used when reporting the warm-up of this provider
+	 */
+	default String getName() {
+		return getClass().getSimpleName();
+	}
+
+	/**
+	 * Loads the data to cache. It is called in a daemon thread with its own session, in parallel to
+	 * the other providers and to requests already being served.
+	 *
+	 * @throws Exception if loading the data fails, which is logged and does not stop other providers
+	 */
+	void warmUp() throws Exception;
+}
@@ -0,0 +1,225 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.context.Flag;
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Decorates a clustered cache so that repeated evictions made within a transaction are sent to the
+ * other nodes once, when the transaction completed, instead of one message per eviction. Saving a
+ * list of global properties for instance clears the userSearchLocales cache for every property
+ * saved.
+ * <p>
+ * Within a transaction the first eviction of a key and the first clear of the cache are applied
+ * cluster wide right away, so that no node reads the evicted values any more. Repeating them only
+ * removes the values from the local node, as the values may have been cached again in the
+ * meantime, and is applied cluster wide once after the transaction completed, a clear replacing
+ * all evictions of the same cache. Outside of a transaction, and for caches that are no Infinispan
+ * caches, evictions are applied as is.
+ * <p>
+ * Only the caches resolved for cache annotations are decorated, evictions made on the caches of
+ * the cache manager directly are not coalesced.
+ *
+ * @since 3.0.0
+ * @see CacheConfig
+ */
+class CoalescingCache implements Cache {
+
+	private static final Object PENDING_EVICTIONS_KEY = new Object();
+
+	private final Cache delegate;
+
+	CoalescingCache(Cache delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return delegate.getNativeCache();
+	}
+
+	@Override
+	public ValueWrapper get(Object key) {
+		return delegate.get(key);
+	}
+
+	@Override
+	public <T> T get(Object key, Class<T> type) {
+		return delegate.get(key, type);
+	}
+
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return delegate.get(key, valueLoader);
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		delegate.put(key, value);
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		return delegate.putIfAbsent(key, value);
+	}
+
+	@Override
+	public void evict(Object key) {
+		PendingEvictions pending = getPendingEvictions();
+		if (pending == null || !pending.isEvicted(delegate, key)) {
+			delegate.evict(key);
+			if (pending != null) {
+				pending.evicted(delegate, key);
+			}
+			return;
+		}
+		AdvancedCache<Object, Object> localCache = getLocalCache();
+		if (localCache == null) {
+			delegate.evict(key);
+			return;
+		}
+		localCache.remove(key);
+		pending.evict(delegate, key);
+	}
+
+	@Override
+	public boolean evictIfPresent(Object key) {
+		return delegate.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		PendingEvictions pending = getPendingEvictions();
+		if (pending == null || !pending.isCleared(delegate)) {
+			delegate.clear();
+			if (pending != null) {
+				pending.cleared(delegate);
+			}
+			return;
+		}
+		AdvancedCache<Object, Object> localCache = getLocalCache();
+		if (localCache == null) {
+			delegate.clear();
+			return;
+		}
+		localCache.clear();
+		pending.clear(delegate);
+	}
+
+	@Override
+	public boolean invalidate() {
+		return delegate.invalidate();
+	}
+
+	/**
+	 * @return the native cache restricted to the local node, or null if it is no Infinispan cache
+	 */
+	@SuppressWarnings("unchecked")
+	private AdvancedCache<Object, Object> getLocalCache() {
+		Object nativeCache = delegate.getNativeCache();
+		if (nativeCache instanceof org.infinispan.Cache) {
+			return ((org.infinispan.Cache<Object, Object>) nativeCache).getAdvancedCache().withFlags(
+			    Flag.CACHE_MODE_LOCAL);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the evictions of the current transaction, or null if there is no transaction
+	 */
+	private static PendingEvictions getPendingEvictions() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		PendingEvictions pending = (PendingEvictions) TransactionSynchronizationManager.getResource(
+		    PENDING_EVICTIONS_KEY);
+		if (pending == null) {
+			pending = new PendingEvictions();
+			TransactionSynchronizationManager.bindResource(PENDING_EVICTIONS_KEY, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		return pending;
+	}
+
+	/**
+	 * The evictions made within a transaction by cache, the repeated ones applied once the transaction
+	 * completed
+	 */
+	private static final class PendingEvictions implements TransactionSynchronization {
+
+		private final Map<String, Set<Object>> evictedKeys = new LinkedHashMap<>();
+
+		private final Set<String> clearedCaches = new LinkedHashSet<>();
+
+		private final Map<String, Cache> caches = new LinkedHashMap<>();
+
+		private final Map<String, Set<Object>> keys = new LinkedHashMap<>();
+
+		private final Set<String> cleared = new LinkedHashSet<>();
+
+		boolean isEvicted(Cache cache, Object key) {
+			return clearedCaches.contains(cache.getName())
+			        || evictedKeys.getOrDefault(cache.getName(), Set.of()).contains(key);
+		}
+
+		void evicted(Cache cache, Object key) {
+			evictedKeys.computeIfAbsent(cache.getName(), name -> new LinkedHashSet<>()).add(key);
+		}
+
+		boolean isCleared(Cache cache) {
+			return clearedCaches.contains(cache.getName());
+		}
+
+		void cleared(Cache cache) {
+			clearedCaches.add(cache.getName());
+		}
+
+		void evict(Cache cache, Object key) {
+			caches.putIfAbsent(cache.getName(), cache);
+			if (!cleared.contains(cache.getName())) {
+				keys.computeIfAbsent(cache.getName(), name -> new LinkedHashSet<>()).add(key);
+			}
+		}
+
+		void clear(Cache cache) {
+			caches.putIfAbsent(cache.getName(), cache);
+			cleared.add(cache.getName());
+			keys.remove(cache.getName());
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_EVICTIONS_KEY);
+			for (Map.Entry<String, Cache> entry : caches.entrySet()) {
+				Cache cache = entry.getValue();
+				if (cleared.contains(entry.getKey())) {
+					cache.clear();
+				} else {
+					keys.getOrDefault(entry.getKey(), Set.of()).forEach(cache::evict);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.infinispan.stats.Stats;
+import org.openmrs.ConceptReferenceTerm;
+import org.openmrs.ConceptSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Gives access to the cache behind {@link org.openmrs.api.ConceptService#getConceptIdsByMapping(String,
+ * String, boolean)}. Lookups are cached under the lower case code and source name, see
+ * {@link #key(String, String, boolean)}, so the entries affected by a changed mapping can be evicted
+ * one by one instead of clearing the whole cache. A term can be looked up by the name or the hl7 code
+ * of its source, with or without retired concepts, which gives up to four keys per term.
+ * <p>
+ * Hit and miss counts are taken from the Infinispan statistics of the cache, which are enabled in
+ * cache-api.yaml. In a cluster all numbers are those of the local node.
+ *
+ * @since 3.0.0
+ */
+@Component("conceptIdsByMappingCache")
+public class ConceptIdsByMappingCache {
+
+	public static final String CACHE_NAME = "conceptIdsByMapping";
+
+	private final CacheManager cacheManager;
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder clears = new LongAdder();
+
+	@Autowired
+	public ConceptIdsByMappingCache(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	/**
+	 * @param code the code of the reference term
+	 * @param sourceName the name or hl7 code of the concept source
+	 * @param includeRetired whether retired concepts are included
+	 * @return the key a lookup with the given arguments is cached under
+	 */
+	public static SimpleKey key(String code, String sourceName, boolean includeRetired) {
+		return new SimpleKey(StringUtils.lowerCase(code), StringUtils.lowerCase(sourceName), includeRetired);
+	}
+
+	/**
+	 * Adds all keys under which lookups of the given code and source can be cached
+	 *
+	 * @param keys the keys to add to
+	 * @param code the code of the reference term
+	 * @param sourceName the name of the concept source
+	 * @param sourceHl7Code the hl7 code of the concept source, may be null
+	 */
+	public static void addKeys(Set<Object> keys, String code, String sourceName, String sourceHl7Code) {
+		if (code == null) {
+			return;
+		}
+		for (boolean includeRetired : new boolean[] { true, false }) {
+			if (sourceName != null) {
+				keys.add(key(code, sourceName, includeRetired));
+			}
+			if (sourceHl7Code != null) {
+				keys.add(key(code, sourceHl7Code, includeRetired));
+			}
+		}
+	}
+
+	/**
+	 * Adds all keys under which lookups of the given term can be cached, using its current state
+	 *
+	 * @param keys the keys to add to
+	 * @param term the reference term, may be null
+	 */
+	public static void addKeys(Set<Object> keys, ConceptReferenceTerm term) {
+		if (term == null || term.getConceptSource() == null) {
+			return;
+		}
+		ConceptSource source = term.getConceptSource();
+		addKeys(keys, term.getCode(), source.getName(), source.getHl7Code());
+	}
+
+	/**
+	 * Evicts the given keys. When called within a transaction the keys are evicted again once the
+	 * transaction completed, so that lookups made by other threads before the commit (or lookups of
+	 * uncommitted data made by this thread before a rollback) do not stay cached.
+	 *
+	 * @param keys the keys to evict
+	 */
+	public void evict(Set<Object> keys) {
+		if (keys.isEmpty()) {
+			return;
+		}
+		Cache cache = getCache();
+		evict(cache, keys);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					evict(cache, keys);
+				}
+			});
+		}
+	}
+
+	private void evict(Cache cache, Set<Object> keys) {
+		for (Object key : keys) {
+			cache.evict(key);
+		}
+		evictions.add(keys.size());
+	}
+
+	/**
+	 * Removes all entries, to be used when a change affects an unknown number of mappings
+	 */
+	public void clear() {
+		getCache().clear();
+		clears.increment();
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	public long getHits() {
+		Stats stats = getStats();
+		return stats == null ? 0 : stats.getHits();
+	}
+
+	/**
+	 * @return the number of lookups that had to go to the database
+	 */
+	public long getMisses() {
+		Stats stats = getStats();
+		return stats == null ? 0 : stats.getMisses();
+	}
+
+	/**
+	 * @return hits divided by all lookups, or 0 if nothing has been looked up yet
+	 */
+	public double getHitRatio() {
+		long hits = getHits();
+		long lookups = hits + getMisses();
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	/**
+	 * @return the number of keys evicted because of changed mappings, whether or not they were cached
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the number of entries removed because the cache reached its maximum size
+	 */
+	public long getSizeEvictions() {
+		Stats stats = getStats();
+		return stats == null ? 0 : stats.getEvictions();
+	}
+
+	/**
+	 * @return the number of times the whole cache was cleared
+	 */
+	public long getClears() {
+		return clears.sum();
+	}
+
+	private Stats getStats() {
+		Object nativeCache = getCache().getNativeCache();
+		if (nativeCache instanceof org.infinispan.Cache) {
+			return ((org.infinispan.Cache<?, ?>) nativeCache).getAdvancedCache().getStats();
+		}
+		return null;
+	}
+
+	private Cache getCache() {
+		Cache cache = cacheManager.getCache(CACHE_NAME);
+		if (cache == null) {
+			throw new IllegalStateException("The " + CACHE_NAME + " cache is not configured");
+		}
+		return cache;
+	}
+
+	@Override
+	public String toString() {
+		return "ConceptIdsByMappingCache[hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+		        + ", sizeEvictions=" + getSizeEvictions() + ", clears=" + getClears() + "]";
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Gives access to the cache behind {@link org.openmrs.api.FormService#getFormSchema(org.openmrs.Form)},
+ * where the schemas are cached under the form id. Like in {@link ConceptIdsByMappingCache} evictions
+ * made within a transaction are repeated once the transaction completed, so that a schema built by
+ * another thread before the commit does not stay cached.
+ *
+ * @since 3.0.0
+ */
+@Component("formSchemaCache")
+public class FormSchemaCache {
+
+	public static final String CACHE_NAME = "formSchemas";
+
+	private final CacheManager cacheManager;
+
+	@Autowired
+	public FormSchemaCache(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	/**
+	 * Evicts the schema of the form with the given id
+	 *
+	 * @param formId the id of the form, nothing is evicted if null
+	 */
+	public void evict(Integer formId) {
+		if (formId == null) {
+			return;
+		}
+		Cache cache = getCache();
+		cache.evict(formId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					cache.evict(formId);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Removes all schemas, to be used when a change can affect any number of forms like a changed
+	 * field
+	 */
+	public void clear() {
+		Cache cache = getCache();
+		cache.clear();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					cache.clear();
+				}
+			});
+		}
+	}
+
+	private Cache getCache() {
+		Cache cache = cacheManager.getCache(CACHE_NAME);
+		if (cache == null) {
+			throw new IllegalStateException("The " + CACHE_NAME + " cache is not configured");
+		}
+		return cache;
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caches the unread alerts of each user as an {@link Inbox} under the user id, so that the alerts a
+ * user has not read yet can be counted and listed without querying the database on every page
+ * load. An inbox keeps the dates the alerts expire, the expired ones are left out when it is read
+ * instead of being filtered by the query building it.
+ * <p>
+ * The inboxes of the recipients are evicted when an alert is saved or purged, which also covers
+ * alerts being marked as read. Like in {@link ConceptIdsByMappingCache} evictions made within a
+ * transaction are repeated once the transaction completed, and in a cluster they are propagated to
+ * the other nodes by the cache.
+ *
+ * @since 3.0.0
+ */
+@Component("unreadAlertCache")
+public class UnreadAlertCache {
+
+	public static final String CACHE_NAME = "unreadAlerts";
+
+	private final CacheManager cacheManager;
+
+	@Autowired
+	public UnreadAlertCache(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	/**
+	 * Gets the inbox of a user, loading it if it is not cached
+	 *
+	 * @param userId the id of the user
+	 * @param loader builds the inbox from the database
+	 * @return the inbox of the user
+	 */
+	public Inbox get(Integer userId, Callable<Inbox> loader) {
+		return getCache().get(userId, loader);
+	}
+
+	/**
+	 * Evicts the inboxes of the users with the given ids
+	 *
+	 * @param userIds the ids of the users, null values are ignored
+	 */
+	public void evict(Iterable<Integer> userIds) {
+		Cache cache = getCache();
+		List<Integer> evicted = new ArrayList<>();
+		for (Integer userId : userIds) {
+			if (userId != null) {
+				cache.evict(userId);
+				evicted.add(userId);
+			}
+		}
+		if (!evicted.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					evicted.forEach(cache::evict);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Removes all inboxes, to be used when the previous recipients of an alert are not known
+	 */
+	public void clear() {
+		Cache cache = getCache();
+		cache.clear();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(int status) {
+					cache.clear();
+				}
+			});
+		}
+	}
+
+	private Cache getCache() {
+		Cache cache = cacheManager.getCache(CACHE_NAME);
+		if (cache == null) {
+			throw new IllegalStateException("The " + CACHE_NAME + " cache is not configured");
+		}
+		return cache;
+	}
+
+	/**
+	 * The ids of the alerts a user has not read yet together with the times they expire. The expiry
+	 * times are also kept sorted, so that counting the alerts that have not expired is a binary search.
+	 */
+	public static final class Inbox implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final long NEVER = Long.MAX_VALUE;
+
+		private final int[] alertIds;
+
+		private final long[] expiries;
+
+		private final long[] sortedExpiries;
+
+		/**
+		 * @param expiryDates the dates the unread alerts expire by alert id in the order they should be
+		 *            listed, null if they do not expire
+		 */
+		public Inbox(Map<Integer, Date> expiryDates) {
+			alertIds = new int[expiryDates.size()];
+			expiries = new long[expiryDates.size()];
+			int i = 0;
+			for (Map.Entry<Integer, Date> entry : expiryDates.entrySet()) {
+				alertIds[i] = entry.getKey();
+				expiries[i] = entry.getValue() == null ? NEVER : entry.getValue().getTime();
+				i++;
+			}
+			sortedExpiries = expiries.clone();
+			Arrays.sort(sortedExpiries);
+		}
+
+		/**
+		 * @param now the current time in milliseconds
+		 * @return the number of unread alerts that expire after the given time
+		 */
+		public int count(long now) {
+			// the index of the first alert expiring after now, as alerts expire once the time is reached
+			int low = 0;
+			int high = sortedExpiries.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (sortedExpiries[middle] <= now) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return sortedExpiries.length - low;
+		}
+
+		/**
+		 * @param now the current time in milliseconds
+		 * @return the ids of the unread alerts that expire after the given time, in listing order
+		 */
+		public List<Integer> getAlertIds(long now) {
+			if (count(now) == 0) {
+				return Collections.emptyList();
+			}
+			List<Integer> ids = new ArrayList<>(alertIds.length);
+			for (int i = 0; i < alertIds.length; i++) {
+				if (expiries[i] > now) {
+					ids.add(alertIds[i]);
+				}
+			}
+			return ids;
+		}
+	}
+}
@@ -41,6 +41,7 @@ import org.openmrs.api.ProviderService;
 import org.openmrs.api.SerializationService;
 import org.openmrs.api.UserService;
 import org.openmrs.api.VisitService;
+import org.openmrs.api.cache.CacheWarmUp;
 import org.openmrs.api.db.ContextDAO;
 import org.openmrs.hl7.HL7Service;
 import org.openmrs.logic.LogicService;
@@ -1030,6 +1031,14 @@ public class Context {
 
 		// Loop over each module and startup each with these custom properties
 		ModuleUtil.startup(props);
+		
+		// fill the caches in the background, including with the providers of the started modules
+		try {
+			getRegisteredComponent("cacheWarmUp", CacheWarmUp.class).start();
+		}
+		catch (RuntimeException e) {
+			log.warn("Unable to start the cache warm-up", e);
+		}
 	}
 
 	/**
@@ -22,6 +22,7 @@ import org.openmrs.User;
 import org.openmrs.api.APIAuthenticationException;
 import org.openmrs.api.APIException;
 import org.openmrs.api.OpenmrsService;
+import org.openmrs.api.cache.CacheWarmUp;
 import org.openmrs.api.db.ContextDAO;
 import org.openmrs.api.db.hibernate.HibernateContextDAO;
 import org.openmrs.module.DaemonToken;
@@ -368,6 +369,31 @@ public final class Daemon {
 		}
 	}
 	
+	/**
+	 * Runs a part of the cache warm-up, as a daemon, in a new thread. It may only be called by
+	 * {@link CacheWarmUp}.
+	 *
+	 * @param runnable the warm-up of one {@link org.openmrs.api.cache.CacheWarmUpProvider}
+	 * @return a future that completes when the warm-up is done
+	 * @since 3.0.0
+	 */
+	public static Future<?> runCacheWarmUp(final Runnable runnable) {
+		var possibleFrame = STACK_WALKER.walk(s ->
+			s.skip(1).limit(1).map(StackWalker.StackFrame::getDeclaringClass).findFirst()
+		);
+
+		if (possibleFrame.isEmpty()) {
+			throw new APIException("Could not determine where runCacheWarmUp() was called from");
+		} else {
+			var callerClass = possibleFrame.get();
+			if (!CacheWarmUp.class.equals(callerClass)) {
+				throw new APIException("Service.context.only", new Object[] { callerClass.getName() });
+			}
+		}
+		
+		return runInDaemonThreadInternal(runnable);
+	}
+	
 	/**
 	 * Executes the given runnable in a new thread that is authenticated as the daemon user.
 	 *
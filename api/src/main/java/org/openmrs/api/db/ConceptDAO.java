@@ -334,6 +334,25 @@ public interface ConceptDAO {
 	 */
 	public List<Integer> getConceptIdsByMapping(String code, String sourceName, boolean includeRetired);
 	
+	/**
+	 * Gets the reference terms the concept is mapped to as they are stored in the database, changes
+	 * that have not been flushed yet are ignored
+	 *
+	 * @param concept the concept to get the mappings of
+	 * @return the code, source name and source hl7 code of each mapped term
+	 */
+	public List<Object[]> getConceptMappingsFromDatabase(Concept concept);
+	
+	/**
+	 * Gets the reference term as it is stored in the database, changes that have not been flushed yet
+	 * are ignored
+	 *
+	 * @param conceptReferenceTerm the term to get
+	 * @return the code, source name and source hl7 code of the term, or an empty list if it is not
+	 *         stored
+	 */
+	public List<Object[]> getConceptReferenceTermFromDatabase(ConceptReferenceTerm conceptReferenceTerm);
+	
 	/**
 	 * @param uuid
 	 * @return concept or null
@@ -180,7 +180,10 @@ public interface ContextDAO {
 	 * Updates the search index if necessary.
 	 * <p>
 	 * The update is triggered if {@link OpenmrsConstants#GP_SEARCH_INDEX_VERSION} is blank
-	 * or the value does not match {@link OpenmrsConstants#SEARCH_INDEX_VERSION}.
+	 * or the value does not match {@link OpenmrsConstants#SEARCH_INDEX_VERSION} together with the
+	 * anywhere strategies the index is built with.
+	 *
+	 * @see org.openmrs.api.db.hibernate.search.InfixMatching#getIndexVersion()
 	 */
 	public void setupSearchIndex();
 	
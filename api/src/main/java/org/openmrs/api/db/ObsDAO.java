@@ -9,8 +9,10 @@
  */
 package org.openmrs.api.db;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
@@ -88,6 +90,25 @@ public interface ObsDAO {
 	 * @since 2.1.0
 	 */
 	public Obs.Status getSavedStatus(Obs obs);
+	
+	/**
+	 * Gets the values of status currently saved in the database for the given obs ids, bypassing any
+	 * caches and without flushing the session
+	 * 
+	 * @param obsIds the ids of saved obs
+	 * @return the saved status by obs id
+	 * @since 3.0.0
+	 */
+	public Map<Integer, Obs.Status> getSavedStatuses(Collection<Integer> obsIds);
+	
+	/**
+	 * Loads the obs with the given ids in one query
+	 * 
+	 * @param obsIds the obs ids
+	 * @return the obs, in no particular order
+	 * @since 3.0.0
+	 */
+	public List<Obs> getObs(Collection<Integer> obsIds) throws DAOException;
 
 	/**
 	 * @see org.openmrs.api.ObsService#getObservations(java.util.List, java.util.List,
@@ -13,6 +13,7 @@ import java.util.List;
 
 import org.openmrs.Allergies;
 import org.openmrs.Allergy;
+import org.openmrs.BaseOpenmrsData;
 import org.openmrs.Location;
 import org.openmrs.Patient;
 import org.openmrs.PatientIdentifier;
@@ -305,4 +306,36 @@ public interface PatientDAO {
 	 */
 	public List getPatientIdentifierByProgram(PatientProgram patientProgram);
 	
+	/**
+	 * Gets the ids of the visits or encounters of a patient, voided ones included, so that a merge can
+	 * load and move them in chunks instead of all at once.
+	 * 
+	 * @param type the patient data type, it has to be mapped with a patient property
+	 * @param patient the patient to get the ids for
+	 * @return the ids in ascending order
+	 * @since 3.0.0
+	 * <strong>Should</strong> get the ids of the visits of the patient including voided ones in ascending order
+	 */
+	public List<Integer> getPatientDataIds(Class<? extends BaseOpenmrsData> type, Patient patient);
+	
+	/**
+	 * Gets the ids of the unvoided top level obs of a patient that are not contained in an encounter.
+	 * 
+	 * @param patient the patient to get the ids for
+	 * @return the ids in ascending order
+	 * @since 3.0.0
+	 */
+	public List<Integer> getIdsOfObsNotInEncounters(Patient patient);
+	
+	/**
+	 * Loads the patient data with the given ids in one round trip, ids that do not exist are returned
+	 * as null.
+	 * 
+	 * @param type the patient data type
+	 * @param ids the ids to load
+	 * @return the loaded data in the order of the ids
+	 * @since 3.0.0
+	 */
+	public <T extends BaseOpenmrsData> List<T> getPatientData(Class<T> type, List<Integer> ids);
+	
 }
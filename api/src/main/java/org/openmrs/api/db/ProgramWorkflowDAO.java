@@ -23,6 +23,7 @@ import org.openmrs.PatientProgram;
 import org.openmrs.PatientProgramAttribute;
 import org.openmrs.PatientState;
 import org.openmrs.Program;
+import org.openmrs.ProgramEnrollments;
 import org.openmrs.ProgramWorkflow;
 import org.openmrs.ProgramWorkflowState;
 
@@ -109,6 +110,17 @@ public interface ProgramWorkflowDAO {
 	
 	public List<PatientProgram> getPatientPrograms(Cohort cohort, Collection<Program> programs);
 	
+	/**
+	 * Loads the non voided enrollments and states of the given patients with projection queries
+	 * instead of loading the entities
+	 * 
+	 * @param patientIds the ids of the patients
+	 * @param programs only enrollments in these programs, null for all programs
+	 * @return the enrollments and states of the patients
+	 * @since 3.0.0
+	 */
+	public ProgramEnrollments getProgramEnrollments(Collection<Integer> patientIds, Collection<Program> programs);
+	
 	/**
 	 * Returns PatientPrograms that match the input parameters. If an input parameter is set to
 	 * null, the parameter will not be used. Calling this method will all null parameters will
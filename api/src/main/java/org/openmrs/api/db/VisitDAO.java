@@ -169,4 +169,26 @@ public interface VisitDAO {
 	 */
 	public Visit getNextVisit(Visit previousVisit, Collection<VisitType> visitTypes, Date maximumStartDate);
 	
+	/**
+	 * Gets the ids of the active visits which match the specified visit types, ordered by id
+	 * 
+	 * @param visitTypes a collection of visit types to match against
+	 * @param maximumStartDate the visits should have been started before or at this date time
+	 * @param maxResults the maximum number of ids to return
+	 * @return the visit ids
+	 * @since 3.0.0
+	 * <strong>Should</strong> return the ids of unvoided active visits matching the specified types and startDate
+	 */
+	public List<Integer> getActiveVisitIds(Collection<VisitType> visitTypes, Date maximumStartDate, int maxResults);
+	
+	/**
+	 * Loads the visits with the given ids with a single query
+	 * 
+	 * @param visitIds the ids of the visits to load
+	 * @return the visits in the order of the ids, ids without a visit are skipped
+	 * @since 3.0.0
+	 * <strong>Should</strong> return the visits with the given ids in the order of the ids
+	 */
+	public List<Visit> getVisits(List<Integer> visitIds);
+	
 }
@@ -0,0 +1,82 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.Session;
+import org.openmrs.Concept;
+import org.openmrs.api.cache.CacheWarmUpProvider;
+import org.openmrs.api.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the concepts used by forms and order sets into the second-level cache together with the
+ * members of those which are sets, as they are what most pages show. Loading all concepts is left to
+ * {@link HibernateCacheWarmUpProvider} by adding Concept to its entity types. Can be turned off with
+ * the runtime property {@value #ENABLED_PROPERTY}=false.
+ *
+ * @since 3.0.0
+ */
+@Component("conceptCacheWarmUpProvider")
+public class ConceptCacheWarmUpProvider implements CacheWarmUpProvider {
+
+	private static final Logger log = LoggerFactory.getLogger(ConceptCacheWarmUpProvider.class);
+
+	public static final String ENABLED_PROPERTY = "cache.warm_up.concepts";
+
+	private final HibernateCacheWarmUpProvider hibernateCacheWarmUpProvider;
+
+	@Autowired
+	public ConceptCacheWarmUpProvider(HibernateCacheWarmUpProvider hibernateCacheWarmUpProvider) {
+		this.hibernateCacheWarmUpProvider = hibernateCacheWarmUpProvider;
+	}
+
+	@Override
+	public void warmUp() {
+		if (!Boolean.parseBoolean(Context.getRuntimeProperties().getProperty(ENABLED_PROPERTY, "true"))) {
+			return;
+		}
+		List<Integer> conceptIds = getConceptIds();
+		hibernateCacheWarmUpProvider.warmUp(Concept.class, conceptIds);
+		log.debug("Loaded {} concepts used by forms and order sets into the second-level cache", conceptIds.size());
+	}
+
+	/**
+	 * @return the ids of the concepts used by forms that are not retired and by order sets, followed
+	 *         by the ids of their set members
+	 */
+	List<Integer> getConceptIds() {
+		Set<Integer> conceptIds = new LinkedHashSet<>();
+		try (Session session = hibernateCacheWarmUpProvider.openSession()) {
+			conceptIds.addAll(session.createQuery(
+			    "select distinct f.concept.conceptId from FormField ff join ff.field f "
+			            + "where f.concept is not null and ff.form.retired = false", Integer.class).list());
+			conceptIds.addAll(session.createQuery("select distinct m.concept.conceptId from OrderSetMember m",
+			    Integer.class).list());
+
+			List<Integer> setIds = new ArrayList<>(conceptIds);
+			for (int i = 0; i < setIds.size(); i += HibernateCacheWarmUpProvider.BATCH_SIZE) {
+				conceptIds.addAll(session.createQuery(
+				    "select cs.concept.conceptId from ConceptSet cs where cs.conceptSet.conceptId in (:ids)", Integer.class)
+				        .setParameterList("ids",
+				            setIds.subList(i, Math.min(setIds.size(), i + HibernateCacheWarmUpProvider.BATCH_SIZE)))
+				        .list());
+			}
+		}
+		return new ArrayList<>(conceptIds);
+	}
+}
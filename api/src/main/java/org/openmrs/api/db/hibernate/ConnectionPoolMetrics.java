@@ -0,0 +1,199 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Collects the metrics of the HikariCP connection pools, it is registered with
+ * <code>hibernate.hikari.metricsTrackerFactory</code> when
+ * <code>hibernate.connection.provider_class</code> is set to <code>hikaricp</code>. Besides the
+ * active, idle and total connections and the threads waiting for a connection, it keeps a histogram
+ * of the time it took to acquire a connection.
+ *
+ * @since 3.0.0
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+
+	private static final Map<String, PoolMetrics> pools = new ConcurrentHashMap<>();
+
+	/**
+	 * @see MetricsTrackerFactory#create(String, PoolStats)
+	 */
+	@Override
+	public IMetricsTracker create(String poolName, PoolStats poolStats) {
+		PoolMetrics metrics = new PoolMetrics(poolName, poolStats);
+		pools.put(poolName, metrics);
+		return metrics;
+	}
+
+	/**
+	 * @return the metrics of the connection pools by pool name, empty if the connections are not
+	 *         pooled by HikariCP
+	 */
+	public static Map<String, PoolMetrics> getPools() {
+		return Collections.unmodifiableMap(pools);
+	}
+
+	/**
+	 * The metrics of one connection pool
+	 */
+	public static class PoolMetrics implements IMetricsTracker {
+
+		private final String poolName;
+
+		private final PoolStats poolStats;
+
+		private final LatencyHistogram acquireLatency = new LatencyHistogram();
+
+		private final LongAdder timeouts = new LongAdder();
+
+		private final LongAdder connectionsCreated = new LongAdder();
+
+		PoolMetrics(String poolName, PoolStats poolStats) {
+			this.poolName = poolName;
+			this.poolStats = poolStats;
+		}
+
+		public String getPoolName() {
+			return poolName;
+		}
+
+		public int getActiveConnections() {
+			return poolStats.getActiveConnections();
+		}
+
+		public int getIdleConnections() {
+			return poolStats.getIdleConnections();
+		}
+
+		public int getTotalConnections() {
+			return poolStats.getTotalConnections();
+		}
+
+		public int getMaxConnections() {
+			return poolStats.getMaxConnections();
+		}
+
+		/**
+		 * @return the number of threads waiting for a connection
+		 */
+		public int getPendingThreads() {
+			return poolStats.getPendingThreads();
+		}
+
+		/**
+		 * @return the number of times a thread gave up waiting for a connection
+		 */
+		public long getTimeouts() {
+			return timeouts.sum();
+		}
+
+		public long getConnectionsCreated() {
+			return connectionsCreated.sum();
+		}
+
+		/**
+		 * @return the number of connections handed out
+		 */
+		public long getAcquireCount() {
+			return acquireLatency.getCount();
+		}
+
+		/**
+		 * @param percentile between 0 and 1, e.g. 0.99
+		 * @return the upper bound in microseconds of the time it took to acquire a connection for the
+		 *         given percentile of the acquisitions, or 0 if no connection was acquired yet
+		 */
+		public long getAcquireLatencyMicros(double percentile) {
+			return acquireLatency.getPercentile(percentile);
+		}
+
+		/**
+		 * @see IMetricsTracker#recordConnectionAcquiredNanos(long)
+		 */
+		@Override
+		public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+			acquireLatency.record(elapsedAcquiredNanos / 1000);
+		}
+
+		/**
+		 * @see IMetricsTracker#recordConnectionCreatedMillis(long)
+		 */
+		@Override
+		public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+			connectionsCreated.increment();
+		}
+
+		/**
+		 * @see IMetricsTracker#recordConnectionTimeout()
+		 */
+		@Override
+		public void recordConnectionTimeout() {
+			timeouts.increment();
+		}
+
+		/**
+		 * @see IMetricsTracker#close()
+		 */
+		@Override
+		public void close() {
+			pools.remove(poolName, this);
+		}
+	}
+
+	/**
+	 * A lock free histogram with power of two buckets, bucket 0 counts zeros and bucket n the values
+	 * above 2^(n-2) up to 2^(n-1), which is precise enough to tell a saturated pool from a healthy one
+	 */
+	static class LatencyHistogram {
+
+		private static final int BUCKETS = 40;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		void record(long value) {
+			int bucket = value <= 0 ? 0 : Math.min(BUCKETS - 1, 65 - Long.numberOfLeadingZeros(value - 1));
+			buckets.incrementAndGet(bucket);
+		}
+
+		long getCount() {
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				count += buckets.get(i);
+			}
+			return count;
+		}
+
+		long getPercentile(double percentile) {
+			long count = getCount();
+			if (count == 0) {
+				return 0;
+			}
+			long threshold = (long) Math.ceil(count * percentile);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += buckets.get(i);
+				if (seen >= threshold && seen > 0) {
+					return i == 0 ? 0 : 1L << (i - 1);
+				}
+			}
+			return 1L << (BUCKETS - 2);
+		}
+	}
+}
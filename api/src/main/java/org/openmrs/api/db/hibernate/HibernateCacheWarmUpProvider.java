@@ -0,0 +1,147 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.Query;
+import org.openmrs.api.cache.CacheWarmUpProvider;
+import org.openmrs.api.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads all rows of the entity types listed in the runtime property {@value #ENTITIES_PROPERTY} into
+ * the second-level cache, by default the metadata every request needs. Entity names without a
+ * package are looked up in the org.openmrs package, entity types which are not cached are skipped.
+ * Setting the property to an empty value turns this provider off.
+ *
+ * @since 3.0.0
+ * @see ConceptCacheWarmUpProvider
+ */
+@Component("hibernateCacheWarmUpProvider")
+public class HibernateCacheWarmUpProvider implements CacheWarmUpProvider {
+
+	private static final Logger log = LoggerFactory.getLogger(HibernateCacheWarmUpProvider.class);
+
+	public static final String ENTITIES_PROPERTY = "cache.warm_up.entities";
+
+	public static final String DEFAULT_ENTITIES = "GlobalProperty,Privilege,Role,Location,LocationTag,ConceptDatatype,"
+	        + "ConceptClass,EncounterType,VisitType";
+
+	static final int BATCH_SIZE = 500;
+
+	private final SessionFactory sessionFactory;
+
+	@Autowired
+	public HibernateCacheWarmUpProvider(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	@Override
+	public void warmUp() {
+		String entities = Context.getRuntimeProperties().getProperty(ENTITIES_PROPERTY, DEFAULT_ENTITIES);
+		for (String entity : StringUtils.split(entities, ", ")) {
+			Class<?> type = getCachedEntityType(entity);
+			if (type != null) {
+				log.debug("Loaded {} {} into the second-level cache", warmUp(type), type.getSimpleName());
+			}
+		}
+	}
+
+	/**
+	 * Loads all rows of an entity type into the second-level cache, in batches ordered by id with a
+	 * session cleared in between. Each batch starts after the last id of the previous one, so that the
+	 * database does not skip over the rows of all previous batches again.
+	 *
+	 * @param type the entity type
+	 * @return the number of rows loaded
+	 */
+	int warmUp(Class<?> type) {
+		int count = 0;
+		try (Session session = openSession()) {
+			List<?> batch;
+			Object lastId = null;
+			do {
+				Query<?> query;
+				if (lastId == null) {
+					query = session.createQuery("from " + type.getName() + " e order by id(e)", type);
+				} else {
+					query = session.createQuery("from " + type.getName() + " e where id(e) > :lastId order by id(e)", type)
+					        .setParameter("lastId", lastId);
+				}
+				batch = query.setMaxResults(BATCH_SIZE).list();
+				if (!batch.isEmpty()) {
+					lastId = session.getIdentifier(batch.get(batch.size() - 1));
+				}
+				count += batch.size();
+				session.clear();
+			} while (batch.size() == BATCH_SIZE);
+		}
+		return count;
+	}
+
+	/**
+	 * Loads the entities with the given ids into the second-level cache
+	 *
+	 * @param type the entity type
+	 * @param ids the ids of the entities
+	 */
+	void warmUp(Class<?> type, List<?> ids) {
+		try (Session session = openSession()) {
+			for (int i = 0; i < ids.size(); i += BATCH_SIZE) {
+				session.findMultiple(type, new ArrayList<>(ids.subList(i, Math.min(ids.size(), i + BATCH_SIZE))));
+				session.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return a read only session which puts everything it reads into the second-level cache
+	 */
+	Session openSession() {
+		Session session = sessionFactory.openSession();
+		session.setDefaultReadOnly(true);
+		session.setCacheMode(CacheMode.REFRESH);
+		return session;
+	}
+
+	private Class<?> getCachedEntityType(String entity) {
+		String name = entity.contains(".") ? entity : "org.openmrs." + entity;
+		Class<?> type;
+		try {
+			type = Context.loadClass(name);
+		}
+		catch (ClassNotFoundException e) {
+			log.warn("Cannot warm up the cache of {} which is not found", name);
+			return null;
+		}
+		EntityPersister persister = sessionFactory.unwrap(SessionFactoryImplementor.class).getRuntimeMetamodels()
+		        .getMappingMetamodel().findEntityDescriptor(type);
+		if (persister == null) {
+			log.warn("Cannot warm up the cache of {} which is no entity", name);
+			return null;
+		}
+		if (!persister.canWriteToCache()) {
+			log.debug("Skipping the warm-up of {} which is not cached", name);
+			return null;
+		}
+		return type;
+	}
+}
@@ -11,6 +11,7 @@ package org.openmrs.api.db.hibernate;
 
 import static java.util.stream.Collectors.toList;
 
+import jakarta.persistence.FlushModeType;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 
@@ -41,10 +42,11 @@ import org.hibernate.query.MutationQuery;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.search.engine.search.predicate.SearchPredicate;
 import org.hibernate.search.engine.search.predicate.dsl.BooleanPredicateClausesStep;
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
 import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
 import org.hibernate.search.engine.search.query.SearchQuery;
-import org.hibernate.search.mapper.orm.scope.SearchScope;
-import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.engine.search.query.SearchScroll;
+import org.hibernate.search.engine.search.query.SearchScrollResult;
 import org.openmrs.Concept;
 import org.openmrs.ConceptAnswer;
 import org.openmrs.ConceptAttribute;
@@ -75,7 +77,6 @@ import org.openmrs.api.ConceptService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ConceptDAO;
 import org.openmrs.api.db.DAOException;
-import org.openmrs.api.db.hibernate.search.SearchQueryUnique;
 import org.openmrs.api.db.hibernate.search.session.SearchSessionFactory;
 import org.openmrs.util.ConceptMapTypeComparator;
 import org.openmrs.util.OpenmrsConstants;
@@ -97,6 +98,8 @@ public class HibernateConceptDAO implements ConceptDAO {
 	
 	private static final Logger log = LoggerFactory.getLogger(HibernateConceptDAO.class);
 	
+	private static final int CONCEPT_ID_SCROLL_SIZE = 1000;
+	
 	private final SessionFactory sessionFactory;
 	
 	private final SearchSessionFactory searchSessionFactory;
@@ -601,10 +604,9 @@ public class HibernateConceptDAO implements ConceptDAO {
 			locale = loc;
 		}
 
-		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(ConceptName.class, f -> 
-			newConceptNamePredicate(f, name, !searchOnPhrase, Collections.singletonList(locale),
-				false, false, classes, null, datatypes, null, null),
-			"concept.conceptId", ConceptName::getConcept));
+		return searchSessionFactory.getSearchSession().search(Concept.class).where(f -> newConceptPredicate(f, name,
+			!searchOnPhrase, Collections.singletonList(locale), false, false, classes, null, datatypes, null, null))
+			.fetchAllHits();
 	}
 	
 	private LinkedHashSet<Concept> transformNamesToConcepts(List<ConceptName> names) {
@@ -617,50 +619,63 @@ public class HibernateConceptDAO implements ConceptDAO {
 		return concepts;
 	}
 	
+	/**
+	 * Matches concepts by the code of one of their mappings or by one of their names. Names are nested
+	 * documents of the concept, so the locale, the voided flag and the name itself are matched against
+	 * the same name. Concepts without a non-voided name in the given locales are never matched.
+	 */
 	private SearchPredicate newConceptNameQuery(SearchPredicateFactory f, final String name, final boolean searchKeywords, 
 												final Collection<Locale> locales, final boolean searchExactLocale) {
+		List<String> tokenizedName = tokenizeName(name, locales);
+		BooleanPredicateClausesStep<?, ?> nameQuery = newNameQuery(f, tokenizedName, name, searchKeywords, "names.name");
+		
 		return f.bool().with(b -> {
-			if (searchExactLocale) {
-				b.must(f.terms().field("locale").matchingAny(locales));
-			} else {
-				b.must(f.bool().with(bb -> {
-					for (Locale locale : locales) {
-						bb.should(f.wildcard().field("locale").matching(locale.getLanguage() + "*"));
-						if (!StringUtils.isBlank(locale.getCountry())) {
-							bb.should(f.match().field("locale").matching(locale).boost(2f));
-						}
-					}
-				}));
+			b.minimumShouldMatchNumber(1);
+			b.should(f.match().field("conceptMappings.conceptReferenceTerm.code").matching(name).boost(10f));
+			b.should(f.nested("names")
+				.add(newNameLocalePredicate(f, locales, searchExactLocale))
+				.add(f.match().field("names.voided").matching(false))
+				.add(f.bool().with(bb -> {
+					bb.should(f.and()
+						.add(nameQuery)
+						.add(f.match().field("names.localePreferred").matching(true)).boost(2f));
+					bb.should(nameQuery);
+				})));
+			b.filter(f.nested("names")
+				.add(newNameLocalePredicate(f, locales, searchExactLocale))
+				.add(f.match().field("names.voided").matching(false)));
+		}).toPredicate();
+	}
+	
+	private SearchPredicate newNameLocalePredicate(SearchPredicateFactory f, final Collection<Locale> locales,
+												   final boolean searchExactLocale) {
+		if (searchExactLocale) {
+			return f.terms().field("names.locale").matchingAny(locales).toPredicate();
+		}
+		return f.bool().with(b -> {
+			for (Locale locale : locales) {
+				b.should(f.wildcard().field("names.locale").matching(locale.getLanguage() + "*"));
+				if (!StringUtils.isBlank(locale.getCountry())) {
+					b.should(f.match().field("names.locale").matching(locale).boost(2f));
+				}
 			}
-			b.filter(f.match().field("voided").matching(false));
-			
-			b.must(f.bool().with(bb -> {
-				List<String> tokenizedName = tokenizeName(name, locales);
-				BooleanPredicateClausesStep<?, ?> nameQuery = newNameQuery(f, tokenizedName, name, searchKeywords);
-
-				bb.should(f.match().field("concept.conceptMappings.conceptReferenceTerm.code").matching(name).boost(10f));
-				bb.should(f.and()
-					.add(nameQuery)
-					.add(f.match().field("localePreferred").matching(true)).boost(2f));
-				bb.should(nameQuery);
-			}));
 		}).toPredicate();
 	}
 	
 	private BooleanPredicateClausesStep<?, ?> newNameQuery(SearchPredicateFactory f, final List<String> tokenizedName, final String name,
-														final boolean searchKeywords) {
+														final boolean searchKeywords, final String field) {
 		return f.bool().with(b -> {
 			b.minimumShouldMatchNumber(1);
-			b.should(f.phrase().field("name").matching(name).boost(8f));
+			b.should(f.phrase().field(field).matching(name).boost(8f));
 			if (searchKeywords) {
 				if (!tokenizedName.isEmpty()) {
 					b.should(f.bool().with(bb -> {
 						for (String token : tokenizedName) {
 							bb.must(f.bool().with(bbb -> {
 								bbb.minimumShouldMatchNumber(1);
-								bbb.should(f.match().field("name").matching(token).boost(3f));
-								bbb.should(f.wildcard().field("name").matching(token + "*").boost(2f));
-								bbb.should(f.match().field("name").matching(token).fuzzy(1, 3));
+								bbb.should(f.match().field(field).matching(token).boost(3f));
+								bbb.should(f.wildcard().field(field).matching(token + "*").boost(2f));
+								bbb.should(f.match().field(field).matching(token).fuzzy(1, 3));
 							}));
 						}
 					}));
@@ -669,6 +684,61 @@ public class HibernateConceptDAO implements ConceptDAO {
 		});
 	}
 	
+	/**
+	 * Picks the name shown for a concept found by a search: the non-voided name in one of the searched
+	 * locales that matches the phrase best, preferred names win ties.
+	 */
+	private ConceptName getBestMatchingName(Concept concept, String phrase, List<String> tokenizedPhrase,
+											Collection<Locale> locales) {
+		ConceptName bestName = null;
+		int bestScore = -1;
+		for (ConceptName name : concept.getNames()) {
+			if (name.getVoided() || name.getName() == null || !isSearchedLocale(name.getLocale(), locales)) {
+				continue;
+			}
+			int score = getNameMatchScore(name.getName(), phrase, tokenizedPhrase) * 2
+			        + (name.getLocalePreferred() ? 1 : 0);
+			if (score > bestScore) {
+				bestName = name;
+				bestScore = score;
+			}
+		}
+		return bestName != null ? bestName : concept.getName();
+	}
+	
+	private boolean isSearchedLocale(Locale locale, Collection<Locale> locales) {
+		for (Locale searchedLocale : locales) {
+			if (searchedLocale.getLanguage().equals(locale.getLanguage())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private int getNameMatchScore(String name, String phrase, List<String> tokenizedPhrase) {
+		if (StringUtils.isBlank(phrase)) {
+			return 0;
+		}
+		String lowerCaseName = name.toLowerCase();
+		String lowerCasePhrase = phrase.trim().toLowerCase();
+		if (lowerCaseName.equals(lowerCasePhrase)) {
+			return 4;
+		}
+		if (lowerCaseName.contains(lowerCasePhrase)) {
+			return 3;
+		}
+		int matchingTokens = 0;
+		for (String token : tokenizedPhrase) {
+			if (lowerCaseName.contains(token.toLowerCase())) {
+				matchingTokens++;
+			}
+		}
+		if (matchingTokens == 0) {
+			return 0;
+		}
+		return matchingTokens == tokenizedPhrase.size() ? 2 : 1;
+	}
+	
 	private List<String> tokenizeName(final String escapedName, final Collection<Locale> locales) {
 		List<String> words = new ArrayList<>(Arrays.asList(escapedName.trim().split(" ")));
 		
@@ -1140,6 +1210,47 @@ public class HibernateConceptDAO implements ConceptDAO {
 			.stream().distinct().collect(toList());
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.ConceptDAO#getConceptMappingsFromDatabase(Concept)
+	 */
+	@Override
+	public List<Object[]> getConceptMappingsFromDatabase(Concept concept) {
+		if (concept.getConceptId() == null) {
+			return Collections.emptyList();
+		}
+		String sql = "SELECT t.code, s.name, s.hl7_code FROM concept_reference_map m"
+		        + " JOIN concept_reference_term t ON m.concept_reference_term_id = t.concept_reference_term_id"
+		        + " JOIN concept_reference_source s ON t.concept_source_id = s.concept_source_id"
+		        + " WHERE m.concept_id = :conceptId";
+		NativeQuery<Object[]> query = sessionFactory.getCurrentSession().createNativeQuery(sql, Object[].class);
+		query.setParameter("conceptId", concept.getConceptId());
+		
+		//prevent jpa from flushing the changes being saved before fetching the list
+		query.setFlushMode(FlushModeType.COMMIT);
+		
+		return query.getResultList();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.ConceptDAO#getConceptReferenceTermFromDatabase(ConceptReferenceTerm)
+	 */
+	@Override
+	public List<Object[]> getConceptReferenceTermFromDatabase(ConceptReferenceTerm conceptReferenceTerm) {
+		if (conceptReferenceTerm.getConceptReferenceTermId() == null) {
+			return Collections.emptyList();
+		}
+		String sql = "SELECT t.code, s.name, s.hl7_code FROM concept_reference_term t"
+		        + " JOIN concept_reference_source s ON t.concept_source_id = s.concept_source_id"
+		        + " WHERE t.concept_reference_term_id = :termId";
+		NativeQuery<Object[]> query = sessionFactory.getCurrentSession().createNativeQuery(sql, Object[].class);
+		query.setParameter("termId", conceptReferenceTerm.getConceptReferenceTermId());
+		
+		//prevent jpa from flushing the changes being saved before fetching the list
+		query.setFlushMode(FlushModeType.COMMIT);
+		
+		return query.getResultList();
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.ConceptDAO#getConceptByUuid(java.lang.String)
 	 */
@@ -1276,7 +1387,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 
 		cq.where(cb.equal(root.get("name"), conceptSourceName));
 
-		return session.createQuery(cq).uniqueResult();
+		return HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).uniqueResult();
 	}
 
 	/**
@@ -1464,23 +1575,24 @@ public class HibernateConceptDAO implements ConceptDAO {
 		}
 		final Collection<Locale> locales = Collections.singletonList(locale == null ? Context.getLocale() : locale);
 
-		final List<Object> conceptIds;
+		final List<Object> conceptIds = new ArrayList<>();
 		if (searchDrugConceptNames) {
-			SearchSession searchSession = searchSessionFactory.getSearchSession();
-			SearchScope<ConceptName> scope = searchSession.scope(ConceptName.class);
-			
-			SearchPredicate conceptNamePredicate = newConceptNamePredicate(scope.predicate(), drugName, searchKeywords, locales, exactLocale,
-				includeRetired, null, null, null, null, null);
-
-			conceptIds = SearchQueryUnique.findUniqueKeys(searchSession, scope, conceptNamePredicate, "concept.conceptId");
-		} else {
-			conceptIds = Collections.emptyList();
+			// scrolled so that all matching concepts are found, the ids past the first ones are matched as a set
+			try (SearchScroll<Object> scroll = searchSessionFactory.getSearchSession().search(Concept.class)
+				.select(f -> f.id())
+				.where(f -> newConceptPredicate(f, drugName, searchKeywords, locales, exactLocale, includeRetired, null,
+					null, null, null, null))
+				.scroll(CONCEPT_ID_SCROLL_SIZE)) {
+				for (SearchScrollResult<Object> chunk = scroll.next(); chunk.hasHits(); chunk = scroll.next()) {
+					conceptIds.addAll(chunk.hits());
+				}
+			}
 		}
 		
 		return searchSessionFactory.getSearchSession().search(Drug.class).where(f -> f.bool().with(b -> {
 			b.minimumShouldMatchNumber(1);
 			List<String> tokenizedName = tokenizeName(drugName, locales);
-			BooleanPredicateClausesStep<?, ?> nameQuery = newNameQuery(f, tokenizedName, drugName, searchKeywords);
+			BooleanPredicateClausesStep<?, ?> nameQuery = newNameQuery(f, tokenizedName, drugName, searchKeywords, "name");
 			b.should(f.match().field("drugReferenceMaps.conceptReferenceTerm.code").matching(drugName).boost(10f));
 			b.should(nameQuery.boost(0.5f));
 			if (concept != null) {
@@ -1510,6 +1622,9 @@ public class HibernateConceptDAO implements ConceptDAO {
 	}
 
 	/**
+	 * Searches the concept index, which holds one document per concept, so that results are unique
+	 * concepts and the total hit count is exact.
+	 * 
 	 * @see ConceptDAO#getConcepts(String, List, boolean, List, List, List, List, Concept, Integer,
 	 *      Integer)
 	 */
@@ -1519,10 +1634,24 @@ public class HibernateConceptDAO implements ConceptDAO {
 	        final List<ConceptDatatype> requireDatatypes, final List<ConceptDatatype> excludeDatatypes,
 	        final Concept answersToConcept, final Integer start, final Integer size) throws DAOException {
 		
-		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(ConceptName.class, f -> 
-			newConceptNamePredicate(f, phrase, true, locales, false, includeRetired,
-			requireClasses, excludeClasses, requireDatatypes, excludeDatatypes, answersToConcept), "concept.conceptId", 
-			n -> new ConceptSearchResult(phrase, n.getConcept(), n)), start, size);
+		List<Concept> concepts = searchSessionFactory.getSearchSession().search(Concept.class)
+			.where(f -> newConceptPredicate(f, phrase, true, locales, false, includeRetired, requireClasses,
+				excludeClasses, requireDatatypes, excludeDatatypes, answersToConcept))
+			.fetchHits(start, size);
+		
+		if (concepts.isEmpty()) {
+			return new ArrayList<>();
+		}
+		
+		Collection<Locale> searchLocales = getSearchLocales(locales);
+		List<String> tokenizedPhrase = StringUtils.isBlank(phrase) ? Collections.emptyList()
+		        : tokenizeName(phrase, searchLocales);
+		List<ConceptSearchResult> results = new ArrayList<>(concepts.size());
+		for (Concept concept : concepts) {
+			results.add(new ConceptSearchResult(phrase, concept,
+			        getBestMatchingName(concept, phrase, tokenizedPhrase, searchLocales)));
+		}
+		return results;
 	}
 	
 	@Override
@@ -1530,44 +1659,45 @@ public class HibernateConceptDAO implements ConceptDAO {
 	        List<ConceptClass> requireClasses, List<ConceptClass> excludeClasses, List<ConceptDatatype> requireDatatypes,
 	        List<ConceptDatatype> excludeDatatypes, Concept answersToConcept) throws DAOException {
 		
-		
-		return Math.toIntExact(SearchQueryUnique.searchCount(searchSessionFactory, 
-			SearchQueryUnique.newQuery(ConceptName.class, f -> newConceptNamePredicate(f, phrase, 
-				true, locales, false, includeRetired, requireClasses, excludeClasses, 
-				requireDatatypes, excludeDatatypes, answersToConcept), "concept.conceptId")));
+		return Math.toIntExact(searchSessionFactory.getSearchSession().search(Concept.class)
+			.where(f -> newConceptPredicate(f, phrase, true, locales, false, includeRetired, requireClasses,
+				excludeClasses, requireDatatypes, excludeDatatypes, answersToConcept))
+			.fetchTotalHitCount());
+	}
+	
+	private Collection<Locale> getSearchLocales(Collection<Locale> locales) {
+		if (locales == null) {
+			return Collections.singletonList(Context.getLocale());
+		}
+		return new HashSet<>(locales);
 	}
 	
-	private SearchPredicate newConceptNamePredicate(SearchPredicateFactory f, final String phrase, boolean searchKeywords,
-													   Collection<Locale> locales, boolean searchExactLocale, boolean includeRetired, List<ConceptClass> requireClasses,
-													   List<ConceptClass> excludeClasses, List<ConceptDatatype> requireDatatypes,
-													   List<ConceptDatatype> excludeDatatypes, Concept answersToConcept) {
+	private PredicateFinalStep newConceptPredicate(SearchPredicateFactory f, final String phrase, boolean searchKeywords,
+												Collection<Locale> locales, boolean searchExactLocale, boolean includeRetired, List<ConceptClass> requireClasses,
+												List<ConceptClass> excludeClasses, List<ConceptDatatype> requireDatatypes,
+												List<ConceptDatatype> excludeDatatypes, Concept answersToConcept) {
 		return f.bool().with(b -> {
+			// match all concepts if there are no other clauses
+			b.must(f.matchAll());
+			
 			if (!StringUtils.isBlank(phrase)) {
-				final Collection<Locale> searchLocales;
-
-				if (locales == null) {
-					searchLocales = Collections.singletonList(Context.getLocale());
-				} else {
-					searchLocales = new HashSet<>(locales);
-				}
-
-				b.must(newConceptNameQuery(f, phrase, searchKeywords, searchLocales, searchExactLocale));
+				b.must(newConceptNameQuery(f, phrase, searchKeywords, getSearchLocales(locales), searchExactLocale));
 			}
 
 			if (!CollectionUtils.isEmpty(requireClasses)) {
-				b.filter(f.terms().field("concept.conceptClass")
+				b.filter(f.terms().field("conceptClass")
 					.matchingAny(requireClasses));
 			}
 			if (!CollectionUtils.isEmpty(excludeClasses)) {
-				b.filter(f.not(f.terms().field("concept.conceptClass")
+				b.filter(f.not(f.terms().field("conceptClass")
 					.matchingAny(excludeClasses)));
 			}
 			if (!CollectionUtils.isEmpty(requireDatatypes)) {
-				b.filter(f.terms().field("concept.datatype")
+				b.filter(f.terms().field("datatype")
 					.matchingAny(requireDatatypes));
 			}
 			if (!CollectionUtils.isEmpty(excludeDatatypes)) {
-				b.filter(f.not(f.terms().field("concept.datatype")
+				b.filter(f.not(f.terms().field("datatype")
 					.matchingAny(excludeDatatypes)));
 			}
 
@@ -1579,14 +1709,14 @@ public class HibernateConceptDAO implements ConceptDAO {
 					for (ConceptAnswer conceptAnswer : answersToConcept.getAnswers(false)) {
 						ids.add(conceptAnswer.getAnswerConcept().getId());
 					}
-					b.filter(f.terms().field("concept.conceptId").matchingAny(ids));
+					b.filter(f.id().matchingAny(ids));
 				}
 			}
 
 			if (!includeRetired) {
-				b.filter(f.match().field("concept.retired").matching(Boolean.FALSE));
+				b.filter(f.match().field("retired").matching(Boolean.FALSE));
 			}
-		}).toPredicate();
+		});
 	}
 
 	/**
@@ -1643,7 +1773,7 @@ public class HibernateConceptDAO implements ConceptDAO {
 
 		cq.where(cb.like(cb.lower(root.get("name")), MatchMode.EXACT.toLowerCasePattern(name)));
 
-		return session.createQuery(cq).uniqueResult();
+		return HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).uniqueResult();
 	}
 	
 	/**
@@ -1955,10 +2085,8 @@ public class HibernateConceptDAO implements ConceptDAO {
 		
 		boolean searchExactLocale = (exactLocale == null) ? false : exactLocale;
 		
-		return SearchQueryUnique.search(searchSessionFactory, SearchQueryUnique.newQuery(ConceptName.class, f -> 
-			newConceptNamePredicate(f, name, true, locales, searchExactLocale, false,
-			null, null, null, null, null), 
-			"concept.conceptId", ConceptName::getConcept));
+		return searchSessionFactory.getSearchSession().search(Concept.class).where(f -> newConceptPredicate(f, name,
+			true, locales, searchExactLocale, false, null, null, null, null, null)).fetchAllHits();
 	}
 	
 	/**
@@ -16,12 +16,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.CacheMode;
 import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
@@ -41,6 +43,7 @@ import org.openmrs.api.context.ContextAuthenticationException;
 import org.openmrs.api.context.Daemon;
 import org.openmrs.api.db.ContextDAO;
 import org.openmrs.api.db.UserDAO;
+import org.openmrs.api.db.hibernate.search.InfixMatching;
 import org.openmrs.api.db.hibernate.search.session.SearchSessionFactory;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
@@ -77,11 +80,15 @@ public class HibernateContextDAO implements ContextDAO {
 	
 	private final UserDAO userDao;
 	
+	private final LoginActivityWriter loginActivityWriter;
+	
 	@Autowired
-	public HibernateContextDAO(SessionFactory sessionFactory, SearchSessionFactory searchSessionFactory, UserDAO userDao) {
+	public HibernateContextDAO(SessionFactory sessionFactory, SearchSessionFactory searchSessionFactory, UserDAO userDao,
+	    LoginActivityWriter loginActivityWriter) {
 		this.sessionFactory = sessionFactory;
 		this.searchSessionFactory = searchSessionFactory;
 		this.userDao = userDao;
+		this.loginActivityWriter = loginActivityWriter;
 	}
 	
 	/**
@@ -121,18 +128,7 @@ public class HibernateContextDAO implements ContextDAO {
 		if (candidateUser != null && password != null) {
 			log.debug("Candidate user id: {}", candidateUser.getUserId());
 
-			String lockoutTimeString = candidateUser.getUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, null);
-			long lockoutTime = -1;
-			if (StringUtils.isNotBlank(lockoutTimeString) && !"0".equals(lockoutTimeString)) {
-				try {
-					// putting this in a try/catch in case the admin decided to put junk into the property
-					lockoutTime = Long.parseLong(lockoutTimeString);
-				}
-				catch (NumberFormatException e) {
-					log.warn("bad value stored in {} user property: {}", OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP,
-						lockoutTimeString);
-				}
-			}
+			long lockoutTime = loginActivityWriter.getLockoutTime(candidateUser);
 
 			// if they've been locked out, don't continue with the authentication
 			if (lockoutTime > 0) {
@@ -140,12 +136,10 @@ public class HibernateContextDAO implements ContextDAO {
 				// to now and make them wait another x mins
 				final Long unlockTime = getUnlockTimeMs();
 				if (System.currentTimeMillis() - lockoutTime > unlockTime) {
-					candidateUser.setUserProperty(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, OpenmrsConstants.ZERO_LOGIN_ATTEMPTS_VALUE);
-					candidateUser.removeUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP);
-					saveUserProperties(candidateUser);
+					loginActivityWriter.recordUnlock(candidateUser);
 				} else {
-					candidateUser.setUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, String.valueOf(System
-						.currentTimeMillis()));
+					loginActivityWriter.recordLockout(candidateUser);
+					detachUser(session, candidateUser);
 					throw new ContextAuthenticationException(
 						"Invalid number of connection attempts. Please try again later.");
 				}
@@ -166,14 +160,9 @@ public class HibernateContextDAO implements ContextDAO {
 				candidateUser.getUserProperties().size();
 				candidateUser.getPrivileges().size();
 
-				// only clean up if the were some login failures, otherwise all should be clean
-				int attempts = getUsersLoginAttempts(candidateUser);
-				if (attempts > 0) {
-					candidateUser.setUserProperty(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, OpenmrsConstants.ZERO_LOGIN_ATTEMPTS_VALUE);
-					candidateUser.removeUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP);
-				}
-				setLastLoginTime(candidateUser);
-				saveUserProperties(candidateUser);
+				// the login bookkeeping is written asynchronously, outside of this transaction
+				loginActivityWriter.recordSuccessfulLogin(candidateUser);
+				detachUser(session, candidateUser);
 
 				// skip out of the method early (instead of throwing the exception)
 				// to indicate that this is the valid user
@@ -181,10 +170,6 @@ public class HibernateContextDAO implements ContextDAO {
 			} else {
 				// the user failed the username/password, increment their
 				// attempts here and set the "lockout" timestamp if necessary
-				int attempts = getUsersLoginAttempts(candidateUser);
-
-				attempts++;
-
 				int allowedFailedLoginCount = 7;
 				try {
 					Context.addProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
@@ -199,15 +184,8 @@ public class HibernateContextDAO implements ContextDAO {
 					Context.removeProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 				}
 
-				if (attempts > allowedFailedLoginCount) {
-					// set the user as locked out at this exact time
-					candidateUser.setUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, String.valueOf(System
-						.currentTimeMillis()));
-				} else {
-					candidateUser.setUserProperty(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, String.valueOf(attempts));
-				}
-
-				saveUserProperties(candidateUser);
+				loginActivityWriter.recordFailedLogin(candidateUser, allowedFailedLoginCount);
+				detachUser(session, candidateUser);
 			}
 		}
 
@@ -217,11 +195,14 @@ public class HibernateContextDAO implements ContextDAO {
 		throw new ContextAuthenticationException(errorMsg);
 	}
 	
-	private void setLastLoginTime(User candidateUser) {
-		candidateUser.setUserProperty(
-			OpenmrsConstants.USER_PROPERTY_LAST_LOGIN_TIMESTAMP,
-			String.valueOf(System.currentTimeMillis())
-		);
+	/**
+	 * The login bookkeeping properties are mirrored on the user object, it is detached so that
+	 * Hibernate does not write them as part of the login transaction. Its person stays attached.
+	 */
+	private void detachUser(Session session, User candidateUser) {
+		if (session.contains(candidateUser)) {
+			session.evict(candidateUser);
+		}
 	}
 	
 	private Long getUnlockTimeMs() {
@@ -289,33 +270,6 @@ public class HibernateContextDAO implements ContextDAO {
 		return Daemon.createUser(user, password, roleNames);
 	}
 	
-	/**
-	 * Call the UserService to save the given user while proxying the privileges needed to do so.
-	 * 
-	 * @param user the User to save
-	 */
-	private void saveUserProperties(User user) {
-		HibernateUtil.saveOrUpdate(sessionFactory.getCurrentSession(), user);
-	}
-	
-	/**
-	 * Get the integer stored for the given user that is their number of login attempts
-	 * 
-	 * @param user the user to check
-	 * @return the # of login attempts for this user defaulting to zero if none defined
-	 */
-	private int getUsersLoginAttempts(User user) {
-		String attemptsString = user.getUserProperty(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, "0");
-		int attempts = 0;
-		try {
-			attempts = Integer.parseInt(attemptsString);
-		}
-		catch (NumberFormatException e) {
-			// skip over errors and leave the attempts at zero
-		}
-		return attempts;
-	}
-	
 	/**
 	 * @see org.openmrs.api.context.Context#openSession()
 	 */
@@ -402,6 +356,8 @@ public class HibernateContextDAO implements ContextDAO {
 	@Override
 	public void clearEntireCache() {
 		sessionFactory.getCache().evictAllRegions();
+		loginActivityWriter.clear();
+		clearSearchQueryCache();
 	}
 	
 	/**
@@ -561,6 +517,7 @@ public class HibernateContextDAO implements ContextDAO {
 			session.setHibernateFlushMode(flushMode);
 			session.setCacheMode(cacheMode);
 		}
+		clearSearchQueryCache();
 	}
 
 	@Override
@@ -568,6 +525,7 @@ public class HibernateContextDAO implements ContextDAO {
 	public void updateSearchIndex(Class<?>... types) {
 		try {
 			searchSessionFactory.getSearchSession().massIndexer(types).startAndWait();
+			clearSearchQueryCache();
 		} catch (InterruptedException e) {
 			throw new RuntimeException(e);
 		}
@@ -582,6 +540,9 @@ public class HibernateContextDAO implements ContextDAO {
 		SearchIndexingPlan indexingPlan = searchSessionFactory.getSearchSession().indexingPlan();
 		indexingPlan.addOrUpdate(object);
 		indexingPlan.execute();
+		if (searchSessionFactory.getQueryCache() != null) {
+			searchSessionFactory.getQueryCache().invalidate(Hibernate.getClass(object));
+		}
 	}
 	
 	/**
@@ -593,7 +554,7 @@ public class HibernateContextDAO implements ContextDAO {
 			Context.addProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 			String gp = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GP_SEARCH_INDEX_VERSION, "");
 
-			if (!OpenmrsConstants.SEARCH_INDEX_VERSION.toString().equals(gp)) {
+			if (!InfixMatching.getIndexVersion().equals(gp)) {
 				updateSearchIndex();
 			}
 		}
@@ -610,13 +571,14 @@ public class HibernateContextDAO implements ContextDAO {
 		try {
 			log.warn("Updating the search index... It may take a few minutes.");
 			searchSessionFactory.getSearchSession().massIndexer().startAndWait();
+			clearSearchQueryCache();
 			Context.addProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 			GlobalProperty gp = Context.getAdministrationService().getGlobalPropertyObject(
 			    OpenmrsConstants.GP_SEARCH_INDEX_VERSION);
 			if (gp == null) {
 				gp = new GlobalProperty(OpenmrsConstants.GP_SEARCH_INDEX_VERSION);
 			}
-			gp.setPropertyValue(OpenmrsConstants.SEARCH_INDEX_VERSION.toString());
+			gp.setPropertyValue(InfixMatching.getIndexVersion());
 			Context.getAdministrationService().saveGlobalProperty(gp);
 			log.info("Finished updating the search index");
 		}
@@ -628,6 +590,12 @@ public class HibernateContextDAO implements ContextDAO {
 		}
 	}
 
+	private void clearSearchQueryCache() {
+		if (searchSessionFactory.getQueryCache() != null) {
+			searchSessionFactory.getQueryCache().clear();
+		}
+	}
+
 	/**
 	 * @see ContextDAO#updateSearchIndexAsync()
 	 */
@@ -635,7 +603,10 @@ public class HibernateContextDAO implements ContextDAO {
 	public Future<?> updateSearchIndexAsync() {
 		try {
 			log.info("Started asynchronously updating the search index...");
-			return searchSessionFactory.getSearchSession().massIndexer().start().toCompletableFuture();
+			CompletableFuture<?> future = searchSessionFactory.getSearchSession().massIndexer().start()
+			        .toCompletableFuture();
+			future.whenComplete((result, e) -> clearSearchQueryCache());
+			return future;
 		}
 		catch (Exception e) {
 			throw new RuntimeException("Failed to start asynchronous search index update", e);
@@ -212,7 +212,7 @@ public class HibernateEncounterDAO implements EncounterDAO {
 		
 		cq.where(cb.isFalse(root.get("retired")), cb.equal(root.get("name"), name));
 
-		return session.createQuery(cq).uniqueResult();
+		return HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).uniqueResult();
 	}
 
 	/**
@@ -589,7 +589,7 @@ public class HibernateEncounterDAO implements EncounterDAO {
 
 		cq.where(cb.equal(root.get("name"), name));
 
-		return session.createQuery(cq).uniqueResult();
+		return HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).uniqueResult();
 	}
 
 	/**
@@ -11,12 +11,14 @@ package org.openmrs.api.db.hibernate;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
@@ -35,6 +37,7 @@ import org.openmrs.FieldType;
 import org.openmrs.Form;
 import org.openmrs.FormField;
 import org.openmrs.FormResource;
+import org.openmrs.FormSchema;
 import org.openmrs.api.APIException;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.FormDAO;
@@ -263,6 +266,46 @@ public class HibernateFormDAO implements FormDAO {
 		}
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.FormDAO#getFormSchema(org.openmrs.Form)
+	 */
+	@Override
+	public FormSchema getFormSchema(Form form) throws DAOException {
+		Session session = sessionFactory.getCurrentSession();
+		TypedQuery<Object[]> formQuery = session.createQuery(
+		    "select f.formId, f.dateCreated, f.dateChanged from Form f where f.formId = :formId", Object[].class);
+		formQuery.setParameter("formId", form.getFormId());
+		List<Object[]> forms = formQuery.getResultList();
+		if (forms.isEmpty()) {
+			return null;
+		}
+		FormSchema.Builder builder = new FormSchema.Builder((Integer) forms.get(0)[0], (Date) forms.get(0)[1],
+		        (Date) forms.get(0)[2]);
+		
+		TypedQuery<Object[]> formFields = session.createQuery(
+		    "select ff.formFieldId, ff.uuid, p.formFieldId, f.fieldId, f.name, c.conceptId, ff.fieldNumber, ff.fieldPart, "
+		            + "ff.pageNumber, ff.minOccurs, ff.maxOccurs, ff.required, ff.sortWeight, ff.dateCreated, ff.dateChanged "
+		            + "from FormField ff join ff.field f left join f.concept c left join ff.parent p "
+		            + "where ff.form.formId = :formId order by ff.formFieldId", Object[].class);
+		formFields.setParameter("formId", form.getFormId());
+		for (Object[] row : formFields.getResultList()) {
+			builder.addFormField((Integer) row[0], (String) row[1], (Integer) row[2], (Integer) row[3], (String) row[4],
+			    (Integer) row[5], (Integer) row[6], (String) row[7], (Integer) row[8], (Integer) row[9], (Integer) row[10],
+			    (Boolean) row[11], (Float) row[12], (Date) row[13], (Date) row[14]);
+		}
+		
+		TypedQuery<Object[]> answers = session.createQuery(
+		    "select fa.field.fieldId, fa.concept.conceptId from FieldAnswer fa where fa.field.fieldId in "
+		            + "(select ff.field.fieldId from FormField ff where ff.form.formId = :formId) "
+		            + "order by fa.field.fieldId, fa.concept.conceptId", Object[].class);
+		answers.setParameter("formId", form.getFormId());
+		for (Object[] row : answers.getResultList()) {
+			builder.addFieldAnswer((Integer) row[0], (Integer) row[1]);
+		}
+		
+		return builder.build();
+	}
+	
 	/**
 	 * @see org.openmrs.api.FormService#getForms()
 	 */
@@ -153,7 +153,7 @@ public class HibernateLocationDAO implements LocationDAO {
 
 		cq.where(cb.equal(root.get("name"), tag));
 
-		List<LocationTag> tags = session.createQuery(cq).getResultList();
+		List<LocationTag> tags = HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).getResultList();
 		if (null == tags || tags.isEmpty()) {
 			return null;
 		}
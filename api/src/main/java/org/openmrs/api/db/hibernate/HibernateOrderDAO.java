@@ -551,7 +551,7 @@ public class HibernateOrderDAO implements OrderDAO {
 
 		cq.where(cb.like(cb.lower(root.get("name")), name.toLowerCase()));
 
-		return session.createQuery(cq).uniqueResult();
+		return HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).uniqueResult();
 	}
 	
 	/**
@@ -583,7 +583,7 @@ public class HibernateOrderDAO implements OrderDAO {
 
 		cq.where(cb.equal(root.get("name"), orderTypeName));
 
-		return session.createQuery(cq).uniqueResult();
+		return HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).uniqueResult();
 	}
 	
 	/**
@@ -41,6 +41,7 @@ import org.hibernate.search.engine.search.predicate.SearchPredicate;
 import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
 import org.openmrs.Allergies;
 import org.openmrs.Allergy;
+import org.openmrs.BaseOpenmrsData;
 import org.openmrs.Location;
 import org.openmrs.Patient;
 import org.openmrs.PatientIdentifier;
@@ -53,6 +54,9 @@ import org.openmrs.PersonName;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.api.db.PatientDAO;
+import org.openmrs.api.db.hibernate.search.InfixMatching;
+import org.openmrs.api.db.hibernate.search.InfixMatching.FieldGroup;
+import org.openmrs.api.db.hibernate.search.InfixMatching.Strategy;
 import org.openmrs.api.db.hibernate.search.SearchQueryUnique;
 import org.openmrs.api.db.hibernate.search.session.SearchSessionFactory;
 import org.openmrs.util.OpenmrsConstants;
@@ -424,7 +428,11 @@ public class HibernatePatientDAO implements PatientDAO {
 
 		query.where(predicates.toArray(new Predicate[]{}));
 		query.orderBy(orders);
-		return session.createQuery(query).getResultList();
+		Query<PatientIdentifierType> lookup = session.createQuery(query);
+		if (name != null) {
+			HibernateUtil.cacheMetadataLookup(lookup);
+		}
+		return lookup.getResultList();
 	}
 	
 	/**
@@ -649,8 +657,8 @@ public class HibernatePatientDAO implements PatientDAO {
 	 */
         @Override
 	public PatientIdentifierType getPatientIdentifierTypeByUuid(String uuid) {
-		return sessionFactory.getCurrentSession().createQuery(
-		    "from PatientIdentifierType pit where pit.uuid = :uuid", PatientIdentifierType.class)
+		return HibernateUtil.cacheMetadataLookup(sessionFactory.getCurrentSession().createQuery(
+		    "from PatientIdentifierType pit where pit.uuid = :uuid", PatientIdentifierType.class))
 			.setParameter("uuid", uuid)
 			.uniqueResult();
 	}
@@ -760,7 +768,7 @@ public class HibernatePatientDAO implements PatientDAO {
 						 SearchQueryUnique.newQuery(PersonAttribute.class,
 						f -> personQuery.getPatientAttributeQuery(f, query, includeVoided),
 						 "person.personId", pA -> getPatient(pA.getPerson().getId())
-					))));
+					))).cacheable("patients", query, includeVoided));
 	}
 
     private List<Patient> findPatients(String query, boolean includeVoided) {
@@ -838,7 +846,7 @@ public class HibernatePatientDAO implements PatientDAO {
 						 SearchQueryUnique.newQuery(PersonAttribute.class,
 						f -> personQuery.getPatientAttributeQuery(f, query, includeVoided), 
 						"person.personId", pA -> getPatient(pA.getPerson().getId())
-						))), start, length);
+						))).cacheable("patients", query, includeVoided), start, length);
 
 		return patients;
 	}
@@ -860,7 +868,12 @@ public class HibernatePatientDAO implements PatientDAO {
 				b.should(f.simpleQueryString().field("identifierStart").matching(query).boost(2f));
 			}
 			else  {
-				b.should(f.simpleQueryString().field("identifierAnywhere").matching(query));
+				b.should(f.simpleQueryString().field("identifierAnywhere")
+				        .matching(InfixMatching.toQuery(FieldGroup.IDENTIFIER, query)));
+				if (InfixMatching.getStrategy(FieldGroup.IDENTIFIER) == Strategy.TRIGRAM) {
+					// words shorter than a trigram do not match the anywhere field, match them at the start
+					b.should(f.simpleQueryString().field("identifierStart").matching(query).boost(2f));
+				}
 			}
 		}).toPredicate();
 	
@@ -1040,4 +1053,34 @@ public class HibernatePatientDAO implements PatientDAO {
 		
         return session.createQuery(query).getResultList();
     }
+	
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#getPatientDataIds(Class, Patient)
+	 */
+	@Override
+	public List<Integer> getPatientDataIds(Class<? extends BaseOpenmrsData> type, Patient patient) {
+		return sessionFactory.getCurrentSession()
+		        .createQuery("select id(e) from " + type.getName() + " e where e.patient = :patient order by id(e)",
+		            Integer.class)
+		        .setParameter("patient", patient).getResultList();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#getIdsOfObsNotInEncounters(Patient)
+	 */
+	@Override
+	public List<Integer> getIdsOfObsNotInEncounters(Patient patient) {
+		return sessionFactory.getCurrentSession()
+		        .createQuery("select o.obsId from Obs o where o.person = :patient and o.encounter is null "
+		                + "and o.obsGroup is null and o.voided = false order by o.obsId", Integer.class)
+		        .setParameter("patient", patient).getResultList();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.PatientDAO#getPatientData(Class, List)
+	 */
+	@Override
+	public <T extends BaseOpenmrsData> List<T> getPatientData(Class<T> type, List<Integer> ids) {
+		return sessionFactory.getCurrentSession().findMultiple(type, ids);
+	}
 }
@@ -24,6 +24,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
 import org.openmrs.Person;
 import org.openmrs.PersonAddress;
 import org.openmrs.PersonAttribute;
@@ -266,7 +267,7 @@ public class HibernatePersonDAO implements PersonDAO {
 				f -> personQuery.getPersonNameQueryWithOrParser(f, searchString, includeVoided, dead),
 				"person.personId", PersonName::getPerson).join(SearchQueryUnique.newQuery(PersonAttribute.class,
 				f -> personQuery.getPersonAttributeQueryWithOrParser(f, searchString, includeVoided), 
-				"person.personId", PersonAttribute::getPerson)), null,
+				"person.personId", PersonAttribute::getPerson)).cacheable("people", searchString, includeVoided, dead), null,
 			HibernatePersonDAO.getMaximumSearchResults());
 	}
 	
@@ -391,7 +392,11 @@ public class HibernatePersonDAO implements PersonDAO {
 
 		cq.where(predicates.toArray(new Predicate[]{}));
 
-		return session.createQuery(cq).getResultList();
+		Query<PersonAttributeType> query = session.createQuery(cq);
+		if (exactName != null) {
+			HibernateUtil.cacheMetadataLookup(query);
+		}
+		return query.getResultList();
 	}
 
 	/**
@@ -548,7 +553,7 @@ public class HibernatePersonDAO implements PersonDAO {
 		}
 
 		cq.where(predicates.toArray(new Predicate[]{}));
-		return session.createQuery(cq).getResultList();
+		return HibernateUtil.cacheMetadataLookup(session.createQuery(cq)).getResultList();
 	}
 
 	/**
@@ -10,6 +10,7 @@
 package org.openmrs.api.db.hibernate;
 
 import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
@@ -34,6 +35,7 @@ import org.openmrs.PatientProgram;
 import org.openmrs.PatientProgramAttribute;
 import org.openmrs.PatientState;
 import org.openmrs.Program;
+import org.openmrs.ProgramEnrollments;
 import org.openmrs.ProgramAttributeType;
 import org.openmrs.ProgramWorkflow;
 import org.openmrs.ProgramWorkflowState;
@@ -55,6 +57,12 @@ import org.springframework.stereotype.Repository;
 @Repository("programWorkflowDAO")
 public class HibernateProgramWorkflowDAO implements ProgramWorkflowDAO {
 	
+	/**
+	 * The number of patient ids bound to one query, to stay below the parameter limits of the
+	 * databases
+	 */
+	private static final int PATIENT_ID_BATCH_SIZE = 1000;
+	
 	private final SessionFactory sessionFactory;
 	
 	@Autowired
@@ -249,6 +257,50 @@ public class HibernateProgramWorkflowDAO implements ProgramWorkflowDAO {
 		return query.getResultList();
 	}
 	
+	/**
+	 * @see org.openmrs.api.db.ProgramWorkflowDAO#getProgramEnrollments(Collection, Collection)
+	 */
+	@Override
+	public ProgramEnrollments getProgramEnrollments(Collection<Integer> patientIds, Collection<Program> programs) {
+		ProgramEnrollments.Builder builder = new ProgramEnrollments.Builder();
+		List<Integer> ids = new ArrayList<>(patientIds);
+		String programRestriction = programs == null ? "" : " and pp.program in (:programs)";
+		Session session = sessionFactory.getCurrentSession();
+		
+		for (int start = 0; start < ids.size(); start += PATIENT_ID_BATCH_SIZE) {
+			List<Integer> batch = ids.subList(start, Math.min(start + PATIENT_ID_BATCH_SIZE, ids.size()));
+			
+			TypedQuery<Object[]> enrollments = session.createQuery(
+			    "select pp.patientProgramId, pp.patient.patientId, p.programId, p.uuid, pp.dateEnrolled, pp.dateCompleted "
+			            + "from PatientProgram pp join pp.program p where pp.voided = false "
+			            + "and pp.patient.patientId in (:patientIds)" + programRestriction
+			            + " order by pp.patient.patientId, pp.dateEnrolled", Object[].class);
+			enrollments.setParameter("patientIds", batch);
+			if (programs != null) {
+				enrollments.setParameter("programs", programs);
+			}
+			for (Object[] row : enrollments.getResultList()) {
+				builder.addEnrollment((Integer) row[0], (Integer) row[1], (Integer) row[2], (String) row[3], (Date) row[4],
+				    (Date) row[5]);
+			}
+			
+			TypedQuery<Object[]> states = session.createQuery(
+			    "select pp.patientProgramId, s.programWorkflowStateId, s.uuid, ps.startDate, ps.endDate "
+			            + "from PatientState ps join ps.patientProgram pp join ps.state s where ps.voided = false "
+			            + "and pp.voided = false and pp.patient.patientId in (:patientIds)" + programRestriction
+			            + " order by ps.startDate", Object[].class);
+			states.setParameter("patientIds", batch);
+			if (programs != null) {
+				states.setParameter("programs", programs);
+			}
+			for (Object[] row : states.getResultList()) {
+				builder.addState((Integer) row[0], (Integer) row[1], (String) row[2], (Date) row[3], (Date) row[4]);
+			}
+		}
+		
+		return builder.build();
+	}
+	
 	/**
 	 * @see org.openmrs.api.db.ProgramWorkflowDAO#deletePatientProgram(org.openmrs.PatientProgram)
 	 */
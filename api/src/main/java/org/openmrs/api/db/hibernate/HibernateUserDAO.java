@@ -67,9 +67,12 @@ public class HibernateUserDAO implements UserDAO {
 	 */
 	private final SessionFactory sessionFactory;
 	
+	private final LoginActivityWriter loginActivityWriter;
+	
 	@Autowired
-	public HibernateUserDAO(SessionFactory sessionFactory) {
+	public HibernateUserDAO(SessionFactory sessionFactory, LoginActivityWriter loginActivityWriter) {
 		this.sessionFactory = sessionFactory;
+		this.loginActivityWriter = loginActivityWriter;
 	}
 	
 	/**
@@ -121,6 +124,11 @@ public class HibernateUserDAO implements UserDAO {
 		
 		user = HibernateUtil.saveOrUpdate(currentSession, user);
 		
+		// the saved login properties win over the login activity tracked in memory
+		if (!isNewUser) {
+			loginActivityWriter.reset(user.getUserId());
+		}
+		
 		if (isNewUser && password != null) {
 			/* In OpenMRS, we are using generation strategy as native which will convert to IDENTITY 
 			 for MySQL and SEQUENCE for PostgreSQL. When using IDENTITY strategy, hibernate directly 
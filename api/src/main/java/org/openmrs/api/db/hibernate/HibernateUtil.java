@@ -32,7 +32,9 @@ import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.HSQLDialect;
 import org.hibernate.dialect.PostgreSQLDialect;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.query.Query;
 import org.openmrs.Location;
 import org.openmrs.LocationAttribute;
 import org.openmrs.api.db.DAOException;
@@ -50,6 +52,21 @@ public class HibernateUtil {
 	
 	private static final Logger log = LoggerFactory.getLogger(HibernateUtil.class);
 	
+	/**
+	 * The second level cache region shared by read-mostly metadata like encounter types, visit types
+	 * and order types, and by their collections
+	 * 
+	 * @since 3.0.0
+	 */
+	public static final String METADATA_CACHE_REGION = "metadata";
+	
+	/**
+	 * The query cache region holding the results of lookups of metadata by uuid and by name
+	 * 
+	 * @since 3.0.0
+	 */
+	public static final String METADATA_LOOKUP_CACHE_REGION = "metadata-lookups";
+	
 	/**
 	 * Persists a new entity or merges a detached entity, emulating the old Hibernate
 	 * {@code saveOrUpdate()} behavior. For entities that are already managed, this is a no-op.
@@ -249,7 +266,38 @@ public class HibernateUtil {
 		Root<T> root = query.from(entityClass);
 
 		query.where(cb.equal(root.get("uuid"), uuid));
-		return session.createQuery(query).uniqueResult();
+		Query<T> lookup = session.createQuery(query);
+		if (isCachedMetadata(sessionFactory, entityClass)) {
+			cacheMetadataLookup(lookup);
+		}
+		return lookup.uniqueResult();
+	}
+	
+	/**
+	 * Caches the results of the given lookup of metadata in the {@link #METADATA_LOOKUP_CACHE_REGION}
+	 * query cache region. Cached results are discarded whenever one of the queried tables changes, so
+	 * this should only be used for queries of entities stored in the {@link #METADATA_CACHE_REGION},
+	 * otherwise the entities of a cached result are still loaded one by one from the database.
+	 *
+	 * @param query the lookup by uuid or by name
+	 * @return the given query
+	 * @since 3.0.0
+	 */
+	public static <T> Query<T> cacheMetadataLookup(Query<T> query) {
+		return query.setCacheable(true).setCacheRegion(METADATA_LOOKUP_CACHE_REGION);
+	}
+	
+	/**
+	 * @param sessionFactory the session factory
+	 * @param entityClass the entity class
+	 * @return true if instances of the given class are cached in the {@link #METADATA_CACHE_REGION}
+	 * @since 3.0.0
+	 */
+	public static boolean isCachedMetadata(SessionFactory sessionFactory, Class<?> entityClass) {
+		EntityPersister persister = sessionFactory.unwrap(SessionFactoryImplementor.class).getRuntimeMetamodels()
+		        .getMappingMetamodel().findEntityDescriptor(entityClass);
+		return persister != null && persister.canReadFromCache()
+		        && METADATA_CACHE_REGION.equals(persister.getCacheAccessStrategy().getRegion().getName());
 	}
 
 	/**
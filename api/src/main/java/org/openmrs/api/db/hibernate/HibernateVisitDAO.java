@@ -18,6 +18,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.hibernate.Session;
@@ -392,4 +393,42 @@ public class HibernateVisitDAO implements VisitDAO {
 
 		return session.createQuery(cq).setMaxResults(1).uniqueResult();
 	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#getActiveVisitIds(Collection, Date, int)
+	 */
+	@Override
+	public List<Integer> getActiveVisitIds(Collection<VisitType> visitTypes, Date maximumStartDate, int maxResults) {
+		Session session = sessionFactory.getCurrentSession();
+		CriteriaBuilder cb = session.getCriteriaBuilder();
+		CriteriaQuery<Integer> cq = cb.createQuery(Integer.class);
+		Root<Visit> root = cq.from(Visit.class);
+		
+		List<Predicate> predicates = new ArrayList<>();
+		
+		predicates.add(cb.isFalse(root.get("voided")));
+		predicates.add(cb.isNull(root.get("stopDatetime")));
+		
+		if (maximumStartDate != null) {
+			predicates.add(cb.lessThanOrEqualTo(root.get("startDatetime"), maximumStartDate));
+		}
+		
+		if (CollectionUtils.isNotEmpty(visitTypes)) {
+			predicates.add(root.get("visitType").in(visitTypes));
+		}
+		
+		cq.select(root.get("visitId")).where(predicates.toArray(new Predicate[] {})).orderBy(cb.asc(root.get("visitId")));
+		
+		return session.createQuery(cq).setMaxResults(maxResults).getResultList();
+	}
+	
+	/**
+	 * @see org.openmrs.api.db.VisitDAO#getVisits(List)
+	 */
+	@Override
+	public List<Visit> getVisits(List<Integer> visitIds) {
+		List<Visit> visits = new ArrayList<>(sessionFactory.getCurrentSession().findMultiple(Visit.class, visitIds));
+		visits.removeIf(Objects::isNull);
+		return visits;
+	}
 }
@@ -0,0 +1,383 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openmrs.User;
+import org.openmrs.util.OpenmrsConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the login bookkeeping of {@link HibernateContextDAO#authenticate(String, String)} out of the
+ * login transaction. Failed attempt counters and lockout timestamps are tracked in memory, so lockout
+ * decisions never wait for the database, and the resulting user properties (login attempts, lockout
+ * timestamp and last login timestamp) are coalesced per user and written through the User entity by
+ * a background thread, so that they go through the same mapping and second-level cache as
+ * {@link org.openmrs.api.UserService#saveUser(User)}.
+ * <p>
+ * The in-memory state of a user is seeded from the persisted user properties. Once everything is
+ * written, it is seeded again whenever the persisted properties differ from the ones last written,
+ * so changes made through saveUser on any node are picked up. Saving a user on this node drops its
+ * in-memory state right away, including activity that has not been written yet, as the saved
+ * properties win.
+ * <p>
+ * The lockout is decided per cluster node. Each node counts the failed attempts it sees itself and
+ * only picks up the counts written by the other nodes once all of its own changes are written, so
+ * an attacker spreading attempts across N nodes gets up to N times the allowed number of failed
+ * attempts before every node has locked the user out. A node that locks the user out writes the
+ * lockout timestamp with its next flush, and the other nodes honour it once their own changes are
+ * written.
+ * <p>
+ * The flush interval can be changed with the <i>login.activity.flush.interval</i> runtime property
+ * in seconds. A flush interval of 0 disables the background thread, pending changes are then only
+ * written by {@link #flush()} and on shutdown.
+ *
+ * @since 3.0.0
+ */
+@Component("loginActivityWriter")
+public class LoginActivityWriter implements DisposableBean {
+	
+	private static final Logger log = LoggerFactory.getLogger(LoginActivityWriter.class);
+	
+	private final SessionFactory sessionFactory;
+	
+	private final Map<Integer, LoginActivity> activities = new ConcurrentHashMap<>();
+	
+	private final ScheduledExecutorService executor;
+	
+	@Autowired
+	public LoginActivityWriter(SessionFactory sessionFactory,
+	    @Value("${login.activity.flush.interval:5}") long flushInterval) {
+		this.sessionFactory = sessionFactory;
+		if (flushInterval > 0) {
+			this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "openmrs-login-activity-writer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.SECONDS);
+		} else {
+			this.executor = null;
+		}
+	}
+	
+	/**
+	 * Forgets everything known about the given user, to be called when the user is saved through
+	 * other means than logging in. It is forgotten again once the current transaction commits, as
+	 * a login in between sees the properties from before the save.
+	 *
+	 * @param userId the user id
+	 */
+	public void reset(Integer userId) {
+		activities.remove(userId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				
+				@Override
+				public void afterCommit() {
+					activities.remove(userId);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * @param user the user trying to log in
+	 * @return the time the user was locked out at, or -1 if the user is not locked out
+	 */
+	public long getLockoutTime(User user) {
+		return getActivity(user).getLockoutTime();
+	}
+	
+	/**
+	 * Records a successful login, clearing any failed attempts and setting the last login time
+	 *
+	 * @param user the user that logged in
+	 */
+	public void recordSuccessfulLogin(User user) {
+		getActivity(user).loggedIn(user, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Records a failed login attempt, locking the user out once the allowed number of failed attempts
+	 * on this node is exceeded
+	 *
+	 * @param user the user that failed to log in
+	 * @param allowedFailedLoginCount the number of failed attempts allowed before lockout
+	 */
+	public void recordFailedLogin(User user, int allowedFailedLoginCount) {
+		getActivity(user).failed(user, allowedFailedLoginCount, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Records that the lockout of the user has been renewed because they tried again while locked out
+	 *
+	 * @param user the locked out user
+	 */
+	public void recordLockout(User user) {
+		getActivity(user).lockedOut(user, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Records that the lockout of the user expired
+	 *
+	 * @param user the user that is no longer locked out
+	 */
+	public void recordUnlock(User user) {
+		getActivity(user).unlocked(user);
+	}
+	
+	/**
+	 * Forgets the in-memory login state of all users which has been written, so that it is seeded
+	 * from the persisted user properties again. Login activity that has not been written yet is kept.
+	 */
+	public void clear() {
+		activities.values().removeIf(activity -> !activity.hasChanges());
+	}
+	
+	private LoginActivity getActivity(User user) {
+		return activities.compute(user.getUserId(),
+		    (userId, activity) -> activity == null || activity.isStale(user) ? new LoginActivity(user) : activity);
+	}
+	
+	private void flushQuietly() {
+		try {
+			flush();
+		}
+		catch (RuntimeException e) {
+			log.error("Unable to write login activity", e);
+		}
+	}
+	
+	/**
+	 * Writes all pending user property changes to the database in one transaction
+	 */
+	public synchronized void flush() {
+		Map<Integer, Map<String, String>> pending = new LinkedHashMap<>();
+		for (Map.Entry<Integer, LoginActivity> entry : activities.entrySet()) {
+			Map<String, String> changes = entry.getValue().drainChanges();
+			if (!changes.isEmpty()) {
+				pending.put(entry.getKey(), changes);
+			}
+		}
+		
+		if (pending.isEmpty()) {
+			return;
+		}
+		
+		try (Session session = sessionFactory.openSession()) {
+			Transaction tx = session.beginTransaction();
+			try {
+				for (Map.Entry<Integer, Map<String, String>> entry : pending.entrySet()) {
+					User user = session.get(User.class, entry.getKey());
+					if (user == null) {
+						continue;
+					}
+					for (Map.Entry<String, String> property : entry.getValue().entrySet()) {
+						if (property.getValue() == null) {
+							user.removeUserProperty(property.getKey());
+						} else {
+							user.setUserProperty(property.getKey(), property.getValue());
+						}
+					}
+				}
+				tx.commit();
+			}
+			catch (RuntimeException e) {
+				if (tx.isActive()) {
+					tx.rollback();
+				}
+				// the in-memory counters stay authoritative, the changes are written with the next flush
+				pending.forEach((userId, changes) -> {
+					LoginActivity activity = activities.get(userId);
+					if (activity != null) {
+						activity.restoreChanges(changes);
+					}
+				});
+				log.warn("Unable to write login activity of {} users", pending.size(), e);
+				return;
+			}
+		}
+		
+		pending.forEach((userId, changes) -> activities.computeIfPresent(userId, (id, activity) -> {
+			activity.written(changes);
+			return activity.isSettled() ? null : activity;
+		}));
+		
+		log.debug("Wrote login activity of {} users", pending.size());
+	}
+	
+	@Override
+	public void destroy() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+		flushQuietly();
+	}
+	
+	/**
+	 * The login state of a single user, the changed user properties are kept until they are written
+	 */
+	private static class LoginActivity {
+		
+		private int attempts;
+		
+		private long lockoutTime;
+		
+		// the login attempts and lockout timestamp properties as they are expected to be persisted
+		private String persistedAttempts;
+		
+		private String persistedLockout;
+		
+		private Map<String, String> changes = new HashMap<>();
+		
+		LoginActivity(User user) {
+			persistedAttempts = user.getUserProperty(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, null);
+			persistedLockout = user.getUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, null);
+			attempts = parse(StringUtils.defaultIfBlank(persistedAttempts, "0"), 0);
+			String lockout = persistedLockout;
+			lockoutTime = StringUtils.isBlank(lockout) || "0".equals(lockout) ? -1 : parse(lockout, -1L);
+			if (lockoutTime == -1 && StringUtils.isNotBlank(lockout) && !"0".equals(lockout)) {
+				log.warn("bad value stored in {} user property: {}", OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP,
+				    lockout);
+			}
+		}
+		
+		synchronized long getLockoutTime() {
+			return lockoutTime;
+		}
+		
+		/**
+		 * @param user the user as loaded from the database
+		 * @return true if everything has been written and the persisted properties of the user have
+		 *         been changed since
+		 */
+		synchronized boolean isStale(User user) {
+			return changes.isEmpty()
+			        && (!Objects.equals(persistedAttempts,
+			            user.getUserProperty(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, null))
+			                || !Objects.equals(persistedLockout,
+			                    user.getUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, null)));
+		}
+		
+		synchronized void loggedIn(User user, long now) {
+			// only clean up if the were some login failures, otherwise all should be clean
+			if (attempts > 0) {
+				unlocked(user);
+			}
+			set(user, OpenmrsConstants.USER_PROPERTY_LAST_LOGIN_TIMESTAMP, String.valueOf(now));
+		}
+		
+		synchronized void failed(User user, int allowedFailedLoginCount, long now) {
+			attempts++;
+			if (attempts > allowedFailedLoginCount) {
+				// set the user as locked out at this exact time
+				lockedOut(user, now);
+			} else {
+				set(user, OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, String.valueOf(attempts));
+			}
+		}
+		
+		synchronized void lockedOut(User user, long now) {
+			lockoutTime = now;
+			set(user, OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, String.valueOf(now));
+		}
+		
+		synchronized void unlocked(User user) {
+			attempts = 0;
+			lockoutTime = -1;
+			set(user, OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS, OpenmrsConstants.ZERO_LOGIN_ATTEMPTS_VALUE);
+			set(user, OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, null);
+		}
+		
+		synchronized boolean hasChanges() {
+			return !changes.isEmpty();
+		}
+		
+		synchronized Map<String, String> drainChanges() {
+			if (changes.isEmpty()) {
+				return changes;
+			}
+			Map<String, String> drained = changes;
+			changes = new HashMap<>();
+			return drained;
+		}
+		
+		/**
+		 * Puts back the changes which could not be written, unless they have been changed again since
+		 */
+		synchronized void restoreChanges(Map<String, String> drained) {
+			drained.forEach(changes::putIfAbsent);
+		}
+		
+		synchronized void written(Map<String, String> written) {
+			if (written.containsKey(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS)) {
+				persistedAttempts = written.get(OpenmrsConstants.USER_PROPERTY_LOGIN_ATTEMPTS);
+			}
+			if (written.containsKey(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP)) {
+				persistedLockout = written.get(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP);
+			}
+		}
+		
+		synchronized boolean isSettled() {
+			return changes.isEmpty() && attempts == 0 && lockoutTime == -1;
+		}
+		
+		/**
+		 * Records the change and mirrors it on the user object so that the caller sees the same
+		 * properties it would have seen had they been saved right away
+		 */
+		private void set(User user, String property, String value) {
+			changes.put(property, value);
+			if (value == null) {
+				user.removeUserProperty(property);
+			} else {
+				user.setUserProperty(property, value);
+			}
+		}
+		
+		private static int parse(String value, int defaultValue) {
+			try {
+				return Integer.parseInt(value);
+			}
+			catch (NumberFormatException e) {
+				return defaultValue;
+			}
+		}
+		
+		private static long parse(String value, long defaultValue) {
+			try {
+				return Long.parseLong(value);
+			}
+			catch (NumberFormatException e) {
+				return defaultValue;
+			}
+		}
+	}
+}
@@ -23,6 +23,8 @@ import org.hibernate.search.engine.search.predicate.dsl.BooleanPredicateOptionsC
 import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
 import org.hibernate.search.util.common.data.RangeBoundInclusion;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.search.InfixMatching;
+import org.openmrs.api.db.hibernate.search.InfixMatching.FieldGroup;
 import org.openmrs.util.OpenmrsConstants;
 
 /**
@@ -168,13 +170,15 @@ public class PersonQuery {
 		
 		String matchMode = Context.getAdministrationService()
 		        .getGlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_PATIENT_SEARCH_MATCH_MODE);
+		String fieldsQuery = query;
 		if (OpenmrsConstants.GLOBAL_PROPERTY_PATIENT_SEARCH_MATCH_ANYWHERE.equals(matchMode)) {
 			fields.addAll(
 			    Arrays.asList("givenNameAnywhere", "middleNameAnywhere", "familyNameAnywhere", "familyName2Anywhere"));
+			fieldsQuery = InfixMatching.toQuery(FieldGroup.PERSON_NAME, query);
 		}
 		
-		return newPersonNameSearchQuery(predicateFactory, fields, query, orQueryParser, includeVoided, patientsOnly, dead,
-		    null, null);
+		return newPersonNameSearchQuery(predicateFactory, fields, fieldsQuery, orQueryParser, includeVoided, patientsOnly,
+		    dead, null, null);
 	}
 	
 	private SearchPredicate newPersonNameSearchQuery(SearchPredicateFactory predicateFactory, List<String> fields,
@@ -233,13 +237,15 @@ public class PersonQuery {
 		fields.add("valueExact");
 		String matchMode = Context.getAdministrationService()
 		        .getGlobalProperty(OpenmrsConstants.GLOBAL_PROPERTY_PERSON_ATTRIBUTE_SEARCH_MATCH_MODE);
-		if (OpenmrsConstants.GLOBAL_PROPERTY_PERSON_ATTRIBUTE_SEARCH_MATCH_ANYWHERE.equals(matchMode)) {
+		boolean matchAnywhere = OpenmrsConstants.GLOBAL_PROPERTY_PERSON_ATTRIBUTE_SEARCH_MATCH_ANYWHERE.equals(matchMode);
+		if (matchAnywhere) {
 			fields.add("valueStart"); //will position "starts with" match higher
 			fields.add("valueAnywhere");
 		}
+		String fieldsQuery = matchAnywhere ? InfixMatching.toQuery(FieldGroup.PERSON_ATTRIBUTE, query) : query;
 		
 		return predicateFactory.bool().with(b -> {
-			b.must(predicateFactory.simpleQueryString().fields(fields.toArray(new String[0])).matching(query)
+			b.must(predicateFactory.simpleQueryString().fields(fields.toArray(new String[0])).matching(fieldsQuery)
 			        .defaultOperator(orQueryParser ? BooleanOperator.OR : BooleanOperator.AND));
 			
 			if (!includeVoided) {
@@ -0,0 +1,201 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openmrs.api.context.Context;
+import org.openmrs.util.OpenmrsConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides how the "anywhere" fields of identifiers, person names and person attributes are indexed
+ * and queried, which are the fields searched when a match mode is set to ANYWHERE.
+ * <ul>
+ * <li>{@link Strategy#NGRAM} indexes every 2 to 20 character substring of every word and looks up
+ * the search word as a single term. This is the default and matches any search word of 2 or more
+ * characters, but the index holds up to 190 terms per word.</li>
+ * <li>{@link Strategy#TRIGRAM} indexes each 3 character substring of the value once, at consecutive
+ * positions, and searches for the trigrams of the search word as a phrase, so only values that
+ * contain the whole word in order match. The index holds one term per character, but search words
+ * shorter than 3 characters are not matched anywhere in the value, only at its start.</li>
+ * </ul>
+ * The strategy is set per field group through the runtime properties
+ * <code>search.anywhere_strategy.identifier</code>, <code>search.anywhere_strategy.person_name</code>
+ * and <code>search.anywhere_strategy.person_attribute</code>, or for all groups through
+ * <code>search.anywhere_strategy</code>, with the values <code>ngram</code> or
+ * <code>trigram</code>. The strategies are part of the {@link #getIndexVersion() index version}, so
+ * the search index is rebuilt on the next startup after changing them.
+ *
+ * @since 3.0.0
+ */
+public final class InfixMatching {
+
+	private static final Logger log = LoggerFactory.getLogger(InfixMatching.class);
+
+	public static final String STRATEGY_PROPERTY = "search.anywhere_strategy";
+
+	/**
+	 * The size of the substrings indexed by the trigram strategy
+	 */
+	public static final int TRIGRAM_SIZE = 3;
+
+	private static volatile Map<FieldGroup, Strategy> strategies;
+
+	private InfixMatching() {
+	}
+
+	public enum Strategy {
+		NGRAM,
+		TRIGRAM
+	}
+
+	/**
+	 * The groups of anywhere fields, each with the analyzers its fields are indexed and searched with
+	 */
+	public enum FieldGroup {
+
+		IDENTIFIER("identifier", SearchAnalysis.IDENTIFIER_ANYWHERE_ANALYZER,
+		        SearchAnalysis.IDENTIFIER_ANYWHERE_SEARCH_ANALYZER),
+
+		PERSON_NAME("person_name", SearchAnalysis.NAME_ANYWHERE_ANALYZER, SearchAnalysis.NAME_ANYWHERE_SEARCH_ANALYZER),
+
+		PERSON_ATTRIBUTE("person_attribute", SearchAnalysis.ATTRIBUTE_ANYWHERE_ANALYZER,
+		        SearchAnalysis.ATTRIBUTE_ANYWHERE_SEARCH_ANALYZER);
+
+		private final String propertyName;
+
+		private final String analyzer;
+
+		private final String searchAnalyzer;
+
+		FieldGroup(String propertyName, String analyzer, String searchAnalyzer) {
+			this.propertyName = propertyName;
+			this.analyzer = analyzer;
+			this.searchAnalyzer = searchAnalyzer;
+		}
+
+		/**
+		 * @return the name of the runtime property setting the strategy of this group
+		 */
+		public String getPropertyName() {
+			return STRATEGY_PROPERTY + "." + propertyName;
+		}
+
+		public String getAnalyzer() {
+			return analyzer;
+		}
+
+		public String getSearchAnalyzer() {
+			return searchAnalyzer;
+		}
+	}
+
+	/**
+	 * The strategies are read from the runtime properties once, so that the queries keep matching
+	 * the analyzers the index was built with
+	 *
+	 * @param group the field group
+	 * @return the strategy of the field group
+	 */
+	public static Strategy getStrategy(FieldGroup group) {
+		Map<FieldGroup, Strategy> resolved = strategies;
+		if (resolved == null) {
+			resolved = resolveStrategies(Context.getRuntimeProperties());
+			strategies = resolved;
+		}
+		return resolved.get(group);
+	}
+
+	/**
+	 * The version of the search index stored in {@link OpenmrsConstants#GP_SEARCH_INDEX_VERSION}, which
+	 * is {@link OpenmrsConstants#SEARCH_INDEX_VERSION} followed by the groups not indexed with the
+	 * default n-gram strategy, e.g. <code>10;identifier=trigram</code>, so that the index is rebuilt
+	 * when the analyzers of a group change.
+	 *
+	 * @return the version of the search index for the current strategies
+	 * <strong>Should</strong> be the search index version with the default strategies
+	 * <strong>Should</strong> append the groups using the trigram strategy
+	 */
+	public static String getIndexVersion() {
+		StringBuilder version = new StringBuilder(OpenmrsConstants.SEARCH_INDEX_VERSION.toString());
+		for (FieldGroup group : FieldGroup.values()) {
+			Strategy strategy = getStrategy(group);
+			if (strategy != Strategy.NGRAM) {
+				version.append(';').append(group.propertyName).append('=').append(strategy.name().toLowerCase());
+			}
+		}
+		return version.toString();
+	}
+
+	/**
+	 * Sets the strategies from the given properties, to be used by tests
+	 *
+	 * @param properties the properties to read the strategies from, null to read the runtime
+	 *            properties again on next use
+	 */
+	static void setStrategies(Properties properties) {
+		strategies = properties == null ? null : resolveStrategies(properties);
+	}
+
+	private static Map<FieldGroup, Strategy> resolveStrategies(Properties properties) {
+		Strategy defaultStrategy = parse(STRATEGY_PROPERTY, properties.getProperty(STRATEGY_PROPERTY), Strategy.NGRAM);
+		Map<FieldGroup, Strategy> resolved = new EnumMap<>(FieldGroup.class);
+		for (FieldGroup group : FieldGroup.values()) {
+			resolved.put(group,
+			    parse(group.getPropertyName(), properties.getProperty(group.getPropertyName()), defaultStrategy));
+		}
+		return resolved;
+	}
+
+	private static Strategy parse(String property, String value, Strategy defaultStrategy) {
+		if (StringUtils.isBlank(value)) {
+			return defaultStrategy;
+		}
+		try {
+			return Strategy.valueOf(value.trim().toUpperCase());
+		}
+		catch (IllegalArgumentException e) {
+			log.warn("Ignoring unknown value '{}' of {}, using {}", value, property, defaultStrategy);
+			return defaultStrategy;
+		}
+	}
+
+	/**
+	 * Prepares a simple query string for the anywhere fields of the group. With the trigram strategy
+	 * every plain word is quoted, so that its trigrams are searched as a phrase; on the other fields
+	 * searched along a quoted word matches like the plain word as long as they are not tokenized
+	 * any finer than by whitespace. Words containing query syntax are left as they are.
+	 *
+	 * @param group the field group
+	 * @param query the simple query string
+	 * @return the query string to search the fields of the group with
+	 */
+	public static String toQuery(FieldGroup group, String query) {
+		if (query == null || getStrategy(group) != Strategy.TRIGRAM) {
+			return query;
+		}
+		String[] words = StringUtils.split(query);
+		for (int i = 0; i < words.length; i++) {
+			if (isPlainWord(words[i])) {
+				words[i] = "\"" + words[i] + "\"";
+			}
+		}
+		return String.join(" ", words);
+	}
+
+	private static boolean isPlainWord(String word) {
+		return !word.startsWith("-") && StringUtils.containsNone(word, '"', '*', '|', '+', '(', ')', '~', '\\');
+	}
+}
@@ -39,4 +39,22 @@ public class SearchAnalysis {
 	public static final String SOUNDEX_ANALYZER = "soundexAnalyzer";
 	
 	public static final String NAME_ANALYZER = "nameAnalyzer";
+	
+	/**
+	 * The analyzers of the anywhere fields, defined according to the strategy of their group
+	 * 
+	 * @see InfixMatching
+	 * @since 3.0.0
+	 */
+	public static final String IDENTIFIER_ANYWHERE_ANALYZER = "identifierAnywhereAnalyzer";
+	
+	public static final String IDENTIFIER_ANYWHERE_SEARCH_ANALYZER = "identifierAnywhereSearchAnalyzer";
+	
+	public static final String NAME_ANYWHERE_ANALYZER = "nameAnywhereAnalyzer";
+	
+	public static final String NAME_ANYWHERE_SEARCH_ANALYZER = "nameAnywhereSearchAnalyzer";
+	
+	public static final String ATTRIBUTE_ANYWHERE_ANALYZER = "attributeAnywhereAnalyzer";
+	
+	public static final String ATTRIBUTE_ANYWHERE_SEARCH_ANALYZER = "attributeAnywhereSearchAnalyzer";
 }
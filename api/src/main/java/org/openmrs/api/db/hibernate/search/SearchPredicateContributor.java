@@ -0,0 +1,41 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.util.function.Function;
+
+import org.hibernate.search.engine.search.predicate.SearchPredicate;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+
+/**
+ * A Spring bean adding a predicate to every full text search of the entity types it supports, for
+ * example to filter out the records the user may not see. Contributors are looked up once per
+ * entity type by the {@link SearchQueryContributorRegistry}, so searches of entity types without
+ * contributors cost nothing extra. The predicate function itself is applied to each query, so it
+ * may depend on the authenticated user.
+ * <p>
+ * Unlike a listener of {@link SearchCreatedEvent}, which is called for every search of any entity,
+ * a contributor is only called for the searches it applies to.
+ *
+ * @since 3.0.0
+ */
+public interface SearchPredicateContributor {
+
+	/**
+	 * @param entityType an entity type that is searched
+	 * @return true if the predicate should be added to searches of the entity type
+	 */
+	boolean supports(Class<?> entityType);
+
+	/**
+	 * @return the function creating the predicate every result has to match
+	 */
+	Function<SearchPredicateFactory, SearchPredicate> getPredicate();
+}
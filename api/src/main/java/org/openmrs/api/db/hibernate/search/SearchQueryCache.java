@@ -0,0 +1,491 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.search.mapper.orm.cfg.HibernateOrmMapperSettings;
+import org.infinispan.stats.Stats;
+import org.openmrs.GlobalProperty;
+import org.openmrs.api.GlobalPropertyListener;
+import org.openmrs.api.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caches the ids of the hits of {@link SearchQueryUnique} searches, so that type-ahead searches
+ * repeating the same prefix do not query the index again and only load the entities. Only searches
+ * given a key with {@link SearchQueryUnique#cacheable(Object...)} are cached, under that key together
+ * with the searched entity types, the locale and the paging. Searches are not cached while
+ * {@link SearchCreatedEvent}s are published or {@link SearchPredicateContributor}s apply to them, as
+ * their predicates may depend on the user.
+ * <p>
+ * The size and lifespan of the cache are configured in cache-api.yaml. Changes are handled with a
+ * generation per entity type which is part of the keys: committing an insert, update or delete of an
+ * entity evicts the generation of its type and super types, which leaves the cached searches of
+ * these types and of the types referring to them unreachable until they expire. Generations are
+ * evicted across a cluster like any entry, and stored without invalidating them on the other nodes.
+ * Changing a global property clears the cache, as they control how the predicates match.
+ * <p>
+ * A generation is evicted after Hibernate Search has written the changes of the transaction to the
+ * index, but the first search of the new generation would still cache the old hits if the index was
+ * not refreshed yet. Searches are therefore only cached if the configured indexing plan
+ * synchronization strategy makes the changes searchable when the commit returns: {@code sync} or
+ * {@code read-sync}, or the default {@code write-sync} with the Lucene backend and no refresh
+ * interval. The Elasticsearch backend has to be configured with one of the first two to cache
+ * searches.
+ * <p>
+ * Bulk HQL and SQL updates and deletes raise no entity events. They have to call
+ * {@link #invalidateAfterCommit(Class)} for every entity type they change, otherwise the searches
+ * affected by them keep returning stale results for up to the lifespan of the cache, 60 seconds by
+ * default.
+ * <p>
+ * Hit and miss counts are those of cached searches on the local node.
+ *
+ * @since 3.0.0
+ */
+@Component("searchQueryCache")
+public class SearchQueryCache implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+		PostCommitDeleteEventListener, GlobalPropertyListener {
+
+	public static final String CACHE_NAME = "searchQueryResults";
+
+	private static final Logger log = LoggerFactory.getLogger(SearchQueryCache.class);
+
+	private static final String BACKEND_TYPE = "hibernate.search.backend.type";
+
+	private static final String LUCENE_REFRESH_INTERVAL = "hibernate.search.backend.io.refresh_interval";
+
+	// the audit fields refer to users, which would make every search depend on them
+	private static final Set<String> IGNORED_FIELDS = new HashSet<>(
+	        Arrays.asList("creator", "changedBy", "voidedBy", "retiredBy"));
+
+	private final CacheManager cacheManager;
+
+	private final SessionFactory sessionFactory;
+
+	private final SearchQueryContributorRegistry contributorRegistry;
+
+	private final Map<Class<?>, Set<String>> dependenciesByScope = new ConcurrentHashMap<>();
+
+	private final Set<String> trackedTypes = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private volatile boolean enabled = true;
+
+	@Autowired
+	public SearchQueryCache(CacheManager cacheManager, SessionFactory sessionFactory,
+	    SearchQueryContributorRegistry contributorRegistry) {
+		this.cacheManager = cacheManager;
+		this.sessionFactory = sessionFactory;
+		this.contributorRegistry = contributorRegistry;
+	}
+
+	@PostConstruct
+	public void registerListeners() {
+		EventListenerRegistry registry = ((SessionFactoryImpl) sessionFactory).getServiceRegistry()
+		        .getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+		
+		enabled = isIndexSearchableOnCommit(sessionFactory.getProperties());
+		if (!enabled) {
+			log.info("Full text searches are not cached, as the indexing plan synchronization strategy does not make "
+			        + "committed changes searchable right away");
+		}
+	}
+
+	/**
+	 * @param properties the hibernate properties
+	 * @return whether the changes of a transaction can be found in the index once it has committed
+	 */
+	static boolean isIndexSearchableOnCommit(Map<String, Object> properties) {
+		String strategy = getProperty(properties, HibernateOrmMapperSettings.INDEXING_PLAN_SYNCHRONIZATION_STRATEGY,
+		    "write-sync");
+		if ("sync".equals(strategy) || "read-sync".equals(strategy)) {
+			return true;
+		}
+		// the lucene backend reopens its readers on the next search unless a refresh interval is set
+		return "write-sync".equals(strategy) && "lucene".equals(getProperty(properties, BACKEND_TYPE, "lucene"))
+		        && "0".equals(getProperty(properties, LUCENE_REFRESH_INTERVAL, "0"));
+	}
+
+	private static String getProperty(Map<String, Object> properties, String name, String defaultValue) {
+		Object value = properties.get(name);
+		return value == null ? defaultValue : value.toString().trim();
+	}
+
+	/**
+	 * @param query the first of the joined queries of a search
+	 * @param offset the offset of the results
+	 * @param limit the limit of the results
+	 * @param includeTotalHitCount whether the total hit count is calculated
+	 * @return the key the search is cached under, or null if it must not be cached
+	 */
+	Object getKey(SearchQueryUnique<?, ?> query, Integer offset, Integer limit, boolean includeTotalHitCount) {
+		if (!enabled || query.getCacheKey() == null || contributorRegistry.isPublishingEvents()) {
+			return null;
+		}
+		List<Class<?>> scopes = new ArrayList<>();
+		for (SearchQueryUnique<?, ?> next = query; next != null; next = next.getJoinedQuery()) {
+			scopes.add(next.getScope());
+		}
+		if (contributorRegistry.getPredicate(scopes) != null) {
+			return null;
+		}
+
+		List<Object> key = new ArrayList<>();
+		key.add(query.getCacheKey());
+		Set<String> dependencies = new LinkedHashSet<>();
+		for (Class<?> scope : scopes) {
+			key.add(scope.getName());
+			dependencies.addAll(getDependencies(scope));
+		}
+		for (String type : dependencies) {
+			key.add(getGeneration(type));
+		}
+		key.add(Context.getLocale().toString());
+		key.add(offset);
+		key.add(limit);
+		key.add(includeTotalHitCount);
+		return key;
+	}
+
+	/**
+	 * @param key the key of the search
+	 * @return the cached results, or null if there are none
+	 */
+	CachedResults get(Object key) {
+		Cache.ValueWrapper value = getCache().get(key);
+		if (value == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return (CachedResults) value.get();
+	}
+
+	/**
+	 * @param key the key of the search
+	 * @param results the results to cache
+	 */
+	void put(Object key, CachedResults results) {
+		putForExternalRead(key, results);
+	}
+
+	/**
+	 * Evicts cached results that could not be loaded any more
+	 *
+	 * @param key the key of the search
+	 */
+	void evict(Object key) {
+		getCache().evict(key);
+	}
+
+	/**
+	 * Makes all cached searches of the given type and of the types referring to it unreachable
+	 *
+	 * @param type an entity type
+	 */
+	public void invalidate(Class<?> type) {
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			if (trackedTypes.contains(current.getName())) {
+				getCache().evict(generationKey(current.getName()));
+			}
+		}
+	}
+
+	/**
+	 * Invalidates the given type once the current transaction commits, or right away without one. Has
+	 * to be called by bulk updates and deletes, which raise no entity events.
+	 *
+	 * @param type an entity type
+	 */
+	public void invalidateAfterCommit(Class<?> type) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			invalidate(type);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+				invalidate(type);
+			}
+		});
+	}
+
+	/**
+	 * Removes all cached searches
+	 */
+	public void clear() {
+		getCache().clear();
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		invalidate(event.getEntity().getClass());
+	}
+
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		invalidate(event.getEntity().getClass());
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		invalidate(event.getEntity().getClass());
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		return true;
+	}
+
+	@Override
+	public boolean supportsPropertyName(String propertyName) {
+		return true;
+	}
+
+	@Override
+	public void globalPropertyChanged(GlobalProperty newValue) {
+		clear();
+	}
+
+	@Override
+	public void globalPropertyDeleted(String propertyName) {
+		clear();
+	}
+
+	/**
+	 * @return the number of cached searches answered from the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of cached searches that had to query the index
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return hits divided by all lookups, or 0 if nothing has been looked up yet
+	 */
+	public double getHitRatio() {
+		long hitCount = getHits();
+		long lookups = hitCount + getMisses();
+		return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+	}
+
+	/**
+	 * @return the number of entries removed because the cache reached its maximum size
+	 */
+	public long getSizeEvictions() {
+		Object nativeCache = getCache().getNativeCache();
+		if (nativeCache instanceof org.infinispan.Cache) {
+			Stats stats = ((org.infinispan.Cache<?, ?>) nativeCache).getAdvancedCache().getStats();
+			return stats == null ? 0 : stats.getEvictions();
+		}
+		return 0;
+	}
+
+	/**
+	 * The searched type and the types of its fields, as its index may contain fields of them
+	 */
+	private Set<String> getDependencies(Class<?> scope) {
+		return dependenciesByScope.computeIfAbsent(scope, type -> {
+			Set<String> dependencies = new LinkedHashSet<>();
+			dependencies.add(type.getName());
+			for (Class<?> current = type; current != null && current != Object.class; current = current
+			        .getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					if (!IGNORED_FIELDS.contains(field.getName())) {
+						Class<?> fieldType = getEntityType(field);
+						if (fieldType != null) {
+							dependencies.add(fieldType.getName());
+						}
+					}
+				}
+			}
+			trackedTypes.addAll(dependencies);
+			return Collections.unmodifiableSet(dependencies);
+		});
+	}
+
+	private Class<?> getEntityType(Field field) {
+		Class<?> type = field.getType();
+		if (Collection.class.isAssignableFrom(type)) {
+			Type generic = field.getGenericType();
+			if (!(generic instanceof ParameterizedType)) {
+				return null;
+			}
+			Type element = ((ParameterizedType) generic).getActualTypeArguments()[0];
+			if (!(element instanceof Class)) {
+				return null;
+			}
+			type = (Class<?>) element;
+		}
+		return type.getName().startsWith("org.openmrs.") && !type.isEnum() ? type : null;
+	}
+
+	private Object getGeneration(String type) {
+		Object key = generationKey(type);
+		Cache.ValueWrapper generation = getCache().get(key);
+		if (generation != null) {
+			return generation.get();
+		}
+		Long newGeneration = ThreadLocalRandom.current().nextLong();
+		putForExternalRead(key, newGeneration);
+		generation = getCache().get(key);
+		return generation == null ? newGeneration : generation.get();
+	}
+
+	private static Object generationKey(String type) {
+		return "generation:" + type;
+	}
+
+	/**
+	 * Stores a value without invalidating the entry on the other nodes of a cluster, as a value
+	 * computed on each node must not evict the one of another
+	 */
+	private void putForExternalRead(Object key, Object value) {
+		Cache cache = getCache();
+		Object nativeCache = cache.getNativeCache();
+		if (nativeCache instanceof org.infinispan.Cache) {
+			@SuppressWarnings("unchecked")
+			org.infinispan.Cache<Object, Object> infinispanCache = (org.infinispan.Cache<Object, Object>) nativeCache;
+			infinispanCache.putForExternalRead(key, value);
+		} else {
+			cache.putIfAbsent(key, value);
+		}
+	}
+
+	private Cache getCache() {
+		Cache cache = cacheManager.getCache(CACHE_NAME);
+		if (cache == null) {
+			throw new IllegalStateException("The " + CACHE_NAME + " cache is not configured");
+		}
+		return cache;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchQueryCache[hits=" + getHits() + ", misses=" + getMisses() + ", sizeEvictions="
+		        + getSizeEvictions() + "]";
+	}
+
+	/**
+	 * The ids of the hits of a search, with the index of the joined query each hit was found by so that
+	 * it can be mapped to the result type again
+	 */
+	static final class CachedResults implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<Hit> hits;
+
+		private final Long totalHitCount;
+
+		CachedResults(List<Hit> hits, Long totalHitCount) {
+			this.hits = hits;
+			this.totalHitCount = totalHitCount;
+		}
+
+		List<Hit> getHits() {
+			return hits;
+		}
+
+		Long getTotalHitCount() {
+			return totalHitCount;
+		}
+	}
+
+	static final class Hit implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int queryIndex;
+
+		private final Class<?> entityType;
+
+		private final Serializable id;
+
+		Hit(int queryIndex, Class<?> entityType, Serializable id) {
+			this.queryIndex = queryIndex;
+			this.entityType = entityType;
+			this.id = id;
+		}
+
+		int getQueryIndex() {
+			return queryIndex;
+		}
+
+		Class<?> getEntityType() {
+			return entityType;
+		}
+
+		Serializable getId() {
+			return id;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.hibernate.search.engine.search.predicate.SearchPredicate;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.openmrs.api.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.GenericApplicationListener;
+import org.springframework.context.event.GenericApplicationListenerAdapter;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves which {@link SearchPredicateContributor}s apply to the entity types of a search and
+ * whether a {@link SearchCreatedEvent} has to be published for it. Both are worked out again
+ * whenever the application context is refreshed, which happens when modules are started or
+ * stopped, and cached until then: the contributors per entity type and their predicates composed
+ * into one per set of searched entity types.
+ * <p>
+ * Events are only published if a listener would receive a {@link SearchCreatedEvent}, which is
+ * worked out like the application event multicaster does it: the {@link ApplicationListener} beans
+ * and the listeners added to the context, including the ones declared with
+ * {@link org.springframework.context.event.EventListener}, of the context and its parents are asked
+ * whether they support the event type. Events are always published if the runtime property
+ * {@value #PUBLISH_EVENTS_PROPERTY} is true or if the listeners of the context cannot be looked up.
+ *
+ * @since 3.0.0
+ */
+@Component("searchQueryContributorRegistry")
+public class SearchQueryContributorRegistry implements ApplicationListener<ContextRefreshedEvent> {
+
+	private static final Logger log = LoggerFactory.getLogger(SearchQueryContributorRegistry.class);
+
+	public static final String PUBLISH_EVENTS_PROPERTY = "search.publish_created_events";
+
+	private final ApplicationContext applicationContext;
+
+	private volatile List<SearchPredicateContributor> contributors;
+
+	// events are published until the listeners are known, as before
+	private volatile boolean publishEvents = true;
+
+	private final Map<Class<?>, List<SearchPredicateContributor>> contributorsByType = new ConcurrentHashMap<>();
+
+	private final Map<Set<Class<?>>, Optional<Function<SearchPredicateFactory, SearchPredicate>>> predicatesByScope = new ConcurrentHashMap<>();
+
+	@Autowired
+	public SearchQueryContributorRegistry(ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if (event.getApplicationContext() == applicationContext) {
+			refresh();
+		}
+	}
+
+	/**
+	 * Looks up the contributors and listeners again and clears the cached predicates
+	 */
+	public void refresh() {
+		List<SearchPredicateContributor> found = findContributors();
+		contributors = found;
+
+		publishEvents = Boolean.parseBoolean(Context.getRuntimeProperties().getProperty(PUBLISH_EVENTS_PROPERTY))
+		        || hasSearchCreatedEventListeners();
+
+		contributorsByType.clear();
+		predicatesByScope.clear();
+		log.debug("Found {} search predicate contributors, publishing search events: {}", found.size(), publishEvents);
+	}
+
+	private boolean hasSearchCreatedEventListeners() {
+		ResolvableType eventType = ResolvableType.forClass(SearchCreatedEvent.class);
+		for (ApplicationContext context = applicationContext; context != null; context = context.getParent()) {
+			if (!(context instanceof AbstractApplicationContext)) {
+				// the listeners added to the context are unknown
+				return true;
+			}
+			for (ApplicationListener<?> listener : ((AbstractApplicationContext) context).getApplicationListeners()) {
+				if (supports(listener, eventType)) {
+					return true;
+				}
+			}
+			for (ApplicationListener<?> listener : context.getBeansOfType(ApplicationListener.class, false, false)
+			        .values()) {
+				if (supports(listener, eventType)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean supports(ApplicationListener<?> listener, ResolvableType eventType) {
+		GenericApplicationListener generic = listener instanceof GenericApplicationListener
+		        ? (GenericApplicationListener) listener
+		        : new GenericApplicationListenerAdapter(listener);
+		return generic.supportsEventType(eventType);
+	}
+
+	private List<SearchPredicateContributor> findContributors() {
+		List<SearchPredicateContributor> found = new ArrayList<>(
+		        applicationContext.getBeansOfType(SearchPredicateContributor.class).values());
+		AnnotationAwareOrderComparator.sort(found);
+		return found;
+	}
+
+	/**
+	 * @return true if a {@link SearchCreatedEvent} has to be published for every search
+	 */
+	public boolean isPublishingEvents() {
+		return publishEvents;
+	}
+
+	/**
+	 * @param entityTypes the entity types that are searched
+	 * @return the predicate of all contributors supporting one of the entity types, or null if there
+	 *         are none
+	 */
+	public Function<SearchPredicateFactory, SearchPredicate> getPredicate(Collection<? extends Class<?>> entityTypes) {
+		Set<Class<?>> scope = new HashSet<>(entityTypes);
+		return predicatesByScope.computeIfAbsent(scope, this::composePredicate).orElse(null);
+	}
+
+	private Optional<Function<SearchPredicateFactory, SearchPredicate>> composePredicate(Set<Class<?>> scope) {
+		List<Function<SearchPredicateFactory, SearchPredicate>> predicates = new ArrayList<>();
+		for (Class<?> entityType : scope) {
+			for (SearchPredicateContributor contributor : getContributors(entityType)) {
+				Function<SearchPredicateFactory, SearchPredicate> predicate = contributor.getPredicate();
+				if (predicate != null && !predicates.contains(predicate)) {
+					predicates.add(predicate);
+				}
+			}
+		}
+		if (predicates.isEmpty()) {
+			return Optional.empty();
+		}
+		if (predicates.size() == 1) {
+			return Optional.of(predicates.get(0));
+		}
+		return Optional.of(f -> and(f, predicates));
+	}
+
+	private List<SearchPredicateContributor> getContributors(Class<?> entityType) {
+		List<SearchPredicateContributor> all = contributors;
+		if (all == null) {
+			// searched before the context was refreshed
+			all = findContributors();
+			contributors = all;
+		}
+		List<SearchPredicateContributor> candidates = all;
+		return contributorsByType.computeIfAbsent(entityType, type -> {
+			List<SearchPredicateContributor> supporting = new ArrayList<>();
+			for (SearchPredicateContributor contributor : candidates) {
+				if (contributor.supports(type)) {
+					supporting.add(contributor);
+				}
+			}
+			return supporting.isEmpty() ? Collections.emptyList() : supporting;
+		});
+	}
+
+	/**
+	 * Combines the predicate a {@link SearchCreatedEvent} listener set with the one of the
+	 * contributors
+	 *
+	 * @param first a predicate, may be null
+	 * @param second another predicate, may be null
+	 * @return a predicate matching both, or the one that is not null
+	 */
+	public static Function<SearchPredicateFactory, SearchPredicate> and(
+	        Function<SearchPredicateFactory, SearchPredicate> first, Function<SearchPredicateFactory, SearchPredicate> second) {
+		if (first == null) {
+			return second;
+		}
+		if (second == null) {
+			return first;
+		}
+		List<Function<SearchPredicateFactory, SearchPredicate>> both = List.of(first, second);
+		return f -> and(f, both);
+	}
+
+	private static SearchPredicate and(SearchPredicateFactory f,
+	        List<Function<SearchPredicateFactory, SearchPredicate>> predicates) {
+		return f.bool().with(b -> {
+			for (Function<SearchPredicateFactory, SearchPredicate> predicate : predicates) {
+				b.filter(predicate.apply(f));
+			}
+		}).toPredicate();
+	}
+}
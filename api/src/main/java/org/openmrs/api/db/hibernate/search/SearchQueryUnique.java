@@ -9,14 +9,21 @@
  */
 package org.openmrs.api.db.hibernate.search;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.search.BooleanQuery;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.hibernate.search.engine.search.predicate.SearchPredicate;
 import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
 import org.hibernate.search.engine.search.query.SearchQuery;
@@ -24,6 +31,8 @@ import org.hibernate.search.engine.search.query.SearchScroll;
 import org.hibernate.search.engine.search.query.SearchScrollResult;
 import org.hibernate.search.mapper.orm.scope.SearchScope;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.openmrs.api.db.hibernate.search.SearchQueryCache.CachedResults;
+import org.openmrs.api.db.hibernate.search.SearchQueryCache.Hit;
 import org.openmrs.api.db.hibernate.search.session.SearchSessionFactory;
 
 /**
@@ -46,6 +55,7 @@ public class SearchQueryUnique<T, R> {
 	Function<T, R> mapper;
 	String uniqueKey;
 	SearchQueryUnique<?, R> joinedQuery;
+	Object cacheKey;
 
 	public SearchQueryUnique(Class<? extends T> scope, Function<SearchPredicateFactory, SearchPredicate> search,
 							 String uniqueKey, Function<T, R> mapper,
@@ -89,6 +99,25 @@ public class SearchQueryUnique<T, R> {
 		return this;
 	}
 
+	/**
+	 * Allows the ids of the results of this query and the queries joined to it to be cached by the
+	 * {@link SearchQueryCache}. The key must identify everything the predicates depend on apart from
+	 * the searched types, the locale and the paging, such as the search phrase and the flags passed
+	 * to them, and it should name the kind of search so that it differs from keys of other searches.
+	 * 
+	 * @param keyParts the values the results depend on, which must be serializable
+	 * @return this query
+	 * @since 3.0.0
+	 */
+	public SearchQueryUnique<T, R> cacheable(Object... keyParts) {
+		cacheKey = Arrays.asList(keyParts);
+		return this;
+	}
+
+	public Object getCacheKey() {
+		return cacheKey;
+	}
+
 	/**
 	 * Creates a new query for {@link #search(SearchSessionFactory, SearchQueryUnique)}
 	 * @param scope the index type to be searched
@@ -213,6 +242,21 @@ public class SearchQueryUnique<T, R> {
 		}
 
 		SearchSession searchSession = searchSessionFactory.getSearchSession();
+		SearchQueryCache queryCache = searchSessionFactory.getQueryCache();
+		Object cacheKey = queryCache == null ? null
+				: queryCache.getKey(uniqueQuery, offset, limit, includeTotalHitCount);
+		if (cacheKey != null) {
+			CachedResults cached = queryCache.get(cacheKey);
+			if (cached != null) {
+				List<T> cachedResults = load(searchSession.toOrmSession(), uniqueQuery, cached);
+				if (cachedResults != null) {
+					return new SearchUniqueResults<>(cachedResults, offset, limit, cached.getTotalHitCount());
+				}
+				queryCache.evict(cacheKey);
+			}
+		}
+		List<Hit> hits = cacheKey == null ? null : new ArrayList<>();
+		int queryIndex = 0;
 		List<T> results = new ArrayList<>();
 		Collection<Object> uniqueKeys = new LinkedHashSet<>(); // Preserve the order
 		final int maxClauseCount = Math.round(BooleanQuery.getMaxClauseCount() / 2.5f);
@@ -286,6 +330,13 @@ public class SearchQueryUnique<T, R> {
 				partialResults = query.fetchAllHits();
 			}
 
+			if (hits != null) {
+				Session session = searchSession.toOrmSession();
+				for (Object entity : partialResults) {
+					hits.add(new Hit(queryIndex, Hibernate.getClass(entity), (Serializable) session.getIdentifier(entity)));
+				}
+			}
+
 			if (!partialResults.isEmpty()) {
 				if (nextQuery.getMapper() != null) {
 					//noinspection unchecked
@@ -298,6 +349,7 @@ public class SearchQueryUnique<T, R> {
 
 			if (limit != null && results.size() == limit && !includeTotalHitCount) {
 				// End early as we don't need to calculate total hit count
+				cache(queryCache, cacheKey, hits, null);
 				return new SearchUniqueResults<>(results, offset, limit, null);
 			}
 
@@ -319,11 +371,62 @@ public class SearchQueryUnique<T, R> {
 			}
 			
 			nextQuery = nextQuery.getJoinedQuery();
+			queryIndex++;
 		}
 		
+		cache(queryCache, cacheKey, hits, includeTotalHitCount ? totalHitCount : null);
 		return new SearchUniqueResults<>(results, offset, limit, includeTotalHitCount ? totalHitCount : null);
 	}
 
+	private static void cache(SearchQueryCache queryCache, Object cacheKey, List<Hit> hits, Long totalHitCount) {
+		if (cacheKey != null) {
+			queryCache.put(cacheKey, new CachedResults(hits, totalHitCount));
+		}
+	}
+
+	/**
+	 * Loads the entities of cached hits and maps them like the query they were found by
+	 * 
+	 * @return the results, or null if an entity does not exist any more
+	 */
+	private static <T> List<T> load(Session session, SearchQueryUnique<?, T> uniqueQuery, CachedResults cached) {
+		List<SearchQueryUnique<?, T>> queries = new ArrayList<>();
+		for (SearchQueryUnique<?, T> next = uniqueQuery; next != null; next = next.getJoinedQuery()) {
+			queries.add(next);
+		}
+
+		Map<Class<?>, List<Object>> idsByType = new LinkedHashMap<>();
+		for (Hit hit : cached.getHits()) {
+			idsByType.computeIfAbsent(hit.getEntityType(), type -> new ArrayList<>()).add(hit.getId());
+		}
+		Map<Class<?>, Map<Object, Object>> entitiesByType = new HashMap<>();
+		for (Map.Entry<Class<?>, List<Object>> entry : idsByType.entrySet()) {
+			List<?> entities = session.findMultiple(entry.getKey(), entry.getValue());
+			Map<Object, Object> entitiesById = new HashMap<>();
+			for (int i = 0; i < entities.size(); i++) {
+				if (entities.get(i) == null) {
+					return null;
+				}
+				entitiesById.put(entry.getValue().get(i), entities.get(i));
+			}
+			entitiesByType.put(entry.getKey(), entitiesById);
+		}
+
+		List<T> results = new ArrayList<>(cached.getHits().size());
+		for (Hit hit : cached.getHits()) {
+			Object entity = entitiesByType.get(hit.getEntityType()).get(hit.getId());
+			Function<?, T> mapper = queries.get(hit.getQueryIndex()).getMapper();
+			if (mapper != null) {
+				//noinspection unchecked
+				results.add(((Function<Object, T>) mapper).apply(entity));
+			} else {
+				//noinspection unchecked
+				results.add((T) entity);
+			}
+		}
+		return results;
+	}
+
 	/**
 	 * Finds unique keys for the specified search.
 	 * <p>
@@ -11,6 +11,9 @@ package org.openmrs.api.db.hibernate.search.elasticsearch;
 
 import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurationContext;
 import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurer;
+import org.openmrs.api.db.hibernate.search.InfixMatching;
+import org.openmrs.api.db.hibernate.search.InfixMatching.FieldGroup;
+import org.openmrs.api.db.hibernate.search.InfixMatching.Strategy;
 import org.openmrs.api.db.hibernate.search.SearchAnalysis;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
@@ -49,6 +52,24 @@ public class ElasticsearchConfig implements ElasticsearchAnalysisConfigurer {
 			.tokenizer("whitespace")
 			.tokenFilters("lowercase", "asciifolding", "ngram_2_20");
 
+		for (FieldGroup group : FieldGroup.values()) {
+			if (InfixMatching.getStrategy(group) == Strategy.TRIGRAM) {
+				context.analyzer(group.getAnalyzer()).custom()
+					.tokenizer("trigram")
+					.tokenFilters("lowercase", "asciifolding");
+				context.analyzer(group.getSearchAnalyzer()).custom()
+					.tokenizer("trigram")
+					.tokenFilters("lowercase", "asciifolding");
+			} else {
+				context.analyzer(group.getAnalyzer()).custom()
+					.tokenizer("whitespace")
+					.tokenFilters("lowercase", "asciifolding", "ngram_2_20");
+				context.analyzer(group.getSearchAnalyzer()).custom()
+					.tokenizer("whitespace")
+					.tokenFilters("lowercase", "asciifolding");
+			}
+		}
+
 		context.analyzer(SearchAnalysis.SOUNDEX_ANALYZER).custom()
 			.tokenizer("standard")
 			.tokenFilters("lowercase", "asciifolding", "phonetic_soundex");
@@ -59,6 +80,10 @@ public class ElasticsearchConfig implements ElasticsearchAnalysisConfigurer {
 		context.tokenFilter("ngram_2_20").type("ngram")
 			.param("min_gram", "2").param("max_gram", "20");
 		
+		String trigramSize = String.valueOf(InfixMatching.TRIGRAM_SIZE);
+		context.tokenizer("trigram").type("ngram")
+			.param("min_gram", trigramSize).param("max_gram", trigramSize);
+		
 		context.tokenFilter("phonetic_soundex").type("phonetic").param("encoder", "soundex");
 	}
 }
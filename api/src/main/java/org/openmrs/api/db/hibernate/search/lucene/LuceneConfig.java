@@ -16,10 +16,14 @@ import org.apache.lucene.analysis.core.WhitespaceTokenizerFactory;
 import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
 import org.apache.lucene.analysis.ngram.EdgeNGramFilterFactory;
 import org.apache.lucene.analysis.ngram.NGramFilterFactory;
+import org.apache.lucene.analysis.ngram.NGramTokenizerFactory;
 import org.apache.lucene.analysis.phonetic.PhoneticFilterFactory;
 import org.apache.lucene.analysis.standard.StandardTokenizerFactory;
 import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
 import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+import org.openmrs.api.db.hibernate.search.InfixMatching;
+import org.openmrs.api.db.hibernate.search.InfixMatching.FieldGroup;
+import org.openmrs.api.db.hibernate.search.InfixMatching.Strategy;
 import org.openmrs.api.db.hibernate.search.SearchAnalysis;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
@@ -49,11 +53,7 @@ public class LuceneConfig implements LuceneAnalysisConfigurer {
 			.tokenFilter(LowerCaseFilterFactory.class)
 			.tokenFilter(ASCIIFoldingFilterFactory.class);
 
-		context.analyzer(SearchAnalysis.EXACT_ANALYZER).custom()
-			.tokenizer(WhitespaceTokenizerFactory.class)
-			.tokenFilter(ClassicFilterFactory.class)
-			.tokenFilter(LowerCaseFilterFactory.class)
-			.tokenFilter(ASCIIFoldingFilterFactory.class);
+		configureExactAnalyzer(context, SearchAnalysis.EXACT_ANALYZER);
 
 		context.analyzer(SearchAnalysis.START_ANALYZER).custom()
 			.tokenizer(WhitespaceTokenizerFactory.class)
@@ -64,7 +64,36 @@ public class LuceneConfig implements LuceneAnalysisConfigurer {
 			.param("minGramSize", "2")
 			.param("maxGramSize", "20");
 
-		context.analyzer(SearchAnalysis.ANYWHERE_ANALYZER).custom()
+		configureNGramAnalyzer(context, SearchAnalysis.ANYWHERE_ANALYZER);
+
+		for (FieldGroup group : FieldGroup.values()) {
+			if (InfixMatching.getStrategy(group) == Strategy.TRIGRAM) {
+				configureTrigramAnalyzer(context, group.getAnalyzer());
+				configureTrigramAnalyzer(context, group.getSearchAnalyzer());
+			} else {
+				configureNGramAnalyzer(context, group.getAnalyzer());
+				configureExactAnalyzer(context, group.getSearchAnalyzer());
+			}
+		}
+
+		context.analyzer(SearchAnalysis.SOUNDEX_ANALYZER).custom()
+			.tokenizer(StandardTokenizerFactory.class)
+			.tokenFilter(ClassicFilterFactory.class)
+			.tokenFilter(LowerCaseFilterFactory.class)
+			.tokenFilter(PhoneticFilterFactory.class)
+			.param("encoder", "Soundex");
+	}
+
+	private void configureExactAnalyzer(LuceneAnalysisConfigurationContext context, String name) {
+		context.analyzer(name).custom()
+			.tokenizer(WhitespaceTokenizerFactory.class)
+			.tokenFilter(ClassicFilterFactory.class)
+			.tokenFilter(LowerCaseFilterFactory.class)
+			.tokenFilter(ASCIIFoldingFilterFactory.class);
+	}
+
+	private void configureNGramAnalyzer(LuceneAnalysisConfigurationContext context, String name) {
+		context.analyzer(name).custom()
 			.tokenizer(WhitespaceTokenizerFactory.class)
 			.tokenFilter(ClassicFilterFactory.class)
 			.tokenFilter(LowerCaseFilterFactory.class)
@@ -72,12 +101,19 @@ public class LuceneConfig implements LuceneAnalysisConfigurer {
 			.tokenFilter(NGramFilterFactory.class)
 			.param("minGramSize", "2")
 			.param("maxGramSize", "20");
+	}
 
-		context.analyzer(SearchAnalysis.SOUNDEX_ANALYZER).custom()
-			.tokenizer(StandardTokenizerFactory.class)
-			.tokenFilter(ClassicFilterFactory.class)
+	/**
+	 * Unlike the n-gram filter the n-gram tokenizer gives every trigram its own position, which lets
+	 * a phrase query check that the trigrams of a search word are adjacent and in order
+	 */
+	private void configureTrigramAnalyzer(LuceneAnalysisConfigurationContext context, String name) {
+		String size = String.valueOf(InfixMatching.TRIGRAM_SIZE);
+		context.analyzer(name).custom()
+			.tokenizer(NGramTokenizerFactory.class)
+			.param("minGramSize", size)
+			.param("maxGramSize", size)
 			.tokenFilter(LowerCaseFilterFactory.class)
-			.tokenFilter(PhoneticFilterFactory.class)
-			.param("encoder", "Soundex");
+			.tokenFilter(ASCIIFoldingFilterFactory.class);
 	}
 }
@@ -11,10 +11,14 @@ package org.openmrs.api.db.hibernate.search.session;
 
 import jakarta.persistence.EntityManager;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.hibernate.Session;
 import org.hibernate.search.engine.search.common.NonStaticMetamodelScope;
+import org.hibernate.search.engine.search.predicate.SearchPredicate;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
 import org.hibernate.search.engine.search.query.dsl.SearchQuerySelectStep;
 import org.hibernate.search.mapper.orm.automaticindexing.session.AutomaticIndexingSynchronizationStrategy;
 import org.hibernate.search.mapper.orm.common.EntityReference;
@@ -32,6 +36,7 @@ import org.hibernate.search.mapper.pojo.work.IndexingPlanSynchronizationStrategy
 import org.hibernate.search.mapper.pojo.work.SearchIndexingPlanFilter;
 import org.openmrs.api.db.hibernate.search.SearchAndEntityCollection;
 import org.openmrs.api.db.hibernate.search.SearchCreatedEvent;
+import org.openmrs.api.db.hibernate.search.SearchQueryContributorRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
@@ -45,6 +50,12 @@ import org.springframework.context.ApplicationEventPublisher;
  * and entity types are passed to the listeners wrapped in a {@link SearchAndEntityCollection} object. <br>
  * <br>
  * An example use case is that a listener can add filters on the newly created query object.
+ * <br>
+ * <br>
+ * When created with a {@link SearchQueryContributorRegistry} the event is only published if there
+ * are listeners for it, and the predicates of the
+ * {@link org.openmrs.api.db.hibernate.search.SearchPredicateContributor}s of the searched entity
+ * types are added to the query. If there is neither, the search of the target is returned as it is.
  * 
  * @since 2.8.0
  */
@@ -56,25 +67,42 @@ public class EventPublisherDelegatingSearchSession implements SearchSession {
 	
 	private ApplicationEventPublisher eventPublisher;
 	
+	private SearchQueryContributorRegistry contributorRegistry;
+	
 	public EventPublisherDelegatingSearchSession(SearchSession delegate, ApplicationEventPublisher eventPublisher) {
 		this.delegate = delegate;
 		this.eventPublisher = eventPublisher;
 	}
+	
+	/**
+	 * @param delegate the search session to delegate to
+	 * @param eventPublisher the publisher of the {@link SearchCreatedEvent}s
+	 * @param contributorRegistry tells whether events are published and gives the predicates of the
+	 *            contributors
+	 * @since 3.0.0
+	 */
+	public EventPublisherDelegatingSearchSession(SearchSession delegate, ApplicationEventPublisher eventPublisher,
+	    SearchQueryContributorRegistry contributorRegistry) {
+		this(delegate, eventPublisher);
+		this.contributorRegistry = contributorRegistry;
+	}
 
 	@SuppressWarnings("deprecation")
 	@Override
 	public <T> SearchQuerySelectStep<NonStaticMetamodelScope, ?, EntityReference, T, SearchLoadingOptionsStep, ?, ?> search(Collection<? extends Class<? extends T>> collection) {
 		log.debug("Creating new search instance");
+		Function<SearchPredicateFactory, SearchPredicate> contributed = getContributedPredicate(collection);
+		if (contributed == null && !isPublishingEvents()) {
+			return delegate.search(collection);
+		}
+		
 		SearchQuerySelectDelegate<NonStaticMetamodelScope, EntityReference, T, SearchLoadingOptionsStep> search = 
 			new SearchQuerySelectDelegate<>(delegate.search(collection));
 		
-		log.debug("Notifying search listeners...");
-		//Notify listeners, note that we intentionally don't catch any exception from a listener
-		//so that failure should just halt the entire creation operation, this is possible because 
-		//the default ApplicationEventMulticaster in spring fires events serially in the same thread
-		//but has the downside of where a rogue listener can block the entire application.
-		SearchAndEntityCollection<T> queryAndEntity = new SearchAndEntityCollection<>(search, collection);
-		eventPublisher.publishEvent(new SearchCreatedEvent(queryAndEntity));
+		if (isPublishingEvents()) {
+			publish(new SearchAndEntityCollection<>(search, collection));
+		}
+		search.setFinalPredicate(SearchQueryContributorRegistry.and(search.getFinalPredicate(), contributed));
 		
 		return search;
 	}
@@ -83,19 +111,40 @@ public class EventPublisherDelegatingSearchSession implements SearchSession {
 	@Override
 	public <T> SearchQuerySelectStep<?, ?, EntityReference, T, SearchLoadingOptionsStep, ?, ?> search(SearchScope<T> searchScope) {
 		log.debug("Creating new search instance");
+		List<? extends Class<? extends T>> entityTypes = searchScope.includedTypes().stream()
+			.map(SearchIndexedEntity::javaClass).collect(Collectors.toList());
+		Function<SearchPredicateFactory, SearchPredicate> contributed = getContributedPredicate(entityTypes);
+		if (contributed == null && !isPublishingEvents()) {
+			return delegate.search(searchScope);
+		}
+		
 		SearchQuerySelectDelegate<?, EntityReference, T, SearchLoadingOptionsStep> search =
 			new SearchQuerySelectDelegate<>(delegate.search(searchScope));
 
+		if (isPublishingEvents()) {
+			publish(new SearchAndEntityCollection<>(search, entityTypes));
+		}
+		search.setFinalPredicate(SearchQueryContributorRegistry.and(search.getFinalPredicate(), contributed));
+		
+		return search;
+	}
+	
+	private boolean isPublishingEvents() {
+		return contributorRegistry == null || contributorRegistry.isPublishingEvents();
+	}
+	
+	private Function<SearchPredicateFactory, SearchPredicate> getContributedPredicate(
+	        Collection<? extends Class<?>> entityTypes) {
+		return contributorRegistry == null ? null : contributorRegistry.getPredicate(entityTypes);
+	}
+	
+	private void publish(SearchAndEntityCollection<?> queryAndEntity) {
 		log.debug("Notifying search listeners...");
 		//Notify listeners, note that we intentionally don't catch any exception from a listener
 		//so that failure should just halt the entire creation operation, this is possible because 
 		//the default ApplicationEventMulticaster in spring fires events serially in the same thread
 		//but has the downside of where a rogue listener can block the entire application.
-		SearchAndEntityCollection<T> queryAndEntity = new SearchAndEntityCollection<>(search, searchScope.includedTypes()
-			.stream().map(SearchIndexedEntity::javaClass).collect(Collectors.toList()));
 		eventPublisher.publishEvent(new SearchCreatedEvent(queryAndEntity));
-		
-		return search;
 	}
 
 	@Override
@@ -11,6 +11,7 @@ package org.openmrs.api.db.hibernate.search.session;
 
 import org.hibernate.Session;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.openmrs.api.db.hibernate.search.SearchQueryCache;
 
 /**
  * Interface to be implemented by objects that are factories of {@link SearchSession} instances. A
@@ -28,4 +29,15 @@ public interface SearchSessionFactory {
 	 * @return {@link SearchSession} object
 	 */
 	SearchSession getSearchSession();
+	
+	/**
+	 * Obtains the cache of search results used by
+	 * {@link org.openmrs.api.db.hibernate.search.SearchQueryUnique}.
+	 * 
+	 * @return the cache, or null if results are not cached
+	 * @since 3.0.0
+	 */
+	default SearchQueryCache getQueryCache() {
+		return null;
+	}
 }
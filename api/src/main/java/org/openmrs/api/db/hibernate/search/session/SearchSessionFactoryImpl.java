@@ -12,6 +12,8 @@ package org.openmrs.api.db.hibernate.search.session;
 import org.hibernate.SessionFactory;
 import org.hibernate.search.mapper.orm.Search;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.openmrs.api.db.hibernate.search.SearchQueryCache;
+import org.openmrs.api.db.hibernate.search.SearchQueryContributorRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
@@ -28,12 +30,26 @@ public class SearchSessionFactoryImpl implements SearchSessionFactory {
 	@Autowired
 	private ApplicationEventPublisher eventPublisher;
 	
+	@Autowired
+	private SearchQueryContributorRegistry contributorRegistry;
+	
+	@Autowired
+	private SearchQueryCache queryCache;
+	
 	/**
 	 * @see SearchSessionFactory#getSearchSession()
 	 */
 	@Override
 	public SearchSession getSearchSession() {
 		SearchSession delegateSession = Search.session(sessionFactory.getCurrentSession());
-		return new EventPublisherDelegatingSearchSession(delegateSession, eventPublisher);
+		return new EventPublisherDelegatingSearchSession(delegateSession, eventPublisher, contributorRegistry);
+	}
+	
+	/**
+	 * @see SearchSessionFactory#getQueryCache()
+	 */
+	@Override
+	public SearchQueryCache getQueryCache() {
+		return queryCache;
 	}
 }
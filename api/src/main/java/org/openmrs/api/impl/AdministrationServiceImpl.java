@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -30,6 +31,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmrs.ConceptSource;
@@ -45,8 +47,11 @@ import org.openmrs.api.AdministrationService;
 import org.openmrs.api.EventListeners;
 import org.openmrs.api.GlobalPropertyListener;
 import org.openmrs.api.RefByUuid;
+import org.openmrs.api.SystemInformationProvider;
+import org.openmrs.api.cache.CacheStatistics;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.AdministrationDAO;
+import org.openmrs.api.db.hibernate.ConnectionPoolMetrics;
 import org.openmrs.customdatatype.CustomDatatype;
 import org.openmrs.customdatatype.CustomDatatypeUtil;
 import org.openmrs.customdatatype.CustomValueDescriptor;
@@ -69,6 +74,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -106,6 +113,10 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 	@Qualifier("implementationIdHttpClient")
 	private HttpClient implementationIdHttpClient;
 	
+	@Autowired(required = false)
+	@Qualifier("apiCacheManager")
+	private CacheManager apiCacheManager;
+	
 	/**
 	 * Default empty constructor
 	 */
@@ -849,6 +860,40 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 			}
 		});
 		
+		Map<String, ConnectionPoolMetrics.PoolMetrics> pools = ConnectionPoolMetrics.getPools();
+		if (!pools.isEmpty()) {
+			// one entry per pool, like the caches below, so that several pools do not overwrite each other
+			Map<String, String> poolInfo = new TreeMap<>();
+			for (ConnectionPoolMetrics.PoolMetrics pool : pools.values()) {
+				poolInfo.put(pool.getPoolName(), String.format(
+				    "%d active, %d idle, %d / %d connections, %d waiting, %d timeouts, "
+				            + "wait %.1f / %.1f / %.1f ms (median / 99th percentile / maximum)",
+				    pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(),
+				    pool.getMaxConnections(), pool.getPendingThreads(), pool.getTimeouts(),
+				    pool.getAcquireLatencyMicros(0.5) / 1000.0, pool.getAcquireLatencyMicros(0.99) / 1000.0,
+				    pool.getAcquireLatencyMicros(1) / 1000.0));
+			}
+			systemInfoMap.put("SystemInfo.title.connectionPoolInformation", poolInfo);
+		}
+		
+		List<CacheStatistics> cacheStatistics = getCacheStatistics();
+		if (!cacheStatistics.isEmpty()) {
+			Map<String, String> cacheInfo = new LinkedHashMap<>();
+			for (CacheStatistics cache : cacheStatistics) {
+				cacheInfo.put(cache.getName(), cache.isStatisticsEnabled() ? String.format(
+				    "%d entries, %d hits, %d misses (%.1f%% hits), %d evictions", cache.getSize(), cache.getHits(),
+				    cache.getMisses(), cache.getHitRatio() * 100, cache.getEvictions()) : cache.getSize() + " entries");
+			}
+			systemInfoMap.put("SystemInfo.title.cacheInformation", cacheInfo);
+		}
+		
+		for (SystemInformationProvider provider : Context.getRegisteredComponents(SystemInformationProvider.class)) {
+			Map<String, String> info = provider.getSystemInformation();
+			if (info != null && !info.isEmpty()) {
+				systemInfoMap.put(provider.getTitle(), info);
+			}
+		}
+		
 		systemInfoMap.put("SystemInfo.title.moduleInformation", new LinkedHashMap<String, String>() {
 			
 			private static final long serialVersionUID = 1L;
@@ -1110,6 +1155,25 @@ public class AdministrationServiceImpl extends BaseOpenmrsService implements Adm
 		storeModuleVersion(moduleId, module.getVersion());
 	}
 
+	/**
+	 * @see org.openmrs.api.AdministrationService#getCacheStatistics()
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<CacheStatistics> getCacheStatistics() {
+		if (apiCacheManager == null) {
+			return Collections.emptyList();
+		}
+		List<CacheStatistics> statistics = new ArrayList<>();
+		for (String cacheName : new TreeSet<>(apiCacheManager.getCacheNames())) {
+			Cache cache = apiCacheManager.getCache(cacheName);
+			if (cache != null) {
+				statistics.add(CacheStatistics.of(cache));
+			}
+		}
+		return statistics;
+	}
+
 	protected String getStoredCoreVersion() {
 		return dao.getGlobalProperty("core.version");
 	}
@@ -65,6 +65,7 @@ import org.openmrs.api.ConceptService;
 import org.openmrs.api.ConceptStopWordException;
 import org.openmrs.api.ConceptsLockedException;
 import org.openmrs.api.RefByUuid;
+import org.openmrs.api.cache.ConceptIdsByMappingCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ConceptDAO;
 import org.openmrs.api.db.DAOException;
@@ -76,7 +77,6 @@ import org.openmrs.validator.ValidateUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -95,6 +95,9 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	@Autowired
 	private ConceptDAO dao;
 	
+	@Autowired
+	private ConceptIdsByMappingCache conceptIdsByMappingCache;
+	
 	private static Concept trueConcept;
 	
 	private static Concept falseConcept;
@@ -103,8 +106,6 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 
 	private static final String ERROR_MESSAGE = "Error generated";
 
-	private static final String CONCEPT_IDS_BY_MAPPING_CACHE_NAME = "conceptIdsByMapping";
-
 	/**
 	 * @see org.openmrs.api.ConceptService#setConceptDAO(org.openmrs.api.db.ConceptDAO)
 	 */
@@ -123,8 +124,10 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
      * <strong>Should</strong> force set flag if set members exist
 	 */
 	@Override
-	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public Concept saveConcept(Concept concept) throws APIException {
+		// the mappings as stored before this save, the cached lookups of these and of the new mappings are evicted
+		Set<Object> mappingKeys = getStoredMappingKeys(concept);
+		
 		ensureConceptMapTypeIsSet(concept);
 
 		CustomDatatypeUtil.saveAttributesIfNecessary(concept);
@@ -193,7 +196,22 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 			concept.setSet(true);
 		}
 
-		return dao.saveConcept(concept);
+		Concept savedConcept = dao.saveConcept(concept);
+		
+		for (ConceptMap map : savedConcept.getConceptMappings()) {
+			ConceptIdsByMappingCache.addKeys(mappingKeys, map.getConceptReferenceTerm());
+		}
+		conceptIdsByMappingCache.evict(mappingKeys);
+		
+		return savedConcept;
+	}
+	
+	private Set<Object> getStoredMappingKeys(Concept concept) {
+		Set<Object> keys = new HashSet<>();
+		for (Object[] term : dao.getConceptMappingsFromDatabase(concept)) {
+			ConceptIdsByMappingCache.addKeys(keys, (String) term[0], (String) term[1], (String) term[2]);
+		}
+		return keys;
 	}
 
 	private void ensureConceptMapTypeIsSet(Concept concept) {
@@ -289,7 +307,14 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 			}
 		}
 		
+		Set<Object> mappingKeys = getStoredMappingKeys(concept);
+		for (ConceptMap map : concept.getConceptMappings()) {
+			ConceptIdsByMappingCache.addKeys(mappingKeys, map.getConceptReferenceTerm());
+		}
+		
 		dao.purgeConcept(concept);
+		
+		conceptIdsByMappingCache.evict(mappingKeys);
 	}
 	
 	/**
@@ -1017,9 +1042,11 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	 * @see org.openmrs.api.ConceptService#purgeConceptSource(org.openmrs.ConceptSource)
 	 */
 	@Override
-	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public ConceptSource purgeConceptSource(ConceptSource cs) throws APIException {
-		return dao.deleteConceptSource(cs);
+		ConceptSource deleted = dao.deleteConceptSource(cs);
+		// lookups of all terms of the source are affected
+		conceptIdsByMappingCache.clear();
+		return deleted;
 	}
 	
 	/**
@@ -1035,9 +1062,11 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	 * @see org.openmrs.api.ConceptService#saveConceptSource(org.openmrs.ConceptSource)
 	 */
 	@Override
-	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public ConceptSource saveConceptSource(ConceptSource conceptSource) throws APIException {
-		return dao.saveConceptSource(conceptSource);
+		ConceptSource saved = dao.saveConceptSource(conceptSource);
+		// lookups of all terms of the source are affected if its name or hl7 code changed
+		conceptIdsByMappingCache.clear();
+		return saved;
 	}
 	
 	/**
@@ -1240,7 +1269,7 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	 */
 	@Override
 	@Transactional(readOnly = true)
-	@Cacheable(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME)
+	@Cacheable(value = ConceptIdsByMappingCache.CACHE_NAME, key = "T(org.openmrs.api.cache.ConceptIdsByMappingCache).key(#p0, #p1, #p2)")
 	public List<Integer> getConceptIdsByMapping(String code, String sourceName, boolean includeRetired) throws APIException {
 		return dao.getConceptIdsByMapping(code, sourceName, includeRetired);
 	}
@@ -1573,9 +1602,10 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	 * @see ConceptService#updateConceptIndexes()
 	 */
 	@Override
-	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public void updateConceptIndexes() throws APIException {
 		Context.updateSearchIndexForType(ConceptName.class);
+		Context.updateSearchIndexForType(Concept.class);
+		conceptIdsByMappingCache.clear();
 	}
 	
 	/**
@@ -1813,9 +1843,22 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	 * @see org.openmrs.api.ConceptService#saveConceptReferenceTerm(org.openmrs.ConceptReferenceTerm)
 	 */
 	@Override
-	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public ConceptReferenceTerm saveConceptReferenceTerm(ConceptReferenceTerm conceptReferenceTerm) throws APIException {
-		return dao.saveConceptReferenceTerm(conceptReferenceTerm);
+		Set<Object> mappingKeys = getStoredMappingKeys(conceptReferenceTerm);
+		
+		ConceptReferenceTerm saved = dao.saveConceptReferenceTerm(conceptReferenceTerm);
+		
+		ConceptIdsByMappingCache.addKeys(mappingKeys, saved);
+		conceptIdsByMappingCache.evict(mappingKeys);
+		return saved;
+	}
+	
+	private Set<Object> getStoredMappingKeys(ConceptReferenceTerm conceptReferenceTerm) {
+		Set<Object> keys = new HashSet<>();
+		for (Object[] term : dao.getConceptReferenceTermFromDatabase(conceptReferenceTerm)) {
+			ConceptIdsByMappingCache.addKeys(keys, (String) term[0], (String) term[1], (String) term[2]);
+		}
+		return keys;
 	}
 	
 	/**
@@ -1844,12 +1887,16 @@ public class ConceptServiceImpl extends BaseOpenmrsService implements ConceptSer
 	 * @see org.openmrs.api.ConceptService#purgeConceptReferenceTerm(org.openmrs.ConceptReferenceTerm)
 	 */
 	@Override
-	@CacheEvict(value = CONCEPT_IDS_BY_MAPPING_CACHE_NAME, allEntries = true)
 	public void purgeConceptReferenceTerm(ConceptReferenceTerm conceptReferenceTerm) throws APIException {
 		if (dao.isConceptReferenceTermInUse(conceptReferenceTerm)) {
 			throw new APIException("ConceptRefereceTerm.inUse", (Object[]) null);
 		}
+		Set<Object> mappingKeys = getStoredMappingKeys(conceptReferenceTerm);
+		ConceptIdsByMappingCache.addKeys(mappingKeys, conceptReferenceTerm);
+		
 		dao.deleteConceptReferenceTerm(conceptReferenceTerm);
+		
+		conceptIdsByMappingCache.evict(mappingKeys);
 	}
 	
 	/**
@@ -18,6 +18,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -53,6 +54,8 @@ import org.openmrs.util.OpenmrsClassLoader;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.util.PrivilegeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -70,6 +73,8 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class EncounterServiceImpl extends BaseOpenmrsService implements EncounterService, RefByUuid {
 	
+	private static final Logger log = LoggerFactory.getLogger(EncounterServiceImpl.class);
+	
 	@Autowired
 	private EncounterDAO dao;
 	
@@ -100,6 +105,7 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 	 */
 	@Override
 	public Encounter saveEncounter(Encounter encounter) throws APIException {
+		SaveTimings timings = new SaveTimings();
 		
 		// if authenticated user is not supposed to edit encounter of certain type
 		failIfDeniedToEdit(encounter);
@@ -169,8 +175,11 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 			}
 		}
 
+		timings.phase("prepare");
+
 		// do the actual saving to the database
 		dao.saveEncounter(encounter);
+		timings.phase("encounter");
 
 		// save the new orderGroups
 		for (OrderGroup orderGroup : encounter.getOrderGroups()) {
@@ -182,28 +191,31 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 				Context.getOrderService().saveOrder(o, null);
 			}
 		}
+		timings.phase("orders");
 		
-		// save the Obs
+		// save the Obs in one batch, so that authorization and the save handlers are applied once for
+		// all of them and the edited obs are voided together
 		String changeMessage = Context.getMessageSourceService().getMessage("Obs.void.reason.default");
 		ObsService os = Context.getObsService();
+		List<Obs> topLevelObs = new ArrayList<>(encounter.getObsAtTopLevel(true));
+		List<Obs> savedObs = topLevelObs.isEmpty() ? topLevelObs : os.saveAllObs(topLevelObs, changeMessage);
 		List<Obs> obsToRemove = new ArrayList<>();
 		List<Obs> obsToAdd = new ArrayList<>();
-		for (Obs o : encounter.getObsAtTopLevel(true)) {
-			if (o.getId() == null) {
-				os.saveObs(o, null);
-			} else {
-				Obs newObs = os.saveObs(o, changeMessage);
+		for (int i = 0; i < topLevelObs.size(); i++) {
+			Obs o = topLevelObs.get(i);
+			if (o.getId() != null && !savedObs.get(i).equals(o)) {
 				//The logic in saveObs evicts the old obs instance, so we need to update the collection
 				//with the newly loaded and voided instance, apparently reloading the encounter
 				//didn't do the tick
 				obsToRemove.add(o);
 				obsToAdd.add(os.getObs(o.getId()));
-				obsToAdd.add(newObs);
+				obsToAdd.add(savedObs.get(i));
 			}
 		}
 
 		removeGivenObsAndTheirGroupMembersFromEncounter(obsToRemove, encounter);
 		addGivenObsAndTheirGroupMembersToEncounter(obsToAdd, encounter);
+		timings.phase("obs");
 		
 		// save the conditions
 		encounter.getConditions().forEach(Context.getConditionService()::saveCondition);
@@ -217,10 +229,39 @@ public class EncounterServiceImpl extends BaseOpenmrsService implements Encounte
 			diagnosis.setEncounter(encounter);
 		});
 		encounter.getDiagnoses().forEach(Context.getDiagnosisService()::save);
+		timings.phase("conditions, allergies and diagnoses");
+		timings.report(encounter);
 		
 		return encounter;
 	}
 	
+	/**
+	 * Measures the phases of {@link #saveEncounter(Encounter)}, the timings are logged at debug level
+	 * to tell which part of saving a large encounter takes the time
+	 */
+	private static class SaveTimings {
+		
+		private final long start = System.nanoTime();
+		
+		private long last = start;
+		
+		private final StringBuilder phases = new StringBuilder();
+		
+		void phase(String name) {
+			long now = System.nanoTime();
+			phases.append(", ").append(name).append(": ").append(TimeUnit.NANOSECONDS.toMillis(now - last)).append(" ms");
+			last = now;
+		}
+		
+		void report(Encounter encounter) {
+			if (log.isDebugEnabled()) {
+				log.debug("Saved encounter {} with {} obs and {} orders in {} ms{}", encounter.getUuid(),
+				    encounter.getAllObs(true).size(), encounter.getOrders().size(),
+				    TimeUnit.NANOSECONDS.toMillis(last - start), phases);
+			}
+		}
+	}
+	
 	/**
 	 * This method safely checks if authenticated user is not supposed to edit encounter of certain type
 	 * 
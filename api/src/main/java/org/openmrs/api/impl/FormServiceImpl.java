@@ -32,12 +32,14 @@ import org.openmrs.FieldType;
 import org.openmrs.Form;
 import org.openmrs.FormField;
 import org.openmrs.FormResource;
+import org.openmrs.FormSchema;
 import org.openmrs.aop.RequiredDataAdvice;
 import org.openmrs.api.APIException;
 import org.openmrs.api.FormService;
 import org.openmrs.api.FormsLockedException;
 import org.openmrs.api.InvalidFileTypeException;
 import org.openmrs.api.RefByUuid;
+import org.openmrs.api.cache.FormSchemaCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.FormDAO;
 import org.openmrs.api.handler.SaveHandler;
@@ -48,6 +50,7 @@ import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.OpenmrsUtil;
 import org.openmrs.validator.FormValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.BindException;
@@ -68,6 +71,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 	@Autowired
 	private FormDAO dao;
 	
+	@Autowired
+	private FormSchemaCache formSchemaCache;
+	
 	private final FormValidator formValidator;
 	
 	/**
@@ -214,13 +220,57 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 	@Transactional(readOnly = true)
 	public FormField getFormField(Form form, Concept concept, Collection<FormField> ignoreFormFields, boolean force)
 	        throws APIException {
-		// create an empty ignoreFormFields list if none was passed in
-		Collection<FormField> tmpIgnoreFormFields = ignoreFormFields;
-		if (tmpIgnoreFormFields == null) {
-			tmpIgnoreFormFields = Collections.emptyList();
+		if (concept == null || concept.getConceptId() == null) {
+			return null;
+		}
+		FormSchema schema = Context.getFormService().getFormSchema(form);
+		if (schema == null) {
+			return null;
+		}
+		List<FormSchema.Node> nodes = schema.getNodesByConcept(concept.getConceptId());
+		if (nodes.isEmpty()) {
+			return null;
 		}
 		
-		return dao.getFormField(form, concept, tmpIgnoreFormFields, force);
+		// the first form field is returned if all were ignored, unless we're in a "force" situation
+		FormSchema.Node match = null;
+		for (FormSchema.Node node : nodes) {
+			if (!isIgnored(node, ignoreFormFields)) {
+				match = node;
+				break;
+			}
+		}
+		if (match == null) {
+			if (force) {
+				return null;
+			}
+			match = nodes.get(0);
+		}
+		return dao.getFormField(match.getFormFieldId());
+	}
+	
+	private boolean isIgnored(FormSchema.Node node, Collection<FormField> ignoreFormFields) {
+		if (ignoreFormFields != null) {
+			for (FormField ignored : ignoreFormFields) {
+				if (node.getFormFieldId().equals(ignored.getFormFieldId()) || node.getUuid().equals(ignored.getUuid())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @see org.openmrs.api.FormService#getFormSchema(org.openmrs.Form)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@Cacheable(value = FormSchemaCache.CACHE_NAME, key = "#p0.formId", condition = "#p0 != null && #p0.formId != null", unless = "#result == null")
+	public FormSchema getFormSchema(Form form) throws APIException {
+		if (form == null || form.getFormId() == null) {
+			return null;
+		}
+		return dao.getFormSchema(form);
 	}
 	
 	/**
@@ -455,6 +505,7 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 			throw new APIException("general.not.yet.implemented", (Object[]) null);
 		} else {
 			dao.deleteField(field);
+			formSchemaCache.clear();
 		}
 	}
 	
@@ -482,6 +533,7 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 		}
 		
 		dao.deleteForm(form);
+		formSchemaCache.evict(form.getFormId());
 	}
 	
 	/**
@@ -490,6 +542,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 	@Override
 	public void purgeFormField(FormField formField) throws APIException {
 		dao.deleteFormField(formField);
+		if (formField.getForm() != null) {
+			formSchemaCache.evict(formField.getForm().getFormId());
+		}
 	}
 	
 	/**
@@ -510,7 +565,10 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 	 */
 	@Override
 	public Field saveField(Field field) throws APIException {
-		return dao.saveField(field);
+		Field savedField = dao.saveField(field);
+		// the name, concept or answers of a field can be part of the schema of any form
+		formSchemaCache.clear();
+		return savedField;
 	}
 	
 	/**
@@ -535,7 +593,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 			}
 		}
 		
-		return dao.saveForm(form);
+		Form savedForm = dao.saveForm(form);
+		formSchemaCache.evict(savedForm.getFormId());
+		return savedForm;
 	}
 	
 	/**
@@ -579,6 +639,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 			}
 		}
 		
+		if (tmpFormField.getForm() != null) {
+			formSchemaCache.evict(tmpFormField.getForm().getFormId());
+		}
 		return tmpFormField;
 	}
 	
@@ -683,6 +746,9 @@ public class FormServiceImpl extends BaseOpenmrsService implements FormService,
 			dao.deleteField(field);
 		}
 		
+		if (!fieldsToDelete.isEmpty()) {
+			formSchemaCache.clear();
+		}
 		return fieldsToDelete.size();
 	}
 	
@@ -12,18 +12,23 @@ package org.openmrs.api.impl;
 
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.Encounter;
 import org.openmrs.Location;
 import org.openmrs.Obs;
+import org.openmrs.OpenmrsObject;
 import org.openmrs.Patient;
 import org.openmrs.Person;
+import org.openmrs.User;
 import org.openmrs.Visit;
 import org.openmrs.aop.RequiredDataAdvice;
 import org.openmrs.api.APIException;
@@ -34,6 +39,7 @@ import org.openmrs.api.RefByUuid;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.ObsDAO;
 import org.openmrs.api.handler.SaveHandler;
+import org.openmrs.api.handler.VoidHandler;
 import org.openmrs.obs.ComplexData;
 import org.openmrs.obs.ComplexObsHandler;
 import org.openmrs.util.OpenmrsClassLoader;
@@ -124,6 +130,169 @@ public class ObsServiceImpl extends BaseOpenmrsService implements ObsService, Re
 		}
 	}
 
+	/**
+	 * @see org.openmrs.api.ObsService#saveAllObs(Collection, String)
+	 */
+	@Override
+	public List<Obs> saveAllObs(Collection<Obs> observations, String changeMessage) throws APIException {
+		if (observations == null) {
+			throw new APIException("Obs.error.cannot.be.null", (Object[]) null);
+		}
+
+		// the save handlers and validators were run on the whole batch by RequiredDataAdvice
+		// already, so the obs are checked once and then written without going through the proxy
+		Set<Integer> editedObsIds = new HashSet<>();
+		for (Obs obs : observations) {
+			if (obs == null) {
+				throw new APIException("Obs.error.cannot.be.null", (Object[]) null);
+			}
+			if (obs.getId() != null && changeMessage == null) {
+				throw new APIException("Obs.error.ChangeMessage.required", (Object[]) null);
+			}
+			collectEditedObsIds(obs, editedObsIds);
+		}
+
+		ObsBatch batch = new ObsBatch(dao.getSavedStatuses(editedObsIds));
+		List<Obs> saved = new ArrayList<>(observations.size());
+		for (Obs obs : observations) {
+			saved.add(saveObsInBatch(obs, changeMessage, batch));
+		}
+
+		voidRevisedObs(batch, changeMessage);
+
+		if (!batch.obsToRefresh.isEmpty()) {
+			Context.flushSession();
+			for (Obs obs : batch.obsToRefresh) {
+				Context.refreshEntity(obs);
+			}
+		}
+		return saved;
+	}
+
+	/**
+	 * Collects the ids of the saved obs that have been changed and will be replaced by new rows
+	 */
+	private void collectEditedObsIds(Obs obs, Set<Integer> editedObsIds) {
+		if (obs.getObsId() == null || obs.getVoided()) {
+			return;
+		}
+		if (obs.isDirty()) {
+			editedObsIds.add(obs.getObsId());
+		} else if (obs.isObsGrouping()) {
+			for (Obs member : obs.getGroupMembers(true)) {
+				collectEditedObsIds(member, editedObsIds);
+			}
+		}
+	}
+
+	/**
+	 * Does what {@link #saveObs(Obs, String)} does for a single obs, except that the originals of
+	 * edited obs are only collected to be voided at the end of the batch
+	 */
+	private Obs saveObsInBatch(Obs obs, String changeMessage, ObsBatch batch) {
+		ensureRequirePrivilege(obs);
+
+		if (obs.getObsId() == null || obs.getVoided()) {
+			handleObsWithComplexConcept(obs);
+			Obs ret = dao.saveObs(obs);
+			saveObsGroupInBatch(ret, changeMessage, batch);
+			return ret;
+		}
+
+		setPersonFromEncounter(obs);
+		if (!obs.isDirty()) {
+			if (obs.isObsGrouping()) {
+				boolean refreshNeeded = false;
+				for (Obs o : obs.getGroupMembers(true)) {
+					if (o.getId() == null) {
+						saveObsInBatch(o, null, batch);
+					} else {
+						Obs newObs = saveObsInBatch(o, changeMessage, batch);
+						refreshNeeded = !newObs.equals(o) || refreshNeeded;
+					}
+				}
+				if (refreshNeeded) {
+					batch.obsToRefresh.add(obs);
+				}
+			}
+			return obs;
+		}
+
+		Obs revision = batch.revisions.get(obs.getObsId());
+		if (revision != null) {
+			return revision;
+		}
+
+		Obs newObs = Obs.newInstance(obs);
+		unsetVoidedAndCreationProperties(newObs, obs);
+		handleObsWithComplexConcept(newObs);
+		updateStatusIfNecessary(newObs, batch.savedStatuses.get(obs.getObsId()));
+
+		RequiredDataAdvice.recursivelyHandle(SaveHandler.class, newObs, changeMessage);
+
+		dao.saveObs(newObs);
+		saveObsGroupInBatch(newObs, null, batch);
+
+		batch.revisions.put(obs.getObsId(), newObs);
+		return newObs;
+	}
+
+	private void saveObsGroupInBatch(Obs obs, String changeMessage, ObsBatch batch) {
+		if (obs.isObsGrouping()) {
+			for (Obs o : obs.getGroupMembers(true)) {
+				saveObsInBatch(o, changeMessage, batch);
+			}
+		}
+	}
+
+	/**
+	 * Voids the originals of all obs edited in the batch. Clean copies of the originals are loaded
+	 * with a single query, so that the changes made to the passed in obs are not written, and voided
+	 * with the same handlers as {@link #voidObs(Obs, String)}. The resulting updates are flushed in
+	 * JDBC batches.
+	 */
+	private void voidRevisedObs(ObsBatch batch, String changeMessage) {
+		if (batch.revisions.isEmpty()) {
+			return;
+		}
+
+		for (Obs newObs : batch.revisions.values()) {
+			evictObsAndChildren(newObs.getPreviousVersion());
+		}
+
+		for (Obs newObs : batch.revisions.values()) {
+			//delete the previous file from the appdata/complex_obs folder
+			if (newObs.getPreviousVersion().isComplex()) {
+				ComplexObsHandler handler = getHandler(newObs.getPreviousVersion());
+				handler.purgeComplexData(newObs.getPreviousVersion());
+			}
+		}
+
+		User voidedBy = Context.getAuthenticatedUser();
+		Date dateVoided = new Date();
+		for (Obs original : dao.getObs(batch.revisions.keySet())) {
+			RequiredDataAdvice.recursivelyHandle(VoidHandler.class, original, voidedBy, dateVoided, changeMessage,
+			    (Set<OpenmrsObject>) null);
+			dao.saveObs(original);
+		}
+	}
+
+	/**
+	 * The state of a call to {@link #saveAllObs(Collection, String)}
+	 */
+	private static class ObsBatch {
+
+		private final Map<Integer, Obs.Status> savedStatuses;
+
+		private final Map<Integer, Obs> revisions = new LinkedHashMap<>();
+
+		private final List<Obs> obsToRefresh = new ArrayList<>();
+
+		ObsBatch(Map<Integer, Obs.Status> savedStatuses) {
+			this.savedStatuses = savedStatuses;
+		}
+	}
+
 	private void setPersonFromEncounter(Obs obs) {
 		Encounter encounter = obs.getEncounter();
 		if (encounter != null) {
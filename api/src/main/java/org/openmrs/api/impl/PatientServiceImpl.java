@@ -62,8 +62,6 @@ import org.openmrs.api.VisitService;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.PatientDAO;
 import org.openmrs.api.db.hibernate.HibernateUtil;
-import org.openmrs.parameter.EncounterSearchCriteria;
-import org.openmrs.parameter.EncounterSearchCriteriaBuilder;
 import org.openmrs.patient.IdentifierValidator;
 import org.openmrs.patient.impl.LuhnIdentifierValidator;
 import org.openmrs.person.PersonMergeLog;
@@ -95,6 +93,11 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 	
 	private static final Logger log = LoggerFactory.getLogger(PatientServiceImpl.class);
 	
+	/**
+	 * The number of visits, encounters or obs that a merge moves before it flushes and evicts them
+	 */
+	private static final int MERGE_CHUNK_SIZE = 100;
+	
 	@Autowired
 	private PatientDAO dao;
 	
@@ -575,49 +578,79 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 	 */
 	@Override
 	public void mergePatients(Patient preferred, Patient notPreferred) throws APIException, SerializationException {
-		log.debug("Merging patients: (preferred)" + preferred.getPatientId() + ", (notPreferred) "
-		        + notPreferred.getPatientId());
-		if (preferred.getPatientId().equals(notPreferred.getPatientId())) {
-			log.debug("Merge operation cancelled: Cannot merge user" + preferred.getPatientId() + " to self");
-			throw new APIException("Patient.merge.cancelled", new Object[] { preferred.getPatientId() });
-		}
-		requireNoActiveOrderOfSameType(preferred,notPreferred);
-		PersonMergeLogData mergedData = new PersonMergeLogData();
-		mergeVisits(preferred, notPreferred, mergedData);
-		mergeEncounters(preferred, notPreferred, mergedData);
-		mergeProgramEnrolments(preferred, notPreferred, mergedData);
-		mergeRelationships(preferred, notPreferred, mergedData);
-		mergeObservationsNotContainedInEncounters(preferred, notPreferred, mergedData);
-		mergeIdentifiers(preferred, notPreferred, mergedData);
-		
-		mergeNames(preferred, notPreferred, mergedData);
-		mergeAddresses(preferred, notPreferred, mergedData);
-		mergePersonAttributes(preferred, notPreferred, mergedData);
-		mergeGenderInformation(preferred, notPreferred, mergedData);
-		mergeDateOfBirth(preferred, notPreferred, mergedData);
-		mergeDateOfDeath(preferred, notPreferred, mergedData);
-		
-		// void the non preferred patient
-		Context.getPatientService().voidPatient(notPreferred, "Merged with patient #" + preferred.getPatientId());
-		
-		// void the person associated with not preferred patient
-		Context.getPersonService().voidPerson(notPreferred,
-		    "The patient corresponding to this person has been voided and Merged with patient #" + preferred.getPatientId());
+		mergePatients(preferred, Collections.singletonList(notPreferred));
+	}
+	
+	/**
+	 * Merges all not preferred patients in one transaction. Visits, encounters and obs are moved in
+	 * chunks of {@value #MERGE_CHUNK_SIZE}, each chunk is saved through its service, flushed and
+	 * evicted from the session, so that a patient with a long history is never loaded at once. The
+	 * preferred patient is saved once after all not preferred patients have been voided.
+	 * 
+	 * @see org.openmrs.api.PatientService#mergePatients(org.openmrs.Patient, java.util.List)
+	 */
+	@Override
+	public void mergePatients(Patient preferred, List<Patient> notPreferred) throws APIException, SerializationException {
+		// check everything up front so that nothing is moved when one of the patients can't be merged
+		List<Patient> patients = new ArrayList<>();
+		patients.add(preferred);
+		for (Patient nonPreferred : notPreferred) {
+			if (preferred.getPatientId().equals(nonPreferred.getPatientId())) {
+				log.debug("Merge operation cancelled: Cannot merge user" + preferred.getPatientId() + " to self");
+				throw new APIException("Patient.merge.cancelled", new Object[] { preferred.getPatientId() });
+			}
+			for (Patient patient : patients) {
+				requireNoActiveOrderOfSameType(patient, nonPreferred);
+			}
+			patients.add(nonPreferred);
+		}
 		
-		// associate the Users associated with the not preferred person, to the preferred person.
-		changeUserAssociations(preferred, notPreferred, mergedData);
+		List<PersonMergeLog> personMergeLogs = new ArrayList<>();
+		for (Patient nonPreferred : notPreferred) {
+			log.debug("Merging patients: (preferred)" + preferred.getPatientId() + ", (notPreferred) "
+			        + nonPreferred.getPatientId());
+			PersonMergeLogData mergedData = new PersonMergeLogData();
+			mergeVisits(preferred, nonPreferred, mergedData);
+			mergeEncounters(preferred, nonPreferred, mergedData);
+			mergeProgramEnrolments(preferred, nonPreferred, mergedData);
+			mergeObservationsNotContainedInEncounters(preferred, nonPreferred, mergedData);
+			mergeRelationships(preferred, nonPreferred, mergedData);
+			mergeIdentifiers(preferred, nonPreferred, mergedData);
+			
+			mergeNames(preferred, nonPreferred, mergedData);
+			mergeAddresses(preferred, nonPreferred, mergedData);
+			mergePersonAttributes(preferred, nonPreferred, mergedData);
+			mergeGenderInformation(preferred, nonPreferred, mergedData);
+			mergeDateOfBirth(preferred, nonPreferred, mergedData);
+			mergeDateOfDeath(preferred, nonPreferred, mergedData);
+			
+			// void the non preferred patient
+			Context.getPatientService().voidPatient(nonPreferred, "Merged with patient #" + preferred.getPatientId());
+			
+			// void the person associated with not preferred patient
+			Context.getPersonService().voidPerson(nonPreferred,
+			    "The patient corresponding to this person has been voided and Merged with patient #"
+			            + preferred.getPatientId());
+			
+			// associate the Users associated with the not preferred person, to the preferred person.
+			changeUserAssociations(preferred, nonPreferred, mergedData);
+			
+			PersonMergeLog personMergeLog = new PersonMergeLog();
+			personMergeLog.setLoser(nonPreferred);
+			personMergeLog.setPersonMergeLogData(mergedData);
+			personMergeLogs.add(personMergeLog);
+		}
 		
 		// Save the newly update preferred patient
-		// This must be called _after_ voiding the nonPreferred patient so that
+		// This must be called _after_ voiding the nonPreferred patients so that
 		//  a "Duplicate Identifier" error doesn't pop up.
 		preferred = savePatient(preferred);
 		
-		//save the person merge log
-		PersonMergeLog personMergeLog = new PersonMergeLog();
-		personMergeLog.setWinner(preferred);
-		personMergeLog.setLoser(notPreferred);
-		personMergeLog.setPersonMergeLogData(mergedData);
-		Context.getPersonService().savePersonMergeLog(personMergeLog);
+		//save the person merge logs
+		for (PersonMergeLog personMergeLog : personMergeLogs) {
+			personMergeLog.setWinner(preferred);
+			Context.getPersonService().savePersonMergeLog(personMergeLog);
+		}
 	}
 	
 	private void requireNoActiveOrderOfSameType(Patient patient1, Patient patient2) {
@@ -634,7 +667,45 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 			}
 		}));
 	}
-
+	
+	private void mergeVisits(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
+		// move all visits, including voided ones. The encounters of a visit are checked when it is
+		// validated and cascade to it, so the visits are flushed but stay in the session
+		VisitService visitService = Context.getVisitService();
+		List<Integer> ids = dao.getPatientDataIds(Visit.class, notPreferred);
+		for (int i = 0; i < ids.size(); i += MERGE_CHUNK_SIZE) {
+			for (Visit visit : dao.getPatientData(Visit.class, chunk(ids, i))) {
+				log.debug("Merging visit {} to {}", visit.getVisitId(), preferred.getPatientId());
+				visit.setPatient(preferred);
+				Visit persisted = visitService.saveVisit(visit);
+				mergedData.addMovedVisit(persisted.getUuid());
+			}
+			Context.flushSession();
+		}
+	}
+	
+	private void mergeEncounters(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
+		// change all encounters, including voided ones. Saving them moves their orders and diagnoses, and
+		// voids their obs and copies them to the preferred patient
+		EncounterService es = Context.getEncounterService();
+		List<Integer> ids = dao.getPatientDataIds(Encounter.class, notPreferred);
+		for (int i = 0; i < ids.size(); i += MERGE_CHUNK_SIZE) {
+			List<Encounter> encounters = dao.getPatientData(Encounter.class, chunk(ids, i));
+			for (Encounter e : encounters) {
+				log.debug("Merging encounter {} to {}", e.getEncounterId(), preferred.getPatientId());
+				e.setPatient(preferred);
+				e.getOrderGroups().forEach(orderGroup -> orderGroup.setPatient(preferred));
+				Encounter persisted = es.saveEncounter(e);
+				mergedData.addMovedEncounter(persisted.getUuid());
+			}
+			Context.flushSession();
+			for (Encounter e : encounters) {
+				e.getAllObs(true).forEach(Context::evictFromSession);
+				Context.evictFromSession(e);
+			}
+		}
+	}
+	
 	private void mergeProgramEnrolments(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
 		// copy all program enrollments
 		ProgramWorkflowService programService = Context.getProgramWorkflowService();
@@ -648,34 +719,35 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		}
 	}
 	
-	private void mergeVisits(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
-		// move all visits, including voided ones (encounters will be handled below)
-		//TODO: this should be a copy, not a move
-		
-		VisitService visitService = Context.getVisitService();
-		
-		for (Visit visit : visitService.getVisitsByPatient(notPreferred, true, true)) {
-			log.debug("Merging visit {} to {}", visit.getVisitId(), preferred.getPatientId());
-			visit.setPatient(preferred);
-			Visit persisted = visitService.saveVisit(visit);
-			mergedData.addMovedVisit(persisted.getUuid());
+	private void mergeObservationsNotContainedInEncounters(Patient preferred, Patient notPreferred,
+	        PersonMergeLogData mergedData) {
+		// obs are immutable, the unvoided obs that weren't contained in encounters are voided and copied
+		ObsService obsService = Context.getObsService();
+		List<Integer> ids = dao.getIdsOfObsNotInEncounters(notPreferred);
+		for (int i = 0; i < ids.size(); i += MERGE_CHUNK_SIZE) {
+			List<Obs> obs = dao.getPatientData(Obs.class, chunk(ids, i));
+			obs.forEach(o -> setPerson(o, preferred));
+			List<Obs> persisted = obsService.saveAllObs(obs, "Merged from patient #" + notPreferred.getPatientId());
+			for (Obs copy : persisted) {
+				log.debug("Merged obs {} to {}", copy.getObsId(), preferred.getPatientId());
+				mergedData.addMovedIndependentObservation(copy.getUuid());
+			}
+			Context.flushSession();
+			obs.forEach(Context::evictFromSession);
+			persisted.forEach(Context::evictFromSession);
 		}
 	}
 	
-	private void mergeEncounters(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
-		// change all encounters. This will cascade to obs and orders contained in those encounters
-		// TODO: this should be a copy, not a move
-		EncounterService es = Context.getEncounterService();
-
-		EncounterSearchCriteria notPreferredPatientEncounterSearchCriteria = new EncounterSearchCriteriaBuilder()
-				.setIncludeVoided(true)
-				.setPatient(notPreferred)
-				.createEncounterSearchCriteria();
-		for (Encounter e : es.getEncounters(notPreferredPatientEncounterSearchCriteria)) {
-			e.setPatient(preferred);
-			log.debug("Merging encounter " + e.getEncounterId() + " to " + preferred.getPatientId());
-			Encounter persisted = es.saveEncounter(e);
-			mergedData.addMovedEncounter(persisted.getUuid());
+	private List<Integer> chunk(List<Integer> ids, int from) {
+		return new ArrayList<>(ids.subList(from, Math.min(ids.size(), from + MERGE_CHUNK_SIZE)));
+	}
+	
+	private void setPerson(Obs obs, Patient preferred) {
+		obs.setPerson(preferred);
+		if (obs.hasGroupMembers(true)) {
+			for (Obs member : obs.getGroupMembers(true)) {
+				setPerson(member, preferred);
+			}
 		}
 	}
 	
@@ -727,20 +799,6 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		}
 	}
 	
-	private void mergeObservationsNotContainedInEncounters(Patient preferred, Patient notPreferred,
-	        PersonMergeLogData mergedData) {
-		// move all obs that weren't contained in encounters
-		// TODO: this should be a copy, not a move
-		ObsService obsService = Context.getObsService();
-		for (Obs obs : obsService.getObservationsByPerson(notPreferred)) {
-			if (obs.getEncounter() == null && !obs.getVoided()) {
-				obs.setPerson(preferred);
-				Obs persisted = obsService.saveObs(obs, "Merged from patient #" + notPreferred.getPatientId());
-				mergedData.addMovedIndependentObservation(persisted.getUuid());
-			}
-		}
-	}
-	
 	private void mergeIdentifiers(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
 		// move all identifiers
 		// (must be done after all calls to services above so hbm doesn't try to save things prematurely (hacky)
@@ -777,6 +835,11 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 	}
 	
 	private void mergeDateOfDeath(Patient preferred, Patient notPreferred, PersonMergeLogData mergedData) {
+		mergedData.setPriorDateOfDeathEstimated(preferred.getDeathdateEstimated());
+		if (preferred.getDeathdateEstimated() == null) {
+			preferred.setDeathdateEstimated(notPreferred.getDeathdateEstimated());
+		}
+		
 		mergedData.setPriorDateOfDeath(preferred.getDeathDate());
 		if (preferred.getDeathDate() == null) {
 			preferred.setDeathDate(notPreferred.getDeathDate());
@@ -877,68 +940,6 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 				log.debug("Merging address " + newAddress.getPersonAddressId() + " to " + preferred.getPatientId());
 			}
 		}
-		
-		// copy person attributes
-		for (PersonAttribute attr : notPreferred.getAttributes()) {
-			if (!attr.getVoided()) {
-				PersonAttribute tmpAttr = attr.copy();
-				tmpAttr.setPerson(null);
-				tmpAttr.setUuid(UUID.randomUUID().toString());
-				preferred.addAttribute(tmpAttr);
-				mergedData.addCreatedAttribute(tmpAttr.getUuid());
-			}
-		}
-		
-		// move all other patient info
-		mergedData.setPriorGender(preferred.getGender());
-		if (!"M".equals(preferred.getGender()) && !"F".equals(preferred.getGender())) {
-			preferred.setGender(notPreferred.getGender());
-		}
-
-		mergedData.setPriorDateOfBirth(preferred.getBirthdate());
-		mergedData.setPriorDateOfBirthEstimated(preferred.getBirthdateEstimated());
-		if (preferred.getBirthdate() == null || (preferred.getBirthdateEstimated() && !notPreferred.getBirthdateEstimated())) {
-			preferred.setBirthdate(notPreferred.getBirthdate());
-			preferred.setBirthdateEstimated(notPreferred.getBirthdateEstimated());
-		}
-		mergedData.setPriorDateOfDeathEstimated(preferred.getDeathdateEstimated());
-		if (preferred.getDeathdateEstimated() == null) {
-			preferred.setDeathdateEstimated(notPreferred.getDeathdateEstimated());
-		}
-		
-		mergedData.setPriorDateOfDeath(preferred.getDeathDate());
-		if (preferred.getDeathDate() == null) {
-			preferred.setDeathDate(notPreferred.getDeathDate());
-		}
-		
-		if (preferred.getCauseOfDeath() != null) {
-			mergedData.setPriorCauseOfDeath(preferred.getCauseOfDeath().getUuid());
-		}
-		if (preferred.getCauseOfDeath() == null) {
-			preferred.setCauseOfDeath(notPreferred.getCauseOfDeath());
-		}
-		
-		// void the non preferred patient
-		Context.getPatientService().voidPatient(notPreferred, "Merged with patient #" + preferred.getPatientId());
-		
-		// void the person associated with not preferred patient
-		Context.getPersonService().voidPerson(notPreferred,
-		    "The patient corresponding to this person has been voided and Merged with patient #" + preferred.getPatientId());
-		
-		// associate the Users associated with the not preferred person, to the preferred person.
-		changeUserAssociations(preferred, notPreferred, mergedData);
-		
-		// Save the newly update preferred patient
-		// This must be called _after_ voiding the nonPreferred patient so that
-		//  a "Duplicate Identifier" error doesn't pop up.
-		preferred = savePatient(preferred);
-		
-		//save the person merge log
-		PersonMergeLog personMergeLog = new PersonMergeLog();
-		personMergeLog.setWinner(preferred);
-		personMergeLog.setLoser(notPreferred);
-		personMergeLog.setPersonMergeLogData(mergedData);
-		Context.getPersonService().savePersonMergeLog(personMergeLog);
 	}
 	
 	/**
@@ -1353,17 +1354,6 @@ public class PatientServiceImpl extends BaseOpenmrsService implements PatientSer
 		
 	}
 	
-	/**
-	 * @see org.openmrs.api.PatientService#mergePatients(org.openmrs.Patient, java.util.List)
-	 */
-	@Override
-	public void mergePatients(Patient preferred, List<Patient> notPreferred) throws APIException, SerializationException {
-		
-		for (Patient nonPreferred : notPreferred) {
-			mergePatients(preferred, nonPreferred);
-		}
-	}
-	
 	/**
 	 * @see org.openmrs.api.PatientService#savePatientIdentifier(org.openmrs.PatientIdentifier)
 	 */
@@ -26,6 +26,7 @@ import org.openmrs.PatientProgram;
 import org.openmrs.PatientProgramAttribute;
 import org.openmrs.PatientState;
 import org.openmrs.Program;
+import org.openmrs.ProgramEnrollments;
 import org.openmrs.ProgramAttributeType;
 import org.openmrs.ProgramWorkflow;
 import org.openmrs.ProgramWorkflowState;
@@ -317,6 +318,15 @@ public class ProgramWorkflowServiceImpl extends BaseOpenmrsService implements Pr
 		}
 	}
 	
+	/**
+	 * @see org.openmrs.api.ProgramWorkflowService#getProgramEnrollments(Cohort, Collection)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public ProgramEnrollments getProgramEnrollments(Cohort cohort, Collection<Program> programs) {
+		return dao.getProgramEnrollments(cohort.getMemberIds(), programs);
+	}
+	
 	/**
 	 * @see org.openmrs.api.ProgramWorkflowService#purgePatientProgram(org.openmrs.PatientProgram)
 	 */
@@ -27,17 +27,22 @@ import org.openmrs.Visit;
 import org.openmrs.VisitAttribute;
 import org.openmrs.VisitAttributeType;
 import org.openmrs.VisitType;
+import org.openmrs.aop.RequiredDataAdvice;
 import org.openmrs.api.APIException;
 import org.openmrs.api.RefByUuid;
 import org.openmrs.api.VisitService;
+import org.openmrs.api.VisitsStoppedEvent;
 import org.openmrs.api.context.Context;
+import org.openmrs.api.handler.SaveHandler;
 import org.openmrs.api.db.VisitDAO;
 import org.openmrs.customdatatype.CustomDatatypeUtil;
 import org.openmrs.parameter.VisitSearchCriteria;
+import org.openmrs.util.DateUtil;
 import org.openmrs.util.OpenmrsConstants;
 import org.openmrs.util.PrivilegeConstants;
 import org.openmrs.validator.ValidateUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -51,9 +56,17 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class VisitServiceImpl extends BaseOpenmrsService implements VisitService, RefByUuid {
 	
+	/**
+	 * The number of visits {@link #stopVisits(Date, int)} stops before it flushes and clears the session
+	 */
+	private static final int STOP_VISITS_CHUNK_SIZE = 100;
+	
 	@Autowired
 	private VisitDAO dao;
 	
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	
 	/**
 	 * Method used to inject the visit data access object.
 	 *
@@ -395,6 +408,53 @@ public class VisitServiceImpl extends BaseOpenmrsService implements VisitService
 		}
 	}
 	
+	/**
+	 * @see org.openmrs.api.VisitService#stopVisits(Date, int)
+	 */
+	@Override
+	public int stopVisits(Date maximumStartDate, int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be greater than 0");
+		}
+		
+		final List<VisitType> visitTypesToStop = getVisitTypesToStop();
+		if (visitTypesToStop.isEmpty()) {
+			return 0;
+		}
+		
+		if (maximumStartDate == null) {
+			maximumStartDate = new Date();
+		}
+		
+		List<Integer> visitIds = dao.getActiveVisitIds(visitTypesToStop, maximumStartDate, batchSize);
+		if (visitIds.isEmpty()) {
+			return 0;
+		}
+		
+		// the stop date as the drop milliseconds interceptor writes it, so that the event matches
+		Date stopDate = DateUtil.truncateToSeconds(new Date());
+		List<Integer> stoppedIds = new ArrayList<>();
+		for (int i = 0; i < visitIds.size(); i += STOP_VISITS_CHUNK_SIZE) {
+			for (Visit visit : dao.getVisits(visitIds.subList(i, Math.min(visitIds.size(), i + STOP_VISITS_CHUNK_SIZE)))) {
+				if (visit.getStopDatetime() == null) {
+					visit.setStopDatetime(stopDate);
+					RequiredDataAdvice.recursivelyHandle(SaveHandler.class, visit, null);
+					dao.saveVisit(visit);
+					stoppedIds.add(visit.getVisitId());
+				}
+			}
+			//ensure changes are persisted to DB before reclaiming memory
+			Context.flushSession();
+			Context.clearSession();
+		}
+		
+		if (!stoppedIds.isEmpty()) {
+			eventPublisher.publishEvent(new VisitsStoppedEvent(stoppedIds, stopDate));
+		}
+		
+		return stoppedIds.size();
+	}
+	
 	private List<VisitType> getVisitTypesToStop() {
 		String gpValue = Context.getAdministrationService().getGlobalProperty(OpenmrsConstants.GP_VISIT_TYPES_TO_AUTO_CLOSE);
 		if (StringUtils.isBlank(gpValue)) {
@@ -0,0 +1,206 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Index of the keys stored by {@link LocalStorageService} in the content-addressed mode, mapping
+ * each key to the hash of the blob holding its data and counting the keys per blob.
+ * <p>
+ * The index is kept in memory and persisted in an append-only log with a line per saved or purged
+ * key. The log is compacted when loaded if most of its lines are outdated. Compacting writes a new
+ * log next to it which is then atomically moved over the old one, so that a crash leaves either of
+ * them.
+ * <p>
+ * The index is local to the process and only sees the changes made through it. It must not be
+ * shared by several OpenMRS instances, see {@link LocalStorageService} for how an index missing
+ * changes is detected.
+ *
+ * @since 3.0.0
+ */
+class LocalStorageKeyIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(LocalStorageKeyIndex.class);
+
+	private static final String ADDED = "+";
+
+	private static final String PURGED = "-";
+
+	private static final int COMPACT_THRESHOLD = 1000;
+
+	private final Path file;
+
+	private final NavigableMap<String, String> hashes = new ConcurrentSkipListMap<>();
+
+	private final Map<String, Integer> references = new HashMap<>();
+
+	LocalStorageKeyIndex(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Loads the index from its log
+	 *
+	 * @return false if there is no log to load from
+	 * @throws IOException if the log cannot be read
+	 */
+	synchronized boolean load() throws IOException {
+		if (!Files.exists(file)) {
+			return false;
+		}
+		hashes.clear();
+		references.clear();
+
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		for (String line : lines) {
+			String[] fields = line.split("\t", -1);
+			if (fields.length == 3 && ADDED.equals(fields[0])) {
+				put(decode(fields[2]), fields[1]);
+			} else if (fields.length == 2 && PURGED.equals(fields[0])) {
+				remove(decode(fields[1]));
+			} else {
+				// only the last line can be incomplete after a crash
+				log.warn("Skipping invalid line of the storage index {}: {}", file, line);
+			}
+		}
+
+		if (lines.size() > 2 * hashes.size() + COMPACT_THRESHOLD) {
+			write();
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the index with the given keys and writes a new log
+	 *
+	 * @param keys hashes by key, an empty hash for data which is not stored in a blob
+	 * @throws IOException if the log cannot be written
+	 */
+	synchronized void rebuild(Map<String, String> keys) throws IOException {
+		hashes.clear();
+		references.clear();
+		keys.forEach(this::put);
+		write();
+	}
+
+	/**
+	 * Adds a key to the index
+	 *
+	 * @param key the key
+	 * @param hash the hash of the blob holding the data of the key
+	 * @throws IOException if the log cannot be written
+	 */
+	synchronized void add(String key, String hash) throws IOException {
+		append(ADDED + "\t" + hash + "\t" + encode(key));
+		put(key, hash);
+	}
+
+	/**
+	 * Removes a key from the index
+	 *
+	 * @param key the key
+	 * @return the hash of the blob which held the data of the key or null if the key is not indexed
+	 * @throws IOException if the log cannot be written
+	 */
+	synchronized String purge(String key) throws IOException {
+		if (!hashes.containsKey(key)) {
+			return null;
+		}
+		append(PURGED + "\t" + encode(key));
+		return remove(key);
+	}
+
+	/**
+	 * @param hash the hash of a blob
+	 * @return the number of keys sharing the blob
+	 */
+	synchronized int getReferences(String hash) {
+		return references.getOrDefault(hash, 0);
+	}
+
+	/**
+	 * @param key the key
+	 * @return the hash of the blob holding the data of the key, empty if unknown or null if the key is
+	 *         not indexed
+	 */
+	String getHash(String key) {
+		return hashes.get(key);
+	}
+
+	/**
+	 * @param prefix the prefix
+	 * @return the indexed keys starting with the prefix in their natural order
+	 */
+	Stream<String> getKeys(String prefix) {
+		return hashes.tailMap(prefix, true).keySet().stream().takeWhile(key -> key.startsWith(prefix));
+	}
+
+	private void put(String key, String hash) {
+		remove(key);
+		hashes.put(key, hash);
+		if (!hash.isEmpty()) {
+			references.merge(hash, 1, Integer::sum);
+		}
+	}
+
+	private String remove(String key) {
+		String hash = hashes.remove(key);
+		if (hash != null && !hash.isEmpty()) {
+			references.computeIfPresent(hash, (h, count) -> count > 1 ? count - 1 : null);
+		}
+		return hash;
+	}
+
+	private void append(String line) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+			StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+	}
+
+	private void write() throws IOException {
+		Files.createDirectories(file.getParent());
+		Path newFile = file.resolveSibling(file.getFileName() + ".new");
+		try (BufferedWriter writer = Files.newBufferedWriter(newFile, StandardCharsets.UTF_8)) {
+			for (Map.Entry<String, String> entry : hashes.entrySet()) {
+				writer.write(ADDED + "\t" + entry.getValue() + "\t" + encode(entry.getKey()) + "\n");
+			}
+		}
+		try (FileChannel channel = FileChannel.open(newFile, StandardOpenOption.WRITE)) {
+			channel.force(true);
+		}
+		Files.move(newFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static String encode(String key) {
+		return URLEncoder.encode(key, StandardCharsets.UTF_8);
+	}
+
+	private static String decode(String key) {
+		return URLDecoder.decode(key, StandardCharsets.UTF_8);
+	}
+}
@@ -13,13 +13,22 @@ import jakarta.activation.MimetypesFileTypeMap;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openmrs.api.StorageService;
@@ -38,6 +47,19 @@ import org.springframework.stereotype.Service;
  * Used to persist data in a local file system or volumes.
  * <p>
  * It is the default implementation of StorageService.
+ * <p>
+ * Setting storage.local.deduplicate=true switches to a content-addressed mode. Data is hashed while
+ * it is streamed to a temporary file, which is then atomically moved to a blob named after the hash
+ * unless such a blob exists already. Each key is a hard link to its blob, so that identical data is
+ * stored once, and the blob is deleted once the last key linking to it is purged. Keys are recorded
+ * in a {@link LocalStorageKeyIndex} from which {@link #getKeys(String, String)} is served without
+ * listing directories. The index is built from the stored files when the mode is first switched on
+ * and can be rebuilt by deleting it.
+ * <p>
+ * The index is only kept up to date by the process holding it, so the content-addressed mode
+ * supports a single OpenMRS instance per storage dir and no other process changing its files.
+ * Saving or purging data while the mode is off marks an existing index as stale, so that it is
+ * rebuilt from the stored files the next time the mode is switched on.
  * 
  * @since 2.8.0, 2.7.5, 2.6.16, 2.5.15
  */
@@ -48,14 +70,41 @@ public class LocalStorageService extends BaseStorageService implements StorageSe
 	
 	protected static final Logger log = LoggerFactory.getLogger(LocalStorageService.class);
 	
+	private static final String BLOBS_DIR = ".blobs";
+	
+	private static final String TEMP_DIR = ".tmp";
+	
+	private static final String INDEX_FILE = ".index/keys";
+	
+	private static final String INDEX_STALE_FILE = ".index/stale";
+	
 	private final Path storageDir;
 	
 	private final MimetypesFileTypeMap mimetypes = new MimetypesFileTypeMap();
 	
-	public LocalStorageService(@Value("${storage.local.dir:}") String storageDir, @Autowired StreamDataService streamService) {
+	private final boolean deduplicate;
+	
+	private volatile LocalStorageKeyIndex keyIndex;
+	
+	private volatile boolean indexMarkedStale;
+	
+	public LocalStorageService(String storageDir, StreamDataService streamService) {
+		this(storageDir, false, streamService);
+	}
+	
+	/**
+	 * @param storageDir the dir to store data in, defaults to storage in the application data dir
+	 * @param deduplicate true to store identical data once
+	 * @param streamService the stream service
+	 * @since 3.0.0
+	 */
+	@Autowired
+	public LocalStorageService(@Value("${storage.local.dir:}") String storageDir, 
+		@Value("${storage.local.deduplicate:false}") boolean deduplicate, StreamDataService streamService) {
 		super(streamService);
 		this.storageDir = StringUtils.isBlank(storageDir) ? Paths.get(OpenmrsUtil.getApplicationDataDirectory(), 
 			"storage").toAbsolutePath() : Paths.get(storageDir).toAbsolutePath();
+		this.deduplicate = deduplicate;
 	}
 	
 	@Override
@@ -105,6 +154,10 @@ public class LocalStorageService extends BaseStorageService implements StorageSe
 	
 	@Override
 	public Stream<String> getKeys(final String moduleIdOrGroup, final String keyPrefix) throws IOException {
+		if (deduplicate) {
+			return getIndexedKeys(newKey(moduleIdOrGroup, keyPrefix, null));
+		}
+		
 		String key = encodeKey(newKey(moduleIdOrGroup, keyPrefix, null));
 
 		int lastDirIndex = key.lastIndexOf("/");
@@ -133,6 +186,19 @@ public class LocalStorageService extends BaseStorageService implements StorageSe
 				}).filter(foundKey -> foundKey.startsWith(key));
 	}
 
+	/**
+	 * Lists the keys and dirs in the dir of the prefix like {@link #getKeys(String, String)} does, but
+	 * from the index.
+	 */
+	private Stream<String> getIndexedKeys(String prefix) throws IOException {
+		int lastDirIndex = prefix.lastIndexOf('/');
+		int dirLength = lastDirIndex + 1;
+		return getKeyIndex().getKeys(prefix).map(foundKey -> {
+			int dirIndex = foundKey.indexOf('/', dirLength);
+			return dirIndex == -1 ? foundKey : foundKey.substring(0, dirIndex + 1);
+		}).distinct();
+	}
+
 	Path newPath(String key) throws IOException {
 		key = encodeKey(key);
 		key = key.replace('/', File.separatorChar);
@@ -154,6 +220,11 @@ public class LocalStorageService extends BaseStorageService implements StorageSe
 	public String saveData(InputStream inputStream, ObjectMetadata metadata, String moduleIdOrGroup, String keySuffix) throws IOException {
 		String key = newKey(moduleIdOrGroup, keySuffix, metadata != null ? metadata.getFilename() : null);
 		Path target = newPath(key);
+		if (deduplicate) {
+			saveBlob(inputStream, key, target);
+			return key;
+		}
+		markIndexStale();
 		try {
 			Files.copy(inputStream, target);
 		} catch (IOException e) {
@@ -163,10 +234,174 @@ public class LocalStorageService extends BaseStorageService implements StorageSe
 		return key;
 	}
 	
+	private void saveBlob(InputStream inputStream, String key, Path target) throws IOException {
+		LocalStorageKeyIndex index = getKeyIndex();
+		Path tempDir = Files.createDirectories(storageDir.resolve(TEMP_DIR));
+		Path tempFile = Files.createTempFile(tempDir, "upload", ".tmp");
+		try {
+			MessageDigest digest = newDigest();
+			try (InputStream in = new DigestInputStream(inputStream, digest)) {
+				Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+			String hash = HexFormat.of().formatHex(digest.digest());
+			Path blob = getBlobPath(hash);
+			
+			// blobs are only created and deleted while holding the lock of the index
+			synchronized (index) {
+				if (!Files.exists(blob)) {
+					Files.createDirectories(blob.getParent());
+					Files.move(tempFile, blob, StandardCopyOption.ATOMIC_MOVE);
+				}
+				try {
+					link(blob, target);
+				}
+				catch (IOException e) {
+					if (index.getReferences(hash) == 0) {
+						Files.deleteIfExists(blob);
+					}
+					throw e;
+				}
+				try {
+					index.add(key, hash);
+				}
+				catch (IOException e) {
+					Files.deleteIfExists(target);
+					if (index.getReferences(hash) == 0) {
+						Files.deleteIfExists(blob);
+					}
+					throw e;
+				}
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+	
+	private MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private void link(Path blob, Path target) throws IOException {
+		try {
+			Files.createLink(target, blob);
+		}
+		catch (FileAlreadyExistsException e) {
+			throw e;
+		}
+		catch (UnsupportedOperationException | IOException e) {
+			log.debug("Copying {} to {} as it cannot be linked", blob, target, e);
+			Files.copy(blob, target);
+		}
+	}
+	
+	Path getBlobPath(String hash) {
+		return storageDir.resolve(BLOBS_DIR).resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+	}
+	
+	LocalStorageKeyIndex getKeyIndex() throws IOException {
+		LocalStorageKeyIndex index = keyIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = keyIndex;
+				if (index == null) {
+					index = new LocalStorageKeyIndex(storageDir.resolve(INDEX_FILE));
+					Path staleMarker = storageDir.resolve(INDEX_STALE_FILE);
+					if (Files.exists(staleMarker)) {
+						log.info("Rebuilding the storage index as data was saved or purged while it was not used");
+						index.rebuild(findKeys());
+						Files.delete(staleMarker);
+					} else if (!index.load()) {
+						index.rebuild(findKeys());
+					}
+					keyIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Finds the keys stored in the storage dir and the hashes of the blobs they are linked to. Keys
+	 * which are no links to a blob get an empty hash.
+	 */
+	private Map<String, String> findKeys() throws IOException {
+		Map<String, String> hashes = new HashMap<>();
+		Path blobsDir = storageDir.resolve(BLOBS_DIR);
+		if (Files.isDirectory(blobsDir)) {
+			try (Stream<Path> blobs = Files.walk(blobsDir)) {
+				for (Path blob : (Iterable<Path>) blobs.filter(Files::isRegularFile)::iterator) {
+					Object fileKey = Files.readAttributes(blob, BasicFileAttributes.class).fileKey();
+					if (fileKey != null) {
+						hashes.put(fileKey.toString(), blob.getFileName().toString());
+					}
+				}
+			}
+		}
+		
+		Map<String, String> keys = new HashMap<>();
+		if (Files.isDirectory(storageDir)) {
+			try (Stream<Path> files = Files.walk(storageDir)) {
+				for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+					Path path = storageDir.relativize(file);
+					if (StreamSupport.stream(path.spliterator(), false).anyMatch(
+						name -> name.toString().startsWith("."))) {
+						continue;
+					}
+					Object fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+					String key = decodeKey(path.toString().replace(File.separatorChar, '/'));
+					keys.put(key, fileKey != null ? hashes.getOrDefault(fileKey.toString(), "") : "");
+				}
+			}
+		}
+		log.info("Indexed {} keys in {}", keys.size(), storageDir);
+		return keys;
+	}
+	
 	@Override
 	public boolean purgeData(String key) throws IOException {
 		if (key == null) return false;
 		
+		if (deduplicate) {
+			LocalStorageKeyIndex index = getKeyIndex();
+			synchronized (index) {
+				String hash = index.purge(key);
+				boolean deleted = deleteData(key);
+				if (StringUtils.isNotEmpty(hash) && index.getReferences(hash) == 0) {
+					Files.deleteIfExists(getBlobPath(hash));
+				}
+				return deleted;
+			}
+		}
+		markIndexStale();
+		return deleteData(key);
+	}
+	
+	/**
+	 * Marks the index of the content-addressed mode as stale if there is one, as it misses the keys
+	 * saved and purged while the mode is off
+	 */
+	private void markIndexStale() throws IOException {
+		if (indexMarkedStale) {
+			return;
+		}
+		if (Files.exists(storageDir.resolve(INDEX_FILE))) {
+			try {
+				Files.createFile(storageDir.resolve(INDEX_STALE_FILE));
+			}
+			catch (FileAlreadyExistsException e) {
+				// marked by an earlier run
+			}
+		}
+		indexMarkedStale = true;
+	}
+	
+	private boolean deleteData(String key) {
 		try {
 			return Files.deleteIfExists(getPath(key));
 		}
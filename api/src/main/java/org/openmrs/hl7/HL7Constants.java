@@ -118,6 +118,20 @@ public class HL7Constants {
 	 */
 	public static final int MIGRATION_MAX_BATCH_SIZE = 2000;
 	
+	/**
+	 * the key to be used for the number of archives migrated per second in the progressStatusMap
+	 * 
+	 * @since 3.0.0
+	 */
+	public static final String MIGRATION_THROUGHPUT_KEY = "throughput";
+	
+	/**
+	 * the default number of threads writing the archives to the storage while migrating
+	 * 
+	 * @since 3.0.0
+	 */
+	public static final int MIGRATION_WRITER_THREADS = 4;
+	
 	// List of datatypes that do not require complex definitions
 	public static final Map<String, String> simpleDatatypes = new HashMap<>();
 	
@@ -447,16 +447,47 @@ public interface HL7Service extends OpenmrsService {
 	
 	/**
 	 * Method is called by the archives migration thread to transfer hl7 in archives from the
-	 * hl7_in_archives database table to the file system
+	 * hl7_in_archives database table to the storage, see {@link org.openmrs.api.StorageService}. The
+	 * archives are read in pages ordered by id, written by {@link Hl7InArchivesMigrateThread#getWriterThreads()}
+	 * threads and marked as migrated one page per transaction, so a stopped migration continues with the
+	 * archives not migrated yet when it is started again.
 	 * 
 	 * @param progressStatusMap the map holding the number of archives transferred and failed
-	 *            transfers
+	 *            transfers and the throughput, updated while migrating so it should be thread safe
 	 * @throws APIException
+	 * <strong>Should</strong> migrate the archives older than the days kept to the storage
 	 */
 	@Authorized(requireAll = true, value = { PrivilegeConstants.GET_HL7_IN_ARCHIVE, PrivilegeConstants.PRIV_PURGE_HL7_IN_ARCHIVE,
 			PrivilegeConstants.PRIV_ADD_HL7_IN_QUEUE })
 	public void migrateHl7InArchivesToFileSystem(Map<String, Integer> progressStatusMap) throws APIException;
 	
+	/**
+	 * Gets the processed archives older than {@link Hl7InArchivesMigrateThread#getDaysKept()} days
+	 * which are to be migrated, ordered by id
+	 * 
+	 * @param afterId only archives with a greater id are returned, null to start with the first one
+	 * @param maxResults the maximum number of archives to return
+	 * @return the archives to migrate
+	 * @since 3.0.0
+	 * <strong>Should</strong> return the archives after the given id ordered by id
+	 */
+	@Authorized(PrivilegeConstants.GET_HL7_IN_ARCHIVE)
+	public List<HL7InArchive> getHL7InArchivesToMigrate(Integer afterId, int maxResults);
+	
+	/**
+	 * Marks processed archives as migrated, replacing their data by the key of the data in the storage.
+	 * The archives are changed through the current session, including instances that were loaded read
+	 * only, so that the changes are audited, and the session is flushed.
+	 * 
+	 * @param dataKeys the storage keys of the archive data by archive id
+	 * @return the number of archives marked as migrated
+	 * @since 3.0.0
+	 * <strong>Should</strong> only mark processed archives as migrated
+	 */
+	@Authorized(requireAll = true, value = { PrivilegeConstants.GET_HL7_IN_ARCHIVE, PrivilegeConstants.PRIV_PURGE_HL7_IN_ARCHIVE,
+			PrivilegeConstants.PRIV_ADD_HL7_IN_QUEUE })
+	public int markHL7InArchivesMigrated(Map<Integer, String> dataKeys);
+	
 	/**
 	 * finds a UUID from an array of identifiers
 	 * 
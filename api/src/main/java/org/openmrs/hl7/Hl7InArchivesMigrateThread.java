@@ -9,8 +9,8 @@
  */
 package org.openmrs.hl7;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openmrs.api.APIException;
 import org.openmrs.api.context.Context;
@@ -28,8 +28,8 @@ public class Hl7InArchivesMigrateThread extends Thread {
 	private static final Logger log = LoggerFactory.getLogger(Hl7InArchivesMigrateThread.class);
 	
 	/**
-	 * Map holds data about the progress of the transfer process, that is numberTransferred and
-	 * numberOfFailedTransfers
+	 * Map holds data about the progress of the transfer process, that is numberTransferred,
+	 * numberOfFailedTransfers and the throughput, it is updated by the writer threads
 	 */
 	private static Map<String, Integer> progressStatusMap;
 	
@@ -38,10 +38,15 @@ public class Hl7InArchivesMigrateThread extends Thread {
 	 */
 	private static Integer daysKept = 365;
 	
+	/**
+	 * number of threads writing the archives to the storage when migrating
+	 */
+	private static int writerThreads = HL7Constants.MIGRATION_WRITER_THREADS;
+	
 	/**
 	 * Whether or not activity should continue with this thread
 	 */
-	private static boolean active = false;
+	private static volatile boolean active = false;
 	
 	/**
 	 * User Context to be used for authentication and privilege checks
@@ -51,7 +56,7 @@ public class Hl7InArchivesMigrateThread extends Thread {
 	/**
 	 * Flag to keep track of the status of the migration process
 	 */
-	private static Status transferStatus = Status.NONE;
+	private static volatile Status transferStatus = Status.NONE;
 	
 	/**
 	 * The different states this thread can be in at a given point during migration
@@ -73,9 +78,10 @@ public class Hl7InArchivesMigrateThread extends Thread {
 	 */
 	public Hl7InArchivesMigrateThread() {
 		this.userContext = Context.getUserContext();
-		setProgressStatusMap(new HashMap<>());
+		setProgressStatusMap(new ConcurrentHashMap<>());
 		progressStatusMap.put(HL7Constants.NUMBER_TRANSFERRED_KEY, 0);
 		progressStatusMap.put(HL7Constants.NUMBER_OF_FAILED_TRANSFERS_KEY, 0);
+		progressStatusMap.put(HL7Constants.MIGRATION_THROUGHPUT_KEY, 0);
 	}
 	
 	/**
@@ -92,6 +98,22 @@ public class Hl7InArchivesMigrateThread extends Thread {
 		Hl7InArchivesMigrateThread.daysKept = daysKept;
 	}
 	
+	/**
+	 * @return the number of threads writing the archives to the storage
+	 * @since 3.0.0
+	 */
+	public static int getWriterThreads() {
+		return writerThreads;
+	}
+	
+	/**
+	 * @param writerThreads the number of threads writing the archives to the storage
+	 * @since 3.0.0
+	 */
+	public static void setWriterThreads(int writerThreads) {
+		Hl7InArchivesMigrateThread.writerThreads = Math.max(1, writerThreads);
+	}
+	
 	/**
 	 * @return the active
 	 */
@@ -193,6 +215,17 @@ public class Hl7InArchivesMigrateThread extends Thread {
 		return progressStatusMap.get(HL7Constants.NUMBER_OF_FAILED_TRANSFERS_KEY);
 	}
 	
+	/**
+	 * @return the number of archives migrated per second since the migration started
+	 * @since 3.0.0
+	 */
+	public static Integer getThroughput() {
+		if (progressStatusMap == null) {
+			return 0;
+		}
+		return progressStatusMap.getOrDefault(HL7Constants.MIGRATION_THROUGHPUT_KEY, 0);
+	}
+	
 	/**
 	 * @return the userContext
 	 */
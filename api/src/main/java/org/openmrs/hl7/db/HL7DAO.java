@@ -10,6 +10,7 @@
 package org.openmrs.hl7.db;
 
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.api.db.DAOException;
 import org.openmrs.hl7.HL7InArchive;
@@ -159,6 +160,16 @@ public interface HL7DAO {
 	 */
 	public List<HL7InArchive> getHL7InArchivesToMigrate();
 	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#getHL7InArchivesToMigrate(Integer, int)
+	 */
+	public List<HL7InArchive> getHL7InArchivesToMigrate(Integer afterId, int maxResults);
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#markHL7InArchivesMigrated(Map)
+	 */
+	public int markHL7InArchivesMigrated(Map<Integer, String> dataKeys) throws DAOException;
+	
 	/* HL7InError */
 
 	/**
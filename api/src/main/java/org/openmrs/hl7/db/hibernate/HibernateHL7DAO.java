@@ -18,9 +18,11 @@ import jakarta.persistence.criteria.Root;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.Map;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateHints;
 import org.hibernate.type.StandardBasicTypes;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.DAOException;
@@ -379,6 +381,14 @@ public class HibernateHL7DAO implements HL7DAO {
 	 */
 	@Override
 	public List<HL7InArchive> getHL7InArchivesToMigrate() {
+		return getHL7InArchivesToMigrate(null, HL7Constants.MIGRATION_MAX_BATCH_SIZE);
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.db.HL7DAO#getHL7InArchivesToMigrate(Integer, int)
+	 */
+	@Override
+	public List<HL7InArchive> getHL7InArchivesToMigrate(Integer afterId, int maxResults) {
 		Integer daysToKeep = Hl7InArchivesMigrateThread.getDaysKept();
 		Session session = sessionFactory.getCurrentSession();
 		CriteriaBuilder cb = session.getCriteriaBuilder();
@@ -392,11 +402,38 @@ public class HibernateHL7DAO implements HL7DAO {
 			cal.add(Calendar.DATE, -1 * daysToKeep);
 			predicates.add(cb.lessThan(root.get("dateCreated"), cal.getTime()));
 		}
+		// keyset pagination, so that each page is found through the primary key index
+		if (afterId != null) {
+			predicates.add(cb.greaterThan(root.get("hl7InArchiveId"), afterId));
+		}
 
-		cq.where(predicates.toArray(new Predicate[]{}));
+		cq.where(predicates.toArray(new Predicate[]{})).orderBy(cb.asc(root.get("hl7InArchiveId")));
 		return session.createQuery(cq)
-			.setMaxResults(HL7Constants.MIGRATION_MAX_BATCH_SIZE)
+			.setHint(HibernateHints.HINT_READ_ONLY, true)
+			.setMaxResults(maxResults)
 			.getResultList();
 	}
 	
+	/**
+	 * @see org.openmrs.hl7.db.HL7DAO#markHL7InArchivesMigrated(Map)
+	 */
+	@Override
+	public int markHL7InArchivesMigrated(Map<Integer, String> dataKeys) throws DAOException {
+		// the archives of a page are loaded read only, they are made writable again so that the changes
+		// are dirty checked and audited, and the updates are sent in jdbc batches
+		Session session = sessionFactory.getCurrentSession();
+		int count = 0;
+		for (HL7InArchive archive : session.findMultiple(HL7InArchive.class, new ArrayList<>(dataKeys.keySet()))) {
+			if (archive == null || !HL7Constants.HL7_STATUS_PROCESSED.equals(archive.getMessageState())) {
+				continue;
+			}
+			session.setReadOnly(archive, false);
+			archive.setHL7Data(dataKeys.get(archive.getHL7InArchiveId()));
+			archive.setMessageState(HL7Constants.HL7_STATUS_MIGRATED);
+			count++;
+		}
+		session.flush();
+		return count;
+	}
+	
 }
@@ -11,12 +11,10 @@ package org.openmrs.hl7.impl;
 
 
 import java.util.Arrays;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -25,9 +23,14 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import ca.uhn.hl7v2.HL7Exception;
 import ca.uhn.hl7v2.app.Application;
@@ -44,6 +47,7 @@ import ca.uhn.hl7v2.model.v25.segment.NK1;
 import ca.uhn.hl7v2.model.v25.segment.PID;
 import ca.uhn.hl7v2.parser.EncodingNotSupportedException;
 import ca.uhn.hl7v2.parser.GenericParser;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.openmrs.Location;
@@ -56,9 +60,10 @@ import org.openmrs.User;
 import org.openmrs.api.APIException;
 import org.openmrs.api.PatientIdentifierException;
 import org.openmrs.api.RefByUuid;
+import org.openmrs.api.StorageService;
 import org.openmrs.api.context.Context;
-import org.openmrs.api.db.DAOException;
 import org.openmrs.api.impl.BaseOpenmrsService;
+import org.openmrs.api.storage.ObjectMetadata;
 import org.openmrs.hl7.HL7Constants;
 import org.openmrs.hl7.HL7InArchive;
 import org.openmrs.hl7.HL7InError;
@@ -79,6 +84,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -103,6 +109,9 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service, Re
 	@Autowired
 	@Qualifier("hL7Router")
 	private MessageTypeRouter router;
+	
+	@Autowired
+	private StorageService storageService;
 
 	
 
@@ -364,13 +373,6 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service, Re
 		return dao.getHL7InArchive(hl7InArchiveId);
 	}
 	
-	/**
-	 * get a list of archives to be migrated to the filesystem
-	 */
-	private List<HL7InArchive> getHL7InArchivesToMigrate() {
-		return dao.getHL7InArchivesToMigrate();
-	}
-	
 	/**
 	 * @see org.openmrs.hl7.HL7Service#getAllHL7InErrors()
 	 */
@@ -1036,7 +1038,14 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service, Re
 		}
 		
 		try {
-			archive.setHL7Data(OpenmrsUtil.getFileAsString(new File(new URI(archive.getHL7Data()))));
+			if (archive.getHL7Data().startsWith("file:")) {
+				// migrated to the file system before the storage service was used
+				archive.setHL7Data(OpenmrsUtil.getFileAsString(new File(new URI(archive.getHL7Data()))));
+			} else {
+				try (InputStream in = storageService.getData(archive.getHL7Data())) {
+					archive.setHL7Data(IOUtils.toString(in, StandardCharsets.UTF_8));
+				}
+			}
 			archive.setLoaded(true);
 		}
 		catch (URISyntaxException e) {
@@ -1051,134 +1060,122 @@ public class HL7ServiceImpl extends BaseOpenmrsService implements HL7Service, Re
 	 * @see org.openmrs.hl7.HL7Service#migrateHl7InArchivesToFileSystem(Map)
 	 */
 	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
 	public void migrateHl7InArchivesToFileSystem(Map<String, Integer> progressStatusMap) throws APIException {
-		int numberTransferred = 0;
-		int numberOfFailedTransfers = 0;
-		
-		// HL7Constants.HL7_STATUS_ARCHIVED indicates the HL7 has been archived to the filesystem
-		List<HL7InArchive> hl7InArchives = getHL7InArchivesToMigrate();
-		
-		// while we still we have any archives to be processed, process them
-		while (Hl7InArchivesMigrateThread.isActive() && Hl7InArchivesMigrateThread.getTransferStatus() == Status.RUNNING
-		        && hl7InArchives != null && !hl7InArchives.isEmpty()) {
-			
-			Iterator<HL7InArchive> iterator = hl7InArchives.iterator();
-			
-			while (Hl7InArchivesMigrateThread.isActive() && Hl7InArchivesMigrateThread.getTransferStatus() == Status.RUNNING
-			        && iterator.hasNext()) {
-				HL7InArchive archive = iterator.next();
+		// pages are read and marked through the service, so that each of them is committed on its own
+		HL7Service hl7Service = Context.getHL7Service();
+		Locale locale = Context.getLocale();
+		ExecutorService writers = Executors.newFixedThreadPool(Hl7InArchivesMigrateThread.getWriterThreads());
+		long start = System.nanoTime();
+		long migrated = 0;
+		try {
+			List<HL7InArchive> page = hl7Service.getHL7InArchivesToMigrate(null, HL7Constants.MIGRATION_MAX_BATCH_SIZE);
+			while (isMigrating() && !page.isEmpty()) {
+				List<Future<String>> writes = new ArrayList<>(page.size());
+				for (HL7InArchive archive : page) {
+					writes.add(writers.submit(() -> writeHL7InArchiveToStorage(archive, locale)));
+				}
 				
-				try {
-					migrateHL7InArchive(archive);
-					progressStatusMap.put(HL7Constants.NUMBER_TRANSFERRED_KEY, numberTransferred++);
+				// read the next page while the current one is being written
+				Integer lastId = page.get(page.size() - 1).getHL7InArchiveId();
+				List<HL7InArchive> nextPage = isMigrating() ? hl7Service.getHL7InArchivesToMigrate(lastId,
+				    HL7Constants.MIGRATION_MAX_BATCH_SIZE) : Collections.emptyList();
+				
+				Map<Integer, String> dataKeys = new LinkedHashMap<>();
+				int failed = 0;
+				for (int i = 0; i < page.size(); i++) {
+					try {
+						dataKeys.put(page.get(i).getHL7InArchiveId(), writes.get(i).get());
+					}
+					catch (ExecutionException e) {
+						log.warn("Failed to write hl7 archive with id '{}' to the storage", page.get(i).getHL7InArchiveId(),
+						    e.getCause());
+						failed++;
+					}
 				}
-				catch (DAOException e) {
-					progressStatusMap.put(HL7Constants.NUMBER_OF_FAILED_TRANSFERS_KEY, numberOfFailedTransfers++);
+				if (!dataKeys.isEmpty()) {
+					int marked = hl7Service.markHL7InArchivesMigrated(dataKeys);
+					failed += dataKeys.size() - marked;
+					migrated += marked;
+					progressStatusMap.merge(HL7Constants.NUMBER_TRANSFERRED_KEY, marked, Integer::sum);
 				}
+				progressStatusMap.merge(HL7Constants.NUMBER_OF_FAILED_TRANSFERS_KEY, failed, Integer::sum);
+				long seconds = Math.max(1, (System.nanoTime() - start) / 1000000000L);
+				progressStatusMap.put(HL7Constants.MIGRATION_THROUGHPUT_KEY, (int) (migrated / seconds));
+				
+				// the migrated archives are not needed anymore
+				Context.clearSession();
+				page = nextPage;
 			}
-			
-			// fetch more archives to be processed
-			hl7InArchives = getHL7InArchivesToMigrate();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new APIException("Hl7Service.migrate.archive", null, e);
+		}
+		finally {
+			writers.shutdownNow();
 		}
 		
-		log.debug("Transfer of HL7 archives has completed or has been stopped");
+		log.debug("Transfer of HL7 archives has completed or has been stopped after migrating {} archives", migrated);
 	}
 	
 	/**
-	 * moves data to the filesystem from an HL7InArchive
-	 *
-	 * @param archive
-	 * @throws APIException
+	 * @see org.openmrs.hl7.HL7Service#getHL7InArchivesToMigrate(Integer, int)
 	 */
-	private void migrateHL7InArchive(HL7InArchive archive) throws APIException {
-		if (archive == null) {
-			throw new APIException("Hl7Service.migrate.null.archive", (Object[]) null);
-		}
-		
-		if (!OpenmrsUtil.nullSafeEquals(archive.getMessageState(), HL7Constants.HL7_STATUS_PROCESSED)) {
-			throw new APIException("Hl7Service.migrate.archive.state", (Object[]) null);
-		}
-		
-		try {
-			URI uri = writeHL7InArchiveToFileSystem(archive);
-			archive.setHL7Data(uri.toString());
-			archive.setMessageState(HL7Constants.HL7_STATUS_MIGRATED);
-			saveHL7InArchive(archive);
-		}
-		catch (APIException e) {
-			throw new APIException("Hl7Service.migrate.archive", null, e);
+	@Override
+	@Transactional(readOnly = true)
+	public List<HL7InArchive> getHL7InArchivesToMigrate(Integer afterId, int maxResults) {
+		return dao.getHL7InArchivesToMigrate(afterId, maxResults);
+	}
+	
+	/**
+	 * @see org.openmrs.hl7.HL7Service#markHL7InArchivesMigrated(Map)
+	 */
+	@Override
+	public int markHL7InArchivesMigrated(Map<Integer, String> dataKeys) {
+		if (dataKeys.isEmpty()) {
+			return 0;
 		}
-		
+		return dao.markHL7InArchivesMigrated(dataKeys);
+	}
+	
+	private boolean isMigrating() {
+		return Hl7InArchivesMigrateThread.isActive() && Hl7InArchivesMigrateThread.getTransferStatus() == Status.RUNNING;
 	}
 	
 	/**
-	 * writes a given hl7 archive to the file system
+	 * writes a given hl7 archive to the storage, called by the writer threads of the migration
 	 *
-	 * @param hl7InArchive the hl7 archive to write to the file system
+	 * @param hl7InArchive the hl7 archive to write to the storage
+	 * @param locale the locale of the user migrating the archives
+	 * @return the key of the data in the storage
 	 */
-	private URI writeHL7InArchiveToFileSystem(HL7InArchive hl7InArchive) throws APIException {
-		
-		PrintWriter writer = null;
-		File destinationDir = HL7Util.getHl7ArchivesDirectory();
-		try {
-			// number formatter used to format month and day with zero padding
-			DecimalFormat df = new DecimalFormat("00");
-			
-			//write the archive to a separate file while grouping them according to
-			//the year, month and date of month when they were stored in the archives table
-			Calendar calendar = Calendar.getInstance(Context.getLocale());
-			calendar.setTime(hl7InArchive.getDateCreated());
-			
-			//resolve the year folder from the date of creation of the archive
-			File yearDir = new File(destinationDir, Integer.toString(calendar.get(Calendar.YEAR)));
-			if (!yearDir.isDirectory()) {
-				yearDir.mkdirs();
-			}
-			
-			//resolve the appropriate month folder
-			File monthDir = new File(yearDir, df.format(calendar.get(Calendar.MONTH) + 1));
-			if (!monthDir.isDirectory()) {
-				monthDir.mkdirs();
-			}
-			
-			//resolve the appropriate day of month folder
-			File dayDir = new File(monthDir, df.format(calendar.get(Calendar.DAY_OF_MONTH)));
-			if (!dayDir.isDirectory()) {
-				dayDir.mkdirs();
-			}
-			
-			//use the uuid, source id and source key(if present) to generate the file name
-			File fileToWriteTo = new File(dayDir, hl7InArchive.getUuid()
-			        + (StringUtils.isBlank(hl7InArchive.getHL7SourceKey()) ? "" : "_" + hl7InArchive.getHL7SourceKey())
-			        + ".txt");
-			
-			//write the hl7 data to the file
-			writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(fileToWriteTo), StandardCharsets.UTF_8));
-			writer.write(hl7InArchive.getHL7Data());
-			
-			//check if there was an error while writing to the current file
-			if (writer.checkError()) {
-				log.warn("An Error occured while writing hl7 archive with id '" + hl7InArchive.getHL7InArchiveId()
-				        + "' to the file system");
-				throw new APIException("Hl7Service.write.no.error", (Object[]) null);
-			}
-			
-			// hand back the URI for the file
-			return fileToWriteTo.toURI();
-			
-		}
-		catch (FileNotFoundException e) {
-			log
-			        .warn("Failed to write hl7 archive with id '" + hl7InArchive.getHL7InArchiveId()
-			                + "' to the file system ", e);
-			throw new APIException("Hl7Service.write.error", null, e);
-			
+	private String writeHL7InArchiveToStorage(HL7InArchive hl7InArchive, Locale locale) throws IOException {
+		if (!OpenmrsUtil.nullSafeEquals(hl7InArchive.getMessageState(), HL7Constants.HL7_STATUS_PROCESSED)) {
+			throw new APIException("Hl7Service.migrate.archive.state", (Object[]) null);
 		}
-		finally {
-			if (writer != null) {
-				writer.close();
-			}
+		
+		// number formatter used to format month and day with zero padding
+		DecimalFormat df = new DecimalFormat("00");
+		
+		//group the archives according to the year, month and date of month when they were stored in the
+		//archives table and use the uuid and source key(if present) to generate the file name
+		Calendar calendar = Calendar.getInstance(locale);
+		calendar.setTime(hl7InArchive.getDateCreated());
+		String keySuffix = calendar.get(Calendar.YEAR) + "/" + df.format(calendar.get(Calendar.MONTH) + 1) + "/"
+		        + df.format(calendar.get(Calendar.DAY_OF_MONTH)) + "/" + hl7InArchive.getUuid()
+		        + (StringUtils.isBlank(hl7InArchive.getHL7SourceKey()) ? "" : "_" + hl7InArchive.getHL7SourceKey())
+		        + ".txt";
+		
+		// an archive written before the migration was stopped abnormally is written again
+		String key = HL7Constants.HL7_ARCHIVE_DIRECTORY_NAME + "/" + keySuffix;
+		if (storageService.exists(key)) {
+			storageService.purgeData(key);
 		}
+		
+		byte[] data = hl7InArchive.getHL7Data().getBytes(StandardCharsets.UTF_8);
+		return storageService.saveData(new ByteArrayInputStream(data), ObjectMetadata.builder().setLength(
+		    (long) data.length).build(), HL7Constants.HL7_ARCHIVE_DIRECTORY_NAME, keySuffix);
 	}
 	
 	@Override
@@ -0,0 +1,136 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded buffer of the most recent log lines that neither writers nor readers ever lock.
+ * <p>
+ * Every line gets a sequence number from a counter and is stored in the slot the number maps to,
+ * replacing the line one lap older. When the lines held exceed the maximum number of characters, the
+ * writer that went over clears the oldest slots until they fit again. A reader takes the lines
+ * between the oldest kept and the latest sequence number and skips slots that hold another sequence
+ * number, as they were overwritten, cleared or not written yet, so a snapshot may miss lines written
+ * while it is taken but never blocks a writer.
+ * <p>
+ * Characters are counted instead of bytes, which is the same for the compact strings of lines in
+ * latin script.
+ */
+final class LogLineRingBuffer {
+
+	private final int capacity;
+
+	private final long maxChars;
+
+	private final AtomicReferenceArray<Line> slots;
+
+	private final AtomicLong nextSequence = new AtomicLong();
+
+	private final AtomicLong oldestSequence = new AtomicLong();
+
+	private final AtomicLong chars = new AtomicLong();
+
+	/**
+	 * @param capacity the maximum number of lines
+	 * @param maxChars the maximum number of characters of all lines, longer lines are cut
+	 */
+	LogLineRingBuffer(int capacity, long maxChars) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The size must be greater than 0");
+		}
+		if (maxChars <= 0) {
+			throw new IllegalArgumentException("The maximum number of characters must be greater than 0");
+		}
+		this.capacity = capacity;
+		this.maxChars = maxChars;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	long getMaxChars() {
+		return maxChars;
+	}
+
+	/**
+	 * @param text the rendered line
+	 */
+	void add(String text) {
+		if (text.length() > maxChars) {
+			text = text.substring(0, (int) maxChars);
+		}
+		long sequence = nextSequence.getAndIncrement();
+		Line line = new Line(sequence, text);
+		Line replaced = slots.getAndSet(index(sequence), line);
+		long total = chars.addAndGet(text.length() - (replaced == null ? 0 : replaced.text.length()));
+		if (total > maxChars) {
+			evictOldest(sequence);
+		}
+	}
+
+	private void evictOldest(long newest) {
+		while (chars.get() > maxChars) {
+			long oldest = oldestSequence.get();
+			if (oldest >= newest) {
+				return;
+			}
+			if (oldest < newest - capacity + 1) {
+				// the slots of these lines have already been reused
+				oldestSequence.compareAndSet(oldest, newest - capacity + 1);
+				continue;
+			}
+			if (oldestSequence.compareAndSet(oldest, oldest + 1)) {
+				int index = index(oldest);
+				Line line = slots.get(index);
+				if (line != null && line.sequence == oldest && slots.compareAndSet(index, line, null)) {
+					chars.addAndGet(-line.text.length());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the lines currently held, oldest first
+	 */
+	List<String> snapshot() {
+		long next = nextSequence.get();
+		long first = Math.max(oldestSequence.get(), next - capacity);
+		List<String> lines = new ArrayList<>((int) Math.max(0, next - first));
+		for (long sequence = first; sequence < next; sequence++) {
+			Line line = slots.get(index(sequence));
+			if (line != null && line.sequence == sequence) {
+				lines.add(line.text);
+			}
+		}
+		return lines;
+	}
+
+	private int index(long sequence) {
+		return (int) (sequence % capacity);
+	}
+
+	private static final class Line {
+
+		private final long sequence;
+
+		private final String text;
+
+		private Line(long sequence, String text) {
+			this.sequence = sequence;
+			this.text = text;
+		}
+	}
+}
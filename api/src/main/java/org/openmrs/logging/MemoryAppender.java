@@ -11,14 +11,9 @@ package org.openmrs.logging;
 
 import java.io.Serializable;
 import java.lang.ref.SoftReference;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.core.Appender;
 import org.apache.logging.log4j.core.Core;
@@ -33,11 +28,15 @@ import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
 import org.apache.logging.log4j.core.config.plugins.PluginElement;
 import org.apache.logging.log4j.core.config.plugins.PluginFactory;
 import org.openmrs.util.OpenmrsConstants;
-import org.openmrs.util.ThreadSafeCircularFifoQueue;
 
 /**
  * This class stores a configurable number lines of the output from the log file.
  * <p/>
+ * Lines are rendered with the layout when they are appended and kept in a lock-free
+ * {@link LogLineRingBuffer}, bounded by the number of lines (<code>bufferSize</code>) and by their
+ * total number of characters (<code>maxChars</code>), so that neither the log events nor their
+ * parameters are kept alive and logging threads never wait for each other.
+ * <p/>
  * Note that this class is implemented as a single-buffer-per-appender-name meaning that each appender name can only support
  * a single configuration (the most recent applied)
  */
@@ -49,17 +48,30 @@ public class MemoryAppender extends AbstractAppender {
 	// is only allocated an initial capacity of 1
 	private static final Map<String, SoftReference<MemoryAppender>> APPENDERS = new HashMap<>(1);
 
-	private ThreadSafeCircularFifoQueue<LogEvent> buffer;
+	/**
+	 * The default of the maximum number of characters of all lines kept
+	 * 
+	 * @since 3.0.0
+	 */
+	public static final long DEFAULT_MAX_CHARS = 1024 * 1024;
 
-	private int bufferSize;
+	private volatile LogLineRingBuffer buffer;
 
 	protected MemoryAppender(String name, Filter filter,
 		StringLayout layout, boolean ignoreExceptions,
 		Property[] properties, int bufferSize) {
+		this(name, filter, layout, ignoreExceptions, properties, bufferSize, DEFAULT_MAX_CHARS);
+	}
+
+	/**
+	 * @since 3.0.0
+	 */
+	protected MemoryAppender(String name, Filter filter,
+		StringLayout layout, boolean ignoreExceptions,
+		Property[] properties, int bufferSize, long maxChars) {
 		super(name, filter, layout, ignoreExceptions, properties);
 
-		this.buffer = new ThreadSafeCircularFifoQueue<>(bufferSize);
-		this.bufferSize = bufferSize;
+		this.buffer = new LogLineRingBuffer(bufferSize, maxChars);
 	}
 
 	public static MemoryAppenderBuilder newBuilder() {
@@ -71,25 +83,27 @@ public class MemoryAppender extends AbstractAppender {
 	protected static MemoryAppender createAppender(
 		@PluginAttribute("name") final String name,
 		@PluginAttribute("bufferSize") final int bufferSize,
+		@PluginAttribute(value = "maxChars", defaultLong = DEFAULT_MAX_CHARS) final long maxChars,
 		@PluginAttribute(value = "ignoreExceptions", defaultBoolean = true) final boolean ignoreExceptions,
 		@PluginElement("Filter") final Filter filter,
 		@PluginElement("Layout") final StringLayout layout
 	) {
 		final int theBufferSize = bufferSize <= 0 ? 100 : bufferSize;
+		final long theMaxChars = maxChars <= 0 ? DEFAULT_MAX_CHARS : maxChars;
 		MemoryAppender appender = null;
 		if (APPENDERS.containsKey(name)) {
 			appender = APPENDERS.get(name).get();
 
-			if (appender != null && appender.bufferSize != theBufferSize) {
-				LogEvent[] oldBuffer = appender.buffer.toArray(new LogEvent[0]);
-				appender.buffer = new ThreadSafeCircularFifoQueue<>(theBufferSize);
-				appender.bufferSize = theBufferSize;
-				appender.buffer.addAll(Arrays.asList(oldBuffer));
+			if (appender != null && (appender.buffer.getCapacity() != theBufferSize
+				|| appender.buffer.getMaxChars() != theMaxChars)) {
+				LogLineRingBuffer newBuffer = new LogLineRingBuffer(theBufferSize, theMaxChars);
+				appender.buffer.snapshot().forEach(newBuffer::add);
+				appender.buffer = newBuffer;
 			}
 		}
 
 		if (appender == null) {
-			appender = new MemoryAppender(name, filter, layout, ignoreExceptions, null, theBufferSize);
+			appender = new MemoryAppender(name, filter, layout, ignoreExceptions, null, theBufferSize, theMaxChars);
 			APPENDERS.put(name, new SoftReference<>(appender));
 		}
 		
@@ -102,31 +116,32 @@ public class MemoryAppender extends AbstractAppender {
 
 	@Override
 	public void append(LogEvent logEvent) {
-		buffer.add(logEvent.toImmutable());
+		StringLayout layout = (StringLayout) getLayout();
+		buffer.add(layout == null ? logEvent.getMessage().getFormattedMessage() : layout.toSerializable(logEvent));
 	}
 	
 	public int getBufferSize() {
-		return bufferSize;
+		return buffer.getCapacity();
+	}
+	
+	/**
+	 * @return the maximum number of characters of all lines kept
+	 * @since 3.0.0
+	 */
+	public long getMaxChars() {
+		return buffer.getMaxChars();
 	}
 	
 	public List<String> getLogLines() {
-		if (buffer == null) {
-			return new ArrayList<>(0);
-		}
-
-		LogEvent[] events = buffer.toArray(new LogEvent[0]);
-		if (events.length == 0) {
-			return Collections.emptyList();
-		}
-		
-		return Arrays.stream(events).filter(Objects::nonNull).map(((StringLayout) getLayout())::toSerializable)
-			.collect(Collectors.toList());
+		return buffer.snapshot();
 	}
 
 	public static class MemoryAppenderBuilder extends AbstractAppender.Builder<MemoryAppenderBuilder> {
 
 		private int bufferSize = 100;
 
+		private long maxChars = DEFAULT_MAX_CHARS;
+
 		private StringLayout layout;
 		
 		public MemoryAppenderBuilder() {
@@ -143,6 +158,19 @@ public class MemoryAppender extends AbstractAppender {
 			return asBuilder();
 		}
 
+		/**
+		 * @param maxChars the maximum number of characters of all lines kept
+		 * @since 3.0.0
+		 */
+		public MemoryAppenderBuilder setMaxChars(long maxChars) {
+			if (maxChars <= 0) {
+				throw new IllegalArgumentException("maxChars must be a positive number");
+			}
+
+			this.maxChars = maxChars;
+			return asBuilder();
+		}
+
 		@Override
 		public Layout<? extends Serializable> getLayout() {
 			return layout;
@@ -164,7 +192,7 @@ public class MemoryAppender extends AbstractAppender {
 
 		public MemoryAppender build() {
 			return new MemoryAppender(getName(), getFilter(), layout, isIgnoreExceptions(), getPropertyArray(),
-				bufferSize);
+				bufferSize, maxChars);
 		}
 	}
 
@@ -0,0 +1,147 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.logic;
+
+import org.openmrs.logic.op.Operand;
+import org.openmrs.logic.op.Operator;
+
+/**
+ * A criteria that yields a single value per patient and can therefore be evaluated for a whole
+ * cohort with one grouped query, e.g.
+ *
+ * <pre>
+ * logicService.parse("'CD4 COUNT'").within(Duration.months(6)).last();
+ * </pre>
+ *
+ * Use {@link #of(LogicCriteria)} to find out if a criteria can be evaluated this way. Comparisons
+ * like {@link LogicCriteria#gt(double)} are not pushed down, their operands are implemented by the
+ * logic module, so such criteria are evaluated patient by patient.
+ *
+ * @see org.openmrs.logic.datasource.AggregatingLogicDataSource
+ * @since 3.0.0
+ */
+public class LogicAggregate {
+
+	/**
+	 * How the values of a patient are reduced to one
+	 */
+	public enum Function {
+		LAST,
+		FIRST,
+		COUNT,
+		AVERAGE
+	}
+
+	private final String token;
+
+	private final Function function;
+
+	private final Duration within;
+
+	/**
+	 * @param token the token whose values are aggregated
+	 * @param function how the values of a patient are reduced to one
+	 * @param within only values with a result date within this duration of the index date, may be null
+	 */
+	public LogicAggregate(String token, Function function, Duration within) {
+		this.token = token;
+		this.function = function;
+		this.within = within;
+	}
+
+	/**
+	 * Tries to describe the given criteria as an aggregate. This is possible if the criteria applies
+	 * one of the {@link Function}s as its transform (first and last for a single result only) to a
+	 * token restricted by no more than one within expression.
+	 *
+	 * @param criteria the criteria to evaluate
+	 * @return the aggregate or null if the criteria has to be evaluated patient by patient
+	 */
+	public static LogicAggregate of(LogicCriteria criteria) {
+		LogicExpression expression = criteria.getExpression();
+		if (expression == null || criteria.getRootToken() == null) {
+			return null;
+		}
+
+		Function function = toFunction(expression.getTransform());
+		if (function == null) {
+			return null;
+		}
+
+		Duration within = null;
+		while (expression != null) {
+			Operator operator = expression.getOperator();
+			Operand right = expression.getRightOperand();
+			// an expression without operator is the token itself
+			if (operator == Operator.WITHIN && within == null && right instanceof Duration) {
+				within = (Duration) right;
+			} else if (operator != null) {
+				return null;
+			}
+
+			Operand left = expression.getLeftOperand();
+			expression = left instanceof LogicExpression ? (LogicExpression) left : null;
+			if (expression != null && expression.getTransform() != null) {
+				// a transform applied before the restrictions cannot be pushed down
+				return null;
+			}
+		}
+
+		return new LogicAggregate(criteria.getRootToken(), function, within);
+	}
+
+	private static Function toFunction(LogicTransform transform) {
+		if (transform == null || transform.getSortColumn() != null) {
+			return null;
+		}
+		Operator operator = transform.getTransformOperator();
+		boolean single = transform.getNumResults() == null || transform.getNumResults() == 1;
+		if (operator == Operator.LAST && single) {
+			return Function.LAST;
+		} else if (operator == Operator.FIRST && single) {
+			return Function.FIRST;
+		} else if (operator == Operator.COUNT) {
+			return Function.COUNT;
+		} else if (operator == Operator.AVERAGE) {
+			return Function.AVERAGE;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the token whose values are aggregated
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * @return how the values of a patient are reduced to one
+	 */
+	public Function getFunction() {
+		return function;
+	}
+
+	/**
+	 * @return the duration before the index date the values must fall in, or null
+	 */
+	public Duration getWithin() {
+		return within;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder().append(function).append(" ").append(token);
+		if (within != null) {
+			result.append(" WITHIN ").append(within.getDuration()).append(" ").append(within.getUnits());
+		}
+		return result.toString();
+	}
+}
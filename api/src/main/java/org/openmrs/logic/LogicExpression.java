@@ -46,7 +46,18 @@ public interface LogicExpression extends Operand {
 	 * @return right operand of the LogicExpression
 	 */
 	public Operand getRightOperand();
-	
+
+	/**
+	 * Get the left operand of the LogicExpression. Only LogicExpressionBinary has a left operand,
+	 * it is the expression the operator of this expression was appended to
+	 *
+	 * @return left operand of the LogicExpression or null if it has none
+	 * @since 3.0.0
+	 */
+	public default Operand getLeftOperand() {
+		return null;
+	}
+
 	/**
 	 * Get the transformation expression applied to the LogicExpression
 	 * 
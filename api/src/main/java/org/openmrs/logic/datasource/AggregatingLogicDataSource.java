@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.logic.datasource;
+
+import org.openmrs.Cohort;
+import org.openmrs.logic.LogicAggregate;
+import org.openmrs.logic.LogicContext;
+import org.openmrs.logic.LogicException;
+import org.openmrs.logic.result.CohortResult;
+
+/**
+ * A data source that can evaluate a {@link LogicAggregate} for a whole cohort at once, typically
+ * with a single query grouped by patient instead of reading all values of every patient and
+ * applying the criteria in memory. Implementations of
+ * {@link org.openmrs.logic.LogicService#eval(Cohort, org.openmrs.logic.LogicCriteria)} should use
+ * {@link LogicAggregate#of(org.openmrs.logic.LogicCriteria)} and call
+ * {@link #aggregate(LogicContext, Cohort, LogicAggregate)} when the data source supports it, and
+ * fall back to {@link #read(LogicContext, Cohort, org.openmrs.logic.LogicCriteria)} otherwise.
+ *
+ * @since 3.0.0
+ */
+public interface AggregatingLogicDataSource extends LogicDataSource {
+
+	/**
+	 * @param aggregate the aggregate to evaluate
+	 * @return true if this data source can evaluate the aggregate with
+	 *         {@link #aggregate(LogicContext, Cohort, LogicAggregate)}
+	 */
+	public boolean canAggregate(LogicAggregate aggregate);
+
+	/**
+	 * Evaluates the aggregate for all patients of the cohort, relative to the index date of the
+	 * context.
+	 *
+	 * @param context the current logic context
+	 * @param patients the patients to evaluate the aggregate for
+	 * @param aggregate the aggregate to evaluate
+	 * @return the value of every patient, patients without values map to an empty result, or to 0 for
+	 *         {@link LogicAggregate.Function#COUNT}, see {@link CohortResult#count(Cohort)}
+	 */
+	public CohortResult aggregate(LogicContext context, Cohort patients, LogicAggregate aggregate) throws LogicException;
+
+}
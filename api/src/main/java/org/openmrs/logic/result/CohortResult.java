@@ -0,0 +1,315 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.logic.result;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.openmrs.Cohort;
+import org.openmrs.logic.result.Result.Datatype;
+
+/**
+ * The single numeric or date value per patient of a cohort wide evaluation, stored column wise in
+ * primitive arrays sorted by patient id instead of as one boxed {@link Result} per patient. It is a
+ * read only map from patient id to result, so it can be returned as is from
+ * {@link org.openmrs.logic.LogicService#eval(Cohort, org.openmrs.logic.LogicCriteria)}. Every member
+ * of the cohort is a key, members without a value map to an {@link EmptyResult}, except for counts
+ * built with {@link #count(Cohort)} where they map to 0. The {@link Result} objects are only created
+ * when they are read, use {@link #getNumber(int)} and {@link #getDatetime(int)} to read the values
+ * without creating them.
+ *
+ * @since 3.0.0
+ */
+public class CohortResult extends AbstractMap<Integer, Result> {
+
+	/**
+	 * Marks a missing date in the date columns
+	 */
+	private static final long NO_DATE = Long.MIN_VALUE;
+
+	private final Datatype datatype;
+
+	private final int[] patientIds;
+
+	private final double[] numbers;
+
+	private final long[] datetimes;
+
+	private final long[] resultDates;
+
+	private CohortResult(Builder builder) {
+		this.datatype = builder.datatype;
+		this.patientIds = builder.patientIds;
+		this.numbers = builder.numbers;
+		this.datetimes = builder.datetimes;
+		this.resultDates = builder.resultDates;
+	}
+
+	/**
+	 * @param cohort the patients evaluated
+	 * @return a builder for numeric results, like the last value or the average of a numeric token
+	 */
+	public static Builder numeric(Cohort cohort) {
+		return new Builder(Datatype.NUMERIC, cohort);
+	}
+
+	/**
+	 * @param cohort the patients evaluated
+	 * @return a builder for counts, members without a value have a count of 0 instead of an
+	 *         {@link EmptyResult}
+	 */
+	public static Builder count(Cohort cohort) {
+		Builder builder = new Builder(Datatype.NUMERIC, cohort);
+		Arrays.fill(builder.numbers, 0);
+		return builder;
+	}
+
+	/**
+	 * @param cohort the patients evaluated
+	 * @return a builder for date results, like the date of the last encounter
+	 */
+	public static Builder datetime(Cohort cohort) {
+		return new Builder(Datatype.DATETIME, cohort);
+	}
+
+	/**
+	 * @return {@link Datatype#NUMERIC} or {@link Datatype#DATETIME}
+	 */
+	public Datatype getDatatype() {
+		return datatype;
+	}
+
+	/**
+	 * @param patientId the patient id
+	 * @return the numeric value of the patient, or NaN if the patient has no value
+	 */
+	public double getNumber(int patientId) {
+		int index = Arrays.binarySearch(patientIds, patientId);
+		if (index < 0 || numbers == null) {
+			return Double.NaN;
+		}
+		return numbers[index];
+	}
+
+	/**
+	 * @param patientId the patient id
+	 * @return the date value of the patient, or null if the patient has no value
+	 */
+	public Date getDatetime(int patientId) {
+		int index = Arrays.binarySearch(patientIds, patientId);
+		if (index < 0 || datetimes == null) {
+			return null;
+		}
+		return toDate(datetimes[index]);
+	}
+
+	/**
+	 * @param patientId the patient id
+	 * @return true if the patient is in the cohort and has a value
+	 */
+	public boolean hasValue(int patientId) {
+		int index = Arrays.binarySearch(patientIds, patientId);
+		return index >= 0 && hasValueAt(index);
+	}
+
+	private boolean hasValueAt(int index) {
+		return numbers != null ? !Double.isNaN(numbers[index]) : datetimes[index] != NO_DATE;
+	}
+
+	@Override
+	public int size() {
+		return patientIds.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof Integer && Arrays.binarySearch(patientIds, (Integer) key) >= 0;
+	}
+
+	@Override
+	public Result get(Object key) {
+		if (!(key instanceof Integer)) {
+			return null;
+		}
+		int index = Arrays.binarySearch(patientIds, (Integer) key);
+		return index < 0 ? null : materialize(index);
+	}
+
+	private Result materialize(int index) {
+		if (!hasValueAt(index)) {
+			return new EmptyResult();
+		}
+		Date resultDate = toDate(resultDates[index]);
+		if (numbers != null) {
+			return new Result(resultDate, numbers[index], null);
+		}
+		return new Result(resultDate, toDate(datetimes[index]), null);
+	}
+
+	private static Date toDate(long time) {
+		return time == NO_DATE ? null : new Date(time);
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, Result>> entrySet() {
+		return new AbstractSet<Map.Entry<Integer, Result>>() {
+
+			@Override
+			public Iterator<Map.Entry<Integer, Result>> iterator() {
+				return new Iterator<Map.Entry<Integer, Result>>() {
+
+					private int next = 0;
+
+					@Override
+					public boolean hasNext() {
+						return next < patientIds.length;
+					}
+
+					@Override
+					public Map.Entry<Integer, Result> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						return new LazyEntry(next++);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return patientIds.length;
+			}
+		};
+	}
+
+	/**
+	 * An entry that only creates its result when the value is read
+	 */
+	private class LazyEntry implements Map.Entry<Integer, Result> {
+
+		private final int index;
+
+		LazyEntry(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Integer getKey() {
+			return patientIds[index];
+		}
+
+		@Override
+		public Result getValue() {
+			return materialize(index);
+		}
+
+		@Override
+		public Result setValue(Result value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+			return getKey().equals(other.getKey()) && getValue().equals(other.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ getValue().hashCode();
+		}
+	}
+
+	/**
+	 * Collects the values of a cohort wide evaluation, typically while reading the rows of a grouped
+	 * query. Values of patients that are not in the cohort are ignored, setting the value of a patient
+	 * again replaces the earlier one.
+	 */
+	public static class Builder {
+
+		private final Datatype datatype;
+
+		private final int[] patientIds;
+
+		private final double[] numbers;
+
+		private final long[] datetimes;
+
+		private final long[] resultDates;
+
+		private Builder(Datatype datatype, Cohort cohort) {
+			this.datatype = datatype;
+			this.patientIds = cohort.getMemberIds().stream().mapToInt(Integer::intValue).sorted().toArray();
+			this.resultDates = new long[patientIds.length];
+			Arrays.fill(resultDates, NO_DATE);
+			if (datatype == Datatype.NUMERIC) {
+				this.numbers = new double[patientIds.length];
+				Arrays.fill(numbers, Double.NaN);
+				this.datetimes = null;
+			} else {
+				this.numbers = null;
+				this.datetimes = new long[patientIds.length];
+				Arrays.fill(datetimes, NO_DATE);
+			}
+		}
+
+		/**
+		 * @param patientId the patient id
+		 * @param value the numeric value
+		 * @param resultDate the date of the value, may be null
+		 * @return this builder
+		 */
+		public Builder set(int patientId, double value, Date resultDate) {
+			if (numbers == null) {
+				throw new IllegalStateException("Cannot set a numeric value on a " + datatype + " result");
+			}
+			int index = Arrays.binarySearch(patientIds, patientId);
+			if (index >= 0) {
+				numbers[index] = value;
+				resultDates[index] = resultDate == null ? NO_DATE : resultDate.getTime();
+			}
+			return this;
+		}
+
+		/**
+		 * @param patientId the patient id
+		 * @param value the date value, null clears the value
+		 * @param resultDate the date of the value, may be null
+		 * @return this builder
+		 */
+		public Builder set(int patientId, Date value, Date resultDate) {
+			if (datetimes == null) {
+				throw new IllegalStateException("Cannot set a date value on a " + datatype + " result");
+			}
+			int index = Arrays.binarySearch(patientIds, patientId);
+			if (index >= 0) {
+				datetimes[index] = value == null ? NO_DATE : value.getTime();
+				resultDates[index] = resultDate == null ? NO_DATE : resultDate.getTime();
+			}
+			return this;
+		}
+
+		/**
+		 * @return the result, the builder must not be used afterwards
+		 */
+		public CohortResult build() {
+			return new CohortResult(this);
+		}
+	}
+}
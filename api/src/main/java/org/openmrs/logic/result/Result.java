@@ -21,6 +21,7 @@ import org.openmrs.ConceptDatatype;
 import org.openmrs.Obs;
 import org.openmrs.api.context.Context;
 import org.openmrs.logic.LogicException;
+import org.openmrs.util.OpenmrsUtil;
 
 /**
  * A result from the logic service. A result can be 0-to-n date-values pairs. You can treat the
@@ -626,7 +627,7 @@ public class Result extends ArrayList<Result> {
 				case CODED:
 					return (valueCoded == null ? "" : valueCoded.getName(Context.getLocale()).getName());
 				case DATETIME:
-					return (valueDatetime == null ? "" : Context.getDateFormat().format(valueDatetime));
+					return OpenmrsUtil.formatDate(valueDatetime, Context.getLocale());
 				case NUMERIC:
 					return (valueNumeric == null ? "" : String.valueOf(valueNumeric));
 				case TEXT:
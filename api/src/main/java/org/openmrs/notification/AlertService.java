@@ -105,6 +105,22 @@ public interface AlertService extends OpenmrsService {
 	@Authorized
 	public List<Alert> getAlerts(User user, boolean includeRead, boolean includeExpired) throws APIException;
 	
+	/**
+	 * Counts the alerts that are not read and have not expired for a user, without loading them. If
+	 * null is passed in for <code>user</code>, the alerts of the currently authenticated user are
+	 * counted.
+	 * 
+	 * @param user the user that is assigned to the counted alerts
+	 * @return the number of alerts that are unread and not expired
+	 * @throws APIException
+	 * @since 3.0.0
+	 * <strong>Should</strong> count the unread alerts that have not expired
+	 * <strong>Should</strong> not count alerts after they were marked as read
+	 * <strong>Should</strong> count the alerts of the authenticated user if user is null
+	 */
+	@Authorized
+	public int countUnreadAlerts(User user) throws APIException;
+	
 	/**
 	 * Get all unexpired alerts for all users
 	 * 
@@ -9,7 +9,10 @@
  */
 package org.openmrs.notification.db;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import org.openmrs.User;
 import org.openmrs.api.db.DAOException;
@@ -48,4 +51,21 @@ public interface AlertDAO {
 	 */
 	public List<Alert> getAllAlerts(boolean includeExpired);
 	
+	/**
+	 * Gets the alerts the given user has not read yet, including the expired ones
+	 * 
+	 * @param user the recipient of the alerts
+	 * @return the dates the alerts expire by alert id, ordered like
+	 *         {@link #getAlerts(User, boolean, boolean)}, with null for alerts that do not expire
+	 * @since 3.0.0
+	 */
+	public Map<Integer, Date> getUnreadAlertExpiryDates(User user) throws DAOException;
+	
+	/**
+	 * @param alertIds the ids of the alerts
+	 * @return the alerts with the given ids in the order of the ids
+	 * @since 3.0.0
+	 */
+	public List<Alert> getAlerts(Collection<Integer> alertIds) throws DAOException;
+	
 }
@@ -14,9 +14,13 @@ import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -134,4 +138,55 @@ public class HibernateAlertDAO implements AlertDAO {
 		return session.createQuery(cq).getResultList();
 	}
 
+	/**
+	 * @see org.openmrs.notification.db.AlertDAO#getUnreadAlertExpiryDates(org.openmrs.User)
+	 */
+	@Override
+	public Map<Integer, Date> getUnreadAlertExpiryDates(User user) throws DAOException {
+		if (user == null || user.getUserId() == null) {
+			return Collections.emptyMap();
+		}
+
+		List<Object[]> rows = sessionFactory.getCurrentSession()
+			.createQuery("select a.alertId, a.dateToExpire from Alert a join a.recipients r "
+				+ "where r.recipientId = :userId and a.alertRead = false and r.alertRead = false "
+				+ "order by a.dateChanged desc", Object[].class)
+			.setParameter("userId", user.getUserId())
+			.getResultList();
+
+		Map<Integer, Date> expiryDates = new LinkedHashMap<>(rows.size());
+		for (Object[] row : rows) {
+			expiryDates.put((Integer) row[0], (Date) row[1]);
+		}
+		return expiryDates;
+	}
+
+	/**
+	 * @see org.openmrs.notification.db.AlertDAO#getAlerts(java.util.Collection)
+	 */
+	@Override
+	public List<Alert> getAlerts(Collection<Integer> alertIds) throws DAOException {
+		if (alertIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<Alert> found = sessionFactory.getCurrentSession()
+			.createQuery("from Alert a where a.alertId in (:alertIds)", Alert.class)
+			.setParameter("alertIds", alertIds)
+			.getResultList();
+
+		Map<Integer, Alert> alertsById = new HashMap<>(found.size());
+		for (Alert alert : found) {
+			alertsById.put(alert.getAlertId(), alert);
+		}
+		List<Alert> alerts = new ArrayList<>(alertIds.size());
+		for (Integer alertId : alertIds) {
+			Alert alert = alertsById.get(alertId);
+			if (alert != null) {
+				alerts.add(alert);
+			}
+		}
+		return alerts;
+	}
+
 }
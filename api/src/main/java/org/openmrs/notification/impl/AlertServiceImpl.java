@@ -10,12 +10,17 @@
 package org.openmrs.notification.impl;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
+import org.hibernate.collection.spi.PersistentCollection;
 import org.openmrs.Role;
 import org.openmrs.User;
 import org.openmrs.api.APIException;
+import org.openmrs.api.cache.UnreadAlertCache;
+import org.openmrs.api.cache.UnreadAlertCache.Inbox;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Daemon;
 import org.openmrs.api.impl.BaseOpenmrsService;
@@ -46,6 +51,9 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 	@Autowired
 	private AlertDAO dao;
 	
+	@Autowired
+	private UnreadAlertCache unreadAlertCache;
+	
 	/**
 	 * Default constructor
 	 */
@@ -88,8 +96,31 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 			}
 		}
 		
+		evictInboxes(alert);
 		return dao.saveAlert(alert);
 	}
+	
+	/**
+	 * Evicts the cached unread alerts of the recipients of the given alert, or of all users if the
+	 * recipients of a saved alert are not loaded or might have been removed
+	 */
+	private void evictInboxes(Alert alert) {
+		Collection<AlertRecipient> recipients = alert.getRecipients();
+		if (alert.getAlertId() != null && !(recipients instanceof PersistentCollection
+			&& ((PersistentCollection<?>) recipients).wasInitialized() && !((PersistentCollection<?>) recipients).isDirty())) {
+			unreadAlertCache.clear();
+			return;
+		}
+		if (recipients != null) {
+			List<Integer> userIds = new ArrayList<>(recipients.size());
+			for (AlertRecipient recipient : recipients) {
+				if (recipient.getRecipient() != null) {
+					userIds.add(recipient.getRecipient().getUserId());
+				}
+			}
+			unreadAlertCache.evict(userIds);
+		}
+	}
 
 	/**
 	 * @see org.openmrs.notification.AlertService#getAlert(java.lang.Integer)
@@ -105,6 +136,7 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 	 */
 	@Override
 	public void purgeAlert(Alert alert) throws APIException {
+		evictInboxes(alert);
 		dao.deleteAlert(alert);
 	}
 	
@@ -144,9 +176,32 @@ public class AlertServiceImpl extends BaseOpenmrsService implements Serializable
 	@Transactional(readOnly = true)
 	public List<Alert> getAlerts(User user, boolean includeRead, boolean includeExpired) throws APIException {
 		log.debug("Getting alerts for user " + user + " read? " + includeRead + " expired? " + includeExpired);
+		if (!includeRead && !includeExpired && user != null && user.getUserId() != null) {
+			List<Integer> alertIds = getInbox(user).getAlertIds(System.currentTimeMillis());
+			return alertIds.isEmpty() ? new ArrayList<>() : dao.getAlerts(alertIds);
+		}
 		return dao.getAlerts(user, includeRead, includeExpired);
 	}
 	
+	/**
+	 * @see org.openmrs.notification.AlertService#countUnreadAlerts(org.openmrs.User)
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public int countUnreadAlerts(User user) throws APIException {
+		if (user == null) {
+			user = Context.getAuthenticatedUser();
+		}
+		if (user == null || user.getUserId() == null) {
+			return 0;
+		}
+		return getInbox(user).count(System.currentTimeMillis());
+	}
+	
+	private Inbox getInbox(User user) {
+		return unreadAlertCache.get(user.getUserId(), () -> new Inbox(dao.getUnreadAlertExpiryDates(user)));
+	}
+	
 	/**
 	 * @see org.openmrs.notification.AlertService#getAllAlerts()
 	 */
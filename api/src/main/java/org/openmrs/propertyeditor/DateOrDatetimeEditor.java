@@ -16,6 +16,7 @@ import java.util.Date;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openmrs.api.context.Context;
+import org.openmrs.util.OpenmrsUtil;
 
 /**
  * Allows a java.util.Date to be converted to/from a String. It tries both Date and Date+Time formats
@@ -64,9 +65,9 @@ public class DateOrDatetimeEditor extends PropertyEditorSupport {
 			return "";
 		}
 		if ("0000".equals(new SimpleDateFormat("HmsS").format(date))) {
-			return Context.getDateFormat().format(date);
+			return OpenmrsUtil.formatDate(date, Context.getLocale());
 		} else {
-			return Context.getDateTimeFormat().format(date);
+			return OpenmrsUtil.formatDateTime(date, Context.getLocale());
 		}
 	}
 	
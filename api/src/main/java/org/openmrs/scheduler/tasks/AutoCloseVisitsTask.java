@@ -11,6 +11,8 @@ package org.openmrs.scheduler.tasks;
 
 import java.util.Date;
 
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openmrs.api.VisitService;
 import org.openmrs.api.context.Context;
 import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
@@ -19,7 +21,9 @@ import org.slf4j.LoggerFactory;
 /**
  * A scheduled task that automatically closes all unvoided active visits that match the visit
  * type(s) set as the value of the global property
- * {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE}
+ * {@link OpenmrsConstants#GP_VISIT_TYPES_TO_AUTO_CLOSE}. The visits are stopped in batches of
+ * {@value #DEFAULT_BATCH_SIZE}, each in its own transaction, the batch size can be changed with the
+ * <i>batchSize</i> task property.
  *
  * @since 1.9
  */
@@ -27,6 +31,13 @@ public class AutoCloseVisitsTask extends AbstractTask {
 	
 	private static final Logger log = LoggerFactory.getLogger(AutoCloseVisitsTask.class);
 	
+	/**
+	 * The name of the task property holding the number of visits to stop per transaction
+	 */
+	public static final String PROPERTY_BATCH_SIZE = "batchSize";
+	
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+	
 	/**
 	 * @see org.openmrs.scheduler.tasks.AbstractTask#execute()
 	 */
@@ -37,7 +48,17 @@ public class AutoCloseVisitsTask extends AbstractTask {
 
 			startExecuting();
 			try {
-				Context.getVisitService().stopVisits(new Date());
+				VisitService visitService = Context.getVisitService();
+				Date maximumStartDate = new Date();
+				int batchSize = getBatchSize();
+				long started = System.currentTimeMillis();
+				int total = 0;
+				int stopped;
+				do {
+					stopped = visitService.stopVisits(maximumStartDate, batchSize);
+					total += stopped;
+				} while (stopped > 0);
+				log.info("Auto closed {} visits in {} ms", total, System.currentTimeMillis() - started);
 			}
 			catch (Exception e) {
 				log.error("Error while auto closing visits:", e);
@@ -47,4 +68,10 @@ public class AutoCloseVisitsTask extends AbstractTask {
 			}
 		}
 	}
+	
+	private int getBatchSize() {
+		String batchSize = taskDefinition != null ? taskDefinition.getProperty(PROPERTY_BATCH_SIZE) : null;
+		int value = NumberUtils.toInt(batchSize, DEFAULT_BATCH_SIZE);
+		return value > 0 ? value : DEFAULT_BATCH_SIZE;
+	}
 }
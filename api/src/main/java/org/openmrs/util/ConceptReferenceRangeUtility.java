@@ -13,11 +13,12 @@ import java.io.StringWriter;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 
 import org.apache.commons.lang3.StringUtils;
@@ -25,12 +26,11 @@ import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.ParseErrorException;
 import org.joda.time.LocalTime;
+import org.openmrs.Cohort;
 import org.openmrs.Concept;
 import org.openmrs.Obs;
-import org.openmrs.Patient;
-import org.openmrs.PatientProgram;
-import org.openmrs.PatientState;
 import org.openmrs.Person;
+import org.openmrs.ProgramEnrollments;
 import org.openmrs.api.APIException;
 import org.openmrs.api.context.Context;
 
@@ -43,6 +43,8 @@ public class ConceptReferenceRangeUtility {
 	
 	private final long NULL_DATE_RETURN_VALUE = -1;
 	
+	private final Map<Integer, ProgramEnrollments> programEnrollments = new HashMap<>();
+	
 	public ConceptReferenceRangeUtility() {
 	}
 	
@@ -406,7 +408,7 @@ public class ConceptReferenceRangeUtility {
 		if (!(person.getIsPatient())) {
 			return false;
 		}
-		return getPatientPrograms((Patient) person, onDate).stream().anyMatch(pp -> pp.getProgram().getUuid().equals(uuid));
+		return getProgramEnrollments(person).isEnrolledInProgram(person.getPersonId(), uuid, onDate);
 	}
 	
 	/**
@@ -423,19 +425,7 @@ public class ConceptReferenceRangeUtility {
 		if (!(person.getIsPatient())) {
 			return false;
 		}
-	
-		List<PatientProgram> patientPrograms = getPatientPrograms((Patient) person, onDate);
-		List<PatientState> patientStates = new ArrayList<>();
-		
-		for (PatientProgram pp : patientPrograms) {
-			for (PatientState state : pp.getStates()) {
-				if (state.getActive(onDate)) {
-					patientStates.add(state);
-				}
-			}
-		}
-		
-		return patientStates.stream().anyMatch(ps -> ps.getState().getUuid().equals(uuid));
+		return getProgramEnrollments(person).isInProgramState(person.getPersonId(), uuid, onDate);
 	}
 	
 	/**
@@ -448,10 +438,14 @@ public class ConceptReferenceRangeUtility {
 		return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
 	}
 	
-	private List<PatientProgram> getPatientPrograms(Patient patient, Date onDate) {
-		if (onDate == null) {
-			onDate = new Date();
+	/**
+	 * The enrollments are loaded once per patient for all criteria evaluated with this instance
+	 */
+	private ProgramEnrollments getProgramEnrollments(Person person) {
+		if (person.getPersonId() == null) {
+			return new ProgramEnrollments.Builder().build();
 		}
-		return Context.getProgramWorkflowService().getPatientPrograms(patient, null, null, onDate, onDate, null, false);
+		return programEnrollments.computeIfAbsent(person.getPersonId(), patientId -> Context.getProgramWorkflowService()
+		        .getProgramEnrollments(new Cohort(Collections.singletonList(patientId)), null));
 	}
 }
@@ -621,7 +621,7 @@ public final class OpenmrsConstants {
 	 *
 	 * @since 1.11
 	 */
-	public static final Integer SEARCH_INDEX_VERSION = 8;
+	public static final Integer SEARCH_INDEX_VERSION = 10;
 
 	/**
 	 * @since 1.12
@@ -1001,7 +1001,7 @@ public final class OpenmrsConstants {
 		        "comma-separated list of the visit type(s) to automatically close"));
 		
 		props.add(new GlobalProperty(GP_ALLOWED_FAILED_LOGINS_BEFORE_LOCKOUT, "7",
-		        "Maximum number of failed logins allowed after which username is locked out"));
+		        "Maximum number of failed logins allowed after which username is locked out, counted per server when clustered"));
 
 		props.add(new GlobalProperty(GP_UNLOCK_ACCOUNT_WAITING_TIME, "5",
 			"Waiting time for account to get automatically unlocked after getting locked due to multiple invalid login tries"));
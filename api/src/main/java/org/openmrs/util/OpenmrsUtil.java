@@ -34,6 +34,10 @@ import java.nio.file.Paths;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -52,6 +56,7 @@ import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -124,9 +129,15 @@ public class OpenmrsUtil {
 	
 	private static org.slf4j.Logger log = LoggerFactory.getLogger(OpenmrsUtil.class);
 	
-	private static Map<Locale, SimpleDateFormat> dateFormatCache = new HashMap<>();
+	private static final Map<Locale, SimpleDateFormat> dateFormatCache = new ConcurrentHashMap<>();
 	
-	private static Map<Locale, SimpleDateFormat> timeFormatCache = new HashMap<>();
+	private static final Map<Locale, SimpleDateFormat> timeFormatCache = new ConcurrentHashMap<>();
+	
+	private static final Map<Locale, DateTimeFormatter> dateFormatterCache = new ConcurrentHashMap<>();
+	
+	private static final Map<Locale, DateTimeFormatter> timeFormatterCache = new ConcurrentHashMap<>();
+	
+	private static final Map<Locale, DateTimeFormatter> dateTimeFormatterCache = new ConcurrentHashMap<>();
 	
 	/**
 	 * Compares origList to newList returning map of differences
@@ -1278,10 +1289,10 @@ public class OpenmrsUtil {
 	 * @since 1.5
 	 */
 	public static SimpleDateFormat getDateFormat(Locale locale) {
-		if (dateFormatCache.containsKey(locale)) {
-			return (SimpleDateFormat) dateFormatCache.get(locale).clone();
-		}
-		
+		return (SimpleDateFormat) dateFormatCache.computeIfAbsent(locale, OpenmrsUtil::createDateFormat).clone();
+	}
+	
+	private static SimpleDateFormat createDateFormat(Locale locale) {
 		// note that we are using the custom OpenmrsDateFormat class here which prevents erroneous parsing of 2-digit years
 		SimpleDateFormat sdf = new OpenmrsDateFormat((SimpleDateFormat) DateFormat.getDateInstance(DateFormat.SHORT, locale),
 		        locale);
@@ -1308,9 +1319,7 @@ public class OpenmrsUtil {
 			sdf.applyPattern(pattern);
 		}
 		
-		dateFormatCache.put(locale, sdf);
-		
-		return (SimpleDateFormat) sdf.clone();
+		return sdf;
 	}
 	
 	/**
@@ -1322,10 +1331,10 @@ public class OpenmrsUtil {
 	 * @since 1.9
 	 */
 	public static SimpleDateFormat getTimeFormat(Locale locale) {
-		if (timeFormatCache.containsKey(locale)) {
-			return (SimpleDateFormat) timeFormatCache.get(locale).clone();
-		}
-		
+		return (SimpleDateFormat) timeFormatCache.computeIfAbsent(locale, OpenmrsUtil::createTimeFormat).clone();
+	}
+	
+	private static SimpleDateFormat createTimeFormat(Locale locale) {
 		SimpleDateFormat sdf = (SimpleDateFormat) DateFormat.getTimeInstance(DateFormat.SHORT, locale);
 		String pattern = sdf.toPattern();
 		
@@ -1335,9 +1344,7 @@ public class OpenmrsUtil {
 			sdf.applyPattern(pattern);
 		}
 		
-		timeFormatCache.put(locale, sdf);
-		
-		return (SimpleDateFormat) sdf.clone();
+		return sdf;
 	}
 	
 	/**
@@ -1356,10 +1363,108 @@ public class OpenmrsUtil {
 		dateFormat = getDateFormat(locale);
 		timeFormat = getTimeFormat(locale);
 		
+		// the symbols of the locale, so that it parses what getDateTimeFormatter prints
 		String pattern = dateFormat.toPattern() + " " + timeFormat.toPattern();
-		SimpleDateFormat sdf = new SimpleDateFormat();
-		sdf.applyPattern(pattern);
-		return sdf;
+		return new SimpleDateFormat(pattern, locale);
+	}
+	
+	/**
+	 * Gets the date formatter for the given locale. It uses the same pattern as
+	 * {@link #getDateFormat(Locale)} but is immutable, so the cached instance is shared by all
+	 * callers instead of being copied for every use.
+	 * 
+	 * @param locale the locale
+	 * @return a thread safe date formatter
+	 * <strong>Should</strong> use the same pattern as getDateFormat
+	 * @since 3.0.0
+	 */
+	public static DateTimeFormatter getDateFormatter(Locale locale) {
+		return dateFormatterCache.computeIfAbsent(locale,
+		    l -> createFormatter(dateFormatCache.computeIfAbsent(l, OpenmrsUtil::createDateFormat).toPattern(), l));
+	}
+	
+	/**
+	 * Gets the time formatter for the given locale, see {@link #getDateFormatter(Locale)}
+	 * 
+	 * @param locale the locale
+	 * @return a thread safe time formatter
+	 * <strong>Should</strong> use the same pattern as getTimeFormat
+	 * @since 3.0.0
+	 */
+	public static DateTimeFormatter getTimeFormatter(Locale locale) {
+		return timeFormatterCache.computeIfAbsent(locale,
+		    l -> createFormatter(timeFormatCache.computeIfAbsent(l, OpenmrsUtil::createTimeFormat).toPattern(), l));
+	}
+	
+	/**
+	 * Gets the datetime formatter for the given locale, see {@link #getDateFormatter(Locale)}
+	 * 
+	 * @param locale the locale
+	 * @return a thread safe datetime formatter
+	 * <strong>Should</strong> use the same pattern as getDateTimeFormat
+	 * @since 3.0.0
+	 */
+	public static DateTimeFormatter getDateTimeFormatter(Locale locale) {
+		return dateTimeFormatterCache.computeIfAbsent(locale, l -> createFormatter(
+		    dateFormatCache.computeIfAbsent(l, OpenmrsUtil::createDateFormat).toPattern() + " "
+		            + timeFormatCache.computeIfAbsent(l, OpenmrsUtil::createTimeFormat).toPattern(), l));
+	}
+	
+	/**
+	 * Creates a formatter that prints what a {@link SimpleDateFormat} with the same pattern and locale
+	 * prints, including the digits of the locale
+	 */
+	private static DateTimeFormatter createFormatter(String pattern, Locale locale) {
+		return DateTimeFormatter.ofPattern(pattern, locale).withDecimalStyle(DecimalStyle.of(locale));
+	}
+	
+	/**
+	 * Formats the date with the date format of the given locale in the default time zone without
+	 * creating a new formatter, see {@link #getDateFormatter(Locale)}
+	 * 
+	 * @param date the date to format
+	 * @param locale the locale
+	 * @return the formatted date or an empty string if the date is null
+	 * <strong>Should</strong> format like getDateFormat
+	 * @since 3.0.0
+	 */
+	public static String formatDate(Date date, Locale locale) {
+		return format(date, getDateFormatter(locale));
+	}
+	
+	/**
+	 * Formats the time of the date with the time format of the given locale, see
+	 * {@link #formatDate(Date, Locale)}
+	 * 
+	 * @param date the date to format
+	 * @param locale the locale
+	 * @return the formatted time or an empty string if the date is null
+	 * @since 3.0.0
+	 */
+	public static String formatTime(Date date, Locale locale) {
+		return format(date, getTimeFormatter(locale));
+	}
+	
+	/**
+	 * Formats the date with the datetime format of the given locale, see
+	 * {@link #formatDate(Date, Locale)}
+	 * 
+	 * @param date the date to format
+	 * @param locale the locale
+	 * @return the formatted date and time or an empty string if the date is null
+	 * <strong>Should</strong> format like getDateTimeFormat
+	 * @since 3.0.0
+	 */
+	public static String formatDateTime(Date date, Locale locale) {
+		return format(date, getDateTimeFormatter(locale));
+	}
+	
+	private static String format(Date date, DateTimeFormatter formatter) {
+		if (date == null) {
+			return "";
+		}
+		// not date.toInstant(), java.sql.Date does not support it
+		return formatter.format(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()));
 	}
 	
 	/**
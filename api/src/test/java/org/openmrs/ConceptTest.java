@@ -1243,7 +1243,7 @@ public class ConceptTest extends BaseContextSensitiveTest {
 		newConcept.setConceptClass(new ConceptClass(1));
 		newConcept = Context.getConceptService().saveConcept(newConcept);
 		
-		Context.updateSearchIndexForType(ConceptName.class);
+		Context.updateSearchIndexForType(Concept.class);
 		
 		List<Concept> resultConcepts = newConcept.findPossibleValues("findPossibleValueTest");
 		assertEquals(expectedConcepts, resultConcepts);
@@ -35,8 +35,11 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -49,6 +52,7 @@ import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.context.Credentials;
 import org.openmrs.api.context.UsernamePasswordCredentials;
+import org.openmrs.api.db.hibernate.ConnectionPoolMetrics;
 import org.openmrs.customdatatype.datatype.BooleanDatatype;
 import org.openmrs.customdatatype.datatype.DateDatatype;
 import org.openmrs.messagesource.MutableMessageSource;
@@ -1188,4 +1192,25 @@ public class AdministrationServiceTest extends BaseContextSensitiveTest {
 		// verify hook methods must be called
 		verify(activator).setupOnVersionChange(previousCoreVersion, previousModuleVersion);
 	}
+
+	@Test
+	public void getSystemInformation_shouldListEveryConnectionPool() {
+		PoolStats poolStats = mock(PoolStats.class);
+		Mockito.when(poolStats.getActiveConnections()).thenReturn(3);
+		ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+		IMetricsTracker first = metrics.create("first", poolStats);
+		IMetricsTracker second = metrics.create("second", mock(PoolStats.class));
+		try {
+			Map<String, String> poolInfo = adminService.getSystemInformation()
+			        .get("SystemInfo.title.connectionPoolInformation");
+
+			assertThat(poolInfo.keySet(), hasItems("first", "second"));
+			assertThat(poolInfo.get("first"), containsString("3 active"));
+			assertThat(poolInfo.get("second"), containsString("0 active"));
+		}
+		finally {
+			first.close();
+			second.close();
+		}
+	}
 }
@@ -80,6 +80,7 @@ import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Person;
 import org.openmrs.User;
+import org.openmrs.api.cache.ConceptIdsByMappingCache;
 import org.openmrs.api.context.Context;
 import org.openmrs.api.db.DAOException;
 import org.openmrs.customdatatype.datatype.FreeTextDatatype;
@@ -116,6 +117,9 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 
 	@Autowired
 	CacheManager cacheManager;
+	
+	@Autowired
+	ConceptIdsByMappingCache conceptIdsByMappingCache;
 
 	// For testing concept lookups by static constant
 	private static final String TEST_CONCEPT_CONSTANT_ID = "3";
@@ -1011,7 +1015,7 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		conceptService.saveConceptReferenceTerm(dummyTerm);
 
 		// Update Concept Source
-		SimpleKey cacheKey = new SimpleKey(crt.getCode(), cs.getHl7Code(), true);
+		SimpleKey cacheKey = ConceptIdsByMappingCache.key(crt.getCode(), cs.getHl7Code(), true);
 		List<Integer> conceptIdsByMapping = conceptService.getConceptIdsByMapping(crt.getCode(), cs.getHl7Code(), true);
 		assertThat(cache.get(cacheKey).get(), is(conceptIdsByMapping));
 		cs.setDateChanged(new Date());
@@ -1025,11 +1029,98 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		conceptService.saveConceptReferenceTerm(crt);
 		assertThat(cache.get(cacheKey), is(nullValue()));
 
-		// purgeConceptReferenceTerm
+		// purgeConceptReferenceTerm only evicts the lookups of the purged term
 		conceptIdsByMapping = conceptService.getConceptIdsByMapping(crt.getCode(), cs.getHl7Code(), true);
-		assertThat(cache.get(cacheKey).get(), is(conceptIdsByMapping));
+		conceptService.getConceptIdsByMapping(dummyTerm.getCode(), cs.getName(), false);
+		SimpleKey dummyKey = ConceptIdsByMappingCache.key(dummyTerm.getCode(), cs.getName(), false);
+		assertThat(cache.get(dummyKey), is(notNullValue()));
 		conceptService.purgeConceptReferenceTerm(dummyTerm);
-		assertThat(cache.get(cacheKey), is(nullValue()));
+		assertThat(cache.get(dummyKey), is(nullValue()));
+		assertThat(cache.get(cacheKey).get(), is(conceptIdsByMapping));
+	}
+	
+	/**
+	 * @see ConceptService#getConceptIdsByMapping(String,String,boolean)
+	 */
+	@Test
+	public void getConceptIdsByMapping_shouldCacheLookupsIgnoringCase() {
+		Cache cache = cacheManager.getCache(ConceptIdsByMappingCache.CACHE_NAME);
+		cache.clear();
+		long hits = conceptIdsByMappingCache.getHits();
+		long misses = conceptIdsByMappingCache.getMisses();
+		
+		List<Integer> conceptIds = conceptService.getConceptIdsByMapping("WGT234", "SSTRM", false);
+		assertThat(conceptService.getConceptIdsByMapping("wgt234", "sstrm", false), is(conceptIds));
+		
+		assertThat(conceptIdsByMappingCache.getMisses(), is(misses + 1));
+		assertThat(conceptIdsByMappingCache.getHits(), is(hits + 1));
+		assertTrue(conceptIdsByMappingCache.getHitRatio() > 0);
+	}
+	
+	/**
+	 * @see ConceptService#saveConcept(Concept)
+	 */
+	@Test
+	public void saveConcept_shouldOnlyEvictCachedLookupsOfTheMappingsOfTheConcept() {
+		Cache cache = cacheManager.getCache(ConceptIdsByMappingCache.CACHE_NAME);
+		cache.clear();
+		conceptService.getConceptIdsByMapping("WGT234", "SSTRM", true);
+		conceptService.getConceptIdsByMapping("WGT234", "Some Standardized Terminology", false);
+		conceptService.getConceptIdsByMapping("766554", "SSTRM", true);
+		long evictions = conceptIdsByMappingCache.getEvictions();
+		long clears = conceptIdsByMappingCache.getClears();
+		
+		Concept concept = conceptService.getConcept(5089);
+		concept.setVersion("2.0");
+		conceptService.saveConcept(concept);
+		
+		assertThat(cache.get(ConceptIdsByMappingCache.key("WGT234", "SSTRM", true)), is(nullValue()));
+		assertThat(cache.get(ConceptIdsByMappingCache.key("WGT234", "Some Standardized Terminology", false)),
+		    is(nullValue()));
+		assertThat(cache.get(ConceptIdsByMappingCache.key("766554", "SSTRM", true)), is(notNullValue()));
+		assertTrue(conceptIdsByMappingCache.getEvictions() > evictions);
+		assertThat(conceptIdsByMappingCache.getClears(), is(clears));
+	}
+	
+	/**
+	 * @see ConceptService#saveConcept(Concept)
+	 */
+	@Test
+	public void saveConcept_shouldEvictCachedLookupsOfRemovedMappings() {
+		Cache cache = cacheManager.getCache(ConceptIdsByMappingCache.CACHE_NAME);
+		cache.clear();
+		assertThat(conceptService.getConceptIdsByMapping("WGT234", "SSTRM", false), contains(5089));
+		
+		Concept concept = conceptService.getConcept(5089);
+		for (ConceptMap map : new ArrayList<>(concept.getConceptMappings())) {
+			if ("WGT234".equals(map.getConceptReferenceTerm().getCode())) {
+				concept.removeConceptMapping(map);
+			}
+		}
+		conceptService.saveConcept(concept);
+		
+		assertThat(cache.get(ConceptIdsByMappingCache.key("WGT234", "SSTRM", false)), is(nullValue()));
+		assertThat(conceptService.getConceptIdsByMapping("WGT234", "SSTRM", false), is(empty()));
+	}
+	
+	/**
+	 * @see ConceptService#saveConceptReferenceTerm(ConceptReferenceTerm)
+	 */
+	@Test
+	public void saveConceptReferenceTerm_shouldEvictCachedLookupsOfTheOldAndTheNewCode() {
+		Cache cache = cacheManager.getCache(ConceptIdsByMappingCache.CACHE_NAME);
+		cache.clear();
+		ConceptSource source = conceptService.getConceptSourceByHL7Code("SSTRM");
+		assertThat(conceptService.getConceptIdsByMapping("WGT234", "SSTRM", false), contains(5089));
+		assertThat(conceptService.getConceptIdsByMapping("WGT235", "SSTRM", false), is(empty()));
+		
+		ConceptReferenceTerm term = conceptService.getConceptReferenceTermByCode("WGT234", source);
+		term.setCode("WGT235");
+		conceptService.saveConceptReferenceTerm(term);
+		
+		assertThat(cache.get(ConceptIdsByMappingCache.key("WGT234", "SSTRM", false)), is(nullValue()));
+		assertThat(cache.get(ConceptIdsByMappingCache.key("WGT235", "SSTRM", false)), is(nullValue()));
+		assertThat(conceptService.getConceptIdsByMapping("WGT235", "SSTRM", false), contains(5089));
 	}
 	
 	/**
@@ -2148,6 +2239,40 @@ public class ConceptServiceTest extends BaseContextSensitiveTest {
 		assertThat(searchResults.get(0).getWord(), is("trust now"));
 	}
 	
+	/**
+	 * @see ConceptService#getConcepts(String, List, boolean, List, List, List, List, Concept, Integer, Integer)
+	 */
+	@Test
+	public void getConcepts_shouldPageThroughUniqueConcepts() {
+		executeDataSet("org/openmrs/api/include/ConceptServiceTest-names.xml");
+		List<Locale> locales = Collections.singletonList(Locale.ENGLISH);
+		
+		List<ConceptSearchResult> firstPage = conceptService.getConcepts("trust", locales, false, null, null, null, null,
+		    null, 0, 1);
+		List<ConceptSearchResult> secondPage = conceptService.getConcepts("trust", locales, false, null, null, null, null,
+		    null, 1, 1);
+		
+		assertEquals(1, firstPage.size());
+		assertEquals(1, secondPage.size());
+		assertNotEquals(firstPage.get(0).getConcept(), secondPage.get(0).getConcept());
+		assertEquals(2, conceptService.getCountOfConcepts("trust", locales, false, null, null, null, null, null)
+		        .intValue());
+	}
+	
+	/**
+	 * @see ConceptService#getConcepts(String, List, boolean, List, List, List, List, Concept, Integer, Integer)
+	 */
+	@Test
+	public void getConcepts_shouldReturnTheNameOfTheConceptThatMatchesTheSearchPhrase() {
+		executeDataSet("org/openmrs/api/include/ConceptServiceTest-names.xml");
+		
+		List<ConceptSearchResult> searchResults = conceptService.getConcepts("nowhere", Collections
+		        .singletonList(Locale.ENGLISH), false, null, null, null, null, null, null, null);
+		
+		assertEquals(1, searchResults.size());
+		assertThat(searchResults.get(0).getConceptName().getName(), containsString("NOWHERE"));
+	}
+	
 	/**
 	 * @see ConceptService#getConceptReferenceTermByName(String,ConceptSource)
 	 */
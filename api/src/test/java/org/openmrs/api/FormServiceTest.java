@@ -14,6 +14,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -24,6 +25,7 @@ import java.io.InputStreamReader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
@@ -39,6 +41,7 @@ import org.openmrs.FieldType;
 import org.openmrs.Form;
 import org.openmrs.FormField;
 import org.openmrs.FormResource;
+import org.openmrs.FormSchema;
 import org.openmrs.GlobalProperty;
 import org.openmrs.Obs;
 import org.openmrs.api.context.Context;
@@ -237,6 +240,68 @@ public class FormServiceTest extends BaseContextSensitiveTest {
 		assertNotNull(ff);
 	}
 
+	/**
+	 * @see FormService#getFormSchema(Form)
+	 */
+	@Test
+	public void getFormSchema_shouldBuildTheFieldTreeOfTheForm() {
+		FormSchema schema = Context.getFormService().getFormSchema(new Form(1));
+
+		assertEquals(1, schema.getFormId());
+		assertEquals(Arrays.asList(2, 3, 5),
+		    schema.getRoots().stream().map(FormSchema.Node::getFormFieldId).collect(Collectors.toList()));
+		assertTrue(schema.getChildren(2).isEmpty());
+		assertEquals("Some concept", schema.getNode(2).getFieldName());
+	}
+
+	/**
+	 * @see FormService#getFormSchema(Form)
+	 */
+	@Test
+	public void getFormSchema_shouldIndexTheFormFieldsByConcept() {
+		FormSchema schema = Context.getFormService().getFormSchema(new Form(1));
+
+		assertEquals(Arrays.asList(2, 3, 5), schema.getNodesByConcept(3).stream().map(FormSchema.Node::getFormFieldId)
+		        .collect(Collectors.toList()));
+		assertTrue(schema.getNodesByConcept(1).isEmpty());
+
+		List<FormField> ignoreFormFields = new ArrayList<>();
+		ignoreFormFields.add(Context.getFormService().getFormField(2));
+		assertEquals(3, (int) Context.getFormService().getFormField(new Form(1), new Concept(3), ignoreFormFields, true)
+		        .getFormFieldId());
+	}
+
+	/**
+	 * @see FormService#getFormSchema(Form)
+	 */
+	@Test
+	public void getFormSchema_shouldReturnNullForAnUnsavedForm() {
+		assertNull(Context.getFormService().getFormSchema(new Form()));
+		assertNull(Context.getFormService().getFormSchema(null));
+	}
+
+	/**
+	 * @see FormService#getFormSchema(Form)
+	 */
+	@Test
+	public void getFormSchema_shouldReturnANewSchemaAfterAFormFieldWasSaved() {
+		FormService formService = Context.getFormService();
+		FormSchema before = formService.getFormSchema(new Form(1));
+		assertSame(before, formService.getFormSchema(new Form(1)));
+
+		FormField formField = new FormField();
+		formField.setField(formService.getField(1));
+		formField.setForm(formService.getForm(1));
+		formField.setParent(formService.getFormField(2));
+		formService.saveFormField(formField);
+
+		FormSchema after = formService.getFormSchema(new Form(1));
+		assertNotSame(before, after);
+		assertTrue(after.getVersion() > before.getVersion());
+		assertEquals(formField.getFormFieldId(), after.getChildren(2).get(0).getFormFieldId());
+		assertEquals(4, after.getNodesByConcept(3).size());
+	}
+
 	/**
 	 * Make sure form is returned when matching against any formFieldId in a list
 	 *
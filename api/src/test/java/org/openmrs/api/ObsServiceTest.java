@@ -2050,6 +2050,79 @@ public class ObsServiceTest extends BaseContextSensitiveTest {
 		}
 	}
 	
+	/**
+	 * @see ObsService#saveAllObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveAllObs_shouldSaveNewAndEditedObs() {
+		Obs edited = obsService.getObs(7);
+		edited.setValueNumeric(60.0);
+		Obs added = new Obs(new Patient(2), Context.getConceptService().getConcept(3), new Date(), new Location(1));
+		added.setValueNumeric(50d);
+
+		List<Obs> saved = obsService.saveAllObs(Arrays.asList(edited, added), "batch edit");
+
+		assertEquals(2, saved.size());
+		Obs revision = saved.get(0);
+		assertNotNull(revision.getObsId());
+		assertFalse(revision.getObsId().equals(7));
+		assertEquals(7, revision.getPreviousVersion().getObsId());
+		assertThat(revision.getValueNumeric(), is(60.0));
+		assertThat(revision.getStatus(), is(Obs.Status.AMENDED));
+		assertEquals(added, saved.get(1));
+		assertNotNull(added.getObsId());
+	}
+
+	/**
+	 * @see ObsService#saveAllObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveAllObs_shouldVoidTheEditedObsWithChangeMessageAsTheVoidReason() {
+		Obs first = obsService.getObs(7);
+		Double originalValue = first.getValueNumeric();
+		first.setValueNumeric(60.0);
+		Obs second = obsService.getObs(9);
+		second.setValueNumeric(175.0);
+
+		obsService.saveAllObs(Arrays.asList(first, second), "batch edit");
+		Context.flushSession();
+		Context.clearSession();
+
+		for (Integer obsId : Arrays.asList(7, 9)) {
+			Obs original = obsService.getObs(obsId);
+			assertTrue(original.getVoided());
+			assertEquals("batch edit", original.getVoidReason());
+			assertNotNull(original.getVoidedBy());
+			assertNotNull(original.getDateVoided());
+		}
+		assertEquals(originalValue, obsService.getObs(7).getValueNumeric());
+		assertEquals(Double.valueOf(175.0), obsService.getRevisionObs(obsService.getObs(9)).getValueNumeric());
+	}
+
+	/**
+	 * @see ObsService#saveAllObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveAllObs_shouldNotVoidObsWithNoChanges() {
+		Obs unchanged = obsService.getObs(7);
+
+		List<Obs> saved = obsService.saveAllObs(Collections.singletonList(unchanged), "no change");
+
+		assertEquals(unchanged, saved.get(0));
+		assertFalse(unchanged.getVoided());
+	}
+
+	/**
+	 * @see ObsService#saveAllObs(java.util.Collection,String)
+	 */
+	@Test
+	public void saveAllObs_shouldRequireAChangeMessageWhenEditingObs() {
+		Obs edited = obsService.getObs(7);
+		edited.setValueNumeric(60.0);
+
+		assertThrows(APIException.class, () -> obsService.saveAllObs(Collections.singletonList(edited), null));
+	}
+
 	@Test
 	public void saveObs_shouldSetStatusToAmendedWhenModifyingAnObsWithFinalStatus() throws Exception {
 		Obs existing = obsService.getObs(7);
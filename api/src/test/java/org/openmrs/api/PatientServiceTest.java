@@ -48,6 +48,7 @@ import org.hamcrest.Matcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openmrs.Concept;
+import org.openmrs.Diagnosis;
 import org.openmrs.Encounter;
 import org.openmrs.GlobalProperty;
 import org.openmrs.Location;
@@ -655,6 +656,25 @@ public class PatientServiceTest extends BaseContextSensitiveTest {
 		assertEquals(6, user.getPerson().getId().intValue());
 	}
 	
+	/**
+	 * @see PatientService#mergePatients(Patient,Patient)
+	 */
+	@Test
+	public void mergePatients_shouldMoveTheDiagnosesOfTheMovedEncounters() throws Exception {
+		executeDataSet("org/openmrs/api/include/DiagnosisServiceImplTest-SetupDiagnosis.xml");
+		Patient notPreferred = patientService.getPatient(2);
+		voidOrders(Collections.singleton(notPreferred));
+		
+		patientService.mergePatients(patientService.getPatient(6), notPreferred);
+		Context.clearSession();
+		
+		for (int diagnosisId = 1; diagnosisId <= 4; diagnosisId++) {
+			Diagnosis diagnosis = Context.getDiagnosisService().getDiagnosis(diagnosisId);
+			assertEquals(6, diagnosis.getPatient().getPatientId().intValue());
+			assertEquals(6, diagnosis.getEncounter().getPatient().getPatientId().intValue());
+		}
+	}
+	
 	/**
 	 * @see PatientService#mergePatients(Patient,Patient)
 	 */
@@ -2185,6 +2205,26 @@ public class PatientServiceTest extends BaseContextSensitiveTest {
 		assertTrue(patientService.getPatient(8).getVoided());
 	}
 	
+	/**
+	 * @see PatientService#mergePatients(Patient,List)
+	 */
+	@Test
+	public void mergePatients_shouldCreateAPersonMergeLogForEachNonPreferredPatient() throws Exception {
+		Patient preferred = patientService.getPatient(6);
+		List<Patient> notPreferred = new ArrayList<>();
+		notPreferred.add(patientService.getPatient(7));
+		notPreferred.add(patientService.getPatient(8));
+		voidOrders(notPreferred);
+		String encounterUuid = Context.getEncounterService().getEncounter(3).getUuid();
+		
+		patientService.mergePatients(preferred, notPreferred);
+		
+		assertEquals(2, personService.getWinningPersonMergeLogs(preferred, true).size());
+		PersonMergeLog mergeLog = personService.getLosingPersonMergeLog(patientService.getPatient(7), true);
+		assertTrue(isValueInList(encounterUuid, mergeLog.getPersonMergeLogData().getMovedEncounters()));
+		assertEquals(preferred, Context.getEncounterService().getEncounter(3).getPatient());
+	}
+	
 	/**
 	 * @see PatientService#mergePatients(Patient,Patient)
 	 */
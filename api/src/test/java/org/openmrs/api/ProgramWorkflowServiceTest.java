@@ -13,6 +13,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -22,11 +23,13 @@ import static org.junit.jupiter.api.Assertions.fail;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.joda.time.DateTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openmrs.Cohort;
@@ -39,6 +42,7 @@ import org.openmrs.PatientProgram;
 import org.openmrs.PatientState;
 import org.openmrs.Program;
 import org.openmrs.ProgramAttributeType;
+import org.openmrs.ProgramEnrollments;
 import org.openmrs.ProgramWorkflow;
 import org.openmrs.ProgramWorkflowState;
 import org.openmrs.User;
@@ -946,6 +950,48 @@ public class ProgramWorkflowServiceTest extends BaseContextSensitiveTest {
 		patientPrograms = dao.getPatientPrograms(cohort, programs);
 		assertEquals(patientPrograms.size(), 2);
 	}
+
+	/**
+	 * @see ProgramWorkflowService#getProgramEnrollments(Cohort, Collection)
+	 */
+	@Test
+	public void getProgramEnrollments_shouldReturnTheEnrollmentsAndStatesOfThePatientsInTheCohort() {
+		ProgramEnrollments enrollments = pws.getProgramEnrollments(new Cohort("2,7"), null);
+
+		List<ProgramEnrollments.Enrollment> patient2 = enrollments.getEnrollments(2);
+		assertEquals(2, patient2.size());
+		assertEquals(1, patient2.get(0).getPatientProgramId());
+		assertEquals(1, patient2.get(0).getStates().size());
+		assertEquals(2, patient2.get(0).getStates().get(0).getStateId());
+		assertEquals(1, enrollments.getEnrollments(7).size());
+
+		Date onDate = new DateTime(2009, 1, 1, 0, 0).toDate();
+		assertTrue(enrollments.isEnrolledInProgram(2, "da4a0391-ba62-4fad-ad66-1e3722d16380", onDate));
+		assertTrue(enrollments.isInProgramState(2, "e938129e-248a-482a-acea-f85127251472", onDate));
+		assertFalse(enrollments.isEnrolledInProgram(2, "da4a0391-ba62-4fad-ad66-1e3722d16380",
+		    new DateTime(2006, 1, 1, 0, 0).toDate()));
+	}
+
+	/**
+	 * @see ProgramWorkflowService#getProgramEnrollments(Cohort, Collection)
+	 */
+	@Test
+	public void getProgramEnrollments_shouldOnlyReturnEnrollmentsInTheGivenPrograms() {
+		ProgramEnrollments enrollments = pws.getProgramEnrollments(new Cohort("2,7"),
+		    Collections.singletonList(pws.getProgram(2)));
+
+		assertEquals(1, enrollments.getEnrollments(2).size());
+		assertEquals(2, enrollments.getEnrollments(2).get(0).getProgramId());
+		assertEquals(1, enrollments.getEnrollments(7).size());
+	}
+
+	/**
+	 * @see ProgramWorkflowService#getProgramEnrollments(Cohort, Collection)
+	 */
+	@Test
+	public void getProgramEnrollments_shouldNotReturnVoidedEnrollments() {
+		assertTrue(pws.getProgramEnrollments(new Cohort("8"), null).getEnrollments(8).isEmpty());
+	}
 	
 	
 	@Test
@@ -23,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
@@ -888,6 +889,73 @@ public class VisitServiceTest extends BaseContextSensitiveTest {
 		assertTrue(activeVisitCount == 0, "Not all active unvoided vists were closed");
 	}
 	
+	/**
+	 * @see VisitService#stopVisits(Date,int)
+	 */
+	@Test
+	public void stopVisits_shouldStopAtMostBatchSizeUnvoidedActiveVisitsMatchingTheSpecifiedVisitTypes() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		String[] visitTypeNames = StringUtils.stripAll(StringUtils.split(Context.getAdministrationService()
+		        .getGlobalProperty(OpenmrsConstants.GP_VISIT_TYPES_TO_AUTO_CLOSE), ","));
+		
+		String openVisitsQuery = "SELECT visit_id FROM visit WHERE voided = false AND date_stopped IS NULL AND visit_type_id IN (SELECT visit_type_id FROM visit_type WHERE NAME IN ('"
+		        + StringUtils.join(visitTypeNames, "','") + "'))";
+		int activeVisitCount = Context.getAdministrationService().executeSQL(openVisitsQuery, true).size();
+		assertTrue(activeVisitCount > 1, "There should be several active visits for this test to be valid");
+		
+		assertEquals(1, visitService.stopVisits(null, 1));
+		assertEquals(activeVisitCount - 1, Context.getAdministrationService().executeSQL(openVisitsQuery, true).size());
+		
+		assertEquals(activeVisitCount - 1, visitService.stopVisits(null, 1000));
+		assertEquals(0, Context.getAdministrationService().executeSQL(openVisitsQuery, true).size());
+	}
+	
+	/**
+	 * @see VisitService#stopVisits(Date,int)
+	 */
+	@Test
+	public void stopVisits_shouldSetTheChangedByAndDateChangedOfTheStoppedVisits() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		
+		visitService.stopVisits(null, 1000);
+		Context.clearSession();
+		
+		Visit visit = visitService.getVisit(104);
+		assertNotNull(visit.getStopDatetime());
+		assertEquals(Context.getAuthenticatedUser(), visit.getChangedBy());
+		assertNotNull(visit.getDateChanged());
+	}
+	
+	/**
+	 * @see VisitService#stopVisits(Date,int)
+	 */
+	@Test
+	public void stopVisits_shouldReturnZeroWhenThereAreNoVisitsLeftToStop() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		
+		visitService.stopVisits(null);
+		
+		assertEquals(0, visitService.stopVisits(null, 1000));
+	}
+	
+	/**
+	 * @see VisitsStoppedEvent#forEachVisit(java.util.function.Consumer)
+	 */
+	@Test
+	public void forEachVisit_shouldPassTheStoppedVisitsOneByOne() {
+		executeDataSet("org/openmrs/api/include/VisitServiceTest-includeVisitsAndTypeToAutoClose.xml");
+		
+		visitService.stopVisits(null, 1000);
+		Context.clearSession();
+		
+		List<Visit> visits = new ArrayList<>();
+		new VisitsStoppedEvent(Arrays.asList(104, 1000000), new Date()).forEachVisit(visits::add);
+		
+		assertEquals(1, visits.size());
+		assertEquals(104, visits.get(0).getVisitId());
+		assertNotNull(visits.get(0).getStopDatetime());
+	}
+	
 	/**
 	 * @see VisitService#saveVisit(Visit)
 	 */
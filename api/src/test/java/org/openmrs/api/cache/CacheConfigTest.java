@@ -12,12 +12,18 @@ package org.openmrs.api.cache;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 import java.net.URL;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.infinispan.configuration.cache.Configuration;
 import org.junit.jupiter.api.Test;
+import org.openmrs.api.context.Context;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
@@ -40,11 +46,22 @@ public class CacheConfigTest extends BaseContextSensitiveTest {
 	@Test
 	public void shouldContainSpecificCacheConfigurations(){
 		String[] expectedCaches = {"conceptDatatype", "subscription", "userSearchLocales", "conceptIdsByMapping", 
-			"testCache", "serializerWhiteListTypes"};
+			"testCache", "serializerWhiteListTypes", "formSchemas", "unreadAlerts", "searchQueryResults"};
 		Collection<String> actualCaches = cacheManager.getCacheNames();
 		assertThat(actualCaches, containsInAnyOrder(expectedCaches));
 	}
 	
+	@Test
+	public void shouldBoundTheSearchQueryResultsCacheBySizeAndLifespan() {
+		Configuration configuration = getConfiguration("searchQueryResults");
+		assertThat(configuration.expiration().lifespan(), is(60000L));
+		assertThat(configuration.memory().maxCount(), is(5000L));
+	}
+	
+	private Configuration getConfiguration(String cacheName) {
+		return ((org.infinispan.Cache<?, ?>) cacheManager.getCache(cacheName).getNativeCache()).getCacheConfiguration();
+	}
+	
     @Test
     public void shouldReturnCacheConfigurations(){
         List<URL> cacheConfigurations = cacheConfig.getCacheConfigurations();
@@ -62,4 +79,52 @@ public class CacheConfigTest extends BaseContextSensitiveTest {
 		String cachedValue = serviceTestBean.getCachedUUID();
 		assertThat(serviceTestBean.getCachedUUID(), is(cachedValue));
 	}
+
+	@Test
+	public void applyOverrides_shouldSetTheSizeAndExpiryOfACacheFromRuntimeProperties() {
+		Map<String, String> properties = new HashMap<>();
+		properties.put("cache.formSchemas.max_count", "200");
+		properties.put("cache.formSchemas.when_full", "REMOVE");
+		properties.put("cache.formSchemas.lifespan", " 30000 ");
+		properties.put("cache.unreadAlerts.max_count", "10");
+		Map<String, Object> cache = new LinkedHashMap<>();
+		cache.put("configuration", "entity");
+		
+		CacheConfig.applyOverrides("formSchemas", cache, properties::get);
+		
+		assertThat(((Map<?, ?>) cache.get("memory")).get("maxCount"), is(200L));
+		assertThat(((Map<?, ?>) cache.get("memory")).get("whenFull"), is("REMOVE"));
+		assertThat(((Map<?, ?>) cache.get("expiration")).get("lifespan"), is(30000L));
+		assertThat(cache.get("statistics"), nullValue());
+	}
+	
+	@Test
+	public void applyOverrides_shouldEnableStatisticsForAllCachesUnlessOverriddenPerCache() {
+		Map<String, String> properties = new HashMap<>();
+		properties.put("cache.statistics", "true");
+		properties.put("cache.unreadAlerts.statistics", "false");
+		Map<String, Object> formSchemas = new LinkedHashMap<>();
+		Map<String, Object> unreadAlerts = new LinkedHashMap<>();
+		
+		CacheConfig.applyOverrides("formSchemas", formSchemas, properties::get);
+		CacheConfig.applyOverrides("unreadAlerts", unreadAlerts, properties::get);
+		
+		assertThat(formSchemas.get("statistics"), is(true));
+		assertThat(unreadAlerts.get("statistics"), is(false));
+	}
+	
+	@Test
+	public void getCacheStatistics_shouldReturnTheStatisticsOfAllApiCaches() {
+		cacheManager.getCache("conceptIdsByMapping").put("key", "value");
+		cacheManager.getCache("conceptIdsByMapping").get("key");
+		
+		List<CacheStatistics> statistics = Context.getAdministrationService().getCacheStatistics();
+		
+		assertThat(statistics.size(), is(cacheManager.getCacheNames().size()));
+		CacheStatistics conceptIdsByMapping = statistics.stream().filter(s -> s.getName().equals("conceptIdsByMapping"))
+		        .findFirst().get();
+		assertThat(conceptIdsByMapping.isStatisticsEnabled(), is(true));
+		assertThat(conceptIdsByMapping.getHits() > 0, is(true));
+		assertThat(conceptIdsByMapping.getSize() > 0, is(true));
+	}
 }
@@ -0,0 +1,74 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.context.Context;
+import org.openmrs.api.db.hibernate.ConceptCacheWarmUpProvider;
+import org.openmrs.api.db.hibernate.HibernateCacheWarmUpProvider;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests the {@link CacheWarmUp} class
+ */
+public class CacheWarmUpTest extends BaseContextSensitiveTest {
+
+	@Autowired
+	private HibernateCacheWarmUpProvider hibernateCacheWarmUpProvider;
+
+	@Autowired
+	private ConceptCacheWarmUpProvider conceptCacheWarmUpProvider;
+
+	@Test
+	public void start_shouldRunAllProvidersAndRecordTheirDurations() throws Exception {
+		CacheWarmUp cacheWarmUp = new CacheWarmUp();
+		assertEquals(-1, cacheWarmUp.getDuration());
+
+		cacheWarmUp.start().get(1, TimeUnit.MINUTES);
+
+		assertTrue(cacheWarmUp.isDone());
+		assertTrue(cacheWarmUp.getDuration() >= 0);
+		Map<String, Long> durations = cacheWarmUp.getDurations();
+		assertTrue(durations.containsKey(hibernateCacheWarmUpProvider.getName()), durations.toString());
+		assertTrue(durations.containsKey(conceptCacheWarmUpProvider.getName()), durations.toString());
+		for (Long duration : durations.values()) {
+			assertTrue(duration >= 0);
+		}
+	}
+
+	@Test
+	public void start_shouldNotRunTheProvidersIfSwitchedOff() throws Exception {
+		Properties runtimeProperties = Context.getRuntimeProperties();
+		Properties switchedOff = Context.getRuntimeProperties();
+		switchedOff.setProperty(CacheWarmUp.ENABLED_PROPERTY, "false");
+		Context.setRuntimeProperties(switchedOff);
+		try {
+			CacheWarmUp cacheWarmUp = new CacheWarmUp();
+
+			CompletableFuture<Void> warmUp = cacheWarmUp.start();
+
+			assertTrue(warmUp.isDone());
+			assertEquals(-1, cacheWarmUp.getDuration());
+			assertTrue(cacheWarmUp.getDurations().isEmpty());
+		}
+		finally {
+			Context.setRuntimeProperties(runtimeProperties);
+		}
+	}
+}
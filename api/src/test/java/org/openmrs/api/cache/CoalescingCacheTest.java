@@ -0,0 +1,142 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.spring.embedded.provider.SpringEmbeddedCacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests the {@link CoalescingCache} class
+ */
+public class CoalescingCacheTest {
+
+	private Cache delegate;
+
+	private CoalescingCache cache;
+
+	@BeforeEach
+	public void setUp() {
+		delegate = mock(Cache.class);
+		when(delegate.getName()).thenReturn("userSearchLocales");
+		cache = new CoalescingCache(delegate);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void clear_shouldClearRightAwayOutsideOfATransaction() {
+		cache.clear();
+		cache.evict("key");
+
+		verify(delegate).clear();
+		verify(delegate).evict("key");
+	}
+
+	@Test
+	public void clear_shouldClearRightAwayAndOnceMoreWhenTheTransactionCompletedIfRepeated() {
+		TransactionSynchronizationManager.initSynchronization();
+		infinispanDelegate();
+
+		cache.clear();
+		verify(delegate, times(1)).clear();
+		cache.evict("key");
+		cache.clear();
+		verify(delegate, times(1)).clear();
+		verify(delegate, never()).evict(any());
+
+		completeTransaction();
+		verify(delegate, times(2)).clear();
+		verify(delegate, never()).evict(any());
+	}
+
+	@Test
+	public void evict_shouldEvictRightAwayAndRepeatedKeysOnceWhenTheTransactionCompleted() {
+		TransactionSynchronizationManager.initSynchronization();
+		infinispanDelegate();
+
+		cache.evict("a");
+		cache.evict("b");
+		cache.evict("a");
+		cache.evict("a");
+		verify(delegate, times(1)).evict("a");
+		verify(delegate, times(1)).evict("b");
+
+		completeTransaction();
+		verify(delegate, times(2)).evict("a");
+		verify(delegate, times(1)).evict("b");
+		verify(delegate, never()).clear();
+	}
+
+	@Test
+	public void evict_shouldNotReadAValueCachedAgainWithinTheTransaction() {
+		DefaultCacheManager cacheManager = new DefaultCacheManager();
+		try {
+			cacheManager.defineConfiguration("userSearchLocales", new ConfigurationBuilder().build());
+			Cache infinispanCache = new SpringEmbeddedCacheManager(cacheManager).getCache("userSearchLocales");
+			cache = new CoalescingCache(infinispanCache);
+			TransactionSynchronizationManager.initSynchronization();
+
+			infinispanCache.put("key", "value");
+			cache.evict("key");
+			assertNull(cache.get("key"));
+
+			infinispanCache.put("key", "stale");
+			cache.evict("key");
+			assertNull(cache.get("key"));
+
+			infinispanCache.put("key", "stale");
+			completeTransaction();
+			assertNull(cache.get("key"));
+		}
+		finally {
+			cacheManager.stop();
+		}
+	}
+
+	/**
+	 * Makes the delegate an Infinispan cache, so that repeated evictions are coalesced
+	 */
+	@SuppressWarnings("unchecked")
+	private void infinispanDelegate() {
+		org.infinispan.Cache<Object, Object> nativeCache = mock(org.infinispan.Cache.class);
+		AdvancedCache<Object, Object> advancedCache = mock(AdvancedCache.class);
+		when(nativeCache.getAdvancedCache()).thenReturn(advancedCache);
+		when(advancedCache.withFlags(Flag.CACHE_MODE_LOCAL)).thenReturn(advancedCache);
+		when(delegate.getNativeCache()).thenReturn(nativeCache);
+	}
+
+	private void completeTransaction() {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+		}
+	}
+}
@@ -320,6 +320,22 @@ public class ContextDAOTest extends BaseContextSensitiveTest {
 		Context.removeProxyPrivilege(PrivilegeConstants.GET_GLOBAL_PROPERTIES);
 	}
 	
+	/**
+	 * @see ContextDAO#authenticate(String,String)
+	 */
+	@Test
+	public void authenticate_shouldNotLockoutUserAfterThePasswordWasChanged() {
+		for (int x = 1; x <= 8; x++) {
+			assertThrows(ContextAuthenticationException.class, () -> dao.authenticate("correct", "not the right password"));
+		}
+		assertThrows(ContextAuthenticationException.class, () -> dao.authenticate("correct", "test"));
+		
+		UserService us = Context.getUserService();
+		us.changePassword(us.getUserByUsername("correct"), "Newpassword1");
+		
+		assertEquals("correct", dao.authenticate("correct", "Newpassword1").getUsername());
+	}
+	
 	@Test
 	public void authenticate_shouldThrowAContextAuthenticationExceptionIfUsernameIsAnEmptyString() {
 		//update a user with a username that is an empty string for this test
@@ -48,6 +48,7 @@ import org.openmrs.Person;
 import org.openmrs.PersonAttribute;
 import org.openmrs.PersonAttributeType;
 import org.openmrs.PersonName;
+import org.openmrs.Visit;
 import org.openmrs.api.AdministrationService;
 import org.openmrs.api.LocationService;
 import org.openmrs.api.PatientService;
@@ -2510,4 +2511,12 @@ public class PatientDAOTest extends BaseContextSensitiveTest {
 		System.out.println("Anywhere search for 'uric' attribute limited to 15 results returned in " + time + " ms");
 	}
 	
+	/**
+	 * @see PatientDAO#getPatientDataIds(Class, Patient)
+	 */
+	@Test
+	public void getPatientDataIds_shouldGetTheIdsOfTheVisitsOfThePatientIncludingVoidedOnesInAscendingOrder() {
+		assertThat(dao.getPatientDataIds(Visit.class, patientService.getPatient(2)), contains(1, 2, 3, 6));
+	}
+	
 }
@@ -12,10 +12,15 @@ package org.openmrs.api.db;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+import org.openmrs.Visit;
 import org.openmrs.VisitType;
 import org.openmrs.api.VisitService;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
@@ -76,4 +81,33 @@ public class VisitDAOTest extends BaseContextSensitiveTest {
 		cal.set(Calendar.MILLISECOND, 999);
 		assertEquals(105, dao.getNextVisit(dao.getVisit(1), visitTypes, cal.getTime()).getVisitId().intValue());
 	}
+	
+	/**
+	 * @see VisitDAO#getActiveVisitIds(java.util.Collection, java.util.Date, int)
+	 */
+	@Test
+	public void getActiveVisitIds_shouldReturnTheIdsOfUnvoidedActiveVisitsMatchingTheSpecifiedTypesAndStartDate() {
+		executeDataSet(VISITS_INCLUDE_VISITS_TO_AUTO_CLOSE_XML);
+		ArrayList<VisitType> visitTypes = new ArrayList<>();
+		visitTypes.add(dao.getVisitType(4));
+		Calendar cal = Calendar.getInstance();
+		cal.set(2005, 0, 4, 23, 59, 59);
+		cal.set(Calendar.MILLISECOND, 999);
+		assertEquals(Arrays.asList(105, 106), dao.getActiveVisitIds(visitTypes, cal.getTime(), 10));
+		assertEquals(Collections.singletonList(105), dao.getActiveVisitIds(visitTypes, cal.getTime(), 1));
+	}
+	
+	/**
+	 * @see VisitDAO#getVisits(java.util.List)
+	 */
+	@Test
+	public void getVisits_shouldReturnTheVisitsWithTheGivenIdsInTheOrderOfTheIds() {
+		executeDataSet(VISITS_INCLUDE_VISITS_TO_AUTO_CLOSE_XML);
+		
+		List<Visit> visits = dao.getVisits(Arrays.asList(105, 1000000, 104));
+		
+		assertEquals(2, visits.size());
+		assertEquals(105, visits.get(0).getVisitId());
+		assertEquals(104, visits.get(1).getVisitId());
+	}
 }
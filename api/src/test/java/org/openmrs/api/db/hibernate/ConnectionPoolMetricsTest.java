@@ -0,0 +1,59 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ConnectionPoolMetrics} class
+ */
+public class ConnectionPoolMetricsTest {
+
+	@Test
+	public void create_shouldRegisterThePoolUntilItIsClosed() {
+		PoolStats poolStats = mock(PoolStats.class);
+		when(poolStats.getActiveConnections()).thenReturn(3);
+		when(poolStats.getPendingThreads()).thenReturn(2);
+
+		ConnectionPoolMetrics.PoolMetrics pool = (ConnectionPoolMetrics.PoolMetrics) new ConnectionPoolMetrics()
+		        .create("test", poolStats);
+
+		assertSame(pool, ConnectionPoolMetrics.getPools().get("test"));
+		assertEquals(3, pool.getActiveConnections());
+		assertEquals(2, pool.getPendingThreads());
+
+		pool.close();
+		assertFalse(ConnectionPoolMetrics.getPools().containsKey("test"));
+	}
+
+	@Test
+	public void getAcquireLatencyMicros_shouldReturnTheUpperBoundOfThePercentile() {
+		ConnectionPoolMetrics.PoolMetrics pool = new ConnectionPoolMetrics.PoolMetrics("test", mock(PoolStats.class));
+		assertEquals(0, pool.getAcquireLatencyMicros(0.99));
+
+		for (int i = 0; i < 98; i++) {
+			pool.recordConnectionAcquiredNanos(3000);
+		}
+		pool.recordConnectionAcquiredNanos(1000000);
+		pool.recordConnectionAcquiredNanos(30000000);
+
+		assertEquals(100, pool.getAcquireCount());
+		assertEquals(4, pool.getAcquireLatencyMicros(0.5));
+		assertEquals(1024, pool.getAcquireLatencyMicros(0.99));
+		assertEquals(32768, pool.getAcquireLatencyMicros(1));
+	}
+}
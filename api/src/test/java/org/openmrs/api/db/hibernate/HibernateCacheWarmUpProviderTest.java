@@ -0,0 +1,72 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.openmrs.Concept;
+import org.openmrs.Location;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests the {@link HibernateCacheWarmUpProvider} and {@link ConceptCacheWarmUpProvider} classes
+ */
+public class HibernateCacheWarmUpProviderTest extends BaseContextSensitiveTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Autowired
+	private HibernateCacheWarmUpProvider hibernateCacheWarmUpProvider;
+
+	@Autowired
+	private ConceptCacheWarmUpProvider conceptCacheWarmUpProvider;
+
+	@Test
+	public void warmUp_shouldLoadAllRowsOfTheEntityTypeIntoTheSecondLevelCache() throws InterruptedException {
+		evictEntityData(Location.class);
+		assertFalse(sessionFactory.getCache().containsEntity(Location.class, 1));
+
+		int count = hibernateCacheWarmUpProvider.warmUp(Location.class);
+
+		assertEquals(Context.getLocationService().getAllLocations().size(), count);
+		assertTrue(sessionFactory.getCache().containsEntity(Location.class, 1));
+	}
+
+	@Test
+	public void warmUp_shouldLoadTheConceptsUsedByFormsIntoTheSecondLevelCache() throws InterruptedException {
+		evictEntityData(Concept.class);
+		List<Integer> conceptIds = conceptCacheWarmUpProvider.getConceptIds();
+		assertFalse(conceptIds.isEmpty());
+
+		conceptCacheWarmUpProvider.warmUp();
+
+		for (Integer conceptId : conceptIds) {
+			assertTrue(sessionFactory.getCache().containsEntity(Concept.class, conceptId));
+		}
+	}
+
+	/**
+	 * Infinispan does not cache what sessions opened in the same millisecond as an eviction of the
+	 * region load, so this waits for the next millisecond
+	 */
+	private void evictEntityData(Class<?> type) throws InterruptedException {
+		sessionFactory.getCache().evictEntityData(type);
+		Thread.sleep(2);
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.Test;
+import org.openmrs.User;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.openmrs.util.OpenmrsConstants;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Tests {@link LoginActivityWriter} with a background flush, which commits outside of the test
+ * transaction and is therefore undone by hand
+ */
+public class LoginActivityWriterTest extends BaseContextSensitiveTest {
+
+	private static final int USER_ID = 502;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Test
+	public void flush_shouldWriteTheLoginActivityInTheBackgroundAndPickUpChangesMadeSince() throws Exception {
+		User user = Context.getUserService().getUser(USER_ID);
+		// a user logging in has its properties loaded, which are read when its login state is seeded
+		Hibernate.initialize(user.getUserProperties());
+		Context.evictFromSession(user);
+
+		LoginActivityWriter writer = new LoginActivityWriter(sessionFactory, 1);
+		try {
+			writer.recordFailedLogin(user, 0);
+			long lockoutTime = writer.getLockoutTime(user);
+			assertTrue(lockoutTime > 0);
+
+			String persisted = null;
+			long deadline = System.currentTimeMillis() + 10000;
+			while (persisted == null && System.currentTimeMillis() < deadline) {
+				Thread.sleep(100);
+				persisted = getPersistedProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP);
+			}
+			assertEquals(String.valueOf(lockoutTime), persisted);
+			// waits for the background flush to complete
+			writer.flush();
+
+			User saved = new User(USER_ID);
+			saved.setUserProperty(OpenmrsConstants.USER_PROPERTY_LOCKOUT_TIMESTAMP, persisted);
+			assertEquals(lockoutTime, writer.getLockoutTime(saved));
+
+			// an administrator unlocked the user
+			assertEquals(-1, writer.getLockoutTime(new User(USER_ID)));
+		}
+		finally {
+			writer.destroy();
+			deletePersistedProperties();
+		}
+	}
+
+	private String getPersistedProperty(String property) {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createNativeQuery(
+			    "select property_value from user_property where user_id = :userId and property = :property", String.class)
+			        .setParameter("userId", USER_ID).setParameter("property", property).uniqueResult();
+		}
+	}
+
+	private void deletePersistedProperties() {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction tx = session.beginTransaction();
+			session.createNativeMutationQuery("delete from user_property where user_id = :userId")
+			        .setParameter("userId", USER_ID).executeUpdate();
+			tx.commit();
+		}
+		sessionFactory.getCache().evictEntityData(User.class, USER_ID);
+		sessionFactory.getCache().evictCollectionData(User.class.getName() + ".userProperties", USER_ID);
+		assertNotNull(Context.getUserService().getUser(USER_ID));
+	}
+}
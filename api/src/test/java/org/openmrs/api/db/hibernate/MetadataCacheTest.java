@@ -0,0 +1,144 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.openmrs.Encounter;
+import org.openmrs.EncounterProvider;
+import org.openmrs.EncounterType;
+import org.openmrs.Location;
+import org.openmrs.PatientIdentifierType;
+import org.openmrs.VisitType;
+import org.openmrs.api.EncounterService;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.TestTransaction;
+
+/**
+ * Tests the second level cache tier for read-mostly metadata, see
+ * {@link HibernateUtil#METADATA_CACHE_REGION}
+ */
+public class MetadataCacheTest extends BaseContextSensitiveTest {
+
+	private static final Logger log = LoggerFactory.getLogger(MetadataCacheTest.class);
+
+	private static final String ENCOUNTER_TYPE_UUID = "61ae96f4-6afe-4351-b6f8-cd4fc383cce1";
+
+	private static final int ITERATIONS = 20;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	@Test
+	public void isCachedMetadata_shouldOnlyMatchEntitiesInTheMetadataRegion() {
+		assertTrue(HibernateUtil.isCachedMetadata(sessionFactory, EncounterType.class));
+		assertTrue(HibernateUtil.isCachedMetadata(sessionFactory, VisitType.class));
+		assertTrue(HibernateUtil.isCachedMetadata(sessionFactory, PatientIdentifierType.class));
+		assertFalse(HibernateUtil.isCachedMetadata(sessionFactory, Location.class));
+		assertFalse(HibernateUtil.isCachedMetadata(sessionFactory, Encounter.class));
+	}
+
+	@Test
+	public void getEncounterTypeByUuid_shouldBeAnsweredFromTheCacheOnceLookedUp() {
+		TestTransaction.end();
+		Statistics statistics = sessionFactory.getStatistics();
+
+		EncounterType encounterType = Context.getEncounterService().getEncounterTypeByUuid(ENCOUNTER_TYPE_UUID);
+
+		long queryCacheHits = statistics.getQueryCacheHitCount();
+		long secondLevelCacheHits = statistics.getSecondLevelCacheHitCount();
+		assertEquals(encounterType, Context.getEncounterService().getEncounterTypeByUuid(ENCOUNTER_TYPE_UUID));
+		assertTrue(statistics.getQueryCacheHitCount() > queryCacheHits);
+		assertTrue(statistics.getSecondLevelCacheHitCount() > secondLevelCacheHits);
+	}
+
+	@Test
+	public void getEncounterType_shouldNotReturnCachedLookupsOfAChangedName() {
+		EncounterService es = Context.getEncounterService();
+		EncounterType encounterType = es.getEncounterType("Scheduled");
+
+		encounterType.setName("Renamed");
+		es.saveEncounterType(encounterType);
+		Context.flushSession();
+
+		assertNull(es.getEncounterType("Scheduled"));
+		assertEquals(encounterType, es.getEncounterType("Renamed"));
+	}
+
+	/**
+	 * Saves and retrieves encounters with the metadata cache warm and with the metadata regions
+	 * evicted before every iteration, to compare the database round trips and the time taken.
+	 */
+	@Test
+	public void saveEncounter_shouldNeedFewerStatementsWithTheMetadataCacheTurnedOn() {
+		// warm up the caches and the code paths
+		saveAndRetrieveEncounters(true);
+
+		long[] on = saveAndRetrieveEncounters(true);
+		long[] off = saveAndRetrieveEncounters(false);
+
+		log.info("Saved and retrieved {} encounters with the metadata cache on in {} ms using {} statements", ITERATIONS,
+		    on[0] / 1000000, on[1]);
+		log.info("Saved and retrieved {} encounters with the metadata cache off in {} ms using {} statements", ITERATIONS,
+		    off[0] / 1000000, off[1]);
+		assertTrue(on[1] < off[1], "expected fewer statements with the cache on, got " + on[1] + " vs " + off[1]);
+	}
+
+	/**
+	 * @return the elapsed time in nanoseconds and the number of statements prepared
+	 */
+	private long[] saveAndRetrieveEncounters(boolean metadataCacheOn) {
+		EncounterService es = Context.getEncounterService();
+		Statistics statistics = sessionFactory.getStatistics();
+		long statements = statistics.getPrepareStatementCount();
+		long elapsed = 0;
+
+		for (int i = 0; i < ITERATIONS; i++) {
+			Context.flushSession();
+			Context.clearSession();
+			if (!metadataCacheOn) {
+				sessionFactory.getCache().evictRegion(HibernateUtil.METADATA_CACHE_REGION);
+				sessionFactory.getCache().evictQueryRegion(HibernateUtil.METADATA_LOOKUP_CACHE_REGION);
+			}
+
+			long start = System.nanoTime();
+			Encounter encounter = new Encounter();
+			encounter.setLocation(Context.getLocationService().getLocation(1));
+			encounter.setEncounterType(es.getEncounterType(1));
+			encounter.setEncounterDatetime(new Date());
+			encounter.setPatient(Context.getPatientService().getPatient(3));
+			encounter.addProvider(es.getEncounterRole(1), Context.getProviderService().getProvider(1));
+			es.saveEncounter(encounter);
+			Context.flushSession();
+			Context.clearSession();
+
+			Encounter retrieved = es.getEncounter(encounter.getEncounterId());
+			assertEquals("Scheduled", retrieved.getEncounterType().getName());
+			for (EncounterProvider provider : retrieved.getEncounterProviders()) {
+				assertEquals("Unknown", provider.getEncounterRole().getName());
+			}
+			elapsed += System.nanoTime() - start;
+		}
+
+		return new long[] { elapsed, statistics.getPrepareStatementCount() - statements };
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.classic.ClassicFilterFactory;
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.core.WhitespaceTokenizerFactory;
+import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilterFactory;
+import org.apache.lucene.analysis.ngram.NGramFilterFactory;
+import org.apache.lucene.analysis.ngram.NGramTokenizerFactory;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.QueryBuilder;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the index size and query time of the {@link InfixMatching} n-gram and trigram strategies
+ * on generated identifiers, run with the performance-test profile
+ */
+public class InfixMatchingPerformanceIT {
+
+	private static final Logger log = LoggerFactory.getLogger(InfixMatchingPerformanceIT.class);
+
+	private static final String FIELD = "value";
+
+	/**
+	 * Indexes generated identifiers with both strategies and checks that every substring of 3 or more
+	 * characters finds the same identifiers while the trigram index is a fraction of the size
+	 */
+	@Test
+	public void trigramStrategy_shouldMatchLikeTheNGramStrategyWithASmallerIndex() throws IOException {
+		Random random = new Random(42);
+		String[] values = new String[20000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = String.format("%c%c%08d", 'A' + random.nextInt(26), 'A' + random.nextInt(26),
+			    random.nextInt(100000000));
+		}
+
+		Analyzer ngram = CustomAnalyzer.builder().withTokenizer(WhitespaceTokenizerFactory.class)
+		        .addTokenFilter(ClassicFilterFactory.class).addTokenFilter(LowerCaseFilterFactory.class)
+		        .addTokenFilter(ASCIIFoldingFilterFactory.class)
+		        .addTokenFilter(NGramFilterFactory.class, "minGramSize", "2", "maxGramSize", "20").build();
+		Analyzer trigram = CustomAnalyzer.builder()
+		        .withTokenizer(NGramTokenizerFactory.class, "minGramSize", "3", "maxGramSize", "3")
+		        .addTokenFilter(LowerCaseFilterFactory.class).addTokenFilter(ASCIIFoldingFilterFactory.class).build();
+
+		try (Directory ngramIndex = index(ngram, values); Directory trigramIndex = index(trigram, values);
+		        DirectoryReader ngramReader = DirectoryReader.open(ngramIndex);
+		        DirectoryReader trigramReader = DirectoryReader.open(trigramIndex)) {
+			IndexSearcher ngramSearcher = new IndexSearcher(ngramReader);
+			IndexSearcher trigramSearcher = new IndexSearcher(trigramReader);
+			QueryBuilder trigramQueries = new QueryBuilder(trigram);
+
+			long ngramNanos = 0;
+			long trigramNanos = 0;
+			for (int i = 0; i < 500; i++) {
+				String value = values[random.nextInt(values.length)];
+				int start = random.nextInt(value.length() - 3);
+				String search = value.substring(start, start + 3 + random.nextInt(value.length() - start - 2));
+
+				long time = System.nanoTime();
+				Set<Integer> ngramHits = search(ngramSearcher, new TermQuery(new Term(FIELD, search.toLowerCase())));
+				ngramNanos += System.nanoTime() - time;
+
+				time = System.nanoTime();
+				Set<Integer> trigramHits = search(trigramSearcher, trigramQueries.createPhraseQuery(FIELD, search));
+				trigramNanos += System.nanoTime() - time;
+
+				Set<Integer> expected = new HashSet<>();
+				for (int doc = 0; doc < values.length; doc++) {
+					if (values[doc].contains(search)) {
+						expected.add(doc);
+					}
+				}
+				assertEquals(expected, ngramHits, search);
+				assertEquals(expected, trigramHits, search);
+			}
+
+			long ngramSize = size(ngramIndex);
+			long trigramSize = size(trigramIndex);
+			log.info("Index size in bytes: ngram {}, trigram {}; time for 500 queries in ms: ngram {}, trigram {}",
+			    ngramSize, trigramSize, ngramNanos / 1000000, trigramNanos / 1000000);
+			assertTrue(trigramSize * 2 < ngramSize, "ngram " + ngramSize + " trigram " + trigramSize);
+		}
+	}
+
+	private Directory index(Analyzer analyzer, String[] values) throws IOException {
+		Directory directory = new ByteBuffersDirectory();
+		// a single segment keeps the document ids in the order of the values
+		IndexWriterConfig config = new IndexWriterConfig(analyzer).setRAMBufferSizeMB(256)
+		        .setMaxBufferedDocs(values.length + 1);
+		try (IndexWriter writer = new IndexWriter(directory, config)) {
+			for (String value : values) {
+				Document document = new Document();
+				document.add(new TextField(FIELD, value, Field.Store.NO));
+				writer.addDocument(document);
+			}
+			writer.forceMerge(1);
+		}
+		return directory;
+	}
+
+	private Set<Integer> search(IndexSearcher searcher, Query query) throws IOException {
+		Set<Integer> hits = new HashSet<>();
+		for (ScoreDoc scoreDoc : searcher.search(query, searcher.getIndexReader().maxDoc()).scoreDocs) {
+			hits.add(scoreDoc.doc);
+		}
+		return hits;
+	}
+
+	private long size(Directory directory) throws IOException {
+		long size = 0;
+		for (String file : directory.listAll()) {
+			size += directory.fileLength(file);
+		}
+		return size;
+	}
+}
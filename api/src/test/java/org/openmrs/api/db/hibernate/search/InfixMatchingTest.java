@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.db.hibernate.search.InfixMatching.FieldGroup;
+import org.openmrs.api.db.hibernate.search.InfixMatching.Strategy;
+import org.openmrs.util.OpenmrsConstants;
+
+/**
+ * Tests the {@link InfixMatching} class
+ */
+public class InfixMatchingTest {
+
+	@AfterEach
+	public void resetStrategies() {
+		InfixMatching.setStrategies(null);
+	}
+
+	@Test
+	public void getStrategy_shouldUseTheDefaultStrategyUnlessSetForTheGroup() {
+		Properties properties = new Properties();
+		properties.setProperty(InfixMatching.STRATEGY_PROPERTY, "trigram");
+		properties.setProperty(FieldGroup.PERSON_NAME.getPropertyName(), "ngram");
+		properties.setProperty(FieldGroup.PERSON_ATTRIBUTE.getPropertyName(), "unknown");
+		InfixMatching.setStrategies(properties);
+
+		assertSame(Strategy.TRIGRAM, InfixMatching.getStrategy(FieldGroup.IDENTIFIER));
+		assertSame(Strategy.NGRAM, InfixMatching.getStrategy(FieldGroup.PERSON_NAME));
+		assertSame(Strategy.TRIGRAM, InfixMatching.getStrategy(FieldGroup.PERSON_ATTRIBUTE));
+
+		InfixMatching.setStrategies(new Properties());
+		assertSame(Strategy.NGRAM, InfixMatching.getStrategy(FieldGroup.IDENTIFIER));
+	}
+
+	@Test
+	public void toQuery_shouldQuotePlainWordsForTheTrigramStrategy() {
+		Properties properties = new Properties();
+		properties.setProperty(FieldGroup.IDENTIFIER.getPropertyName(), "trigram");
+		InfixMatching.setStrategies(properties);
+
+		assertEquals("\"101\" | \"6tr\"", InfixMatching.toQuery(FieldGroup.IDENTIFIER, "101 | 6tr"));
+		assertEquals("\"jo\" smi* -doe \"van", InfixMatching.toQuery(FieldGroup.IDENTIFIER, "jo  smi* -doe \"van"));
+		assertEquals("john smith", InfixMatching.toQuery(FieldGroup.PERSON_NAME, "john smith"));
+	}
+
+	@Test
+	public void getIndexVersion_shouldBeTheSearchIndexVersionWithTheDefaultStrategies() {
+		InfixMatching.setStrategies(new Properties());
+
+		assertEquals(OpenmrsConstants.SEARCH_INDEX_VERSION.toString(), InfixMatching.getIndexVersion());
+	}
+
+	@Test
+	public void getIndexVersion_shouldAppendTheGroupsUsingTheTrigramStrategy() {
+		Properties properties = new Properties();
+		properties.setProperty(InfixMatching.STRATEGY_PROPERTY, "trigram");
+		properties.setProperty(FieldGroup.PERSON_NAME.getPropertyName(), "ngram");
+		InfixMatching.setStrategies(properties);
+
+		assertEquals(OpenmrsConstants.SEARCH_INDEX_VERSION + ";identifier=trigram;person_attribute=trigram",
+		    InfixMatching.getIndexVersion());
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.Patient;
+import org.openmrs.PersonName;
+import org.openmrs.api.PatientService;
+import org.openmrs.api.context.Context;
+import org.openmrs.test.jupiter.BaseContextSensitiveTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.TestTransaction;
+
+/**
+ * Tests the {@link SearchQueryCache} class
+ */
+public class SearchQueryCacheTest extends BaseContextSensitiveTest {
+
+	@Autowired
+	private SearchQueryCache searchQueryCache;
+
+	@Autowired
+	private SearchQueryContributorRegistry contributorRegistry;
+
+	@Autowired
+	private PatientService patientService;
+
+	@BeforeEach
+	public void setUp() {
+		contributorRegistry.refresh();
+		updateSearchIndex();
+	}
+
+	@Test
+	public void search_shouldAnswerARepeatedSearchFromTheCache() {
+		long hits = searchQueryCache.getHits();
+		long misses = searchQueryCache.getMisses();
+
+		List<Patient> patients = patientService.getPatients("Hor", false, 0, 10);
+		assertFalse(patients.isEmpty());
+		assertEquals(misses + 1, searchQueryCache.getMisses());
+
+		assertEquals(patients, patientService.getPatients("Hor", false, 0, 10));
+		assertEquals(hits + 1, searchQueryCache.getHits());
+		assertEquals(misses + 1, searchQueryCache.getMisses());
+	}
+
+	@Test
+	public void search_shouldCacheSearchesWithOtherPagingSeparately() {
+		long misses = searchQueryCache.getMisses();
+
+		patientService.getPatients("Hor", false, 0, 10);
+		patientService.getPatients("Hor", false, 0, 5);
+
+		assertEquals(misses + 2, searchQueryCache.getMisses());
+	}
+
+	@Test
+	public void invalidate_shouldMakeTheSearchesOfTheTypeAndTheTypesReferringToItMiss() {
+		patientService.getPatients("Hor", false, 0, 10);
+		long misses = searchQueryCache.getMisses();
+
+		searchQueryCache.invalidate(Patient.class);
+		patientService.getPatients("Hor", false, 0, 10);
+		assertEquals(misses + 1, searchQueryCache.getMisses());
+
+		searchQueryCache.invalidate(PersonName.class);
+		patientService.getPatients("Hor", false, 0, 10);
+		assertEquals(misses + 2, searchQueryCache.getMisses());
+	}
+
+	@Test
+	public void search_shouldMissOnceAChangedNameIsCommitted() {
+		Patient patient = patientService.getPatients("Hor", false, 0, 10).get(0);
+		PersonName name = patient.getPersonName();
+		String middleName = name.getMiddleName();
+		patientService.getPatients("Hor", false, 0, 10);
+		long misses = searchQueryCache.getMisses();
+
+		name.setMiddleName("Cached");
+		patientService.savePatient(patient);
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		try {
+			patientService.getPatients("Hor", false, 0, 10);
+			assertEquals(misses + 1, searchQueryCache.getMisses());
+		}
+		finally {
+			// undoes the committed change
+			TestTransaction.start();
+			Patient saved = patientService.getPatient(patient.getPatientId());
+			Context.getPersonService().getPersonNameByUuid(name.getUuid()).setMiddleName(middleName);
+			patientService.savePatient(saved);
+			TestTransaction.flagForCommit();
+			TestTransaction.end();
+		}
+	}
+
+	@Test
+	public void isIndexSearchableOnCommit_shouldCacheWithTheLuceneBackendAndTheDefaultStrategy() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("hibernate.search.backend.type", "lucene");
+		assertTrue(SearchQueryCache.isIndexSearchableOnCommit(properties));
+		
+		properties.put("hibernate.search.backend.io.refresh_interval", "1000");
+		assertFalse(SearchQueryCache.isIndexSearchableOnCommit(properties));
+	}
+
+	@Test
+	public void isIndexSearchableOnCommit_shouldOnlyCacheWithTheElasticsearchBackendIfTheIndexIsRefreshedOnCommit() {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("hibernate.search.backend.type", "elasticsearch");
+		assertFalse(SearchQueryCache.isIndexSearchableOnCommit(properties));
+		
+		properties.put("hibernate.search.indexing.plan.synchronization.strategy", "async");
+		assertFalse(SearchQueryCache.isIndexSearchableOnCommit(properties));
+		
+		properties.put("hibernate.search.indexing.plan.synchronization.strategy", "read-sync");
+		assertTrue(SearchQueryCache.isIndexSearchableOnCommit(properties));
+		
+		properties.put("hibernate.search.indexing.plan.synchronization.strategy", "sync");
+		assertTrue(SearchQueryCache.isIndexSearchableOnCommit(properties));
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.db.hibernate.search;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hibernate.search.engine.search.predicate.SearchPredicate;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openmrs.Concept;
+import org.openmrs.Drug;
+import org.openmrs.PersonName;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationListenerMethodAdapter;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.support.AbstractApplicationContext;
+
+/**
+ * Tests the {@link SearchQueryContributorRegistry} class
+ */
+public class SearchQueryContributorRegistryTest {
+
+	private ApplicationContext applicationContext;
+
+	private SearchQueryContributorRegistry registry;
+
+	private final Function<SearchPredicateFactory, SearchPredicate> conceptPredicate = f -> null;
+
+	private SearchPredicateContributor conceptContributor;
+
+	@BeforeEach
+	public void setUp() {
+		conceptContributor = mock(SearchPredicateContributor.class);
+		when(conceptContributor.supports(Concept.class)).thenReturn(true);
+		when(conceptContributor.getPredicate()).thenReturn(conceptPredicate);
+
+		Map<String, SearchPredicateContributor> contributors = new HashMap<>();
+		contributors.put("conceptContributor", conceptContributor);
+		applicationContext = mock(AbstractApplicationContext.class);
+		when(applicationContext.getBeansOfType(SearchPredicateContributor.class)).thenReturn(contributors);
+
+		registry = new SearchQueryContributorRegistry(applicationContext);
+	}
+
+	@Test
+	public void getPredicate_shouldReturnNullIfNoContributorSupportsTheEntityTypes() {
+		registry.refresh();
+
+		assertNull(registry.getPredicate(List.of(PersonName.class)));
+	}
+
+	@Test
+	public void getPredicate_shouldResolveTheContributorsOncePerEntityType() {
+		registry.refresh();
+
+		assertSame(conceptPredicate, registry.getPredicate(List.of(Concept.class)));
+		assertSame(conceptPredicate, registry.getPredicate(List.of(Concept.class)));
+		assertSame(conceptPredicate, registry.getPredicate(Arrays.asList(Concept.class, Drug.class)));
+
+		verify(conceptContributor, times(1)).supports(Concept.class);
+		verify(conceptContributor, times(1)).supports(Drug.class);
+	}
+
+	@Test
+	public void getPredicate_shouldComposeThePredicatesOfAllContributors() {
+		SearchPredicateContributor drugContributor = mock(SearchPredicateContributor.class);
+		when(drugContributor.supports(Drug.class)).thenReturn(true);
+		when(drugContributor.getPredicate()).thenReturn(f -> null);
+		Map<String, SearchPredicateContributor> contributors = new HashMap<>();
+		contributors.put("conceptContributor", conceptContributor);
+		contributors.put("drugContributor", drugContributor);
+		when(applicationContext.getBeansOfType(SearchPredicateContributor.class)).thenReturn(contributors);
+		registry.refresh();
+
+		Function<SearchPredicateFactory, SearchPredicate> predicate = registry
+		        .getPredicate(Arrays.asList(Concept.class, Drug.class));
+		assertNotNull(predicate);
+		assertSame(predicate, registry.getPredicate(Arrays.asList(Drug.class, Concept.class)));
+	}
+
+	@Test
+	public void refresh_shouldOnlyPublishEventsIfThereAreListeners() {
+		assertTrue(registry.isPublishingEvents());
+
+		Map<String, ApplicationListener> listeners = new HashMap<>();
+		listeners.put("refreshListener", new ApplicationListener<ContextRefreshedEvent>() {
+
+			@Override
+			public void onApplicationEvent(ContextRefreshedEvent event) {
+			}
+		});
+		when(applicationContext.getBeansOfType(ApplicationListener.class, false, false)).thenReturn(listeners);
+		registry.refresh();
+		assertFalse(registry.isPublishingEvents());
+
+		listeners.put("searchListener", new ApplicationListener<SearchCreatedEvent>() {
+
+			@Override
+			public void onApplicationEvent(SearchCreatedEvent event) {
+			}
+		});
+		registry.refresh();
+		assertTrue(registry.isPublishingEvents());
+	}
+
+	@Test
+	public void refresh_shouldPublishEventsForListenersDeclaredWithEventListener() throws Exception {
+		ApplicationListener<?> listener = new ApplicationListenerMethodAdapter("searchListener", SearchListener.class,
+		        SearchListener.class.getMethod("onSearchCreated", SearchCreatedEvent.class));
+		when(((AbstractApplicationContext) applicationContext).getApplicationListeners()).thenReturn(List.of(listener));
+
+		registry.refresh();
+
+		assertTrue(registry.isPublishingEvents());
+	}
+
+	@Test
+	public void refresh_shouldPublishEventsIfTheListenersOfTheContextAreUnknown() {
+		registry = new SearchQueryContributorRegistry(mock(ApplicationContext.class));
+
+		registry.refresh();
+
+		assertTrue(registry.isPublishingEvents());
+	}
+
+	@Test
+	public void and_shouldReturnTheOtherPredicateIfOneIsNull() {
+		assertSame(conceptPredicate, SearchQueryContributorRegistry.and(null, conceptPredicate));
+		assertSame(conceptPredicate, SearchQueryContributorRegistry.and(conceptPredicate, null));
+		assertNull(SearchQueryContributorRegistry.and(null, null));
+	}
+
+	public static class SearchListener {
+
+		@EventListener
+		public void onSearchCreated(SearchCreatedEvent event) {
+		}
+	}
+}
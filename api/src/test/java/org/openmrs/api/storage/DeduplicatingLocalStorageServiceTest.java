@@ -0,0 +1,157 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.api.storage;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.openmrs.api.StorageService;
+
+/**
+ * Runs the {@link LocalStorageServiceTest} tests in the content-addressed mode and tests the
+ * deduplication on top.
+ */
+public class DeduplicatingLocalStorageServiceTest extends LocalStorageServiceTest {
+
+	@Override
+	public StorageService newStorageService() {
+		return new LocalStorageService(tempDir.toAbsolutePath().toString(), true, streamService);
+	}
+
+	private LocalStorageService getLocalStorageService() {
+		return (LocalStorageService) storageService;
+	}
+
+	private long countBlobs() throws IOException {
+		Path blobsDir = tempDir.resolve(".blobs");
+		if (!Files.isDirectory(blobsDir)) {
+			return 0;
+		}
+		try (Stream<Path> blobs = Files.walk(blobsDir)) {
+			return blobs.filter(Files::isRegularFile).count();
+		}
+	}
+
+	private String save(String keySuffix, String content) throws IOException {
+		return storageService.saveData(IOUtils.toInputStream(content, Charset.defaultCharset()), null, "test_module",
+			keySuffix);
+	}
+
+	@Test
+	public void saveData_shouldStoreIdenticalDataOnce() throws IOException {
+		String key = save("first", testFileContent);
+		String key2 = save("second", testFileContent);
+		String key3 = save("third", testFile2Content);
+
+		assertThat(countBlobs(), is(2L));
+		LocalStorageKeyIndex index = getLocalStorageService().getKeyIndex();
+		String hash = index.getHash(key);
+		assertThat(index.getHash(key2), is(hash));
+		assertThat(index.getReferences(hash), is(2));
+		assertThat(index.getReferences(index.getHash(key3)), is(1));
+
+		try (InputStream data = storageService.getData(key2)) {
+			assertEquals(testFileContent, IOUtils.toString(data, Charset.defaultCharset()));
+		}
+		try (InputStream data = storageService.getData(key3)) {
+			assertEquals(testFile2Content, IOUtils.toString(data, Charset.defaultCharset()));
+		}
+		try (Stream<Path> tempFiles = Files.list(tempDir.resolve(".tmp"))) {
+			assertThat(tempFiles.count(), is(0L));
+		}
+	}
+
+	@Test
+	public void purgeData_shouldDeleteBlobWithLastKey() throws IOException {
+		String key = save("first", testFileContent);
+		String key2 = save("second", testFileContent);
+		LocalStorageKeyIndex index = getLocalStorageService().getKeyIndex();
+		String hash = index.getHash(key);
+		Path blob = getLocalStorageService().getBlobPath(hash);
+
+		assertThat(storageService.purgeData(key), is(true));
+		assertThat(Files.exists(blob), is(true));
+		assertThat(index.getReferences(hash), is(1));
+		try (InputStream data = storageService.getData(key2)) {
+			assertEquals(testFileContent, IOUtils.toString(data, Charset.defaultCharset()));
+		}
+
+		assertThat(storageService.purgeData(key2), is(true));
+		assertThat(Files.exists(blob), is(false));
+		assertThat(index.getReferences(hash), is(0));
+		assertThat(index.getHash(key2), is(nullValue()));
+	}
+
+	@Test
+	public void getKeys_shouldListKeysFromIndexOfNewInstance() throws IOException {
+		String key = save("test/first", testFileContent);
+		save("test/second", testFileContent);
+		save("test/dir/third", testFile2Content);
+		storageService.purgeData(key);
+
+		storageService = newStorageService();
+
+		try (Stream<String> keys = storageService.getKeys("test_module", "test/")) {
+			assertThat(keys.collect(Collectors.toList()),
+				containsInAnyOrder("test_module/test/second", "test_module/test/dir/"));
+		}
+		LocalStorageKeyIndex index = getLocalStorageService().getKeyIndex();
+		assertThat(index.getReferences(index.getHash("test_module/test/second")), is(1));
+	}
+
+	@Test
+	public void getKeys_shouldRebuildIndexFromStoredFiles() throws IOException {
+		String key = save("test/first", testFileContent);
+		String key2 = save("test/second", testFileContent);
+		Files.delete(tempDir.resolve(".index").resolve("keys"));
+
+		storageService = newStorageService();
+
+		try (Stream<String> keys = storageService.getKeys("test_module", "test/")) {
+			assertThat(keys.collect(Collectors.toList()), containsInAnyOrder(key, key2));
+		}
+		LocalStorageKeyIndex index = getLocalStorageService().getKeyIndex();
+		assertThat(index.getReferences(index.getHash(key)), is(2));
+	}
+
+	@Test
+	public void getKeys_shouldRebuildIndexChangedWhileTheModeWasOff() throws IOException {
+		String key = save("test/first", testFileContent);
+		String key2 = save("test/second", testFileContent);
+
+		storageService = new LocalStorageService(tempDir.toAbsolutePath().toString(), false, streamService);
+		String key3 = save("test/third", testFile2Content);
+		storageService.purgeData(key2);
+		assertThat(Files.exists(tempDir.resolve(".index").resolve("stale")), is(true));
+
+		storageService = newStorageService();
+
+		try (Stream<String> keys = storageService.getKeys("test_module", "test/")) {
+			assertThat(keys.collect(Collectors.toList()), containsInAnyOrder(key, key3));
+		}
+		assertThat(Files.exists(tempDir.resolve(".index").resolve("stale")), is(false));
+		LocalStorageKeyIndex index = getLocalStorageService().getKeyIndex();
+		assertThat(index.getReferences(index.getHash(key)), is(1));
+		assertThat(index.getHash(key3), is(""));
+	}
+}
@@ -20,11 +20,17 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.openmrs.util.OpenmrsUtil.deleteDirectory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import ca.uhn.hl7v2.HL7Exception;
@@ -44,6 +50,7 @@ import org.openmrs.GlobalProperty;
 import org.openmrs.Obs;
 import org.openmrs.Patient;
 import org.openmrs.Person;
+import org.openmrs.api.StorageService;
 import org.openmrs.api.context.Context;
 import org.openmrs.hl7.handler.ORUR01Handler;
 import org.openmrs.hl7.impl.HL7ServiceImpl;
@@ -53,6 +60,8 @@ import org.openmrs.test.jupiter.BaseContextSensitiveTest;
 import org.openmrs.util.OpenmrsConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.transaction.TestTransaction;
 
 /**
  * Tests methods in the {@link HL7Service}
@@ -62,6 +71,9 @@ public class HL7ServiceTest extends BaseContextSensitiveTest {
 	private static final Logger log = LoggerFactory.getLogger(HL7ServiceTest.class);
 	protected static final String XML_FILENAME = "org/openmrs/api/include/UserServiceTest.xml";
 	
+	@Autowired
+	private StorageService storageService;
+	
 	/**
 	 * @see HL7Service#saveHL7InQueue(HL7InQueue)
 	 */
@@ -798,4 +810,106 @@ public class HL7ServiceTest extends BaseContextSensitiveTest {
 		Integer userId = hl7service.resolveUserId(xcn);
 		assertThat(userId, is(502));
 	}
+	
+	/**
+	 * @see HL7Service#getHL7InArchivesToMigrate(Integer, int)
+	 */
+	@Test
+	public void getHL7InArchivesToMigrate_shouldReturnTheArchivesAfterTheGivenIdOrderedById() {
+		HL7Service hl7Service = Context.getHL7Service();
+		HL7InArchive first = saveArchive("first", HL7Constants.HL7_STATUS_PROCESSED);
+		HL7InArchive second = saveArchive("second", HL7Constants.HL7_STATUS_PROCESSED);
+		saveArchive("deleted", HL7Constants.HL7_STATUS_DELETED);
+		
+		assertEquals(Arrays.asList(first, second), hl7Service.getHL7InArchivesToMigrate(null, 10));
+		assertEquals(Collections.singletonList(first), hl7Service.getHL7InArchivesToMigrate(null, 1));
+		assertEquals(Collections.singletonList(second), hl7Service.getHL7InArchivesToMigrate(first.getHL7InArchiveId(), 10));
+	}
+	
+	/**
+	 * @see HL7Service#markHL7InArchivesMigrated(Map)
+	 */
+	@Test
+	public void markHL7InArchivesMigrated_shouldOnlyMarkProcessedArchivesAsMigrated() throws IOException {
+		HL7Service hl7Service = Context.getHL7Service();
+		HL7InArchive processed = saveArchive("processed", HL7Constants.HL7_STATUS_PROCESSED);
+		HL7InArchive deleted = saveArchive("deleted", HL7Constants.HL7_STATUS_DELETED);
+		String key = storageService.saveData(new ByteArrayInputStream("processed".getBytes(StandardCharsets.UTF_8)),
+		    null, HL7Constants.HL7_ARCHIVE_DIRECTORY_NAME);
+		Map<Integer, String> dataKeys = new HashMap<>();
+		dataKeys.put(processed.getHL7InArchiveId(), key);
+		dataKeys.put(deleted.getHL7InArchiveId(), "other key");
+		
+		assertEquals(1, hl7Service.markHL7InArchivesMigrated(dataKeys));
+		
+		Context.clearSession();
+		processed = hl7Service.getHL7InArchive(processed.getHL7InArchiveId());
+		assertEquals(HL7Constants.HL7_STATUS_MIGRATED, processed.getMessageState());
+		assertEquals(key, processed.getHL7Data());
+		deleted = hl7Service.getHL7InArchive(deleted.getHL7InArchiveId());
+		assertEquals(HL7Constants.HL7_STATUS_DELETED, deleted.getMessageState());
+		assertEquals("deleted", deleted.getHL7Data());
+		hl7Service.loadHL7InArchiveData(processed);
+		assertEquals("processed", processed.getHL7Data());
+	}
+	
+	/**
+	 * @see HL7Service#migrateHl7InArchivesToFileSystem(Map)
+	 */
+	@Test
+	public void migrateHl7InArchivesToFileSystem_shouldMoveTheDataToTheStorageAndMarkTheArchivesMigrated()
+	        throws Exception {
+		HL7Service hl7Service = Context.getHL7Service();
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			ids.add(saveArchive("message " + i, HL7Constants.HL7_STATUS_PROCESSED).getHL7InArchiveId());
+		}
+		// the migration reads and marks the archives in transactions of its own
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		
+		Map<String, Integer> progressStatusMap = new HashMap<>();
+		Hl7InArchivesMigrateThread.setActive(true);
+		Hl7InArchivesMigrateThread.setTransferStatus(Hl7InArchivesMigrateThread.Status.RUNNING);
+		try {
+			hl7Service.migrateHl7InArchivesToFileSystem(progressStatusMap);
+			
+			assertEquals(3, progressStatusMap.get(HL7Constants.NUMBER_TRANSFERRED_KEY));
+			assertEquals(0, progressStatusMap.get(HL7Constants.NUMBER_OF_FAILED_TRANSFERS_KEY));
+			Context.clearSession();
+			for (int i = 0; i < ids.size(); i++) {
+				HL7InArchive archive = hl7Service.getHL7InArchive(ids.get(i));
+				assertEquals(HL7Constants.HL7_STATUS_MIGRATED, archive.getMessageState());
+				assertTrue(storageService.exists(archive.getHL7Data()));
+				hl7Service.loadHL7InArchiveData(archive);
+				assertEquals("message " + i, archive.getHL7Data());
+			}
+			assertTrue(hl7Service.getHL7InArchivesToMigrate(null, 10).isEmpty());
+		}
+		finally {
+			Hl7InArchivesMigrateThread.setActive(false);
+			Hl7InArchivesMigrateThread.setTransferStatus(Hl7InArchivesMigrateThread.Status.NONE);
+			TestTransaction.start();
+			for (Integer id : ids) {
+				HL7InArchive archive = hl7Service.getHL7InArchive(id);
+				if (HL7Constants.HL7_STATUS_MIGRATED.equals(archive.getMessageState())) {
+					storageService.purgeData(archive.getHL7Data());
+				}
+				hl7Service.purgeHL7InArchive(archive);
+			}
+			TestTransaction.flagForCommit();
+			TestTransaction.end();
+		}
+	}
+	
+	private HL7InArchive saveArchive(String data, Integer messageState) {
+		HL7InArchive archive = new HL7InArchive();
+		archive.setHL7Data(data);
+		archive.setHL7Source(new HL7Source(1));
+		archive.setMessageState(messageState);
+		Calendar dateCreated = Calendar.getInstance();
+		dateCreated.add(Calendar.YEAR, -2);
+		archive.setDateCreated(dateCreated.getTime());
+		return Context.getHL7Service().saveHL7InArchive(archive);
+	}
 }
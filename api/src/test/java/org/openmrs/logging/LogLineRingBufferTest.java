@@ -0,0 +1,154 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.logging;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tests the {@link LogLineRingBuffer} class, including the throughput of many logging threads
+ * while the lines are read
+ */
+class LogLineRingBufferTest {
+
+	private static final Logger log = LoggerFactory.getLogger(LogLineRingBufferTest.class);
+
+	@Test
+	void add_shouldOnlyKeepTheLatestLinesUpToTheCapacity() {
+		LogLineRingBuffer buffer = new LogLineRingBuffer(3, 1000);
+		assertThat(buffer.snapshot(), empty());
+
+		for (int i = 0; i < 5; i++) {
+			buffer.add("line " + i);
+		}
+
+		assertThat(buffer.snapshot(), contains("line 2", "line 3", "line 4"));
+	}
+
+	@Test
+	void add_shouldEvictTheOldestLinesWhenExceedingTheMaximumNumberOfCharacters() {
+		LogLineRingBuffer buffer = new LogLineRingBuffer(10, 10);
+
+		buffer.add("aaaa");
+		buffer.add("bbbb");
+		assertThat(buffer.snapshot(), contains("aaaa", "bbbb"));
+
+		buffer.add("cccc");
+		assertThat(buffer.snapshot(), contains("bbbb", "cccc"));
+
+		buffer.add("dddddddd");
+		assertThat(buffer.snapshot(), contains("dddddddd"));
+	}
+
+	@Test
+	void add_shouldCutLinesLongerThanTheMaximumNumberOfCharacters() {
+		LogLineRingBuffer buffer = new LogLineRingBuffer(10, 5);
+
+		buffer.add("abc");
+		buffer.add("0123456789");
+
+		assertThat(buffer.snapshot(), contains("01234"));
+	}
+
+	@Test
+	void logLineRingBuffer_shouldRejectANonPositiveCapacityOrMaximumNumberOfCharacters() {
+		assertThrows(IllegalArgumentException.class, () -> new LogLineRingBuffer(0, 10));
+		assertThrows(IllegalArgumentException.class, () -> new LogLineRingBuffer(10, 0));
+	}
+
+	/**
+	 * Appends lines from 64 threads while another thread keeps taking snapshots and checks that the
+	 * bounds hold and the lines of each thread stay in order, logging the throughput
+	 */
+	@Test
+	void add_shouldStayBoundedAndOrderedWhenWrittenByManyThreads() throws Exception {
+		final int threads = 64;
+		final int linesPerThread = 20000;
+		final int capacity = 200;
+		// about 125 lines of 8 characters, so that the lines are evicted by characters as well
+		final long maxChars = 1000;
+		LogLineRingBuffer buffer = new LogLineRingBuffer(capacity, maxChars);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			AtomicBoolean writing = new AtomicBoolean(true);
+			Future<Integer> reader = executor.submit(() -> {
+				int snapshots = 0;
+				start.await();
+				while (writing.get()) {
+					assertBoundedAndOrdered(buffer.snapshot(), capacity);
+					snapshots++;
+				}
+				return snapshots;
+			});
+			Future<?>[] writers = new Future<?>[threads];
+			for (int t = 0; t < threads; t++) {
+				final String prefix = String.format("%02d ", t);
+				writers[t] = executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < linesPerThread; i++) {
+						buffer.add(prefix + i);
+					}
+					return null;
+				});
+			}
+
+			long time = System.nanoTime();
+			start.countDown();
+			for (Future<?> writer : writers) {
+				writer.get(1, TimeUnit.MINUTES);
+			}
+			long nanos = System.nanoTime() - time;
+			writing.set(false);
+			int snapshots = reader.get(1, TimeUnit.MINUTES);
+
+			List<String> lines = buffer.snapshot();
+			assertBoundedAndOrdered(lines, capacity);
+			// lines appended while others were evicting may briefly add to the total
+			assertThat(lines.stream().mapToLong(String::length).sum(), lessThanOrEqualTo(maxChars + threads * 8));
+			log.info("Appended {} lines from {} threads in {} ms ({} lines/s) while taking {} snapshots",
+			    threads * linesPerThread, threads, nanos / 1000000,
+			    (long) threads * linesPerThread * 1000000000L / Math.max(1, nanos), snapshots);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void assertBoundedAndOrdered(List<String> lines, int capacity) {
+		assertThat(lines.size(), lessThanOrEqualTo(capacity));
+		int[] last = new int[64];
+		Arrays.fill(last, -1);
+		for (String line : lines) {
+			int thread = Integer.parseInt(line.substring(0, 2));
+			int number = Integer.parseInt(line.substring(3));
+			assertThat("line " + line + " is out of order", number > last[thread], equalTo(true));
+			last[thread] = number;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.logic;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.logic.LogicAggregate.Function;
+import org.openmrs.logic.op.ComparisonOperator;
+import org.openmrs.logic.op.Operand;
+import org.openmrs.logic.op.Operator;
+
+/**
+ * Tests the {@link LogicAggregate} class
+ */
+public class LogicAggregateTest {
+
+	private static final String TOKEN = "CD4 COUNT";
+
+	/**
+	 * An expression like the logic module builds it, every appended operator wraps the previous
+	 * expression as its left operand
+	 */
+	private static class Expression implements LogicExpression {
+
+		private final Operator operator;
+
+		private final Operand right;
+
+		private final Operand left;
+
+		private LogicTransform transform;
+
+		private Expression(Operator operator, Operand right, Operand left) {
+			this.operator = operator;
+			this.right = right;
+			this.left = left;
+		}
+
+		/**
+		 * @return the expression of the token on its own
+		 */
+		private static Expression token() {
+			return new Expression(null, null, null);
+		}
+
+		private Expression append(Operator operator, Operand operand) {
+			return new Expression(operator, operand, this);
+		}
+
+		private Expression transform(LogicTransform transform) {
+			setTransform(transform);
+			return this;
+		}
+
+		@Override
+		public Operator getOperator() {
+			return operator;
+		}
+
+		@Override
+		public String getRootToken() {
+			return TOKEN;
+		}
+
+		@Override
+		public Operand getRightOperand() {
+			return right;
+		}
+
+		@Override
+		public Operand getLeftOperand() {
+			return left;
+		}
+
+		@Override
+		public LogicTransform getTransform() {
+			return transform;
+		}
+
+		@Override
+		public void setTransform(LogicTransform transform) {
+			this.transform = transform;
+		}
+
+		@Override
+		public boolean supports(ComparisonOperator operator) {
+			return false;
+		}
+	}
+
+	private LogicCriteria criteria(Expression expression) {
+		LogicCriteria criteria = mock(LogicCriteria.class);
+		when(criteria.getExpression()).thenReturn(expression);
+		when(criteria.getRootToken()).thenReturn(TOKEN);
+		return criteria;
+	}
+
+	@Test
+	public void of_shouldPushDownWithin() {
+		Duration sixMonths = Duration.months(6);
+		LogicAggregate aggregate = LogicAggregate.of(criteria(Expression.token().append(Operator.WITHIN, sixMonths)
+		        .transform(new LogicTransform(Operator.LAST))));
+
+		assertThat(aggregate.getToken(), is(TOKEN));
+		assertThat(aggregate.getFunction(), is(Function.LAST));
+		assertThat(aggregate.getWithin(), is(sixMonths));
+	}
+
+	@Test
+	public void of_shouldDescribeACountOfAllValues() {
+		LogicAggregate aggregate = LogicAggregate
+		        .of(criteria(Expression.token().transform(new LogicTransform(Operator.COUNT))));
+
+		assertThat(aggregate.getFunction(), is(Function.COUNT));
+		assertThat(aggregate.getWithin(), is(nullValue()));
+	}
+
+	@Test
+	public void of_shouldReturnNullWithoutTransform() {
+		assertThat(LogicAggregate.of(criteria(Expression.token().append(Operator.WITHIN, Duration.months(6)))),
+		    is(nullValue()));
+	}
+
+	@Test
+	public void of_shouldReturnNullForMoreThanOneLastResult() {
+		assertThat(LogicAggregate.of(criteria(Expression.token().transform(new LogicTransform(Operator.LAST, 2)))),
+		    is(nullValue()));
+	}
+
+	@Test
+	public void of_shouldReturnNullForComparisons() {
+		Operand value = mock(Operand.class);
+
+		assertThat(LogicAggregate.of(criteria(Expression.token().append(Operator.GT, value)
+		        .transform(new LogicTransform(Operator.LAST)))), is(nullValue()));
+		assertThat(LogicAggregate.of(criteria(Expression.token().append(Operator.LT, value)
+		        .transform(new LogicTransform(Operator.LAST)))), is(nullValue()));
+	}
+
+	@Test
+	public void of_shouldReturnNullIfATransformIsAppliedBeforeTheRestrictions() {
+		Expression last = Expression.token().transform(new LogicTransform(Operator.LAST));
+
+		assertThat(LogicAggregate.of(criteria(last.append(Operator.WITHIN, Duration.months(6))
+		        .transform(new LogicTransform(Operator.COUNT)))), is(nullValue()));
+	}
+}
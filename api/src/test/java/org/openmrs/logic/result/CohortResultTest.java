@@ -0,0 +1,93 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.logic.result;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.openmrs.Cohort;
+
+/**
+ * Tests the {@link CohortResult} class
+ */
+public class CohortResultTest {
+
+	private static final Date RESULT_DATE = new Date(1000000000000L);
+
+	@Test
+	public void get_shouldReturnTheValueOfThePatient() {
+		CohortResult result = CohortResult.numeric(new Cohort("7,2,5")).set(5, 350.0, RESULT_DATE).build();
+
+		assertThat(result.get(5).toNumber(), is(350.0));
+		assertThat(result.get(5).getResultDate(), is(RESULT_DATE));
+		assertThat(result.getNumber(5), is(350.0));
+		assertTrue(result.hasValue(5));
+	}
+
+	@Test
+	public void get_shouldReturnAnEmptyResultForMembersWithoutValue() {
+		CohortResult result = CohortResult.numeric(new Cohort("7,2,5")).set(5, 350.0, RESULT_DATE).build();
+
+		assertThat(result.get(2), instanceOf(EmptyResult.class));
+		assertTrue(Double.isNaN(result.getNumber(2)));
+		assertFalse(result.hasValue(2));
+	}
+
+	@Test
+	public void count_shouldReturnZeroForMembersWithoutValue() {
+		CohortResult result = CohortResult.count(new Cohort("7,2,5")).set(5, 3, RESULT_DATE).build();
+
+		assertThat(result.get(2).toNumber(), is(0.0));
+		assertThat(result.getNumber(2), is(0.0));
+		assertTrue(result.hasValue(2));
+		assertThat(result.get(5).toNumber(), is(3.0));
+	}
+
+	@Test
+	public void get_shouldReturnNullForPatientsNotInTheCohort() {
+		CohortResult result = CohortResult.numeric(new Cohort("7,2,5")).set(9, 1.0, null).build();
+
+		assertThat(result.get(9), is(nullValue()));
+		assertFalse(result.containsKey(9));
+		assertThat(result.size(), is(3));
+	}
+
+	@Test
+	public void keySet_shouldIterateOverAllMembersInPatientIdOrder() {
+		CohortResult result = CohortResult.numeric(new Cohort("7,2,5")).build();
+
+		assertThat(result.keySet(), contains(2, 5, 7));
+	}
+
+	@Test
+	public void getDatetime_shouldReturnTheDateValueOfThePatient() {
+		Date value = new Date(RESULT_DATE.getTime() - 1000);
+		CohortResult result = CohortResult.datetime(new Cohort("2,5")).set(2, value, RESULT_DATE).build();
+
+		assertThat(result.getDatetime(2), is(value));
+		assertThat(result.get(2).toDatetime(), is(value));
+		assertThat(result.getDatetime(5), is(nullValue()));
+		assertThat(result.get(5), instanceOf(EmptyResult.class));
+	}
+
+	@Test
+	public void set_shouldFailForAValueOfTheWrongDatatype() {
+		assertThrows(IllegalStateException.class, () -> CohortResult.datetime(new Cohort("2")).set(2, 1.0, null));
+	}
+}
@@ -12,7 +12,10 @@ package org.openmrs.notification;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Date;
+
 import org.junit.jupiter.api.Test;
+import org.openmrs.User;
 import org.openmrs.api.context.Context;
 import org.openmrs.notification.impl.AlertServiceImpl;
 import org.openmrs.test.jupiter.BaseContextSensitiveTest;
@@ -63,4 +66,54 @@ public class AlertServiceTest extends BaseContextSensitiveTest {
 		//Test that alert contains the expected content
 		assertTrue(alertOne.getText().equals(Context.getMessageSourceService().getMessage("Module.startupError.notification.message", new Object[] { "test" }, null)));
 	}
+	
+	/**
+	 * @see AlertService#countUnreadAlerts(User)
+	 */
+	@Test
+	public void countUnreadAlerts_shouldCountTheUnreadAlertsThatHaveNotExpired() {
+		User user = Context.getAuthenticatedUser();
+		assertEquals(0, Context.getAlertService().countUnreadAlerts(user));
+		
+		Context.getAlertService().saveAlert(new Alert("unread", user));
+		Alert expired = new Alert("expired", user);
+		expired.setDateToExpire(new Date(System.currentTimeMillis() - 1000));
+		Context.getAlertService().saveAlert(expired);
+		Alert expiring = new Alert("expiring", user);
+		expiring.setDateToExpire(new Date(System.currentTimeMillis() + 60000));
+		Context.getAlertService().saveAlert(expiring);
+		
+		assertEquals(2, Context.getAlertService().countUnreadAlerts(user));
+		assertEquals(2, Context.getAlertService().getAlertsByUser(user).size());
+		assertEquals(3, Context.getAlertService().getAlerts(user, false, true).size());
+	}
+	
+	/**
+	 * @see AlertService#countUnreadAlerts(User)
+	 */
+	@Test
+	public void countUnreadAlerts_shouldNotCountAlertsAfterTheyWereMarkedAsRead() {
+		User user = Context.getAuthenticatedUser();
+		Alert alert = Context.getAlertService().saveAlert(new Alert("unread", user));
+		Context.getAlertService().saveAlert(new Alert("another", user));
+		assertEquals(2, Context.getAlertService().countUnreadAlerts(user));
+		
+		Context.getAlertService().saveAlert(alert.markAlertRead());
+		
+		assertEquals(1, Context.getAlertService().countUnreadAlerts(user));
+		assertEquals("another", Context.getAlertService().getAlertsByUser(user).get(0).getText());
+		
+		Context.getAlertService().purgeAlert(Context.getAlertService().getAlertsByUser(user).get(0));
+		assertEquals(0, Context.getAlertService().countUnreadAlerts(user));
+	}
+	
+	/**
+	 * @see AlertService#countUnreadAlerts(User)
+	 */
+	@Test
+	public void countUnreadAlerts_shouldCountTheAlertsOfTheAuthenticatedUserIfUserIsNull() {
+		Context.getAlertService().saveAlert(new Alert("unread", Context.getAuthenticatedUser()));
+		
+		assertEquals(1, Context.getAlertService().countUnreadAlerts(null));
+	}
 }
@@ -73,6 +73,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.openmrs.Concept;
 import org.openmrs.ConceptName;
 import org.openmrs.Drug;
 import org.openmrs.PatientIdentifier;
@@ -987,7 +988,7 @@ public abstract class BaseContextSensitiveTest {
 	}
 	
 	public Class<?>[] getIndexedTypes() {
-		return new Class<?>[] { ConceptName.class, Drug.class, PersonName.class, PersonAttribute.class,
+		return new Class<?>[] { Concept.class, ConceptName.class, Drug.class, PersonName.class, PersonAttribute.class,
 				PatientIdentifier.class};
 	}
 	
@@ -19,6 +19,7 @@ import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -37,6 +38,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
@@ -46,6 +48,9 @@ import java.util.Locale;
 import java.util.Properties;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Level;
@@ -368,7 +373,66 @@ public class OpenmrsUtilTest extends BaseContextSensitiveTest {
 		assertThat(OpenmrsUtil.getDateFormat(Locale.GERMAN).toLocalizedPattern(), anyOf(is("tt.MM.uuuu"), is("dd.MM.yyyy")));
 		assertThat(OpenmrsUtil.getDateFormat(new Locale("pt", "pt")).toLocalizedPattern(), anyOf(is("dd-MM-yyyy"), is("dd/MM/yyyy")));
 	}
-	
+
+	/**
+	 * @see OpenmrsUtil#formatDate(Date, Locale)
+	 */
+	@Test
+	public void formatDate_shouldFormatLikeGetDateFormat() {
+		Date date = new Date();
+		for (Locale locale : new Locale[] { Locale.US, Locale.UK, Locale.GERMAN, Locale.FRENCH, new Locale("pt", "pt") }) {
+			assertEquals(OpenmrsUtil.getDateFormat(locale).format(date), OpenmrsUtil.formatDate(date, locale));
+		}
+		assertEquals("", OpenmrsUtil.formatDate(null, Locale.US));
+	}
+
+	/**
+	 * @see OpenmrsUtil#formatDateTime(Date, Locale)
+	 */
+	@Test
+	public void formatDateTime_shouldFormatLikeGetDateTimeFormat() {
+		Date date = new Date();
+		assertEquals(OpenmrsUtil.getDateTimeFormat(Locale.UK).format(date), OpenmrsUtil.formatDateTime(date, Locale.UK));
+		assertEquals(OpenmrsUtil.getTimeFormat(Locale.UK).format(date), OpenmrsUtil.formatTime(date, Locale.UK));
+	}
+
+	/**
+	 * @see OpenmrsUtil#getDateTimeFormatter(Locale)
+	 */
+	@Test
+	public void getDateTimeFormatter_shouldPrintWhatGetDateTimeFormatParses() throws Exception {
+		Calendar calendar = Calendar.getInstance();
+		calendar.set(2021, Calendar.MARCH, 14, 15, 9, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		Date date = calendar.getTime();
+		for (Locale locale : new Locale[] { new Locale("ar"), new Locale("ar", "EG"), Locale.KOREAN, new Locale("fa") }) {
+			String formatted = OpenmrsUtil.formatDateTime(date, locale);
+			assertEquals(OpenmrsUtil.getDateTimeFormat(locale).format(date), formatted, locale.toString());
+			assertEquals(date, OpenmrsUtil.getDateTimeFormat(locale).parse(formatted), locale.toString());
+		}
+	}
+
+	/**
+	 * @see OpenmrsUtil#getDateFormatter(Locale)
+	 */
+	@Test
+	public void getDateFormatter_shouldReturnTheSameFormatterForConcurrentFirstAccess() throws Exception {
+		Locale locale = new Locale("fr", "CA");
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<DateTimeFormatter>> formatters = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				formatters.add(executor.submit(() -> OpenmrsUtil.getDateFormatter(locale)));
+			}
+			for (Future<DateTimeFormatter> formatter : formatters) {
+				assertSame(OpenmrsUtil.getDateFormatter(locale), formatter.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
 	/**
 	 * @see OpenmrsUtil#containsUpperAndLowerCase(String)
 	 */
@@ -0,0 +1,315 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.web;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.openmrs.module.Module;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the static resources served by {@link ModuleResourcesServlet}. Each request path
+ * is resolved to its file once, together with the metadata needed to answer conditional and range
+ * requests (length, last modified date, strong ETag and pre-compressed variants). Entries are dropped
+ * when the owning module is stopped; resources served from a module's development directory are
+ * re-validated against the file system on every lookup.
+ *
+ * @since 3.0.0
+ */
+public class ModuleResourceIndex {
+	
+	private static final Logger log = LoggerFactory.getLogger(ModuleResourceIndex.class);
+	
+	public static final String GZIP_ENCODING = "gzip";
+	
+	public static final String BROTLI_ENCODING = "br";
+	
+	public static final String GZIP_EXTENSION = ".gz";
+	
+	public static final String BROTLI_EXTENSION = ".br";
+	
+	/**
+	 * Resources smaller than this are not worth compressing, the gzip framing eats most of the gain
+	 */
+	public static final long MIN_COMPRESSIBLE_SIZE = 1024;
+	
+	private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("css", "js", "mjs", "json", "map", "html", "htm",
+	    "svg", "txt", "xml", "ttf", "eot");
+	
+	private static final Map<String, ModuleResource> RESOURCES = new ConcurrentHashMap<>();
+	
+	private ModuleResourceIndex() {
+	}
+	
+	/**
+	 * Gets the indexed resource for the given request path
+	 *
+	 * @param path the path info of the request, e.g. /moduleId/scripts/file.js
+	 * @return the indexed resource or null if the path is not indexed or the indexed file has changed
+	 *         on disk since it was indexed
+	 */
+	public static ModuleResource getResource(String path) {
+		ModuleResource resource = RESOURCES.get(path);
+		if (resource != null && resource.isModified()) {
+			RESOURCES.remove(path, resource);
+			return null;
+		}
+		return resource;
+	}
+	
+	/**
+	 * Builds the metadata for the given file and adds it to the index
+	 *
+	 * @param path the path info of the request that resolved to the file
+	 * @param moduleId the id of the module that owns the resource
+	 * @param file the resolved file
+	 * @param development whether the file lives in the module's development directory
+	 * @return the indexed resource
+	 * @throws IOException if the file cannot be read
+	 */
+	public static ModuleResource addResource(String path, String moduleId, File file, boolean development)
+	        throws IOException {
+		ModuleResource resource = new ModuleResource(moduleId, file, development);
+		RESOURCES.put(path, resource);
+		return resource;
+	}
+	
+	/**
+	 * Removes all indexed resources of the given module
+	 *
+	 * @param mod the module being stopped
+	 */
+	public static void removeResources(Module mod) {
+		RESOURCES.values().removeIf(resource -> resource.getModuleId().equals(mod.getModuleId()));
+	}
+	
+	/**
+	 * Removes all entries from the index
+	 */
+	public static void clear() {
+		RESOURCES.clear();
+	}
+	
+	/**
+	 * Writes a gzip variant next to every compressible resource in the given directory so that the
+	 * servlet never has to compress on the fly. Variants that are already up to date are left alone,
+	 * and variants that do not end up smaller than the original are discarded.
+	 *
+	 * @param mod the module that owns the resources
+	 * @param resourcesDir the directory the module's web resources were copied to
+	 */
+	public static void precompressResources(Module mod, File resourcesDir) {
+		if (resourcesDir == null || !resourcesDir.isDirectory()) {
+			return;
+		}
+		
+		List<Path> candidates;
+		try (Stream<Path> paths = Files.walk(resourcesDir.toPath())) {
+			candidates = paths.filter(Files::isRegularFile).filter(ModuleResourceIndex::isCompressible)
+			        .collect(Collectors.toList());
+		}
+		catch (IOException e) {
+			log.warn("Unable to list the resources of module {} for pre-compression", mod.getModuleId(), e);
+			return;
+		}
+		
+		for (Path source : candidates) {
+			try {
+				compress(source);
+			}
+			catch (IOException e) {
+				log.warn("Unable to pre-compress resource {} of module {}", source, mod.getModuleId(), e);
+			}
+		}
+		
+		log.debug("Pre-compressed {} resources of module {}", candidates.size(), mod.getModuleId());
+	}
+	
+	private static boolean isCompressible(Path path) {
+		String extension = FilenameUtils.getExtension(path.getFileName().toString()).toLowerCase(Locale.ROOT);
+		if (!COMPRESSIBLE_EXTENSIONS.contains(extension)) {
+			return false;
+		}
+		
+		try {
+			return Files.size(path) >= MIN_COMPRESSIBLE_SIZE;
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+	
+	private static void compress(Path source) throws IOException {
+		Path target = source.resolveSibling(source.getFileName() + GZIP_EXTENSION);
+		if (Files.exists(target) && Files.getLastModifiedTime(target).compareTo(Files.getLastModifiedTime(source)) >= 0) {
+			return;
+		}
+		
+		// write to a temporary file first so that a request never sees a partially written variant
+		Path temp = Files.createTempFile(source.getParent(), source.getFileName().toString(), ".tmp");
+		try {
+			try (InputStream in = Files.newInputStream(source);
+			        OutputStream out = new BestCompressionGZIPOutputStream(Files.newOutputStream(temp))) {
+				in.transferTo(out);
+			}
+			
+			if (Files.size(temp) < Files.size(source)) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	private static class BestCompressionGZIPOutputStream extends GZIPOutputStream {
+		
+		BestCompressionGZIPOutputStream(OutputStream out) throws IOException {
+			super(out);
+			def.setLevel(Deflater.BEST_COMPRESSION);
+		}
+	}
+	
+	/**
+	 * Immutable metadata of a single indexed module resource
+	 */
+	public static class ModuleResource {
+		
+		private final String moduleId;
+		
+		private final File file;
+		
+		private final boolean development;
+		
+		private final long length;
+		
+		private final long lastModified;
+		
+		private final String hash;
+		
+		private final File gzipFile;
+		
+		private final File brotliFile;
+		
+		ModuleResource(String moduleId, File file, boolean development) throws IOException {
+			this.moduleId = moduleId;
+			this.file = file;
+			this.development = development;
+			this.length = file.length();
+			this.lastModified = file.lastModified();
+			this.hash = hash(file);
+			this.gzipFile = getVariant(file, GZIP_EXTENSION);
+			this.brotliFile = getVariant(file, BROTLI_EXTENSION);
+		}
+		
+		public String getModuleId() {
+			return moduleId;
+		}
+		
+		public File getFile() {
+			return file;
+		}
+		
+		public long getLength() {
+			return length;
+		}
+		
+		public long getLastModified() {
+			return lastModified;
+		}
+		
+		/**
+		 * @return the strong ETag of the unencoded resource
+		 */
+		public String getETag() {
+			return "\"" + hash + "\"";
+		}
+		
+		/**
+		 * @param encoding the content encoding of the representation
+		 * @return the strong ETag of the representation with the given encoding
+		 */
+		public String getETag(String encoding) {
+			return encoding == null ? getETag() : "\"" + hash + "-" + encoding + "\"";
+		}
+		
+		/**
+		 * @param encoding gzip or br
+		 * @return the pre-compressed variant for the given encoding or null if there is none
+		 */
+		public File getVariant(String encoding) {
+			if (GZIP_ENCODING.equals(encoding)) {
+				return gzipFile;
+			} else if (BROTLI_ENCODING.equals(encoding)) {
+				return brotliFile;
+			}
+			return null;
+		}
+		
+		public boolean hasVariants() {
+			return gzipFile != null || brotliFile != null;
+		}
+		
+		/**
+		 * Production resources are copied out of the module on startup and only change when the module
+		 * is restarted, which clears the index, so only development resources need to hit the disk.
+		 *
+		 * @return true if the file has changed or disappeared since it was indexed
+		 */
+		boolean isModified() {
+			return development && (file.lastModified() != lastModified || file.length() != length);
+		}
+		
+		private static File getVariant(File file, String extension) {
+			File variant = new File(file.getPath() + extension);
+			if (variant.isFile() && variant.lastModified() >= file.lastModified()) {
+				return variant;
+			}
+			return null;
+		}
+		
+		private static String hash(File file) throws IOException {
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+			}
+			
+			try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+				in.transferTo(OutputStream.nullOutputStream());
+			}
+			
+			return HexFormat.of().formatHex(digest.digest(), 0, 16);
+		}
+	}
+}
@@ -10,20 +10,30 @@
 package org.openmrs.module.web;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletResponseWrapper;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.openmrs.module.Module;
 import org.openmrs.module.ModuleUtil;
-import org.openmrs.util.OpenmrsUtil;
+import org.openmrs.module.web.ModuleResourceIndex.ModuleResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Serves the static resources of started modules from /moduleResources/*. Resource metadata is kept
+ * in the {@link ModuleResourceIndex}, so requests are answered with strong ETags, byte ranges and the
+ * gzip/brotli variants generated when the module was started, and file contents are sent via
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} or the container's sendfile support.
+ */
 public class ModuleResourcesServlet extends HttpServlet {
 	
 	private static final String MODULE_PATH = "/WEB-INF/view/module/";
@@ -32,6 +42,30 @@ public class ModuleResourcesServlet extends HttpServlet {
 	
 	private static final Logger log = LoggerFactory.getLogger(ModuleResourcesServlet.class);
 	
+	/**
+	 * Request parameter used by pages to version resource urls, resources requested with it can be
+	 * cached forever since a new version results in a new url
+	 */
+	public static final String VERSION_PARAMETER = "v";
+	
+	private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+	
+	private static final String REVALIDATE_CACHE_CONTROL = "no-cache";
+	
+	// request attributes used by tomcat to hand the response body over to its sendfile implementation
+	private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+	
+	private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+	
+	private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+	
+	private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+	
+	// same default as tomcat's DefaultServlet, below this a plain copy is cheaper than sendfile
+	private static final long SENDFILE_THRESHOLD = 48 * 1024;
+	
+	private static final long[] UNSATISFIABLE_RANGE = new long[0];
+	
 	/**
 	 * Used for caching purposes
 	 *
@@ -39,37 +73,152 @@ public class ModuleResourcesServlet extends HttpServlet {
 	 */
 	@Override
 	protected long getLastModified(HttpServletRequest req) {
-		File f = getFile(req);
+		ModuleResource resource = getResource(req);
 		
-		if (f == null) {
+		if (resource == null) {
 			return super.getLastModified(req);
 		}
 		
-		return f.lastModified();
+		return resource.getLastModified();
 	}
 	
 	@Override
 	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
 		
-		log.debug("In service method for module servlet: " + request.getPathInfo());
+		log.debug("In service method for module servlet: {}", request.getPathInfo());
 		
-		File f = getFile(request);
-		if (f == null) {
+		ModuleResource resource = getResource(request);
+		if (resource == null) {
 			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
 			return;
 		}
 		
-		response.setDateHeader("Last-Modified", f.lastModified());
-		response.setContentLength(Long.valueOf(f.length()).intValue());
-		String mimeType = getServletContext().getMimeType(f.getName());
-		response.setContentType(mimeType);
+		String rangeHeader = request.getHeader("Range");
+		
+		// ranges always refer to the unencoded bytes, so only pick a compressed variant for full responses
+		String encoding = null;
+		File file = resource.getFile();
+		if (rangeHeader == null) {
+			encoding = getPreferredEncoding(request.getHeader("Accept-Encoding"), resource);
+			if (encoding != null) {
+				file = resource.getVariant(encoding);
+			}
+		}
+		
+		String etag = resource.getETag(encoding);
+		response.setHeader("ETag", etag);
+		response.setDateHeader("Last-Modified", resource.getLastModified());
+		response.setHeader("Cache-Control",
+		    request.getParameter(VERSION_PARAMETER) != null ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL);
+		response.setHeader("Accept-Ranges", "bytes");
+		if (resource.hasVariants()) {
+			response.setHeader("Vary", "Accept-Encoding");
+		}
+		response.setContentType(getServletContext().getMimeType(resource.getFile().getName()));
+		
+		if (matchesETag(request.getHeader("If-None-Match"), etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		
+		long length = file.length();
+		long[] range = null;
+		if (rangeHeader != null && isIfRangeSatisfied(request, resource, etag)) {
+			range = parseRange(rangeHeader, length);
+		}
+		
+		if (range == UNSATISFIABLE_RANGE) {
+			response.setHeader("Content-Range", "bytes */" + length);
+			response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			return;
+		}
+		
+		long start = 0;
+		long end = length - 1;
+		if (range != null) {
+			start = range[0];
+			end = range[1];
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+		}
+		
+		if (encoding != null) {
+			response.setHeader("Content-Encoding", encoding);
+		}
+		response.setContentLengthLong(end - start + 1);
+		
+		sendFile(request, response, file, start, end - start + 1);
+	}
+	
+	/**
+	 * Writes the given section of the file to the response, handing it over to the container's
+	 * sendfile implementation when it is available and the response has not been wrapped by a filter
+	 */
+	private void sendFile(HttpServletRequest request, HttpServletResponse response, File file, long start, long count)
+	        throws IOException {
+		if (count <= 0) {
+			return;
+		}
+		
+		if (count >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))
+		        && !(response instanceof ServletResponseWrapper)) {
+			request.setAttribute(SENDFILE_FILENAME_ATTR, file.getAbsolutePath());
+			request.setAttribute(SENDFILE_START_ATTR, start);
+			request.setAttribute(SENDFILE_END_ATTR, start + count);
+			return;
+		}
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = start;
+			long remaining = count;
+			while (remaining > 0) {
+				long written = channel.transferTo(position, remaining, out);
+				if (written <= 0) {
+					break;
+				}
+				position += written;
+				remaining -= written;
+			}
+		}
+	}
+	
+	/**
+	 * Looks up the requested resource in the {@link ModuleResourceIndex}, resolving and indexing it
+	 * if this is the first request for it
+	 *
+	 * @param request the current http request
+	 * @return the resource being requested or null if not found
+	 */
+	protected ModuleResource getResource(HttpServletRequest request) {
+		String path = request.getPathInfo();
+		if (path == null) {
+			return null;
+		}
+		
+		ModuleResource resource = ModuleResourceIndex.getResource(path);
+		if (resource != null) {
+			return resource;
+		}
+		
+		Module module = ModuleUtil.getModuleForPath(path);
+		if (module == null) {
+			log.warn("No module handles the path: " + path);
+			return null;
+		}
+		
+		File f = getFile(module, path);
+		if (f == null) {
+			return null;
+		}
 		
-		FileInputStream is = new FileInputStream(f);
 		try {
-			OpenmrsUtil.copyFile(is, response.getOutputStream());
+			return ModuleResourceIndex.addResource(path, module.getModuleId(), f,
+			    ModuleUtil.getDevelopmentDirectory(module.getModuleId()) != null);
 		}
-		finally {
-			OpenmrsUtil.closeStream(is);
+		catch (IOException e) {
+			log.warn("Unable to read file with path '" + f.getPath() + "' for module '" + module.getModuleId() + "'", e);
+			return null;
 		}
 	}
 	
@@ -89,6 +238,11 @@ public class ModuleResourcesServlet extends HttpServlet {
 			return null;
 		}
 		
+		return getFile(module, path);
+	}
+	
+	private File getFile(Module module, String path) {
+		
 		String relativePath = ModuleUtil.getPathForResource(module, path);
 		String realPath = getServletContext().getRealPath("") + MODULE_PATH + module.getModuleIdAsPath() + "/resources"
 		        + relativePath;
@@ -102,7 +256,7 @@ public class ModuleResourcesServlet extends HttpServlet {
 		realPath = realPath.replace("/", File.separator);
 		
 		File f = new File(realPath);
-		if (!f.exists()) {
+		if (!f.isFile()) {
 			log.warn("No file with path '" + realPath + "' exists for module '" + module.getModuleId() + "'");
 			return null;
 		}
@@ -110,4 +264,134 @@ public class ModuleResourcesServlet extends HttpServlet {
 		return f;
 	}
 	
+	/**
+	 * Picks the best pre-compressed variant of the resource the client accepts, preferring brotli
+	 *
+	 * @param acceptEncoding the Accept-Encoding header of the request
+	 * @param resource the requested resource
+	 * @return br, gzip or null if the response should not be encoded
+	 */
+	static String getPreferredEncoding(String acceptEncoding, ModuleResource resource) {
+		if (acceptEncoding == null || !resource.hasVariants()) {
+			return null;
+		}
+		
+		boolean brotli = false;
+		boolean gzip = false;
+		for (String token : acceptEncoding.split(",")) {
+			String[] parts = token.trim().split(";");
+			String coding = parts[0].trim();
+			if (parts.length > 1 && parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?")) {
+				continue;
+			}
+			if (ModuleResourceIndex.BROTLI_ENCODING.equalsIgnoreCase(coding)) {
+				brotli = true;
+			} else if (ModuleResourceIndex.GZIP_ENCODING.equalsIgnoreCase(coding)) {
+				gzip = true;
+			}
+		}
+		
+		if (brotli && resource.getVariant(ModuleResourceIndex.BROTLI_ENCODING) != null) {
+			return ModuleResourceIndex.BROTLI_ENCODING;
+		}
+		if (gzip && resource.getVariant(ModuleResourceIndex.GZIP_ENCODING) != null) {
+			return ModuleResourceIndex.GZIP_ENCODING;
+		}
+		return null;
+	}
+	
+	/**
+	 * Checks the given If-None-Match header against an ETag, using the weak comparison required for
+	 * that header
+	 *
+	 * @param ifNoneMatch the If-None-Match header of the request
+	 * @param etag the current ETag of the requested representation
+	 * @return true if the client's copy is current
+	 */
+	static boolean matchesETag(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if ("*".equals(candidate) || candidate.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * A range request is only honoured if an If-Range header, if present, still matches the resource
+	 */
+	private boolean isIfRangeSatisfied(HttpServletRequest request, ModuleResource resource, String etag) {
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange == null) {
+			return true;
+		}
+		
+		if (ifRange.startsWith("\"")) {
+			// If-Range requires the strong comparison
+			return ifRange.equals(etag);
+		}
+		
+		try {
+			return request.getDateHeader("If-Range") / 1000 == resource.getLastModified() / 1000;
+		}
+		catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Parses a single byte range, multiple ranges are not supported and result in the whole
+	 * resource being sent, which is allowed by RFC 9110
+	 *
+	 * @param rangeHeader the Range header of the request
+	 * @param length the length of the resource
+	 * @return the first and last byte position of the range, null if the whole resource should be
+	 *         sent or an empty array if the range cannot be satisfied
+	 */
+	static long[] parseRange(String rangeHeader, long length) {
+		if (!rangeHeader.startsWith("bytes=") || rangeHeader.indexOf(',') >= 0) {
+			return null;
+		}
+		
+		String spec = rangeHeader.substring(6).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0) {
+			return null;
+		}
+		
+		long start;
+		long end;
+		try {
+			if (dash == 0) {
+				// suffix range, i.e. the last n bytes
+				long suffix = Long.parseLong(spec.substring(1));
+				if (suffix <= 0) {
+					return UNSATISFIABLE_RANGE;
+				}
+				start = Math.max(0, length - suffix);
+				end = length - 1;
+			} else {
+				start = Long.parseLong(spec.substring(0, dash));
+				end = dash == spec.length() - 1 ? length - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), length - 1);
+			}
+		}
+		catch (NumberFormatException e) {
+			return null;
+		}
+		
+		if (start >= length || start > end) {
+			return UNSATISFIABLE_RANGE;
+		}
+		
+		return new long[] { start, end };
+	}
+	
 }
@@ -241,6 +241,11 @@ public class WebModuleUtil {
 				}
 			}
 			
+			// generate the compressed variants of the module's static resources once, rather than per request
+			ModuleResourceIndex.removeResources(mod);
+			ModuleResourceIndex.precompressResources(mod, new File((realPath + "/WEB-INF/view/module/"
+			        + mod.getModuleIdAsPath() + "/resources").replace("/", File.separator)));
+			
 			// find and add the dwr code to the dwr-modules.xml file (if defined)
 			InputStream inputStream = null;
 			try {
@@ -844,6 +849,9 @@ public class WebModuleUtil {
 			}
 		}
 		
+		// forget the metadata of the module's static resources
+		ModuleResourceIndex.removeResources(mod);
+		
 		// (not) deleting module message properties
 		
 		// remove the module's servlets
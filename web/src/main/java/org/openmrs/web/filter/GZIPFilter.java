@@ -10,6 +10,10 @@
 package org.openmrs.web.filter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -38,6 +42,20 @@ public class GZIPFilter extends OncePerRequestFilter {
 	
 	private String cachedGZipCompressedRequestForPathAccepted = null;
 	
+	/**
+	 * Content types that are already compressed and gain nothing from gzip, can be overridden with the
+	 * excludedContentTypes init-param
+	 */
+	public static final String DEFAULT_EXCLUDED_CONTENT_TYPES = "image/png,image/jpeg,image/gif,image/webp,image/x-icon,"
+	        + "audio/*,video/*,font/woff,font/woff2,application/zip,application/gzip,application/x-gzip,application/pdf,"
+	        + "application/octet-stream";
+	
+	private static final GZIPStatistics STATISTICS = new GZIPStatistics();
+	
+	private int minimumSize = GZIPResponseStream.DEFAULT_MINIMUM_SIZE;
+	
+	private Set<String> excludedContentTypes = parseContentTypes(DEFAULT_EXCLUDED_CONTENT_TYPES);
+	
 	/**
 	 * @see org.springframework.web.filter.OncePerRequestFilter#doFilterInternal(jakarta.servlet.http.HttpServletRequest,
 	 *      jakarta.servlet.http.HttpServletResponse, jakarta.servlet.FilterChain)
@@ -55,7 +73,8 @@ public class GZIPFilter extends OncePerRequestFilter {
 		if (isGZIPSupported(request) && isGZIPEnabled()) {
 			log.debug("GZIP supported and enabled, compressing response");
 			
-			GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response);
+			GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response, minimumSize, excludedContentTypes,
+			        STATISTICS);
 			
 			chain.doFilter(request, wrappedResponse);
 			wrappedResponse.finishResponse();
@@ -66,6 +85,42 @@ public class GZIPFilter extends OncePerRequestFilter {
 		chain.doFilter(request, response);
 	}
 	
+	/**
+	 * Sets the minimum response size in bytes for the response to be compressed, configured through
+	 * the minimumSize init-param
+	 *
+	 * @param minimumSize the size threshold, values above {@link GZIPResourcePool#BUFFER_SIZE} are
+	 *            capped
+	 */
+	public void setMinimumSize(int minimumSize) {
+		this.minimumSize = minimumSize;
+	}
+	
+	/**
+	 * Sets the content types that should never be compressed, configured through the
+	 * excludedContentTypes init-param
+	 *
+	 * @param excludedContentTypes comma separated mime types, entries like image/* match all subtypes
+	 */
+	public void setExcludedContentTypes(String excludedContentTypes) {
+		this.excludedContentTypes = parseContentTypes(excludedContentTypes);
+	}
+	
+	/**
+	 * @return the compression ratio, CPU time and response counts of all gzip filters
+	 */
+	public static GZIPStatistics getStatistics() {
+		return STATISTICS;
+	}
+	
+	private static Set<String> parseContentTypes(String contentTypes) {
+		if (contentTypes == null) {
+			return Collections.emptySet();
+		}
+		return Arrays.stream(contentTypes.split(",")).map(String::trim).filter(type -> !type.isEmpty())
+		        .map(String::toLowerCase).collect(Collectors.toUnmodifiableSet());
+	}
+	
 	/**
 	 * Supports GZIP requests
 	 * @param req request
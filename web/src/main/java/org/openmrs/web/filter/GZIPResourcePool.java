@@ -0,0 +1,92 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Pools the {@link Deflater}s and byte buffers used by {@link GZIPResponseStream}. A Deflater holds
+ * a sizeable native zlib state and is expensive to create, so they are reset and reused across
+ * responses instead of being created per response. The pools are bounded, objects returned to a
+ * full pool are discarded.
+ *
+ * @since 3.0.0
+ */
+public class GZIPResourcePool {
+	
+	/**
+	 * Size of the pooled buffers, this is also the largest response size threshold supported
+	 */
+	public static final int BUFFER_SIZE = 8192;
+	
+	private static final int MAX_POOLED = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+	
+	private static final Queue<Deflater> DEFLATERS = new ConcurrentLinkedQueue<>();
+	
+	private static final AtomicInteger DEFLATER_COUNT = new AtomicInteger();
+	
+	private static final Queue<byte[]> BUFFERS = new ConcurrentLinkedQueue<>();
+	
+	private static final AtomicInteger BUFFER_COUNT = new AtomicInteger();
+	
+	private GZIPResourcePool() {
+	}
+	
+	/**
+	 * @return a Deflater producing raw deflate data, to be wrapped in gzip framing by the caller
+	 */
+	public static Deflater borrowDeflater() {
+		Deflater deflater = DEFLATERS.poll();
+		if (deflater != null) {
+			DEFLATER_COUNT.decrementAndGet();
+			return deflater;
+		}
+		return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	}
+	
+	/**
+	 * @param deflater a Deflater obtained from {@link #borrowDeflater()}, it must not be used afterwards
+	 */
+	public static void returnDeflater(Deflater deflater) {
+		deflater.reset();
+		if (DEFLATER_COUNT.incrementAndGet() <= MAX_POOLED) {
+			DEFLATERS.offer(deflater);
+		} else {
+			DEFLATER_COUNT.decrementAndGet();
+			deflater.end();
+		}
+	}
+	
+	/**
+	 * @return a buffer of {@link #BUFFER_SIZE} bytes, its content is undefined
+	 */
+	public static byte[] borrowBuffer() {
+		byte[] buffer = BUFFERS.poll();
+		if (buffer != null) {
+			BUFFER_COUNT.decrementAndGet();
+			return buffer;
+		}
+		return new byte[BUFFER_SIZE];
+	}
+	
+	/**
+	 * @param buffer a buffer obtained from {@link #borrowBuffer()}, it must not be used afterwards
+	 */
+	public static void returnBuffer(byte[] buffer) {
+		if (BUFFER_COUNT.incrementAndGet() <= MAX_POOLED * 2) {
+			BUFFERS.offer(buffer);
+		} else {
+			BUFFER_COUNT.decrementAndGet();
+		}
+	}
+}
@@ -9,25 +9,46 @@
  */
 package org.openmrs.web.filter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServletResponse;
 
 /**
- * Wraps Response Stream for GZipFilter
- * 
+ * Wraps Response Stream for GZipFilter. The first bytes of the response are held back until either
+ * the minimum size is reached or the response is closed: responses that stay below the minimum size,
+ * are of an excluded content type or are already encoded are sent as they are, all others are
+ * deflated as they are written using a pooled {@link Deflater}. Flushing a compressed response
+ * performs a zlib sync flush so that everything written so far reaches the client.
+ *
  * @author Matt Raible
  * @version $Revision: 1.3 $ $Date: 2004/05/16 02:17:00 $
  */
 public class GZIPResponseStream extends ServletOutputStream {
 	
-	// abstraction of the output stream used for compression
-	protected OutputStream bufferedOutput;
+	/**
+	 * Default minimum number of bytes a response needs to have to get compressed
+	 */
+	public static final int DEFAULT_MINIMUM_SIZE = 1024;
+	
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+	
+	private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+	
+	private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+	
+	private enum State {
+		BUFFERING,
+		COMPRESSING,
+		PASS_THROUGH
+	}
 	
 	// state keeping variable for if close() has been called
 	protected boolean closed;
@@ -38,15 +59,54 @@ public class GZIPResponseStream extends ServletOutputStream {
 	// reference to the output stream to the client's browser
 	protected ServletOutputStream output;
 	
-	// default size of the in-memory buffer
-	private int bufferSize = 50000;
+	private final int minimumSize;
+	
+	private final Set<String> excludedContentTypes;
+	
+	private final GZIPStatistics statistics;
+	
+	private State state = State.BUFFERING;
+	
+	// holds the start of the response until the encoding has been decided
+	private byte[] buffer;
+	
+	private int count;
+	
+	private Deflater deflater;
+	
+	private byte[] deflaterOutput;
+	
+	private final CRC32 crc = new CRC32();
+	
+	private final byte[] singleByte = new byte[1];
+	
+	private long bytesOut;
+	
+	private long cpuTime;
 	
 	public GZIPResponseStream(HttpServletResponse response) throws IOException {
+		this(response, DEFAULT_MINIMUM_SIZE, Collections.emptySet(), new GZIPStatistics());
+	}
+	
+	/**
+	 * @param response the response to write to
+	 * @param minimumSize responses smaller than this are not compressed, capped at
+	 *            {@link GZIPResourcePool#BUFFER_SIZE}
+	 * @param excludedContentTypes lower case mime types that are not compressed, entries ending with
+	 *            /* match all subtypes
+	 * @param statistics where to record the outcome of the response
+	 * @throws IOException
+	 */
+	public GZIPResponseStream(HttpServletResponse response, int minimumSize, Set<String> excludedContentTypes,
+	    GZIPStatistics statistics) throws IOException {
 		super();
 		closed = false;
 		this.response = response;
 		this.output = response.getOutputStream();
-		bufferedOutput = new ByteArrayOutputStream();
+		this.minimumSize = Math.max(0, Math.min(minimumSize, GZIPResourcePool.BUFFER_SIZE));
+		this.excludedContentTypes = excludedContentTypes;
+		this.statistics = statistics;
+		this.buffer = GZIPResourcePool.borrowBuffer();
 	}
 	
 	@Override
@@ -56,41 +116,31 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("This output stream has already been closed");
 		}
 		
-		// if we buffered everything in memory, gzip it
-		if (bufferedOutput instanceof ByteArrayOutputStream) {
-			// get the content
-			ByteArrayOutputStream baos = (ByteArrayOutputStream) bufferedOutput;
-			
-			// prepare a gzip stream
-			ByteArrayOutputStream compressedContent = new ByteArrayOutputStream();
-			GZIPOutputStream gzipstream = new GZIPOutputStream(compressedContent);
-			byte[] bytes = baos.toByteArray();
-			gzipstream.write(bytes);
-			gzipstream.finish();
-			
-			// get the compressed content
-			byte[] compressedBytes = compressedContent.toByteArray();
-			
-			// set appropriate HTTP headers
-			response.setContentLength(compressedBytes.length);
-			response.addHeader("Content-Encoding", "gzip");
-			output.write(compressedBytes);
-			output.flush();
-			output.close();
-			closed = true;
-		}
-		// if things were not buffered in memory, finish the GZIP stream and response
-		else if (bufferedOutput instanceof GZIPOutputStream) {
-			// cast to appropriate type
-			GZIPOutputStream gzipstream = (GZIPOutputStream) bufferedOutput;
-			
-			// finish the compression
-			gzipstream.finish();
+		try {
+			if (state == State.BUFFERING) {
+				// the whole response is below the minimum size, send it as it is
+				state = State.PASS_THROUGH;
+				// a HEAD or 304 response has no body but may carry the headers of the full response
+				if (count > 0) {
+					statistics.recordSkipped();
+					if (response.getStatus() != HttpServletResponse.SC_NOT_MODIFIED) {
+						response.setContentLength(count);
+					}
+					output.write(buffer, 0, count);
+				}
+			} else if (state == State.COMPRESSING) {
+				finishDeflater();
+				writeTrailer();
+				statistics.recordCompressed(deflater.getBytesRead(), bytesOut, cpuTime);
+			}
 			
 			// finish the response
 			output.flush();
 			output.close();
+		}
+		finally {
 			closed = true;
+			release();
 		}
 	}
 	
@@ -100,7 +150,20 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("Cannot flush a closed output stream");
 		}
 		
-		bufferedOutput.flush();
+		// nothing was written yet, keep the headers open for the encoding decision
+		if (state == State.BUFFERING && count == 0) {
+			return;
+		}
+		
+		if (state == State.BUFFERING) {
+			startResponse();
+		}
+		
+		if (state == State.COMPRESSING) {
+			deflate(Deflater.SYNC_FLUSH);
+		}
+		
+		output.flush();
 	}
 	
 	@Override
@@ -109,32 +172,19 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("Cannot write to a closed output stream");
 		}
 		
-		// make sure we aren't over the buffer's limit
-		checkBufferSize(1);
-		
-		// write the byte to the temporary output
-		bufferedOutput.write((byte) b);
-	}
-	
-	private void checkBufferSize(int length) throws IOException {
-		// check if we are buffering too large of a file
-		if (bufferedOutput instanceof ByteArrayOutputStream) {
-			ByteArrayOutputStream baos = (ByteArrayOutputStream) bufferedOutput;
-			
-			if ((baos.size() + length) > bufferSize) {
-				// files too large to keep in memory are sent to the client without Content-Length specified
-				response.addHeader("Content-Encoding", "gzip");
-				
-				// get existing bytes
-				byte[] bytes = baos.toByteArray();
-				
-				// make new gzip stream using the response output stream
-				GZIPOutputStream gzipstream = new GZIPOutputStream(output);
-				gzipstream.write(bytes);
-				
-				// we are no longer buffering, send content via gzipstream
-				bufferedOutput = gzipstream;
+		if (state == State.BUFFERING) {
+			if (count + 1 < minimumSize) {
+				buffer[count++] = (byte) b;
+				return;
 			}
+			startResponse();
+		}
+		
+		if (state == State.COMPRESSING) {
+			singleByte[0] = (byte) b;
+			compress(singleByte, 0, 1);
+		} else {
+			output.write(b);
 		}
 	}
 	
@@ -150,11 +200,149 @@ public class GZIPResponseStream extends ServletOutputStream {
 			throw new IOException("Cannot write to a closed output stream");
 		}
 		
-		// make sure we aren't over the buffer's limit
-		checkBufferSize(len);
+		if (state == State.BUFFERING) {
+			if (count + len < minimumSize) {
+				System.arraycopy(b, off, buffer, count, len);
+				count += len;
+				return;
+			}
+			startResponse();
+		}
 		
-		// write the content to the buffer
-		bufferedOutput.write(b, off, len);
+		if (state == State.COMPRESSING) {
+			compress(b, off, len);
+		} else {
+			output.write(b, off, len);
+		}
+	}
+	
+	/**
+	 * Decides whether to compress the response and writes out what has been buffered so far
+	 */
+	private void startResponse() throws IOException {
+		if (isCompressible()) {
+			state = State.COMPRESSING;
+			response.addHeader("Content-Encoding", "gzip");
+			response.addHeader("Vary", "Accept-Encoding");
+			deflater = GZIPResourcePool.borrowDeflater();
+			deflaterOutput = GZIPResourcePool.borrowBuffer();
+			output.write(GZIP_HEADER);
+			bytesOut += GZIP_HEADER.length;
+			if (count > 0) {
+				compress(buffer, 0, count);
+			}
+		} else {
+			statistics.recordSkipped();
+			state = State.PASS_THROUGH;
+			if (count > 0) {
+				output.write(buffer, 0, count);
+			}
+		}
+		count = 0;
+	}
+	
+	private boolean isCompressible() {
+		if (response.containsHeader("Content-Encoding")) {
+			return false;
+		}
+		
+		int status = response.getStatus();
+		if (status == HttpServletResponse.SC_NO_CONTENT || status == HttpServletResponse.SC_PARTIAL_CONTENT
+		        || status == HttpServletResponse.SC_NOT_MODIFIED) {
+			return false;
+		}
+		
+		return !isExcluded(response.getContentType(), excludedContentTypes);
+	}
+	
+	/**
+	 * @param contentType the content type of the response, possibly with parameters
+	 * @param excludedContentTypes lower case mime types, entries ending with /* match all subtypes
+	 * @return true if the content type is in the given list
+	 */
+	static boolean isExcluded(String contentType, Set<String> excludedContentTypes) {
+		if (contentType == null || excludedContentTypes.isEmpty()) {
+			return false;
+		}
+		
+		int separator = contentType.indexOf(';');
+		String mimeType = (separator < 0 ? contentType : contentType.substring(0, separator)).trim().toLowerCase();
+		if (excludedContentTypes.contains(mimeType)) {
+			return true;
+		}
+		
+		int slash = mimeType.indexOf('/');
+		return slash > 0 && excludedContentTypes.contains(mimeType.substring(0, slash) + "/*");
+	}
+	
+	private void compress(byte[] b, int off, int len) throws IOException {
+		crc.update(b, off, len);
+		deflater.setInput(b, off, len);
+		deflate(Deflater.NO_FLUSH);
+	}
+	
+	private void deflate(int flush) throws IOException {
+		long start = CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+		int length;
+		do {
+			length = deflateChunk(flush);
+			// a full output buffer means there may be more output pending
+		} while (length > 0 && (length == deflaterOutput.length || !deflater.needsInput()));
+		recordCpuTime(start);
+	}
+	
+	private void finishDeflater() throws IOException {
+		long start = CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+		deflater.finish();
+		while (!deflater.finished()) {
+			deflateChunk(Deflater.NO_FLUSH);
+		}
+		recordCpuTime(start);
+	}
+	
+	private int deflateChunk(int flush) throws IOException {
+		int length = deflater.deflate(deflaterOutput, 0, deflaterOutput.length, flush);
+		if (length > 0) {
+			output.write(deflaterOutput, 0, length);
+			bytesOut += length;
+		}
+		return length;
+	}
+	
+	private void recordCpuTime(long start) {
+		if (CPU_TIME_SUPPORTED) {
+			cpuTime += THREAD_MX_BEAN.getCurrentThreadCpuTime() - start;
+		}
+	}
+	
+	private void writeTrailer() throws IOException {
+		byte[] trailer = new byte[8];
+		writeInt((int) crc.getValue(), trailer, 0);
+		writeInt((int) deflater.getBytesRead(), trailer, 4);
+		output.write(trailer);
+		bytesOut += trailer.length;
+	}
+	
+	private static void writeInt(int value, byte[] b, int offset) {
+		b[offset] = (byte) value;
+		b[offset + 1] = (byte) (value >> 8);
+		b[offset + 2] = (byte) (value >> 16);
+		b[offset + 3] = (byte) (value >> 24);
+	}
+	
+	private void release() {
+		if (buffer != null) {
+			GZIPResourcePool.returnBuffer(buffer);
+			buffer = null;
+		}
+		if (deflaterOutput != null) {
+			GZIPResourcePool.returnBuffer(deflaterOutput);
+			deflaterOutput = null;
+		}
+		if (deflater != null) {
+			GZIPResourcePool.returnDeflater(deflater);
+			deflater = null;
+		}
 	}
 	
 	public boolean closed() {
@@ -164,12 +352,12 @@ public class GZIPResponseStream extends ServletOutputStream {
 	public void reset() {
 		//noop
 	}
-
+	
 	@Override
 	public boolean isReady() {
 		throw new UnsupportedOperationException("Asynchonous operation is not supported.");
 	}
-
+	
 	@Override
 	public void setWriteListener(WriteListener writeListener) {
 		throw new UnsupportedOperationException("Asynchonous operation is not supported.");
@@ -12,6 +12,8 @@ package org.openmrs.web.filter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Set;
 
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
@@ -37,13 +39,36 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
 	
 	protected int error = 0;
 	
+	// set when the response is already encoded or partial, in which case it must not be compressed again
+	protected boolean passThrough = false;
+	
+	private final int minimumSize;
+	
+	private final Set<String> excludedContentTypes;
+	
+	private final GZIPStatistics statistics;
+	
 	public GZIPResponseWrapper(HttpServletResponse response) {
+		this(response, GZIPResponseStream.DEFAULT_MINIMUM_SIZE, Collections.emptySet(), new GZIPStatistics());
+	}
+	
+	/**
+	 * @see GZIPResponseStream#GZIPResponseStream(HttpServletResponse, int, Set, GZIPStatistics)
+	 */
+	public GZIPResponseWrapper(HttpServletResponse response, int minimumSize, Set<String> excludedContentTypes,
+	    GZIPStatistics statistics) {
 		super(response);
 		origResponse = response;
+		this.minimumSize = minimumSize;
+		this.excludedContentTypes = excludedContentTypes;
+		this.statistics = statistics;
 	}
 	
 	public ServletOutputStream createOutputStream() throws IOException {
-		return new GZIPResponseStream(origResponse);
+		if (passThrough) {
+			return origResponse.getOutputStream();
+		}
+		return new GZIPResponseStream(origResponse, minimumSize, excludedContentTypes, statistics);
 	}
 	
 	public void finishResponse() {
@@ -51,7 +76,7 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
 			if (writer != null) {
 				writer.close();
 			} else {
-				if (stream != null && !((GZIPResponseStream)stream).closed()) {
+				if (stream instanceof GZIPResponseStream && !((GZIPResponseStream) stream).closed()) {
 					stream.close();
 				}
 			}
@@ -114,8 +139,47 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
 		log.debug("sending error: {} [{}]", error, message);
 	}
 	
+	@Override
+	public void setHeader(String name, String value) {
+		checkPassThrough(name);
+		super.setHeader(name, value);
+	}
+	
+	@Override
+	public void addHeader(String name, String value) {
+		checkPassThrough(name);
+		super.addHeader(name, value);
+	}
+	
+	@Override
+	public void setStatus(int sc) {
+		if (sc == HttpServletResponse.SC_PARTIAL_CONTENT) {
+			passThrough = true;
+		}
+		super.setStatus(sc);
+	}
+	
+	private void checkPassThrough(String headerName) {
+		if ("Content-Encoding".equalsIgnoreCase(headerName) && stream == null) {
+			passThrough = true;
+		}
+	}
+	
+	@Override
+	public void setContentLengthLong(long length) {
+		if (passThrough) {
+			super.setContentLengthLong(length);
+		}
+	}
+	
+	@Override
 	public void setContentLength(int length) {
-		//Intentionally left blank to ignore whatever length the caller sets, because
+		if (passThrough) {
+			super.setContentLength(length);
+			return;
+		}
+		
+		//Otherwise intentionally ignore whatever length the caller sets, because
 		//we are going to zip the response and hence end up with a smaller length.
 		//Without this empty method, the base class's setContentLength() method will be
 		//called, leading to the browser's waiting for more data than what we actually
@@ -0,0 +1,96 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the work done by the {@link GZIPFilter}, used to judge whether the configured
+ * size threshold and content type exclusions pay off.
+ *
+ * @since 3.0.0
+ */
+public class GZIPStatistics {
+	
+	private final LongAdder compressedResponses = new LongAdder();
+	
+	private final LongAdder skippedResponses = new LongAdder();
+	
+	private final LongAdder uncompressedBytes = new LongAdder();
+	
+	private final LongAdder compressedBytes = new LongAdder();
+	
+	private final LongAdder compressionCpuTime = new LongAdder();
+	
+	void recordCompressed(long bytesIn, long bytesOut, long cpuTimeNanos) {
+		compressedResponses.increment();
+		uncompressedBytes.add(bytesIn);
+		compressedBytes.add(bytesOut);
+		compressionCpuTime.add(cpuTimeNanos);
+	}
+	
+	void recordSkipped() {
+		skippedResponses.increment();
+	}
+	
+	/**
+	 * @return the number of responses that were sent gzip encoded
+	 */
+	public long getCompressedResponses() {
+		return compressedResponses.sum();
+	}
+	
+	/**
+	 * @return the number of responses that were sent unencoded because they were below the size
+	 *         threshold or of an excluded content type
+	 */
+	public long getSkippedResponses() {
+		return skippedResponses.sum();
+	}
+	
+	public long getUncompressedBytes() {
+		return uncompressedBytes.sum();
+	}
+	
+	public long getCompressedBytes() {
+		return compressedBytes.sum();
+	}
+	
+	/**
+	 * @return compressed size divided by uncompressed size over all compressed responses, or 1 if
+	 *         nothing has been compressed yet
+	 */
+	public double getCompressionRatio() {
+		long in = uncompressedBytes.sum();
+		return in == 0 ? 1.0 : (double) compressedBytes.sum() / in;
+	}
+	
+	/**
+	 * @return the CPU time spent deflating response bodies in nanoseconds, 0 if the JVM does not
+	 *         support measuring thread CPU time
+	 */
+	public long getCompressionCpuTimeNanos() {
+		return compressionCpuTime.sum();
+	}
+	
+	public void reset() {
+		compressedResponses.reset();
+		skippedResponses.reset();
+		uncompressedBytes.reset();
+		compressedBytes.reset();
+		compressionCpuTime.reset();
+	}
+	
+	@Override
+	public String toString() {
+		return "GZIPStatistics[compressed=" + getCompressedResponses() + ", skipped=" + getSkippedResponses()
+		        + ", ratio=" + getCompressionRatio() + ", cpuTimeNanos=" + getCompressionCpuTimeNanos() + "]";
+	}
+}
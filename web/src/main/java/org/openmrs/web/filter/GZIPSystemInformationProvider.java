@@ -0,0 +1,43 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openmrs.api.SystemInformationProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the {@link GZIPStatistics} of the {@link GZIPFilter} in the system information.
+ *
+ * @since 3.0.0
+ */
+@Component("gzipSystemInformationProvider")
+public class GZIPSystemInformationProvider implements SystemInformationProvider {
+
+	@Override
+	public String getTitle() {
+		return "SystemInfo.title.gzipInformation";
+	}
+
+	@Override
+	public Map<String, String> getSystemInformation() {
+		GZIPStatistics statistics = GZIPFilter.getStatistics();
+		Map<String, String> info = new LinkedHashMap<>();
+		info.put("SystemInfo.Gzip.compressedResponses", String.valueOf(statistics.getCompressedResponses()));
+		info.put("SystemInfo.Gzip.skippedResponses", String.valueOf(statistics.getSkippedResponses()));
+		info.put("SystemInfo.Gzip.compressedBytes",
+		    statistics.getCompressedBytes() + " / " + statistics.getUncompressedBytes());
+		info.put("SystemInfo.Gzip.compressionRatio", String.format("%.1f%%", statistics.getCompressionRatio() * 100));
+		info.put("SystemInfo.Gzip.compressionCpuTime", statistics.getCompressionCpuTimeNanos() / 1000000 + " ms");
+		return info;
+	}
+}
@@ -1166,6 +1166,23 @@ public class InitializationFilter extends StartupFilter {
 	private boolean isCurrentDatabase(String database) {
 		return wizardModel.databaseConnection.contains(database);
 	}
+
+	/**
+	 * New installations pool their connections with HikariCP, which keeps a minimum of connections
+	 * open and collects pool metrics, see hibernate.default.properties for the pool sizes. MySQL and
+	 * MariaDB also get a prepared statement cache.
+	 *
+	 * @param runtimeProperties the runtime properties to add the connection pool properties to
+	 */
+	private void addConnectionPoolProperties(Properties runtimeProperties) {
+		runtimeProperties.put("connection.provider_class", "hikaricp");
+		if (isCurrentDatabase(DATABASE_MYSQL) || isCurrentDatabase(DATABASE_MARIADB)) {
+			runtimeProperties.put("hibernate.hikari.dataSource.cachePrepStmts", "true");
+			runtimeProperties.put("hibernate.hikari.dataSource.prepStmtCacheSize", "250");
+			runtimeProperties.put("hibernate.hikari.dataSource.prepStmtCacheSqlLimit", "2048");
+			runtimeProperties.put("hibernate.hikari.dataSource.useServerPrepStmts", "true");
+		}
+	}
 	
 	/**
 	 * @param silent if this statement fails do not display stack trace or record an error in the wizard
@@ -1550,6 +1567,7 @@ public class InitializationFilter extends StartupFilter {
 						if (StringUtils.hasText(wizardModel.databaseDriver)) {
 							runtimeProperties.put("connection.driver_class", wizardModel.databaseDriver);
 						}
+						addConnectionPoolProperties(runtimeProperties);
 						runtimeProperties.put("module.allow_web_admin", "" + wizardModel.moduleWebAdmin);
 						runtimeProperties.put("auto_update_database", "" + wizardModel.autoUpdateDatabase);
 						final Encoder base64 = Base64.getEncoder();
@@ -0,0 +1,226 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.module.web;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openmrs.module.Module;
+import org.openmrs.module.web.ModuleResourceIndex.ModuleResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+
+/**
+ * Tests {@link ModuleResourcesServlet} and {@link ModuleResourceIndex}
+ */
+public class ModuleResourcesServletTest {
+	
+	@TempDir
+	public Path resourcesDir;
+	
+	@AfterEach
+	public void tearDown() {
+		ModuleResourceIndex.clear();
+	}
+	
+	@Test
+	public void parseRange_shouldParseABoundedRange() {
+		assertArrayEquals(new long[] { 10, 19 }, ModuleResourcesServlet.parseRange("bytes=10-19", 100));
+	}
+	
+	@Test
+	public void parseRange_shouldParseAnOpenEndedRange() {
+		assertArrayEquals(new long[] { 90, 99 }, ModuleResourcesServlet.parseRange("bytes=90-", 100));
+	}
+	
+	@Test
+	public void parseRange_shouldParseASuffixRange() {
+		assertArrayEquals(new long[] { 75, 99 }, ModuleResourcesServlet.parseRange("bytes=-25", 100));
+	}
+	
+	@Test
+	public void parseRange_shouldClampTheEndToTheLength() {
+		assertArrayEquals(new long[] { 50, 99 }, ModuleResourcesServlet.parseRange("bytes=50-500", 100));
+	}
+	
+	@Test
+	public void parseRange_shouldIgnoreMultipleRanges() {
+		assertNull(ModuleResourcesServlet.parseRange("bytes=0-10,20-30", 100));
+	}
+	
+	@Test
+	public void parseRange_shouldIgnoreUnknownUnits() {
+		assertNull(ModuleResourcesServlet.parseRange("items=0-10", 100));
+	}
+	
+	@Test
+	public void parseRange_shouldReturnAnEmptyArrayForAnUnsatisfiableRange() {
+		assertEquals(0, ModuleResourcesServlet.parseRange("bytes=100-", 100).length);
+	}
+	
+	@Test
+	public void matchesETag_shouldMatchAnyTagInTheList() {
+		assertTrue(ModuleResourcesServlet.matchesETag("\"a\", W/\"b\"", "\"b\""));
+		assertTrue(ModuleResourcesServlet.matchesETag("*", "\"b\""));
+		assertFalse(ModuleResourcesServlet.matchesETag("\"a\"", "\"b\""));
+		assertFalse(ModuleResourcesServlet.matchesETag(null, "\"b\""));
+	}
+	
+	@Test
+	public void precompressResources_shouldWriteAGzipVariantForCompressibleResources() throws IOException {
+		String content = "var x = 1;\n".repeat(500);
+		Path script = Files.writeString(resourcesDir.resolve("script.js"), content);
+		Files.writeString(resourcesDir.resolve("tiny.js"), "var y;");
+		
+		ModuleResourceIndex.precompressResources(createModule("test"),
+		    resourcesDir.toFile());
+		
+		Path variant = resourcesDir.resolve("script.js.gz");
+		assertTrue(Files.exists(variant));
+		assertFalse(Files.exists(resourcesDir.resolve("tiny.js.gz")));
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(variant))) {
+			assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		
+		ModuleResource resource = ModuleResourceIndex.addResource("/test/script.js", "test", script.toFile(), false);
+		assertNotNull(resource.getVariant(ModuleResourceIndex.GZIP_ENCODING));
+		assertNull(resource.getVariant(ModuleResourceIndex.BROTLI_ENCODING));
+		assertEquals(ModuleResourceIndex.GZIP_ENCODING,
+		    ModuleResourcesServlet.getPreferredEncoding("br;q=0, gzip, deflate", resource));
+		assertNull(ModuleResourcesServlet.getPreferredEncoding("gzip;q=0", resource));
+	}
+	
+	@Test
+	public void getResource_shouldReturnTheIndexedResource() throws IOException {
+		File file = Files.writeString(resourcesDir.resolve("style.css"), "body {}").toFile();
+		ModuleResource resource = ModuleResourceIndex.addResource("/test/style.css", "test", file, false);
+		
+		assertSame(resource, ModuleResourceIndex.getResource("/test/style.css"));
+		assertEquals(file.length(), resource.getLength());
+		assertNotEquals(resource.getETag(), resource.getETag(ModuleResourceIndex.GZIP_ENCODING));
+	}
+	
+	@Test
+	public void getResource_shouldDropDevelopmentResourcesThatChangedOnDisk() throws IOException {
+		Path path = Files.writeString(resourcesDir.resolve("style.css"), "body {}");
+		ModuleResourceIndex.addResource("/test/style.css", "test", path.toFile(), true);
+		
+		Files.writeString(path, "body { color: red; }");
+		
+		assertNull(ModuleResourceIndex.getResource("/test/style.css"));
+	}
+	
+	@Test
+	public void removeResources_shouldRemoveTheResourcesOfTheGivenModuleOnly() throws IOException {
+		File file = Files.writeString(resourcesDir.resolve("style.css"), "body {}").toFile();
+		ModuleResourceIndex.addResource("/test/style.css", "test", file, false);
+		ModuleResourceIndex.addResource("/other/style.css", "other", file, false);
+		
+		ModuleResourceIndex.removeResources(createModule("test"));
+		
+		assertNull(ModuleResourceIndex.getResource("/test/style.css"));
+		assertNotNull(ModuleResourceIndex.getResource("/other/style.css"));
+	}
+	
+	@Test
+	public void doGet_shouldReturnNotModifiedIfTheETagMatches() throws IOException, ServletException {
+		ModuleResource resource = addScript();
+		MockHttpServletRequest request = newRequest();
+		request.addHeader("If-None-Match", resource.getETag());
+		
+		MockHttpServletResponse response = doGet(request);
+		
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.getStatus());
+		assertEquals(resource.getETag(), response.getHeader("ETag"));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+	
+	@Test
+	public void doGet_shouldReturnTheRequestedRange() throws IOException, ServletException {
+		ModuleResource resource = addScript();
+		MockHttpServletRequest request = newRequest();
+		request.addHeader("Range", "bytes=4-9");
+		request.addHeader("Accept-Encoding", "gzip");
+		
+		MockHttpServletResponse response = doGet(request);
+		
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertEquals("bytes 4-9/" + resource.getLength(), response.getHeader("Content-Range"));
+		assertEquals(6, response.getContentLength());
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals("x = 1;", response.getContentAsString());
+	}
+	
+	@Test
+	public void doGet_shouldReturnTheGzipVariantIfAccepted() throws IOException, ServletException {
+		ModuleResource resource = addScript();
+		MockHttpServletRequest request = newRequest();
+		request.addHeader("Accept-Encoding", "br, gzip");
+		
+		MockHttpServletResponse response = doGet(request);
+		
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals(ModuleResourceIndex.GZIP_ENCODING, response.getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", response.getHeader("Vary"));
+		assertEquals(resource.getETag(ModuleResourceIndex.GZIP_ENCODING), response.getHeader("ETag"));
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+			assertEquals(Files.readString(resource.getFile().toPath()), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+	
+	private ModuleResource addScript() throws IOException {
+		Path script = Files.writeString(resourcesDir.resolve("script.js"), "var x = 1;\n".repeat(500));
+		ModuleResourceIndex.precompressResources(createModule("test"), resourcesDir.toFile());
+		return ModuleResourceIndex.addResource("/test/script.js", "test", script.toFile(), false);
+	}
+	
+	private MockHttpServletRequest newRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/moduleResources/test/script.js");
+		request.setPathInfo("/test/script.js");
+		return request;
+	}
+	
+	private MockHttpServletResponse doGet(MockHttpServletRequest request) throws IOException, ServletException {
+		ModuleResourcesServlet servlet = new ModuleResourcesServlet();
+		servlet.init(new MockServletConfig(new MockServletContext()));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		servlet.doGet(request, response);
+		return response;
+	}
+	
+	private Module createModule(String moduleId) {
+		Module mod = new Module("Test Module");
+		mod.setModuleId(moduleId);
+		return mod;
+	}
+}
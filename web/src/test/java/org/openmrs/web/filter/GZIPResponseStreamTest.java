@@ -0,0 +1,161 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public License,
+ * v. 2.0. If a copy of the MPL was not distributed with this file, You can
+ * obtain one at http://mozilla.org/MPL/2.0/. OpenMRS is also distributed under
+ * the terms of the Healthcare Disclaimer located at http://openmrs.org/license.
+ *
+ * Copyright (C) OpenMRS Inc. OpenMRS is a registered trademark and the OpenMRS
+ * graphic logo is a trademark of OpenMRS Inc.
+ */
+package org.openmrs.web.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Tests {@link GZIPResponseStream}
+ */
+public class GZIPResponseStreamTest {
+	
+	private static final Set<String> EXCLUDED = Set.of("image/jpeg", "video/*");
+	
+	private MockHttpServletResponse response;
+	
+	private GZIPStatistics statistics;
+	
+	@BeforeEach
+	public void setUp() {
+		response = new MockHttpServletResponse();
+		statistics = new GZIPStatistics();
+	}
+	
+	@Test
+	public void close_shouldCompressResponsesAboveTheMinimumSize() throws IOException {
+		String content = "{\"results\":[]}".repeat(1000);
+		response.setContentType("application/json");
+		
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024, EXCLUDED, statistics);
+		stream.write(content.getBytes(StandardCharsets.UTF_8));
+		stream.close();
+		
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals(content, gunzip(response.getContentAsByteArray()));
+		assertEquals(1, statistics.getCompressedResponses());
+		assertEquals(content.length(), statistics.getUncompressedBytes());
+		assertTrue(statistics.getCompressionRatio() < 1.0);
+	}
+	
+	@Test
+	public void close_shouldNotCompressResponsesBelowTheMinimumSize() throws IOException {
+		response.setContentType("application/json");
+		
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024, EXCLUDED, statistics);
+		stream.write("{}".getBytes(StandardCharsets.UTF_8));
+		stream.close();
+		
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals("{}", response.getContentAsString());
+		assertEquals(2, response.getContentLength());
+		assertEquals(1, statistics.getSkippedResponses());
+	}
+	
+	@Test
+	public void close_shouldNotSetTheContentLengthIfNothingWasWritten() throws IOException {
+		response.setContentType("application/json");
+		
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024, EXCLUDED, statistics);
+		stream.close();
+		
+		assertNull(response.getHeader("Content-Length"));
+		assertEquals(0, statistics.getSkippedResponses());
+	}
+	
+	@Test
+	public void close_shouldNotSetTheContentLengthOfNotModifiedResponses() throws IOException {
+		response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+		
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024, EXCLUDED, statistics);
+		stream.write("{}".getBytes(StandardCharsets.UTF_8));
+		stream.close();
+		
+		assertNull(response.getHeader("Content-Length"));
+	}
+	
+	@Test
+	public void write_shouldCompressSingleBytes() throws IOException {
+		String content = "a line of text\n".repeat(200);
+		response.setContentType("text/plain");
+		
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024, EXCLUDED, statistics);
+		for (byte b : content.getBytes(StandardCharsets.UTF_8)) {
+			stream.write(b);
+		}
+		stream.close();
+		
+		assertEquals("gzip", response.getHeader("Content-Encoding"));
+		assertEquals(content, gunzip(response.getContentAsByteArray()));
+	}
+	
+	@Test
+	public void write_shouldNotCompressExcludedContentTypes() throws IOException {
+		byte[] content = new byte[10000];
+		response.setContentType("video/mp4");
+		
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024, EXCLUDED, statistics);
+		stream.write(content);
+		stream.close();
+		
+		assertNull(response.getHeader("Content-Encoding"));
+		assertEquals(content.length, response.getContentAsByteArray().length);
+	}
+	
+	@Test
+	public void flush_shouldSendEverythingWrittenSoFar() throws IOException {
+		String first = "a line of text\n".repeat(200);
+		String second = "another line of text\n".repeat(200);
+		response.setContentType("text/html;charset=UTF-8");
+		
+		GZIPResponseStream stream = new GZIPResponseStream(response, 1024, EXCLUDED, statistics);
+		stream.write(first.getBytes(StandardCharsets.UTF_8));
+		stream.flush();
+		
+		assertTrue(response.isCommitted());
+		byte[] flushed = response.getContentAsByteArray();
+		assertTrue(flushed.length > 0);
+		
+		stream.write(second.getBytes(StandardCharsets.UTF_8));
+		stream.close();
+		
+		assertTrue(stream.closed());
+		assertEquals(first + second, gunzip(response.getContentAsByteArray()));
+	}
+	
+	@Test
+	public void isExcluded_shouldMatchExactTypesAndWildcards() {
+		assertTrue(GZIPResponseStream.isExcluded("image/jpeg", EXCLUDED));
+		assertTrue(GZIPResponseStream.isExcluded("VIDEO/mp4; codecs=avc1", EXCLUDED));
+		assertFalse(GZIPResponseStream.isExcluded("image/svg+xml", EXCLUDED));
+		assertFalse(GZIPResponseStream.isExcluded(null, EXCLUDED));
+	}
+	
+	private String gunzip(byte[] compressed) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}